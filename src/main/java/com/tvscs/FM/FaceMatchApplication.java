@@ -6,9 +6,11 @@ import io.github.cdimascio.dotenv.Dotenv;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableConfigurationProperties({DigioProperties.class, FmProperties.class})
+@EnableScheduling
 public class FaceMatchApplication {
 
 	public static void main(String[] args) {
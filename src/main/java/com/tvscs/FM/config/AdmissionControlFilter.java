@@ -0,0 +1,126 @@
+package com.tvscs.FM.config;
+
+import com.tvscs.FM.utils.AdmissionQueue;
+import com.tvscs.FM.utils.AdmissionQueue.Priority;
+import com.tvscs.FM.utils.JsonCodec;
+import com.tvscs.FM.utils.RequestDeadline;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.security.autoconfigure.web.servlet.SecurityFilterProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Admission control in front of everything else, including authentication and body capture.
+ *
+ * Requests queue in an {@link AdmissionQueue} instead of piling up in Tomcat's worker pool, so the time
+ * each one waits can be measured and bounded. Under a standing queue a request is shed with 503 and
+ * Retry-After once it has waited {@code fm.admission.target-ms}, before any real work is done for it.
+ * Webhooks and token requests are admitted ahead of other calls and new face-match submissions last.
+ *
+ * A request whose deadline passed while it was queued is answered 504 without running.
+ *
+ * Waiters park a Tomcat worker thread, so the gate can only hold {@code server.tomcat.threads.max} minus
+ * {@code max-concurrent} of them; anything beyond that waits unmeasured in Tomcat's accept queue. A
+ * configured {@code max-queued} larger than that is capped at startup.
+ *
+ * Async dispatches (long-poll, event streams) are not gated: the slot is released when the initial
+ * dispatch returns the thread.
+ */
+@Component
+@Order(SecurityFilterProperties.DEFAULT_FILTER_ORDER - 20)
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final FmProperties.Admission config;
+    private final AdmissionQueue queue;
+    private final JsonCodec jsonCodec;
+
+    public AdmissionControlFilter(FmProperties fmProperties, JsonCodec jsonCodec,
+                                  @Value("${server.tomcat.threads.max:200}") int tomcatMaxThreads) {
+        this.config = fmProperties.getAdmission();
+        this.jsonCodec = jsonCodec;
+        int maxQueued = config.getMaxQueued();
+        if (config.getMaxConcurrent() + maxQueued > tomcatMaxThreads) {
+            maxQueued = Math.max(0, tomcatMaxThreads - config.getMaxConcurrent());
+            log.warn("[ADMISSION] max-concurrent {} + max-queued {} exceeds server.tomcat.threads.max {}; "
+                            + "capping max-queued at {}", config.getMaxConcurrent(), config.getMaxQueued(),
+                    tomcatMaxThreads, maxQueued);
+        }
+        this.queue = new AdmissionQueue(config.getMaxConcurrent(), maxQueued,
+                config.getTargetMs(), config.getIntervalMs());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean admitted;
+        try {
+            admitted = queue.admit(priority(request.getRequestURI()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+
+        if (!admitted) {
+            log.warn("[ADMISSION] Shed {} {} (active={}, queued={})", request.getMethod(),
+                    request.getRequestURI(), queue.getActive(), queue.getQueued());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(config.getRetryAfterSeconds()));
+            sendError(response, request.getRequestURI(), HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                    "Service Unavailable", "Server is overloaded, retry later");
+            return;
+        }
+
+        try {
+            if (RequestDeadline.expired(RequestDeadline.STAGE_ADMISSION)) {
+                sendError(response, request.getRequestURI(), HttpServletResponse.SC_GATEWAY_TIMEOUT,
+                        "Gateway Timeout", "Request deadline exceeded while queued");
+                return;
+            }
+            filterChain.doFilter(request, response);
+        } finally {
+            queue.release();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !config.isEnabled() || !request.getRequestURI().startsWith("/api/");
+    }
+
+    public AdmissionQueue getQueue() {
+        return queue;
+    }
+
+    Priority priority(String path) {
+        if (matches(path, config.getHighPriorityPaths())) {
+            return Priority.HIGH;
+        }
+        if (matches(path, config.getLowPriorityPaths())) {
+            return Priority.LOW;
+        }
+        return Priority.NORMAL;
+    }
+
+    private static boolean matches(String path, Iterable<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (path.equals(prefix) || path.startsWith(prefix + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sendError(HttpServletResponse response, String path, int status, String error, String message)
+            throws IOException {
+        jsonCodec.writeError(response, status, error, message, path);
+    }
+}
@@ -1,6 +1,9 @@
 package com.tvscs.FM.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvscs.FM.metrics.FmMetrics;
+import com.tvscs.FM.metrics.RequestTiming;
+import com.tvscs.FM.metrics.jfr.AuditFlushEvent;
 import com.tvscs.FM.models.Audit;
 import com.tvscs.FM.repository.AuditRepository;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,6 +17,7 @@ import org.springframework.web.util.ContentCachingResponseWrapper;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.CompletableFuture;
 
 @Component
@@ -22,17 +26,22 @@ public class AuditLoggingInterceptor implements HandlerInterceptor {
 
     private final AuditRepository auditRepository;
     private final ObjectMapper objectMapper;
+    private final FmMetrics fmMetrics;
 
-    private static final ThreadLocal<Long> requestStartTime = new ThreadLocal<>();
+    // Request attribute rather than ThreadLocal: async requests finish on a different dispatch
+    private static final String START_TIME_ATTRIBUTE = "audit.startTime";
 
-    public AuditLoggingInterceptor(AuditRepository auditRepository, ObjectMapper objectMapper) {
+    public AuditLoggingInterceptor(AuditRepository auditRepository, ObjectMapper objectMapper, FmMetrics fmMetrics) {
         this.auditRepository = auditRepository;
         this.objectMapper = objectMapper;
+        this.fmMetrics = fmMetrics;
     }
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
-        requestStartTime.set(System.currentTimeMillis());
+        if (request.getAttribute(START_TIME_ATTRIBUTE) == null) {
+            request.setAttribute(START_TIME_ATTRIBUTE, System.nanoTime());
+        }
         log.debug("[AUDIT] preHandle: uri={}, method={}, contentType={}",
                 request.getRequestURI(), request.getMethod(), request.getContentType());
         return true;
@@ -41,9 +50,12 @@ public class AuditLoggingInterceptor implements HandlerInterceptor {
     @Override
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
                                 Object handler, Exception ex) {
-        long startTime = requestStartTime.get();
-        long durationMs = System.currentTimeMillis() - startTime;
-        requestStartTime.remove();
+        long captureStart = System.nanoTime();
+        // Prefer the filter-level timing so time spent queueing and authenticating is included
+        RequestTiming timing = (RequestTiming) request.getAttribute(RequestTiming.ATTRIBUTE);
+        Long startTime = (Long) request.getAttribute(START_TIME_ATTRIBUTE);
+        long durationMs = timing != null ? TimeUnit.NANOSECONDS.toMillis(timing.elapsedNanos())
+                : startTime != null ? TimeUnit.NANOSECONDS.toMillis(captureStart - startTime) : 0L;
 
         try {
             String accountId = (String) request.getAttribute("auth.accountId");
@@ -52,25 +64,30 @@ public class AuditLoggingInterceptor implements HandlerInterceptor {
 
             log.debug("[AUDIT] Request attributes: auth.accountId={}, auth.portfolio={}",
                     accountId, portfolio);
-            java.util.Enumeration<String> attrNames = request.getAttributeNames();
-            while (attrNames.hasMoreElements()) {
-                String attrName = attrNames.nextElement();
-                log.debug("[AUDIT] Attribute: {} = {}", attrName, request.getAttribute(attrName));
+            if (log.isTraceEnabled()) {
+                java.util.Enumeration<String> attrNames = request.getAttributeNames();
+                while (attrNames.hasMoreElements()) {
+                    String attrName = attrNames.nextElement();
+                    log.trace("[AUDIT] Attribute: {} = {}", attrName, request.getAttribute(attrName));
+                }
             }
 
             String reqPayload = extractRequestPayload(request);
-            log.debug("[AUDIT] Extracted request payload: {}",
-                    reqPayload != null ? reqPayload.substring(0, Math.min(200, reqPayload.length())) + "..." : "NULL");
+            if (log.isDebugEnabled()) {
+                log.debug("[AUDIT] Extracted request payload: {}", preview(reqPayload));
+            }
 
             String respPayload = extractResponsePayload(response);
-            log.debug("[AUDIT] Extracted response payload: {}",
-                    respPayload != null ? respPayload.substring(0, Math.min(200, respPayload.length())) + "..." : "NULL");
+            if (log.isDebugEnabled()) {
+                log.debug("[AUDIT] Extracted response payload: {}", preview(respPayload));
+            }
 
             String vendorId = extractVendorId(request);
             log.debug("[AUDIT] Vendor ID: {}", vendorId);
 
             Audit audit = Audit.builder()
                     .vendorId(vendorId)
+                    .customerIdHash((String) request.getAttribute("audit.customerIdHash"))
                     .endpoint(request.getRequestURI())
                     .httpMethod(request.getMethod())
                     .payload(reqPayload)
@@ -81,6 +98,15 @@ public class AuditLoggingInterceptor implements HandlerInterceptor {
                     .clientIp(getClientIp(request))
                     .userAgent(request.getHeader("User-Agent"))
                     .requestDurationMs(durationMs)
+                    .authFilterUs(micros(timing, FmMetrics.Stage.AUTH_FILTER))
+                    .jwtVerifyUs(micros(timing, FmMetrics.Stage.JWT_VERIFY))
+                    .accountLookupUs(micros(timing, FmMetrics.Stage.ACCOUNT_LOOKUP))
+                    .imageEncodeUs(micros(timing, FmMetrics.Stage.IMAGE_ENCODE))
+                    .digioRoundTripUs(micros(timing, FmMetrics.Stage.DIGIO_CALL))
+                    .webhookUpsertUs(micros(timing, FmMetrics.Stage.WEBHOOK_UPSERT))
+                    .dbPoolAcquireUs(micros(timing, FmMetrics.Stage.DB_POOL_ACQUIRE))
+                    .dbPoolUsageUs(micros(timing, FmMetrics.Stage.DB_POOL_USAGE))
+                    .dbHeldAcrossHttp(timing != null ? (timing.isHeldAcrossHttp() ? 1 : 0) : null)
                     .isError(ex != null || response.getStatus() >= 400 ? 1 : 0)
                     .errorMessage(ex != null ? truncateMessage(ex.getMessage()) : null)
                     .transactionId(UUID.randomUUID().toString().toLowerCase())
@@ -88,10 +114,17 @@ public class AuditLoggingInterceptor implements HandlerInterceptor {
                     .updatedBy(createdBy)
                     .build();
 
+            long captureNanos = System.nanoTime() - captureStart;
+            fmMetrics.record(FmMetrics.Stage.AUDIT_CAPTURE, captureNanos);
+            // Async requests complete on a dispatch thread the timing is not bound to
+            if (timing != null && RequestTiming.current() != timing) {
+                timing.add(FmMetrics.Stage.AUDIT_CAPTURE, captureNanos);
+            }
+
             CompletableFuture.runAsync(() -> {
                 try {
-                    auditRepository.save(audit);
-                    log.info("[AUDIT] SAVED: endpoint={}, status={}, duration={}ms, payload={}, response={}",
+                    save(audit);
+                    log.debug("[AUDIT] SAVED: endpoint={}, status={}, duration={}ms, payload={}, response={}",
                             audit.getEndpoint(),
                             audit.getHttpStatus(),
                             durationMs,
@@ -108,6 +141,33 @@ public class AuditLoggingInterceptor implements HandlerInterceptor {
         }
     }
 
+    /**
+     * Rows are written one per request, so each flush is a batch of one.
+     */
+    private void save(Audit audit) {
+        AuditFlushEvent event = new AuditFlushEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            auditRepository.save(audit);
+            succeeded = true;
+        } finally {
+            fmMetrics.record(FmMetrics.Stage.AUDIT_INSERT, System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.batchSize = 1;
+                event.endpoint = audit.getEndpoint();
+                event.succeeded = succeeded;
+                event.commit();
+            }
+        }
+    }
+
+    private static Long micros(RequestTiming timing, FmMetrics.Stage stage) {
+        return timing != null ? timing.micros(stage) : null;
+    }
+
     private String extractRequestPayload(HttpServletRequest request) {
         log.debug("[AUDIT] extractRequestPayload: isWrapped={}, contentType={}, contentLength={}",
                 RequestBodyCaptureFilter.isWrapped(),
@@ -117,18 +177,27 @@ public class AuditLoggingInterceptor implements HandlerInterceptor {
         try {
             String controllerPayload = (String) request.getAttribute("audit.payload");
             if (controllerPayload != null && !controllerPayload.isEmpty()) {
-                log.debug("[AUDIT] Using controller-set canonicalized payload: {}",
-                        controllerPayload.substring(0, Math.min(200, controllerPayload.length())));
+                if (log.isDebugEnabled()) {
+                    log.debug("[AUDIT] Using controller-set canonicalized payload: {}", preview(controllerPayload));
+                }
                 return truncatePayload(controllerPayload);
             }
             
             String capturedBody = RequestBodyCaptureFilter.getCachedBody();
             if (capturedBody != null && !capturedBody.isEmpty()) {
-                log.debug("[AUDIT] Using captured body from CachingRequestWrapper: {}",
-                        capturedBody.substring(0, Math.min(200, capturedBody.length())));
+                if (log.isDebugEnabled()) {
+                    log.debug("[AUDIT] Using captured body from CachingRequestWrapper: {}", preview(capturedBody));
+                }
                 return truncatePayload(capturedBody);
             }
             
+            // GET endpoints (admin search/export) have no body; keep the query string,
+            // since fm_audit.payload is NOT NULL
+            if ("GET".equalsIgnoreCase(request.getMethod())) {
+                String query = request.getQueryString();
+                return truncatePayload(query != null ? query : "{}");
+            }
+
             log.debug("[AUDIT] No payload found, returning null");
             return null;
 
@@ -148,13 +217,11 @@ public class AuditLoggingInterceptor implements HandlerInterceptor {
                 log.debug("[AUDIT] Response content length: {} bytes", content.length);
 
                 if (content.length > 0) {
-                    String payload = new String(content, StandardCharsets.UTF_8);
-                    log.debug("[AUDIT] Response payload: {}",
-                            payload.substring(0, Math.min(200, payload.length())));
-                    return truncatePayload(payload);
+                    return truncatePayload(new String(content, StandardCharsets.UTF_8));
                 }
             } else {
-                log.warn("[AUDIT] Response is NOT a ContentCachingResponseWrapper!");
+                // Streaming endpoints (audit export) are deliberately not wrapped
+                log.debug("[AUDIT] Response is not a ContentCachingResponseWrapper, skipping response payload");
             }
             return null;
         } catch (Exception e) {
@@ -163,6 +230,14 @@ public class AuditLoggingInterceptor implements HandlerInterceptor {
         }
     }
 
+    /**
+     * First 200 characters, for debug logs. Only call behind a level check.
+     */
+    private static String preview(String payload) {
+        if (payload == null) return "NULL";
+        return payload.length() > 200 ? payload.substring(0, 200) + "..." : payload;
+    }
+
     private String truncatePayload(String payload) {
         if (payload == null) return null;
         if (payload.length() > 10000) {
@@ -188,10 +263,11 @@ public class AuditLoggingInterceptor implements HandlerInterceptor {
     }
 
     private String extractVendorId(HttpServletRequest request) {
-        // Only extract vendorId for webhook requests - for /face-match, 
-        // the transaction doesn't exist in FM_TRANSACTIONS yet (created by webhook later)
+        // Webhooks carry the Digio id in kyc_request.id; /face-match gets it from the Digio create response.
+        // fk_fm_audit_vendor_id was dropped (2026-10-19 migration) so face-match rows can be written
+        // before the webhook creates the FM_TRANSACTIONS row.
         String webhookVendorId = (String) request.getAttribute("auth.webhookVendorId");
         if (webhookVendorId != null) return webhookVendorId;
-        return null;
+        return (String) request.getAttribute("auth.vendorId");
     }
 }
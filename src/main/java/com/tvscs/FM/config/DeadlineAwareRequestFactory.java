@@ -0,0 +1,30 @@
+package com.tvscs.FM.config;
+
+import com.tvscs.FM.utils.RequestDeadline;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+/**
+ * Sizes connect and read timeouts of each outbound call to what is left of the calling request's
+ * deadline, within the configured defaults.
+ */
+public class DeadlineAwareRequestFactory extends SimpleClientHttpRequestFactory {
+
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    public DeadlineAwareRequestFactory(int connectTimeoutMs, int readTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    @Override
+    protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+        super.prepareConnection(connection, httpMethod);
+        // A timeout of 0 means "wait forever" to HttpURLConnection, so never go below 1ms
+        connection.setConnectTimeout((int) Math.max(1, RequestDeadline.remainingMs(connectTimeoutMs)));
+        connection.setReadTimeout((int) Math.max(1, RequestDeadline.remainingMs(readTimeoutMs)));
+    }
+}
@@ -0,0 +1,75 @@
+package com.tvscs.FM.config;
+
+import com.tvscs.FM.utils.RequestDeadline;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.security.autoconfigure.web.servlet.SecurityFilterProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Starts the request deadline before anything else runs, so admission queueing counts against it.
+ *
+ * The client states how long it will wait in {@code fm.deadline.header} (milliseconds); the value is
+ * capped at {@code fm.deadline.max-ms} and defaults to {@code fm.deadline.default-ms}. The effective
+ * timeout is echoed in the same response header. Requests that complete after their deadline are
+ * counted under the "response" stage.
+ */
+@Component
+@Order(SecurityFilterProperties.DEFAULT_FILTER_ORDER - 30)
+@Slf4j
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    public static final String ATTRIBUTE = "deadline";
+
+    private final FmProperties.Deadline config;
+
+    public DeadlineFilter(FmProperties fmProperties) {
+        this.config = fmProperties.getDeadline();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestDeadline deadline = new RequestDeadline(timeoutMs(request.getHeader(config.getHeader())));
+        response.setHeader(config.getHeader(), Long.toString(deadline.getTimeoutMs()));
+        request.setAttribute(ATTRIBUTE, deadline);
+        RequestDeadline.set(deadline);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+            if (!request.isAsyncStarted() && deadline.isExpired()) {
+                RequestDeadline.recordExceeded(RequestDeadline.STAGE_RESPONSE);
+                log.debug("[DEADLINE] {} {} completed after its {}ms deadline", request.getMethod(),
+                        request.getRequestURI(), deadline.getTimeoutMs());
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !config.isEnabled() || !request.getRequestURI().startsWith("/api/");
+    }
+
+    long timeoutMs(String header) {
+        long requested = config.getDefaultMs();
+        if (header != null && !header.isBlank()) {
+            try {
+                long parsed = Long.parseLong(header.trim());
+                if (parsed > 0) {
+                    requested = parsed;
+                }
+            } catch (NumberFormatException e) {
+                log.debug("[DEADLINE] Ignoring malformed {} header: {}", config.getHeader(), header);
+            }
+        }
+        return Math.min(requested, config.getMaxMs());
+    }
+}
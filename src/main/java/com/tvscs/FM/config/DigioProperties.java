@@ -30,6 +30,15 @@ public class DigioProperties {
     @NotBlank(message = "Digio endpoint URL is required")
     private String endpoint = "https://ext.digio.in:444/client/kyc/v2/request/with_template";
 
+    @NotBlank(message = "Digio status endpoint URL is required")
+    private String statusEndpoint = "https://ext.digio.in:444/client/kyc/v2/{id}/response";
+
     @NotBlank(message = "Digio base URL is required")
     private String baseUrl = "https://ext.digio.in/#/gateway/login";
+
+    @Positive(message = "Digio connect timeout must be positive")
+    private int connectTimeoutMs = 5000;
+
+    @Positive(message = "Digio read timeout must be positive")
+    private int readTimeoutMs = 30000;
 }
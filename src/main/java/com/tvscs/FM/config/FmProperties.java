@@ -1,13 +1,20 @@
 package com.tvscs.FM.config;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Positive;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Getter
 @Setter
 @Component
@@ -17,6 +24,34 @@ public class FmProperties {
 
     private Jwt jwt = new Jwt();
 
+    private AuditArchive auditArchive = new AuditArchive();
+
+    private AuditExport auditExport = new AuditExport();
+
+    private Outbox outbox = new Outbox();
+
+    private StatusCache statusCache = new StatusCache();
+
+    private StatusStream statusStream = new StatusStream();
+
+    private Callbacks callbacks = new Callbacks();
+
+    private Reconciler reconciler = new Reconciler();
+
+    private Providers providers = new Providers();
+
+    private Admission admission = new Admission();
+
+    private Scheduler scheduler = new Scheduler();
+
+    private Deadline deadline = new Deadline();
+
+    private UploadBudget uploadBudget = new UploadBudget();
+
+    private Image image = new Image();
+
+    private ConnectionHold connectionHold = new ConnectionHold();
+
     @Getter
     @Setter
     public static class Jwt {
@@ -26,4 +61,413 @@ public class FmProperties {
         @Positive(message = "JWT TTL minutes must be positive")
         private int ttlMinutes = 15;
     }
+
+    @Getter
+    @Setter
+    public static class AuditArchive {
+        private boolean enabled = false;
+
+        @NotBlank(message = "Audit archive cron is required")
+        private String cron = "0 30 2 * * *";
+
+        @NotBlank(message = "Audit archive directory is required")
+        private String directory = "./audit-archive";
+
+        @Positive(message = "Audit archive retention days must be positive")
+        private int retentionDays = 90;
+
+        @Positive(message = "Audit archive batch size must be positive")
+        private int batchSize = 500;
+
+        @Positive(message = "Audit archive rows per block must be positive")
+        private int blockRows = 256;
+
+        @Positive(message = "Audit archive rows per segment must be positive")
+        private int segmentMaxRows = 50000;
+    }
+
+    @Getter
+    @Setter
+    public static class AuditExport {
+        @Positive(message = "Audit export page size must be positive")
+        private int pageSize = 1000;
+
+        @Positive(message = "Audit export fetch size must be positive")
+        private int fetchSize = 500;
+
+        // Each response holds a pool connection while a page is streamed to the client, so one export
+        // request stops after this many rows or this long; the client resumes from its last resume_token
+        @Positive(message = "Audit export max rows must be positive")
+        private int maxRows = 100000;
+
+        @Positive(message = "Audit export max duration must be positive")
+        private long maxDurationMs = 300000;
+    }
+
+    @Getter
+    @Setter
+    public static class Outbox {
+        private boolean enabled = true;
+
+        @Positive(message = "Outbox workers must be positive")
+        private int workers = 4;
+
+        @Positive(message = "Outbox poll interval must be positive")
+        private long pollIntervalMs = 1000;
+
+        @Positive(message = "Outbox max attempts must be positive")
+        private int maxAttempts = 5;
+
+        @Positive(message = "Outbox initial backoff must be positive")
+        private long initialBackoffMs = 2000;
+
+        @Positive(message = "Outbox max backoff must be positive")
+        private long maxBackoffMs = 300000;
+
+        @Positive(message = "Outbox lease must be positive")
+        private long leaseMs = 120000;
+
+        @Positive(message = "Outbox Digio call rate must be positive")
+        private double maxCallsPerSecond = 10;
+    }
+
+    @Getter
+    @Setter
+    public static class StatusCache {
+        @Positive(message = "Status cache TTL must be positive")
+        private int ttlSeconds = 30;
+
+        @Positive(message = "Status cache max entries must be positive")
+        private int maxEntries = 100000;
+
+        @Positive(message = "Status long-poll max wait must be positive")
+        private int maxWaitSeconds = 60;
+    }
+
+    @Getter
+    @Setter
+    public static class StatusStream {
+        @Positive(message = "Status stream buffer size must be positive")
+        private int bufferSize = 64;
+
+        @Positive(message = "Status stream replay size must be positive")
+        private int replaySize = 256;
+
+        @Positive(message = "Status stream replay TTL must be positive")
+        private int replayTtlSeconds = 300;
+
+        @Positive(message = "Status stream heartbeat interval must be positive")
+        private int heartbeatSeconds = 20;
+
+        @Positive(message = "Status stream timeout must be positive")
+        private long timeoutMs = 1800000;
+
+        @Positive(message = "Status stream max subscribers per account must be positive")
+        private int maxSubscribersPerAccount = 100;
+
+        @Positive(message = "Status stream sender threads must be positive")
+        private int senderThreads = 4;
+
+        // A subscriber blocked in one write for longer is dropped on the next heartbeat
+        @Positive(message = "Status stream send timeout must be positive")
+        private long sendTimeoutMs = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class Callbacks {
+        private boolean enabled = true;
+
+        @Positive(message = "Callback workers must be positive")
+        private int workers = 8;
+
+        @Positive(message = "Callback poll interval must be positive")
+        private long pollIntervalMs = 1000;
+
+        @Positive(message = "Callback batch size must be positive")
+        private int batchSize = 50;
+
+        @Positive(message = "Callback concurrency per destination must be positive")
+        private int maxConcurrencyPerDestination = 2;
+
+        @Positive(message = "Callback max attempts must be positive")
+        private int maxAttempts = 10;
+
+        @Positive(message = "Callback initial backoff must be positive")
+        private long initialBackoffMs = 5000;
+
+        @Positive(message = "Callback max backoff must be positive")
+        private long maxBackoffMs = 3600000;
+
+        @Positive(message = "Callback lease must be positive")
+        private long leaseMs = 60000;
+
+        @Positive(message = "Callback connect timeout must be positive")
+        private int connectTimeoutMs = 2000;
+
+        @Positive(message = "Callback read timeout must be positive")
+        private int readTimeoutMs = 5000;
+    }
+
+    @Getter
+    @Setter
+    public static class Reconciler {
+        private boolean enabled = true;
+
+        @Positive(message = "Reconciler interval must be positive")
+        private long intervalMs = 300000;
+
+        @Positive(message = "Reconciler stale-after minutes must be positive")
+        private int staleAfterMinutes = 30;
+
+        @Positive(message = "Reconciler batch size must be positive")
+        private int batchSize = 200;
+
+        @Positive(message = "Reconciler max batches per run must be positive")
+        private int maxBatchesPerRun = 50;
+
+        @Positive(message = "Reconciler Digio concurrency must be positive")
+        private int maxConcurrency = 4;
+
+        @Positive(message = "Reconciler Digio call rate must be positive")
+        private double maxCallsPerSecond = 5;
+
+        // A row that comes back unchanged waits stale-after-minutes, doubling per lookup up to this
+        @Positive(message = "Reconciler max backoff minutes must be positive")
+        private long maxBackoffMinutes = 1440;
+
+        @NotEmpty(message = "Reconciler pending statuses are required")
+        private List<String> pendingStatuses = new ArrayList<>(List.of("requested", "pending", "approval_pending"));
+    }
+
+    @Getter
+    @Setter
+    public static class Providers {
+        @NotBlank(message = "Default provider is required")
+        private String defaultProvider = "digio";
+
+        // Relative traffic share per provider name; 0 or missing takes the provider out of routing
+        private Map<String, Integer> weights = new HashMap<>(Map.of("digio", 100));
+
+        @Positive(message = "Provider EWMA alpha must be positive")
+        private double ewmaAlpha = 0.2;
+
+        @Positive(message = "Provider initial latency must be positive")
+        private long initialLatencyMs = 1000;
+
+        @Positive(message = "Provider failure threshold must be positive")
+        private int failureThreshold = 5;
+
+        @Positive(message = "Provider error rate threshold must be positive")
+        private double errorRateThreshold = 0.5;
+
+        @Positive(message = "Provider min calls must be positive")
+        private int minCalls = 20;
+
+        @Positive(message = "Provider circuit open time must be positive")
+        private long openMs = 30000;
+
+        private Fake fake = new Fake();
+
+        private Limiter limiter = new Limiter();
+
+        @Getter
+        @Setter
+        public static class Fake {
+            private boolean enabled = false;
+
+            private long latencyMs = 50;
+
+            private double failureRate = 0.0;
+        }
+
+        /**
+         * Adaptive concurrency limit per provider; see AdaptiveConcurrencyLimiter.
+         */
+        @Getter
+        @Setter
+        public static class Limiter {
+            private boolean enabled = true;
+
+            @Positive(message = "Limiter initial limit must be positive")
+            private int initialLimit = 20;
+
+            @Positive(message = "Limiter min limit must be positive")
+            private int minLimit = 2;
+
+            @Positive(message = "Limiter max limit must be positive")
+            private int maxLimit = 200;
+
+            @Positive(message = "Limiter latency tolerance must be positive")
+            private double latencyTolerance = 2.0;
+
+            @Positive(message = "Limiter backoff ratio must be positive")
+            private double backoffRatio = 0.9;
+
+            @Positive(message = "Limiter RTT window must be positive")
+            private int rttWindow = 500;
+
+            @Positive(message = "Limiter max queue wait must be positive")
+            private long maxQueueWaitMs = 250;
+
+            @Positive(message = "Limiter max queued must be positive")
+            private int maxQueued = 100;
+        }
+    }
+
+    /**
+     * Inbound admission control; see AdmissionControlFilter.
+     */
+    @Getter
+    @Setter
+    public static class Admission {
+        private boolean enabled = true;
+
+        @Positive(message = "Admission max concurrent must be positive")
+        private int maxConcurrent = 150;
+
+        // Waiters park a Tomcat thread; capped at server.tomcat.threads.max - max-concurrent on startup
+        @Positive(message = "Admission max queued must be positive")
+        private int maxQueued = 250;
+
+        @Positive(message = "Admission target must be positive")
+        private long targetMs = 50;
+
+        @Positive(message = "Admission interval must be positive")
+        private long intervalMs = 500;
+
+        @Positive(message = "Admission Retry-After must be positive")
+        private int retryAfterSeconds = 1;
+
+        private List<String> highPriorityPaths = new ArrayList<>(List.of("/api/v1/webhook", "/api/v1/generate-token"));
+
+        private List<String> lowPriorityPaths = new ArrayList<>(List.of("/api/v1/face-match"));
+    }
+
+    /**
+     * Weighted fair sharing of provider capacity between portfolios; see PortfolioScheduler.
+     */
+    @Getter
+    @Setter
+    public static class Scheduler {
+        private boolean enabled = true;
+
+        @Positive(message = "Scheduler slots must be positive")
+        private int slots = 32;
+
+        @Positive(message = "Scheduler max wait must be positive")
+        private long maxWaitMs = 10000;
+
+        @Positive(message = "Scheduler default weight must be positive")
+        private int defaultWeight = 1;
+
+        // Relative share per portfolio (JWT portfolio claim); portfolios not listed get default-weight
+        private Map<String, Integer> weights = new HashMap<>();
+    }
+
+    /**
+     * Per-request deadline; see DeadlineFilter.
+     */
+    @Getter
+    @Setter
+    public static class Deadline {
+        private boolean enabled = true;
+
+        @NotBlank(message = "Deadline header is required")
+        private String header = "X-Request-Timeout-Ms";
+
+        @Positive(message = "Default deadline must be positive")
+        private long defaultMs = 30000;
+
+        @Positive(message = "Max deadline must be positive")
+        private long maxMs = 60000;
+    }
+
+    /**
+     * JDBC connections held across outbound HTTP calls; see ConnectionHoldTracker.
+     */
+    @Getter
+    @Setter
+    public static class ConnectionHold {
+        private boolean failOnOutboundHttp = false;
+    }
+
+    /**
+     * Heap budget for in-flight image uploads; see UploadBudgetFilter.
+     */
+    @Getter
+    @Setter
+    public static class UploadBudget {
+        private boolean enabled = true;
+
+        @Positive(message = "Upload budget heap fraction must be positive")
+        private double heapFraction = 0.25;
+
+        // Fixed budget instead of heap-fraction, if set
+        private DataSize maxBytes;
+
+        // Heap held per body byte: raw image, base64 string and serialized provider payload
+        @Positive(message = "Upload budget amplification must be positive")
+        private double amplification = 4.0;
+
+        private DataSize maxRequestSize = DataSize.ofMegabytes(6);
+
+        // JSON /face-match bodies carry the image as base64, a third larger than the raw upload
+        private DataSize maxJsonRequestSize = DataSize.ofMegabytes(8);
+
+        @Positive(message = "Upload budget max wait must be positive")
+        private long maxWaitMs = 2000;
+
+        @Positive(message = "Upload budget Retry-After must be positive")
+        private int retryAfterSeconds = 2;
+    }
+
+    /**
+     * Upload checks done before any provider call; see ImageValidator.
+     */
+    @Getter
+    @Setter
+    public static class Image {
+        @NotEmpty(message = "At least one image format must be allowed")
+        private List<String> allowedFormats = new ArrayList<>(List.of("jpeg", "png"));
+
+        @Positive(message = "Image min edge must be positive")
+        private int minEdge = 64;
+
+        @Positive(message = "Image max edge must be positive")
+        private int maxEdge = 10000;
+
+        @Positive(message = "Image max pixels must be positive")
+        private long maxPixels = 50_000_000L;
+
+        // Raw or decoded image size for the JSON and binary /face-match variants; multipart uploads are
+        // limited by spring.servlet.multipart.max-file-size
+        private DataSize maxBytes = DataSize.ofMegabytes(5);
+
+        private Normalize normalize = new Normalize();
+
+        /**
+         * Optional downscale and JPEG re-encode before the provider call; see ImageNormalizer.
+         */
+        @Getter
+        @Setter
+        public static class Normalize {
+            private boolean enabled = false;
+
+            @Positive(message = "Normalize max edge must be positive")
+            private int maxEdge = 1280;
+
+            @Positive(message = "Normalize JPEG quality must be positive")
+            private float jpegQuality = 0.85f;
+
+            @Positive(message = "Normalize workers must be positive")
+            private int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+            @Positive(message = "Normalize queue capacity must be positive")
+            private int queueCapacity = 64;
+
+            @Positive(message = "Normalize timeout must be positive")
+            private long timeoutMs = 2000;
+        }
+    }
 }
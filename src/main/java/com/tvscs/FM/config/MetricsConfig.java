@@ -0,0 +1,166 @@
+package com.tvscs.FM.config;
+
+import ch.qos.logback.classic.LoggerContext;
+import com.tvscs.FM.logging.LogRateLimitFilter;
+import com.tvscs.FM.logging.MeteredAsyncAppender;
+import com.tvscs.FM.metrics.ConnectionHoldTracker;
+import com.tvscs.FM.metrics.FmMetrics;
+import com.tvscs.FM.metrics.HikariMetricsTracker;
+import com.tvscs.FM.services.PortfolioScheduler;
+import com.tvscs.FM.services.TransactionEventStream;
+import com.tvscs.FM.services.image.ImageNormalizer;
+import com.tvscs.FM.services.provider.ProviderRouter;
+import com.tvscs.FM.utils.AdmissionQueue;
+import com.tvscs.FM.utils.MemoryBudget;
+import com.tvscs.FM.utils.RequestDeadline;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Wires existing components into {@link FmMetrics}: the Hikari pool tracker, the request counter
+ * endpoints, and scrape-time collectors for the stats those components already keep.
+ */
+@Configuration
+public class MetricsConfig {
+
+    private final FmMetrics fmMetrics;
+
+    public MetricsConfig(FmMetrics fmMetrics, ProviderRouter providerRouter, PortfolioScheduler portfolioScheduler,
+                         AdmissionControlFilter admissionControlFilter, UploadBudgetFilter uploadBudgetFilter,
+                         ImageNormalizer imageNormalizer, TransactionEventStream eventStream,
+                         FmProperties fmProperties) {
+        this.fmMetrics = fmMetrics;
+        ConnectionHoldTracker.setFailOnOutboundHttp(fmProperties.getConnectionHold().isFailOnOutboundHttp());
+        fmMetrics.register(writer -> {
+            writer.family("fm_db_connection_held_across_http", "counter",
+                    "Outbound HTTP calls made while holding a JDBC connection.");
+            writer.sample("fm_db_connection_held_across_http_total", ConnectionHoldTracker.getViolations());
+        });
+        fmMetrics.register(writer -> {
+            List<Map<String, Object>> providers = providerRouter.snapshot();
+            writer.family("fm_provider_calls", "counter", "Calls routed to each face-match provider.");
+            providers.forEach(p -> writer.sample("fm_provider_calls_total", number(p.get("calls")),
+                    "provider", (String) p.get("provider")));
+            writer.family("fm_provider_failures", "counter", "Failed calls per provider.");
+            providers.forEach(p -> writer.sample("fm_provider_failures_total", number(p.get("failures")),
+                    "provider", (String) p.get("provider")));
+            writer.family("fm_provider_circuit_open", "gauge", "1 while the provider's circuit is not closed.");
+            providers.forEach(p -> writer.sample("fm_provider_circuit_open",
+                    "CLOSED".equals(p.get("circuit")) ? 0 : 1, "provider", (String) p.get("provider")));
+            writer.family("fm_provider_concurrency_limit", "gauge", "Adaptive concurrency limit per provider.");
+            providers.forEach(p -> writer.sample("fm_provider_concurrency_limit", number(p.get("concurrencyLimit")),
+                    "provider", (String) p.get("provider")));
+            writer.family("fm_provider_in_flight", "gauge", "Calls in flight per provider.");
+            providers.forEach(p -> writer.sample("fm_provider_in_flight", number(p.get("inFlight")),
+                    "provider", (String) p.get("provider")));
+        });
+        fmMetrics.register(writer -> {
+            Map<String, Object> scheduler = portfolioScheduler.snapshot();
+            writer.family("fm_scheduler_busy_slots", "gauge", "Provider slots in use.");
+            writer.sample("fm_scheduler_busy_slots", number(scheduler.get("busy")));
+            writer.family("fm_scheduler_queued", "gauge", "Requests waiting for a provider slot.");
+            writer.sample("fm_scheduler_queued", number(scheduler.get("queued")));
+        });
+        fmMetrics.register(writer -> {
+            AdmissionQueue queue = admissionControlFilter.getQueue();
+            writer.family("fm_admission_active", "gauge", "Requests admitted and running.");
+            writer.sample("fm_admission_active", queue.getActive());
+            writer.family("fm_admission_queued", "gauge", "Requests waiting for admission.");
+            writer.sample("fm_admission_queued", queue.getQueued());
+            writer.family("fm_admission_shed", "counter", "Requests shed by admission control.");
+            writer.sample("fm_admission_shed_total", queue.getShed());
+        });
+        fmMetrics.register(writer -> {
+            MemoryBudget budget = uploadBudgetFilter.getBudget();
+            writer.family("fm_upload_budget_available_bytes", "gauge", "Unreserved upload memory budget.");
+            writer.sample("fm_upload_budget_available_bytes", budget.getAvailableBytes());
+            writer.family("fm_upload_budget_rejections", "counter", "Uploads rejected for lack of budget.");
+            writer.sample("fm_upload_budget_rejections_total", budget.getRejections());
+        });
+        fmMetrics.register(writer -> {
+            writer.family("fm_deadline_exceeded", "counter", "Requests that ran out of deadline, by stage.");
+            RequestDeadline.exceededCounts().forEach((stage, count) ->
+                    writer.sample("fm_deadline_exceeded_total", count, "stage", stage));
+        });
+        fmMetrics.register(writer -> {
+            writer.family("fm_image_normalized", "counter", "Uploads downscaled or recompressed.");
+            writer.sample("fm_image_normalized_total", imageNormalizer.getNormalizedCount());
+            writer.family("fm_image_bytes", "counter", "Image bytes before and after normalization.");
+            writer.sample("fm_image_bytes_total", imageNormalizer.getBytesIn(), "direction", "in");
+            writer.sample("fm_image_bytes_total", imageNormalizer.getBytesOut(), "direction", "out");
+        });
+        fmMetrics.register(writer -> {
+            writer.family("fm_sse_subscribers", "gauge", "Open status event streams.");
+            writer.sample("fm_sse_subscribers", eventStream.getSubscriberCount());
+            writer.family("fm_sse_slow_consumer_drops", "counter", "Subscribers dropped for a full buffer.");
+            writer.sample("fm_sse_slow_consumer_drops_total", eventStream.getSlowConsumerDrops());
+            writer.family("fm_sse_stuck_send_drops", "counter", "Subscribers dropped for a write past send-timeout-ms.");
+            writer.sample("fm_sse_stuck_send_drops_total", eventStream.getStuckSendDrops());
+        });
+        fmMetrics.register(writer -> {
+            writer.family("fm_log_events_suppressed", "counter", "Log events dropped by the per-statement rate limit.");
+            writer.sample("fm_log_events_suppressed_total", LogRateLimitFilter.getSuppressed());
+            writer.family("fm_log_events_sampled", "counter", "Log events over the rate limit kept as samples.");
+            writer.sample("fm_log_events_sampled_total", LogRateLimitFilter.getSampled());
+            if (LoggerFactory.getILoggerFactory() instanceof LoggerContext context
+                    && context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).getAppender("ASYNC_CONSOLE")
+                    instanceof MeteredAsyncAppender appender) {
+                writer.family("fm_log_queue_depth", "gauge", "Log events waiting for the async appender.");
+                writer.sample("fm_log_queue_depth", appender.getNumberOfElementsInQueue());
+                writer.family("fm_log_events_discarded", "counter", "Log events discarded by a full async queue.");
+                writer.sample("fm_log_events_discarded_total", appender.getDiscarded());
+            }
+        });
+    }
+
+    /**
+     * Installs {@link HikariMetricsTracker} before the pool starts. Static so it does not pull this
+     * configuration (and the beans it depends on) into the post-processor phase.
+     */
+    @Bean
+    public static BeanPostProcessor hikariMetricsPostProcessor(ObjectProvider<FmMetrics> fmMetrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource && dataSource.getMetricsTrackerFactory() == null) {
+                    dataSource.setMetricsTrackerFactory(new HikariMetricsTracker(fmMetrics.getObject()));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Pre-registers request counters for every mapped pattern once the handler mappings exist.
+     */
+    @EventListener
+    public void registerEndpoints(ContextRefreshedEvent event) {
+        ApplicationContext context = event.getApplicationContext();
+        TreeSet<String> patterns = new TreeSet<>();
+        context.getBeanProvider(RequestMappingHandlerMapping.class).forEach(mapping -> {
+            for (RequestMappingInfo info : mapping.getHandlerMethods().keySet()) {
+                patterns.addAll(info.getPatternValues());
+            }
+        });
+        if (!patterns.isEmpty()) {
+            fmMetrics.registerEndpoints(patterns);
+        }
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number n ? n.doubleValue() : 0;
+    }
+}
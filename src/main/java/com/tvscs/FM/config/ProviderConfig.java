@@ -0,0 +1,19 @@
+package com.tvscs.FM.config;
+
+import com.tvscs.FM.services.provider.FakeFaceMatchProvider;
+import com.tvscs.FM.utils.JsonCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ProviderConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "fm.providers.fake", name = "enabled", havingValue = "true")
+    public FakeFaceMatchProvider fakeFaceMatchProvider(FmProperties fmProperties, JsonCodec jsonCodec) {
+        FmProperties.Providers.Fake fake = fmProperties.getProviders().getFake();
+        return new FakeFaceMatchProvider(FakeFaceMatchProvider.NAME, fake.getLatencyMs(), fake.getFailureRate(),
+                jsonCodec);
+    }
+}
@@ -30,6 +30,13 @@ public class RequestBodyCaptureFilter implements Filter {
         String method = httpRequest.getMethod();
         String contentType = httpRequest.getContentType();
         
+        // JSON /face-match carries a base64 image; the controller records a canonical audit payload
+        // instead, so caching a second copy of the body would only cost heap
+        if (httpRequest.getRequestURI().startsWith("/api/v1/face-match")) {
+            chain.doFilter(request, response);
+            return;
+        }
+
         if (("POST".equalsIgnoreCase(method) || "PUT".equalsIgnoreCase(method) || "PATCH".equalsIgnoreCase(method))
                 && contentType != null && contentType.contains("application/json")) {
             
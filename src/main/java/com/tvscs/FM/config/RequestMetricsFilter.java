@@ -0,0 +1,54 @@
+package com.tvscs.FM.config;
+
+import com.tvscs.FM.metrics.FmMetrics;
+import com.tvscs.FM.metrics.RequestTiming;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.security.autoconfigure.web.servlet.SecurityFilterProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts every request by endpoint pattern, status and portfolio, and starts its {@link RequestTiming}.
+ * Runs outside every other filter so requests rejected by admission control, upload budgets or
+ * authentication are counted and timed too.
+ *
+ * The endpoint is the handler's mapping pattern; requests that never reached a handler fall back to
+ * their path, which FmMetrics folds into "other" unless it is itself a registered pattern.
+ */
+@Component
+@Order(SecurityFilterProperties.DEFAULT_FILTER_ORDER - 40)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final FmMetrics fmMetrics;
+
+    public RequestMetricsFilter(FmMetrics fmMetrics) {
+        this.fmMetrics = fmMetrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTiming timing = new RequestTiming();
+        request.setAttribute(RequestTiming.ATTRIBUTE, timing);
+        RequestTiming.set(timing);
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            RequestTiming.clear();
+            // An exception escaping the chain becomes a 500 after this filter has returned
+            int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            fmMetrics.recordRequest(pattern != null ? pattern.toString() : request.getRequestURI(),
+                    status, (String) request.getAttribute("auth.portfolio"));
+        }
+    }
+}
@@ -1,20 +1,57 @@
 package com.tvscs.FM.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvscs.FM.metrics.ConnectionHoldTracker;
+import com.tvscs.FM.metrics.FmMetrics;
+import com.tvscs.FM.metrics.jfr.DigioCallEvent;
+import com.tvscs.FM.utils.JsonCodec;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class RestTemplateConfig {
 
+    /**
+     * Outbound client for provider calls; timeouts shrink to the calling request's remaining deadline.
+     * Each exchange, up to the response headers, is timed as the provider round trip, and is checked
+     * not to run while the thread holds a JDBC connection.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(DigioProperties digioProperties, FmMetrics fmMetrics) {
+        RestTemplate restTemplate = new RestTemplate(new DeadlineAwareRequestFactory(
+                digioProperties.getConnectTimeoutMs(), digioProperties.getReadTimeoutMs()));
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            ConnectionHoldTracker.checkOutbound(request.getURI().getHost());
+            DigioCallEvent event = new DigioCallEvent();
+            event.begin();
+            long start = System.nanoTime();
+            int status = 0;
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                status = response.getStatusCode().value();
+                return response;
+            } finally {
+                fmMetrics.record(FmMetrics.Stage.DIGIO_CALL, System.nanoTime() - start);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.method = request.getMethod().name();
+                    event.path = request.getURI().getPath();
+                    event.bytesOut = body.length;
+                    event.status = status;
+                    event.commit();
+                }
+            }
+        });
+        return restTemplate;
     }
 
+    /**
+     * Shared by every component through {@link JsonCodec}; see {@link JsonCodec#newObjectMapper()}.
+     */
     @Bean
     public ObjectMapper objectMapper() {
-        return new ObjectMapper();
+        return JsonCodec.newObjectMapper();
     }
 }
@@ -1,7 +1,9 @@
 package com.tvscs.FM.config;
 
+import com.tvscs.FM.metrics.RequestTiming;
 import com.tvscs.FM.security.AdminApiKeyFilter;
 import com.tvscs.FM.security.ApiKeyAndJwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
@@ -59,9 +61,12 @@ public class SecurityConfig implements WebMvcConfigurer {
                         request.getRequestURI(), request.getContentType());
                 
                 // Wrap request and response for content caching
-                // ContentCachingRequestWrapper caches the body when read (multiple times)
-                ContentCachingRequestWrapper wrappedRequest = new ContentCachingRequestWrapper(request, 65536);
-                ContentCachingResponseWrapper wrappedResponse = new ContentCachingResponseWrapper(response);
+                // ContentCachingRequestWrapper caches the body when read (multiple times).
+                // Async dispatches (long-poll) arrive with the wrappers from the initial dispatch; reuse them.
+                HttpServletRequest wrappedRequest = request instanceof ContentCachingRequestWrapper
+                        ? request : new ContentCachingRequestWrapper(request, 65536);
+                ContentCachingResponseWrapper wrappedResponse = response instanceof ContentCachingResponseWrapper
+                        ? (ContentCachingResponseWrapper) response : new ContentCachingResponseWrapper(response);
                 
                 log.debug("[CACHE-FILTER] After wrapping: wrappedRequest class={}", 
                         wrappedRequest.getClass().getName());
@@ -69,17 +74,33 @@ public class SecurityConfig implements WebMvcConfigurer {
                 try {
                     filterChain.doFilter(wrappedRequest, wrappedResponse);
                 } finally {
-                    // Copy cached response body to actual response
+                    // Copy cached response body to actual response, unless the handler went async:
+                    // the body is written later and copied at the end of the async dispatch
+                    if (request.isAsyncStarted()) {
+                        return;
+                    }
+                    // Headers can still be set while the body is buffered, after the audit stage ran
+                    RequestTiming timing = (RequestTiming) request.getAttribute(RequestTiming.ATTRIBUTE);
+                    if (timing != null) {
+                        wrappedResponse.setHeader(RequestTiming.HEADER, timing.toServerTiming());
+                    }
                     wrappedResponse.copyBodyToResponse();
                     log.debug("[CACHE-FILTER] Response body copied, cached length={}", 
                             wrappedResponse.getContentSize());
                 }
             }
             
+            @Override
+            protected boolean shouldNotFilterAsyncDispatch() {
+                return false;
+            }
+
             @Override
             protected boolean shouldNotFilter(HttpServletRequest request) {
-                // Apply to all API requests
-                boolean shouldFilter = request.getRequestURI().startsWith("/api/");
+                // Apply to all API requests except streaming responses, whose body must not be buffered
+                boolean shouldFilter = request.getRequestURI().startsWith("/api/")
+                        && !request.getRequestURI().startsWith("/api/v1/admin/audit-export")
+                        && !request.getRequestURI().startsWith("/api/v1/transactions/events");
                 log.debug("[CACHE-FILTER] shouldNotFilter: uri={}, shouldFilter={}", 
                         request.getRequestURI(), shouldFilter);
                 return !shouldFilter;
@@ -93,14 +114,18 @@ public class SecurityConfig implements WebMvcConfigurer {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
+                        // Async (long-poll) and error dispatches continue a request that was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                         // Public endpoints
                         .requestMatchers("/api/v1/generate-token").permitAll()
-                        .requestMatchers("/api/v1/webhook").permitAll()
+                        .requestMatchers("/api/v1/webhook", "/api/v1/webhook/*").permitAll()
                         // Admin-protected endpoints (X-Admin-API-KEY required)
                         .requestMatchers("/api/v1/create-account").authenticated()
                         .requestMatchers("/api/v1/update-account/**").authenticated()
+                        .requestMatchers("/api/v1/admin/**").authenticated()
                         // API-key + JWT protected endpoints
                         .requestMatchers("/api/v1/face-match").authenticated()
+                        .requestMatchers("/api/v1/transactions/**").authenticated()
                         // All other endpoints require authentication
                         .anyRequest().authenticated()
                 )
@@ -115,7 +140,9 @@ public class SecurityConfig implements WebMvcConfigurer {
     @Override
     public void addInterceptors(org.springframework.web.servlet.config.annotation.InterceptorRegistry registry) {
         registry.addInterceptor(auditLoggingInterceptor)
-                .addPathPatterns("/api/v1/**");
+                .addPathPatterns("/api/v1/**")
+                // Scrapes every few seconds would otherwise flood fm_audit
+                .excludePathPatterns("/api/v1/admin/metrics");
     }
 
     @Bean
@@ -0,0 +1,133 @@
+package com.tvscs.FM.config;
+
+import com.tvscs.FM.exception.PayloadTooLargeException;
+import com.tvscs.FM.utils.JsonCodec;
+import com.tvscs.FM.utils.MemoryBudget;
+import com.tvscs.FM.utils.RequestDeadline;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.security.autoconfigure.web.servlet.SecurityFilterProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Makes image uploads reserve heap before their body is read.
+ *
+ * Covers multipart requests, raw image bodies (octet-stream, image/*) and the JSON /face-match variant,
+ * whose base64 image may be up to {@code max-json-request-size}.
+ * A face-match request holds the image several times over while it is processed (raw bytes, base64
+ * string, serialized provider payload), so each upload reserves {@code Content-Length * amplification}
+ * from a {@link MemoryBudget} sized as {@code heap-fraction} of the max heap. Requests over
+ * {@code max-request-size} are refused with 413 before their body is read; requests that cannot get
+ * budget within {@code max-wait-ms} (or their deadline) get 503 with Retry-After.
+ * Chunked bodies reserve the largest allowed size and are read through a {@link LengthLimitedRequestWrapper},
+ * so one that keeps going past it is cut off with 413 as well. Multipart parts are parsed by the
+ * container and bounded by {@code spring.servlet.multipart.max-request-size}.
+ *
+ * Runs after admission control, so only admitted requests hold budget, and before Spring Security,
+ * whose filters may trigger multipart parsing.
+ */
+@Component
+@Order(SecurityFilterProperties.DEFAULT_FILTER_ORDER - 10)
+@Slf4j
+public class UploadBudgetFilter extends OncePerRequestFilter {
+
+    private static final String FACE_MATCH_PATH = "/api/v1/face-match";
+
+    private final FmProperties.UploadBudget config;
+    private final MemoryBudget budget;
+    private final JsonCodec jsonCodec;
+
+    public UploadBudgetFilter(FmProperties fmProperties, JsonCodec jsonCodec) {
+        this.config = fmProperties.getUploadBudget();
+        this.jsonCodec = jsonCodec;
+        long heapBytes = (long) (Runtime.getRuntime().maxMemory() * config.getHeapFraction());
+        this.budget = new MemoryBudget(config.getMaxBytes() != null ? config.getMaxBytes().toBytes() : heapBytes);
+        log.info("[UPLOAD-BUDGET] In-flight upload budget: {} MB", budget.getTotalBytes() / (1024 * 1024));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long maxRequestBytes = isJson(request.getContentType())
+                ? config.getMaxJsonRequestSize().toBytes()
+                : config.getMaxRequestSize().toBytes();
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > maxRequestBytes) {
+            sendError(response, request.getRequestURI(), HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                    "Payload Too Large", "Request exceeds " + maxRequestBytes + " bytes");
+            return;
+        }
+
+        // Chunked uploads do not announce their size; assume the largest allowed
+        long bodyBytes = contentLength >= 0 ? contentLength : maxRequestBytes;
+        long reserved;
+        try {
+            reserved = budget.reserve((long) (bodyBytes * config.getAmplification()),
+                    RequestDeadline.remainingMs(config.getMaxWaitMs()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reserved = 0;
+        }
+
+        if (reserved == 0) {
+            log.warn("[UPLOAD-BUDGET] No budget for {} byte upload to {} (available={} bytes)",
+                    bodyBytes, request.getRequestURI(), budget.getAvailableBytes());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(config.getRetryAfterSeconds()));
+            sendError(response, request.getRequestURI(), HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                    "Service Unavailable", "Too many uploads in progress, retry later");
+            return;
+        }
+
+        try {
+            filterChain.doFilter(new LengthLimitedRequestWrapper(request, maxRequestBytes), response);
+        } catch (PayloadTooLargeException e) {
+            // Thrown while a filter read the body; controllers have it mapped to 413 already
+            if (response.isCommitted()) {
+                throw e;
+            }
+            log.warn("[UPLOAD-BUDGET] Chunked upload to {} exceeded {} bytes", request.getRequestURI(), maxRequestBytes);
+            response.reset();
+            sendError(response, request.getRequestURI(), HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                    "Payload Too Large", e.getMessage());
+        } finally {
+            budget.release(reserved);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        if (!config.isEnabled() || !request.getRequestURI().startsWith("/api/") || contentType == null) {
+            return true;
+        }
+        String type = contentType.toLowerCase();
+        if (isJson(type)) {
+            return !request.getRequestURI().startsWith(FACE_MATCH_PATH);
+        }
+        return !type.startsWith(MediaType.MULTIPART_FORM_DATA_VALUE)
+                && !type.startsWith(MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                && !type.startsWith("image/");
+    }
+
+    private static boolean isJson(String contentType) {
+        return contentType != null && contentType.toLowerCase().startsWith(MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    public MemoryBudget getBudget() {
+        return budget;
+    }
+
+    private void sendError(HttpServletResponse response, String path, int status, String error, String message)
+            throws IOException {
+        jsonCodec.writeError(response, status, error, message, path);
+    }
+}
@@ -34,7 +34,8 @@ public class AccountController {
      *
      * Request Body:
      * {
-     *   "portfolio": "MyPortfolio"
+     *   "portfolio": "MyPortfolio",
+     *   "callbackUrl": "https://client.example.com/fm-callbacks"   // optional
      * }
      *
      * Headers:
@@ -59,6 +60,7 @@ public class AccountController {
 
             Account created = accountService.createAccount(
                     portfolio.trim(),
+                    request.get("callbackUrl"),
                     createdBy
             );
 
@@ -71,6 +73,7 @@ public class AccountController {
             responseData.put("accountId", created.getAccountId());
             responseData.put("portfolio", created.getPortfolio());
             responseData.put("isActive", created.getIsActive());
+            responseData.put("callbackUrl", created.getCallbackUrl());
             responseData.put("createdAt", created.getCreatedAt());
             responseData.put("createdBy", created.getCreatedBy());
 
@@ -101,7 +104,8 @@ public class AccountController {
      *   "rotateKey": true,        // Auto-generate new API key
      *   "newApiKey": "customKey", // Custom API key (ignored if rotateKey is true)
      *   "portfolio": "NewPortfolio",
-     *   "isActive": 0
+     *   "isActive": 0,
+     *   "callbackUrl": "https://..." // "" removes the callback URL
      * }
      *
      * Headers:
@@ -139,12 +143,15 @@ public class AccountController {
                 }
             }
 
+            String callbackUrl = (String) request.get("callbackUrl");
+
             Account updated = accountService.updateAccount(
                     accountId,
                     rotateKey,
                     newApiKey,
                     portfolio,
                     isActive,
+                    callbackUrl,
                     updatedBy
             );
 
@@ -156,6 +163,7 @@ public class AccountController {
             responseData.put("accountId", updated.getAccountId());
             responseData.put("portfolio", updated.getPortfolio());
             responseData.put("isActive", updated.getIsActive());
+            responseData.put("callbackUrl", updated.getCallbackUrl());
             responseData.put("updatedAt", updated.getUpdatedAt());
             responseData.put("updatedBy", updated.getUpdatedBy());
 
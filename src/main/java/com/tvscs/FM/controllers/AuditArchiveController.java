@@ -0,0 +1,87 @@
+package com.tvscs.FM.controllers;
+
+import com.tvscs.FM.services.AuditArchiveService;
+import com.tvscs.FM.utils.ResponseBuilder;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/admin/audit-archive")
+@Slf4j
+public class AuditArchiveController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final AuditArchiveService auditArchiveService;
+    private final ResponseBuilder responseBuilder;
+
+    public AuditArchiveController(AuditArchiveService auditArchiveService, ResponseBuilder responseBuilder) {
+        this.auditArchiveService = auditArchiveService;
+        this.responseBuilder = responseBuilder;
+    }
+
+    /**
+     * Query archived audit rows.
+     * Requires X-Admin-API-KEY header (enforced by AdminApiKeyFilter).
+     *
+     * Query Parameters:
+     * - from: ISO-8601 timestamp, inclusive
+     * - to: ISO-8601 timestamp, exclusive
+     * - accountId: optional account filter
+     * - limit: max rows returned (default 100, max 1000)
+     */
+    @GetMapping
+    public ResponseEntity<?> query(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(value = "accountId", required = false) String accountId,
+            @RequestParam(value = "limit", required = false, defaultValue = "100") int limit,
+            HttpServletRequest httpRequest
+    ) {
+        try {
+            if (!from.isBefore(to)) {
+                return ResponseEntity.badRequest()
+                        .body(responseBuilder.badRequest("'from' must be before 'to'", null, httpRequest));
+            }
+
+            List<Map<String, Object>> rows = auditArchiveService.query(from, to, accountId,
+                    Math.max(1, Math.min(limit, MAX_LIMIT)));
+            return ResponseEntity.ok(responseBuilder.success(rows, "Archived audit rows: " + rows.size(), httpRequest));
+
+        } catch (Exception ex) {
+            log.error("Error querying audit archive", ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(responseBuilder.serverError("Audit archive query failed", ex.getMessage(), httpRequest));
+        }
+    }
+
+    /**
+     * Run the archiver now instead of waiting for the schedule.
+     * Requires X-Admin-API-KEY header (enforced by AdminApiKeyFilter).
+     */
+    @PostMapping("/run")
+    public ResponseEntity<?> run(HttpServletRequest httpRequest) {
+        try {
+            long archived = auditArchiveService.archive();
+            if (archived < 0) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(responseBuilder.error(409, "Audit archive already running", null, httpRequest));
+            }
+            return ResponseEntity.ok(responseBuilder.success(Map.of("archived", archived),
+                    "Audit archive completed", httpRequest));
+
+        } catch (Exception ex) {
+            log.error("Error running audit archive", ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(responseBuilder.serverError("Audit archive failed", ex.getMessage(), httpRequest));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.tvscs.FM.controllers;
+
+import com.tvscs.FM.services.AuditExportService;
+import com.tvscs.FM.utils.ResponseBuilder;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+
+@RestController
+@RequestMapping("/api/v1/admin")
+@Slf4j
+public class AuditExportController {
+
+    private final AuditExportService auditExportService;
+    private final ResponseBuilder responseBuilder;
+
+    public AuditExportController(AuditExportService auditExportService, ResponseBuilder responseBuilder) {
+        this.auditExportService = auditExportService;
+        this.responseBuilder = responseBuilder;
+    }
+
+    /**
+     * Stream audit rows for a time range as NDJSON or CSV (chunked transfer, constant memory).
+     * Requires X-Admin-API-KEY header (enforced by AdminApiKeyFilter).
+     *
+     * Query Parameters:
+     * - from, to: ISO-8601 range, from inclusive, to exclusive
+     * - format: ndjson (default) or csv
+     * - accountId, vendorId, customerIdentifier, endpoint, isError: optional filters
+     * - resumeToken: resume_token of the last row received, to continue an interrupted export
+     *
+     * Limits: the rows are streamed from an open cursor, which holds one of the pool's connections until
+     * the client has received each page, so a slow download slows every other request. One response
+     * therefore stops after fm.audit-export.max-rows rows (100000) or max-duration-ms (5 minutes).
+     *
+     * Every response ends with a trailer: an NDJSON object {"complete":..,"rows":..,"resume_token":..} or a
+     * CSV line "#complete=..,rows=..,resume_token=..". Clients repeat the request with that resume_token
+     * until complete is true; a response without a trailer was cut off and resumes from its last row.
+     */
+    @GetMapping("/audit-export")
+    public ResponseEntity<?> export(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(value = "format", required = false, defaultValue = AuditExportService.FORMAT_NDJSON) String format,
+            @RequestParam(value = "accountId", required = false) String accountId,
+            @RequestParam(value = "vendorId", required = false) String vendorId,
+            @RequestParam(value = "customerIdentifier", required = false) String customerIdentifier,
+            @RequestParam(value = "endpoint", required = false) String endpoint,
+            @RequestParam(value = "isError", required = false) Integer isError,
+            @RequestParam(value = "resumeToken", required = false) String resumeToken,
+            HttpServletRequest httpRequest
+    ) {
+        AuditExportService.Criteria criteria = AuditExportService.Criteria.builder()
+                .from(from)
+                .to(to)
+                .accountId(accountId)
+                .vendorId(vendorId)
+                .customerIdentifier(customerIdentifier)
+                .endpoint(endpoint)
+                .isError(isError)
+                .resumeToken(resumeToken)
+                .build();
+        String normalizedFormat = format.trim().toLowerCase();
+
+        try {
+            auditExportService.validate(criteria, normalizedFormat);
+        } catch (IllegalArgumentException ex) {
+            log.warn("Bad request for audit export: {}", ex.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(responseBuilder.badRequest(ex.getMessage(), null, httpRequest));
+        }
+
+        StreamingResponseBody body = out -> {
+            try {
+                auditExportService.export(criteria, normalizedFormat, out);
+            } catch (IOException ex) {
+                // Response is already committed; the client resumes with the last resume_token it received
+                log.warn("Audit export interrupted: {}", ex.getMessage());
+            } catch (RuntimeException ex) {
+                // Already logged; the trailer written before it tells the client to resume
+                log.warn("Audit export ended early: {}", ex.getMessage());
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (AuditExportService.FORMAT_CSV.equals(normalizedFormat)) {
+            response.contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"fm_audit.csv\"");
+        } else {
+            response.contentType(new MediaType("application", "x-ndjson", StandardCharsets.UTF_8));
+        }
+        return response.body(body);
+    }
+}
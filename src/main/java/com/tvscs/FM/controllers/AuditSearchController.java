@@ -0,0 +1,63 @@
+package com.tvscs.FM.controllers;
+
+import com.tvscs.FM.services.AuditSearchService;
+import com.tvscs.FM.utils.ResponseBuilder;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/admin")
+@Slf4j
+public class AuditSearchController {
+
+    private static final int MAX_LIMIT = 500;
+
+    private final AuditSearchService auditSearchService;
+    private final ResponseBuilder responseBuilder;
+
+    public AuditSearchController(AuditSearchService auditSearchService, ResponseBuilder responseBuilder) {
+        this.auditSearchService = auditSearchService;
+        this.responseBuilder = responseBuilder;
+    }
+
+    /**
+     * Search audit rows by correlation key, newest first.
+     * Requires X-Admin-API-KEY header (enforced by AdminApiKeyFilter).
+     *
+     * Query Parameters (exactly one key):
+     * - customerIdentifier: raw identifier, hashed server-side before lookup
+     * - vendorId: Digio KYC request id
+     * - accountId: FM account id
+     * - cursor: nextCursor from the previous page (optional)
+     * - limit: page size (default 50, max 500)
+     */
+    @GetMapping("/audit-search")
+    public ResponseEntity<?> search(
+            @RequestParam(value = "customerIdentifier", required = false) String customerIdentifier,
+            @RequestParam(value = "vendorId", required = false) String vendorId,
+            @RequestParam(value = "accountId", required = false) String accountId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false, defaultValue = "50") int limit,
+            HttpServletRequest httpRequest
+    ) {
+        try {
+            Map<String, Object> page = auditSearchService.search(customerIdentifier, vendorId, accountId, cursor,
+                    Math.max(1, Math.min(limit, MAX_LIMIT)));
+            return ResponseEntity.ok(responseBuilder.success(page, "Audit search completed", httpRequest));
+
+        } catch (IllegalArgumentException ex) {
+            log.warn("Bad request for audit search: {}", ex.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(responseBuilder.badRequest(ex.getMessage(), null, httpRequest));
+        } catch (Exception ex) {
+            log.error("Error searching audit", ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(responseBuilder.serverError("Audit search failed", ex.getMessage(), httpRequest));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.tvscs.FM.controllers;
+
+import com.tvscs.FM.utils.RequestDeadline;
+import com.tvscs.FM.utils.ResponseBuilder;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/admin/deadlines")
+public class DeadlineController {
+
+    private final ResponseBuilder responseBuilder;
+
+    public DeadlineController(ResponseBuilder responseBuilder) {
+        this.responseBuilder = responseBuilder;
+    }
+
+    /**
+     * Requests whose deadline passed, counted by the stage that noticed.
+     * Requires X-Admin-API-KEY header (enforced by AdminApiKeyFilter).
+     */
+    @GetMapping
+    public ResponseEntity<?> exceeded(HttpServletRequest httpRequest) {
+        return ResponseEntity.ok(responseBuilder.success(RequestDeadline.exceededCounts(),
+                "Deadline-exceeded counts per stage", httpRequest));
+    }
+}
@@ -1,20 +1,42 @@
 package com.tvscs.FM.controllers;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.tvscs.FM.config.DigioProperties;
 import com.tvscs.FM.dto.ApiResponse;
+import com.tvscs.FM.dto.FaceMatchJsonRequest;
+import com.tvscs.FM.dto.RawJson;
+import com.tvscs.FM.exception.DeadlineExceededException;
+import com.tvscs.FM.exception.ProviderUnavailableException;
+import com.tvscs.FM.metrics.FmMetrics;
+import com.tvscs.FM.metrics.jfr.FaceMatchRequestEvent;
+import com.tvscs.FM.metrics.jfr.WebhookApplyEvent;
+import com.tvscs.FM.models.Audit;
 import com.tvscs.FM.models.Transaction;
+import com.tvscs.FM.repository.AuditRepository;
 import com.tvscs.FM.repository.TransactionRepository;
+import com.tvscs.FM.services.CallbackService;
 import com.tvscs.FM.services.DigioService;
-import com.tvscs.FM.services.DigioService.DigioResponse;
-import com.tvscs.FM.utils.DigioUrlBuilder;
+import com.tvscs.FM.services.OutboxDispatcher;
+import com.tvscs.FM.services.OutboxService;
+import com.tvscs.FM.services.PortfolioScheduler;
+import com.tvscs.FM.services.TransactionStatusCache;
+import com.tvscs.FM.services.image.ImageMetadata;
+import com.tvscs.FM.services.image.ImageNormalizer;
+import com.tvscs.FM.services.image.ImageValidator;
+import com.tvscs.FM.services.provider.DigioFaceMatchProvider;
+import com.tvscs.FM.services.provider.FaceMatchProvider;
+import com.tvscs.FM.services.provider.ProviderResponse;
+import com.tvscs.FM.services.provider.ProviderRouter;
+import com.tvscs.FM.services.provider.WebhookEvent;
+import com.tvscs.FM.utils.CorrelationKeys;
+import com.tvscs.FM.utils.JsonCodec;
 import com.tvscs.FM.utils.MultipartCanonicalizer;
 import com.tvscs.FM.utils.ResponseBuilder;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -27,22 +49,61 @@ import java.util.UUID;
 @Slf4j
 public class FaceMatchController {
 
-    private final DigioService digioService;
-    private final DigioUrlBuilder digioUrlBuilder;
-    private final DigioProperties digioProperties;
+    private final ProviderRouter providerRouter;
+    private final PortfolioScheduler portfolioScheduler;
+    private final ImageValidator imageValidator;
+    private final ImageNormalizer imageNormalizer;
     private final TransactionRepository transactionRepository;
     private final ResponseBuilder responseBuilder;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OutboxService outboxService;
+    private final OutboxDispatcher outboxDispatcher;
+    private final TransactionStatusCache statusCache;
+    private final AuditRepository auditRepository;
+    private final CallbackService callbackService;
+    private final JsonCodec jsonCodec;
+    private final FmMetrics fmMetrics;
+    private final TransactionTemplate transactionTemplate;
 
-    public FaceMatchController(DigioService digioService, DigioUrlBuilder digioUrlBuilder,
-                               DigioProperties digioProperties,
+    public FaceMatchController(ProviderRouter providerRouter,
+                               PortfolioScheduler portfolioScheduler,
+                               ImageValidator imageValidator,
+                               ImageNormalizer imageNormalizer,
                                TransactionRepository transactionRepository,
-                               ResponseBuilder responseBuilder) {
-        this.digioService = digioService;
-        this.digioUrlBuilder = digioUrlBuilder;
-        this.digioProperties = digioProperties;
+                               ResponseBuilder responseBuilder,
+                               OutboxService outboxService,
+                               OutboxDispatcher outboxDispatcher,
+                               TransactionStatusCache statusCache,
+                               AuditRepository auditRepository,
+                               CallbackService callbackService,
+                               JsonCodec jsonCodec,
+                               FmMetrics fmMetrics,
+                               TransactionTemplate transactionTemplate) {
+        this.providerRouter = providerRouter;
+        this.portfolioScheduler = portfolioScheduler;
+        this.imageValidator = imageValidator;
+        this.imageNormalizer = imageNormalizer;
         this.transactionRepository = transactionRepository;
         this.responseBuilder = responseBuilder;
+        this.outboxService = outboxService;
+        this.outboxDispatcher = outboxDispatcher;
+        this.statusCache = statusCache;
+        this.auditRepository = auditRepository;
+        this.callbackService = callbackService;
+        this.jsonCodec = jsonCodec;
+        this.fmMetrics = fmMetrics;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * How the image arrived. {@code base64} is the caller's own encoding when it can be sent on as-is.
+     */
+    private record Upload(String source, String filename, String contentType, long size,
+                          ImageValidator.ValidatedImage validated, String base64) {
+    }
+
+    @FunctionalInterface
+    private interface UploadReader {
+        Upload read() throws Exception;
     }
 
     @PostMapping(value = "/face-match", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -51,42 +112,141 @@ public class FaceMatchController {
             @RequestParam("customer_identifier") String customerIdentifier,
             @RequestParam(value = "redirect_url", required = false, defaultValue = "false") String redirectFlag,
             @RequestPart("image") MultipartFile image,
+            @RequestHeader(value = "Prefer", required = false) String prefer,
             HttpServletRequest request
     ) {
-        try {
+        return submit(customerName, customerIdentifier, redirectFlag, prefer, request, () -> {
             if (image == null || image.isEmpty()) {
+                return null;
+            }
+            return new Upload("multipart", image.getOriginalFilename(), image.getContentType(), image.getSize(),
+                    imageValidator.read(image), null);
+        });
+    }
+
+    /**
+     * Same as the multipart variant for callers that already hold base64. The image string is validated
+     * by decoding it once and, unless it gets normalized, forwarded to the provider without re-encoding.
+     */
+    @PostMapping(value = "/face-match", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> faceMatchJson(
+            @RequestBody FaceMatchJsonRequest body,
+            @RequestHeader(value = "Prefer", required = false) String prefer,
+            HttpServletRequest request
+    ) {
+        return submit(body.getCustomerName(), body.getCustomerIdentifier(), Boolean.toString(body.isRedirectUrl()),
+                prefer, request, () -> {
+                    String base64 = ImageValidator.stripDataUri(body.getImage());
+                    if (base64 == null || base64.isEmpty()) {
+                        return null;
+                    }
+                    ImageValidator.ValidatedImage validated = imageValidator.decodeBase64(base64);
+                    return new Upload("base64", body.getFilename(), null, validated.bytes().length, validated, base64);
+                });
+    }
+
+    /**
+     * Raw image body with the other fields as query parameters, skipping multipart parsing.
+     */
+    @PostMapping(value = "/face-match", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE})
+    public ResponseEntity<?> faceMatchBinary(
+            @RequestParam("customer_name") String customerName,
+            @RequestParam("customer_identifier") String customerIdentifier,
+            @RequestParam(value = "redirect_url", required = false, defaultValue = "false") String redirectFlag,
+            @RequestHeader(value = "Prefer", required = false) String prefer,
+            HttpServletRequest request
+    ) {
+        return submit(customerName, customerIdentifier, redirectFlag, prefer, request, () -> {
+            long declared = request.getContentLengthLong();
+            if (declared == 0) {
+                return null;
+            }
+            ImageValidator.ValidatedImage validated = imageValidator.read(request.getInputStream(), declared);
+            return new Upload("binary", null, request.getContentType(), validated.bytes().length, validated, null);
+        });
+    }
+
+    private ResponseEntity<?> submit(String customerName, String customerIdentifier, String redirectFlag,
+                                     String prefer, HttpServletRequest request, UploadReader reader) {
+        FaceMatchRequestEvent event = new FaceMatchRequestEvent();
+        event.begin();
+        ResponseEntity<?> response = process(customerName, customerIdentifier, redirectFlag, prefer, request,
+                reader, event);
+        event.end();
+        if (event.shouldCommit()) {
+            event.portfolio = (String) request.getAttribute("auth.portfolio");
+            event.status = response.getStatusCode().value();
+            event.commit();
+        }
+        return response;
+    }
+
+    private ResponseEntity<?> process(String customerName, String customerIdentifier, String redirectFlag,
+                                      String prefer, HttpServletRequest request, UploadReader reader,
+                                      FaceMatchRequestEvent event) {
+        try {
+            if (customerName == null || customerName.isBlank()
+                    || customerIdentifier == null || customerIdentifier.isBlank()) {
+                return ResponseEntity.badRequest()
+                        .body(responseBuilder.badRequest("customer_name and customer_identifier are required",
+                                null, request));
+            }
+            request.setAttribute("audit.customerIdHash", CorrelationKeys.hashCustomerIdentifier(customerIdentifier));
+
+            Upload upload = reader.read();
+            if (upload == null) {
                 return ResponseEntity.badRequest()
                         .body(responseBuilder.badRequest("Image file is required", null, request));
             }
+            event.source = upload.source();
+            event.imageBytes = upload.size();
 
-            byte[] imageBytes = image.getBytes();
-            String base64Image = DigioService.imageToBase64NoPrefix(imageBytes);
+            ImageMetadata imageMetadata = upload.validated().metadata();
+            long encodeStart = System.nanoTime();
+            ImageNormalizer.Result normalized = imageNormalizer.normalize(upload.validated().bytes(), imageMetadata);
+            String base64Image = upload.base64() != null && !normalized.applied()
+                    ? upload.base64()
+                    : DigioService.imageToBase64NoPrefix(normalized.bytes());
+            fmMetrics.record(FmMetrics.Stage.IMAGE_ENCODE, System.nanoTime() - encodeStart);
+            event.normalized = normalized.applied();
             log.debug("Image converted to base64 with length: {}", base64Image.length());
 
             boolean wantRedirect = "true".equalsIgnoreCase(redirectFlag);
             boolean notifyCustomer = !wantRedirect;
 
-            DigioResponse digioResponse = digioService.createRequest(
-                    customerName,
-                    customerIdentifier,
-                    base64Image,
-                    null,
-                    notifyCustomer
-            );
+            Map<String, Object> canonicalPayload = MultipartCanonicalizer.fromFaceMatchRequest(
+                    customerName, customerIdentifier, redirectFlag, upload.source(), upload.filename(),
+                    upload.contentType(), upload.size(), imageMetadata, normalized, base64Image);
 
-            String vendorId = (String) digioResponse.getParsed().getOrDefault("id", null);
+            if (prefer != null && prefer.toLowerCase().contains("respond-async")) {
+                event.async = true;
+                return acceptAsync(customerName, customerIdentifier, base64Image, canonicalPayload,
+                        notifyCustomer, wantRedirect, request);
+            }
+
+            ProviderResponse providerResponse = portfolioScheduler.execute(
+                    (String) request.getAttribute("auth.portfolio"),
+                    () -> providerRouter.createRequest(
+                            customerName,
+                            customerIdentifier,
+                            base64Image,
+                            null,
+                            notifyCustomer
+                    ));
+
+            event.provider = providerResponse.getProvider();
+            String vendorId = providerResponse.getVendorId();
             if (vendorId != null) {
                 request.setAttribute("auth.vendorId", vendorId);
             }
 
-            Map<String, Object> canonicalPayload = MultipartCanonicalizer.fromFaceMatchRequest(
-                    customerName, customerIdentifier, redirectFlag, image, base64Image);
-            String canonicalJson = objectMapper.writeValueAsString(canonicalPayload);
+            String canonicalJson = jsonCodec.writeString(canonicalPayload);
             request.setAttribute("audit.payload", canonicalJson);
 
             String redirectUrl = null;
             if (wantRedirect) {
-                redirectUrl = digioUrlBuilder.build(digioResponse.getParsed(), digioProperties.getCallbackUrl());
+                redirectUrl = providerRouter.provider(providerResponse.getProvider()).buildRedirectUrl(providerResponse);
             }
 
             if (wantRedirect && redirectUrl != null) {
@@ -94,14 +254,34 @@ public class FaceMatchController {
                         "Redirect URL generated", request));
             }
 
-            return ResponseEntity.ok(responseBuilder.success(digioResponse.getParsed(),
+            // The provider body goes out byte-for-byte; only the fields above were ever parsed from it
+            Object data = providerResponse.getRawJson() != null
+                    ? new RawJson(providerResponse.getRawJson())
+                    : providerResponse.getParsed();
+            return ResponseEntity.ok(responseBuilder.success(data,
                     "Face match request created successfully", request));
 
         } catch (IllegalArgumentException ex) {
             log.warn("Bad request: {}", ex.getMessage());
             return ResponseEntity.badRequest()
                     .body(responseBuilder.badRequest(ex.getMessage(), null, request));
+        } catch (DeadlineExceededException ex) {
+            log.warn("Abandoned face match request: {}", ex.getMessage());
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                    .body(responseBuilder.error(504, "Request deadline exceeded", ex.getMessage(), request));
+        } catch (ProviderUnavailableException ex) {
+            log.warn("No face-match provider available: {}", ex.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(responseBuilder.error(503, "Face match provider unavailable", ex.getMessage(), request));
         } catch (Exception ex) {
+            if (ProviderRouter.isOutcomeUnknown(ex)) {
+                // The provider may have created the request; its webhook will record it, so do not invite a retry
+                log.error("Face match provider outcome unknown: {}", ex.getMessage());
+                return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                        .body(responseBuilder.error(504, "Face match provider did not answer",
+                                "The request may have been created; do not resend it", request));
+            }
             log.error("Error processing face match request", ex);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(responseBuilder.serverError("Failed to process face match request",
@@ -109,66 +289,98 @@ public class FaceMatchController {
         }
     }
 
-    @PostMapping(value = "/webhook", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<?> webhook(@RequestBody Map<String, Object> payload, HttpServletRequest request) {
-        try {
-            log.info("======== Webhook Received ========");
+    /**
+     * Async mode (Prefer: respond-async): persist the request to the outbox and return 202 with our
+     * transaction_id. The Digio call happens in {@link OutboxDispatcher}; poll the Location URL for status.
+     */
+    private ResponseEntity<?> acceptAsync(String customerName, String customerIdentifier, String base64Image,
+                                          Map<String, Object> canonicalPayload,
+                                          boolean notifyCustomer, boolean wantRedirect,
+                                          HttpServletRequest request) throws Exception {
+        Transaction transaction = outboxService.enqueue(customerName, customerIdentifier, base64Image,
+                notifyCustomer, wantRedirect,
+                (String) request.getAttribute("auth.accountId"),
+                (String) request.getAttribute("auth.portfolio"));
+        statusCache.update(transaction);
+        outboxDispatcher.wakeUp();
 
-            String webhookId = (String) payload.get("id");
-            String eventType = (String) payload.get("event");
+        canonicalPayload.put("transaction_id", transaction.getTransactionId());
+        request.setAttribute("audit.payload", jsonCodec.writeString(canonicalPayload));
 
-            Map<String, Object> kycRequest = null;
-            Map<String, Object> kycAction = null;
+        String statusUrl = "/api/v1/transactions/" + transaction.getTransactionId();
+        Map<String, Object> responseData = new HashMap<>();
+        responseData.put("transaction_id", transaction.getTransactionId());
+        responseData.put("status", transaction.getStatus());
+        responseData.put("status_url", statusUrl);
 
-            if (payload.containsKey("payload")) {
-                Map<String, Object> payloadMap = (Map<String, Object>) payload.get("payload");
-                if (payloadMap.containsKey("kyc_request")) {
-                    kycRequest = (Map<String, Object>) payloadMap.get("kyc_request");
-                }
-                if (payloadMap.containsKey("kyc_action")) {
-                    kycAction = (Map<String, Object>) payloadMap.get("kyc_action");
-                }
-            }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header("Location", statusUrl)
+                .body(responseBuilder.accepted(responseData, "Face match request accepted", request));
+    }
+
+    /**
+     * Digio webhook. Kept at its original path; other providers post to /webhook/{provider}.
+     */
+    @PostMapping(value = "/webhook", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> webhook(@RequestBody byte[] payload, HttpServletRequest request) {
+        return handleWebhook(DigioFaceMatchProvider.NAME, payload, request);
+    }
 
-            String vendorId = kycRequest != null ? (String) kycRequest.get("id") : null;
-            String status = kycRequest != null ? (String) kycRequest.get("status") : null;
-            String vendorReferenceId = kycRequest != null ? (String) kycRequest.get("reference_id") : null;
-            String vendorTransactionId = kycRequest != null ? (String) kycRequest.get("transaction_id") : null;
+    @PostMapping(value = "/webhook/{provider}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> providerWebhook(@PathVariable("provider") String providerName,
+                                             @RequestBody byte[] payload,
+                                             HttpServletRequest request) {
+        return handleWebhook(providerName, payload, request);
+    }
+
+    /**
+     * The body is taken as bytes and handed to the provider, which binds only the fields it needs.
+     */
+    private ResponseEntity<?> handleWebhook(String providerName, byte[] payload, HttpServletRequest request) {
+        try {
+            FaceMatchProvider provider = providerRouter.provider(providerName);
+            WebhookEvent event = provider.parseWebhook(payload);
+
+            String vendorId = event != null ? event.getVendorId() : null;
+            String status = event != null ? event.getStatus() : null;
+            String vendorReferenceId = event != null ? event.getVendorReferenceId() : null;
+            String vendorTransactionId = event != null ? event.getVendorTransactionId() : null;
 
-            log.info("Webhook ID: {}", webhookId);
-            log.info("Event Type: {}", eventType);
-            log.info("Vendor ID: {}", vendorId);
-            log.info("Status: {}", status);
-            log.info("Vendor Reference ID: {}", vendorReferenceId);
+            log.debug("[WEBHOOK] Received provider={}, eventId={}, eventType={}, vendorReferenceId={}",
+                    providerName, event != null ? event.getEventId() : null,
+                    event != null ? event.getEventType() : null, vendorReferenceId);
 
             if (vendorId != null) {
                 request.setAttribute("auth.webhookVendorId", vendorId);
             }
 
+            String outcome = "ignored";
             if (vendorId != null) {
-                if (transactionRepository.existsByVendorId(vendorId)) {
-                    Transaction existing = transactionRepository.findByVendorId(vendorId).orElse(null);
-                    if (existing != null) {
-                        existing.setStatus(status);
-                        existing.setVendorReferenceId(vendorReferenceId);
-                        existing.setVendorTransactionId(vendorTransactionId);
-                        transactionRepository.save(existing);
-                        log.info("Updated FM_TRANSACTIONS for VENDOR_ID: {}", vendorId);
-                    }
-                } else {
-                    Transaction newTx = Transaction.builder()
-                            .vendorId(vendorId)
-                            .status(status)
-                            .vendorReferenceId(vendorReferenceId)
-                            .vendorTransactionId(vendorTransactionId)
-                            .transactionId(UUID.randomUUID().toString().toLowerCase())
-                            .build();
-                    transactionRepository.save(newTx);
-                    log.info("Created new FM_TRANSACTIONS record for VENDOR_ID: {}", vendorId);
+                WebhookApplyEvent applyEvent = new WebhookApplyEvent();
+                applyEvent.begin();
+                long upsertStart = System.nanoTime();
+                // One short transaction for the upsert; the connection goes back before the cache and
+                // callback fan-out
+                WebhookUpsert upsert = transactionTemplate.execute(tx ->
+                        upsertTransaction(provider, vendorId, status, vendorReferenceId, vendorTransactionId));
+                fmMetrics.record(FmMetrics.Stage.WEBHOOK_UPSERT, System.nanoTime() - upsertStart);
+                applyEvent.end();
+                if (upsert != null) {
+                    outcome = upsert.created() ? "created" : "updated";
+                    statusCache.update(upsert.transaction());
+                    callbackService.enqueue(upsert.transaction());
+                }
+                if (applyEvent.shouldCommit()) {
+                    applyEvent.provider = provider.getName();
+                    applyEvent.vendorId = vendorId;
+                    applyEvent.status = status;
+                    applyEvent.created = upsert != null && upsert.created();
+                    applyEvent.commit();
                 }
             }
 
-            log.info("====== Webhook Processing End ======");
+            log.info("[WEBHOOK] Applied provider={}, vendorId={}, status={}, outcome={}", providerName, vendorId,
+                    status, outcome);
 
             Map<String, String> responseData = new HashMap<>();
             responseData.put("status", "received");
@@ -176,10 +388,43 @@ public class FaceMatchController {
 
             return ResponseEntity.ok(responseBuilder.success(responseData, "Webhook received and processed", request));
 
+        } catch (IllegalArgumentException ex) {
+            log.warn("Bad webhook request: {}", ex.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(responseBuilder.badRequest(ex.getMessage(), null, request));
         } catch (Exception ex) {
             log.error("Error processing webhook", ex);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(responseBuilder.serverError("Failed to process webhook", ex.getMessage(), request));
         }
     }
+
+    private record WebhookUpsert(Transaction transaction, boolean created) {
+    }
+
+    private WebhookUpsert upsertTransaction(FaceMatchProvider provider, String vendorId, String status,
+                                            String vendorReferenceId, String vendorTransactionId) {
+        Transaction existing = transactionRepository.findByVendorId(vendorId).orElse(null);
+        if (existing != null) {
+            existing.setStatus(status);
+            existing.setVendorReferenceId(vendorReferenceId);
+            existing.setVendorTransactionId(vendorTransactionId);
+            return new WebhookUpsert(transactionRepository.save(existing), false);
+        }
+        // Sync face-matches only reach FM_TRANSACTIONS here; the originating account is on
+        // the /face-match audit row that carries the same vendor id
+        Audit origin = auditRepository.findFirstByVendorIdAndAccountIdIsNotNullOrderByIdAsc(vendorId)
+                .orElse(null);
+        Transaction newTx = Transaction.builder()
+                .vendorId(vendorId)
+                .status(status)
+                .vendorReferenceId(vendorReferenceId)
+                .vendorTransactionId(vendorTransactionId)
+                .transactionId(UUID.randomUUID().toString().toLowerCase())
+                .accountId(origin != null ? origin.getAccountId() : null)
+                .portfolio(origin != null ? origin.getPortfolio() : null)
+                .provider(provider.getName())
+                .build();
+        return new WebhookUpsert(transactionRepository.save(newTx), true);
+    }
 }
@@ -0,0 +1,28 @@
+package com.tvscs.FM.controllers;
+
+import com.tvscs.FM.metrics.FmMetrics;
+import com.tvscs.FM.metrics.OpenMetricsWriter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/admin/metrics")
+public class MetricsController {
+
+    private final FmMetrics fmMetrics;
+
+    public MetricsController(FmMetrics fmMetrics) {
+        this.fmMetrics = fmMetrics;
+    }
+
+    /**
+     * OpenMetrics scrape: stage latency histograms, request counts and pool, queue and provider gauges.
+     * Requires X-Admin-API-KEY header (enforced by AdminApiKeyFilter).
+     */
+    @GetMapping(produces = OpenMetricsWriter.CONTENT_TYPE)
+    public ResponseEntity<String> scrape() {
+        return ResponseEntity.ok(fmMetrics.scrape());
+    }
+}
@@ -0,0 +1,31 @@
+package com.tvscs.FM.controllers;
+
+import com.tvscs.FM.services.provider.ProviderRouter;
+import com.tvscs.FM.utils.ResponseBuilder;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/admin/providers")
+public class ProviderController {
+
+    private final ProviderRouter providerRouter;
+    private final ResponseBuilder responseBuilder;
+
+    public ProviderController(ProviderRouter providerRouter, ResponseBuilder responseBuilder) {
+        this.providerRouter = providerRouter;
+        this.responseBuilder = responseBuilder;
+    }
+
+    /**
+     * Routing state per provider: weight, circuit state, EWMA latency and error rate.
+     * Requires X-Admin-API-KEY header (enforced by AdminApiKeyFilter).
+     */
+    @GetMapping
+    public ResponseEntity<?> list(HttpServletRequest httpRequest) {
+        return ResponseEntity.ok(responseBuilder.success(providerRouter.snapshot(), "Provider routing state", httpRequest));
+    }
+}
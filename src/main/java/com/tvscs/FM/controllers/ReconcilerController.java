@@ -0,0 +1,53 @@
+package com.tvscs.FM.controllers;
+
+import com.tvscs.FM.services.TransactionReconciler;
+import com.tvscs.FM.utils.ResponseBuilder;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/admin/reconcile")
+@Slf4j
+public class ReconcilerController {
+
+    private final TransactionReconciler transactionReconciler;
+    private final ResponseBuilder responseBuilder;
+
+    public ReconcilerController(TransactionReconciler transactionReconciler, ResponseBuilder responseBuilder) {
+        this.transactionReconciler = transactionReconciler;
+        this.responseBuilder = responseBuilder;
+    }
+
+    /**
+     * Reconcile stale transactions with Digio now instead of waiting for the schedule.
+     * Requires X-Admin-API-KEY header (enforced by AdminApiKeyFilter).
+     */
+    @PostMapping("/run")
+    public ResponseEntity<?> run(HttpServletRequest httpRequest) {
+        try {
+            TransactionReconciler.Summary summary = transactionReconciler.run();
+            if (summary == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(responseBuilder.error(409, "Reconciliation already running", null, httpRequest));
+            }
+
+            Map<String, Object> responseData = new HashMap<>();
+            responseData.put("scanned", summary.scanned());
+            responseData.put("updated", summary.updated());
+            responseData.put("expired", summary.expired());
+            responseData.put("lookupFailures", summary.lookupFailures());
+            return ResponseEntity.ok(responseBuilder.success(responseData, "Reconciliation completed", httpRequest));
+
+        } catch (Exception ex) {
+            log.error("Error running reconciliation", ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(responseBuilder.serverError("Reconciliation failed", ex.getMessage(), httpRequest));
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.tvscs.FM.controllers;
+
+import com.tvscs.FM.services.PortfolioScheduler;
+import com.tvscs.FM.utils.ResponseBuilder;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/admin/scheduler")
+public class SchedulerController {
+
+    private final PortfolioScheduler portfolioScheduler;
+    private final ResponseBuilder responseBuilder;
+
+    public SchedulerController(PortfolioScheduler portfolioScheduler, ResponseBuilder responseBuilder) {
+        this.portfolioScheduler = portfolioScheduler;
+        this.responseBuilder = responseBuilder;
+    }
+
+    /**
+     * Provider slot usage and per-portfolio queue depth and wait time.
+     * Requires X-Admin-API-KEY header (enforced by AdminApiKeyFilter).
+     */
+    @GetMapping
+    public ResponseEntity<?> status(HttpServletRequest httpRequest) {
+        return ResponseEntity.ok(responseBuilder.success(portfolioScheduler.snapshot(), "Portfolio scheduler state", httpRequest));
+    }
+}
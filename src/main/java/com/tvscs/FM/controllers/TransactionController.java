@@ -0,0 +1,180 @@
+package com.tvscs.FM.controllers;
+
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.services.TransactionEventStream;
+import com.tvscs.FM.services.TransactionStatusCache;
+import com.tvscs.FM.services.TransactionStatusCache.Entry;
+import com.tvscs.FM.utils.ResponseBuilder;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Transaction status, served from {@link TransactionStatusCache}.
+ * Requires X-API-KEY + Bearer JWT; only the account that created the transaction can read it.
+ *
+ * Responses carry an ETag. With If-None-Match and ?wait=N (seconds), the request is parked until the
+ * status changes or N seconds pass; a timeout answers 304 Not Modified.
+ *
+ * GET /events streams every status change for the caller's account as Server-Sent Events.
+ */
+@RestController
+@RequestMapping("/api/v1/transactions")
+@Slf4j
+public class TransactionController {
+
+    private final TransactionStatusCache statusCache;
+    private final TransactionEventStream eventStream;
+    private final FmProperties fmProperties;
+    private final ResponseBuilder responseBuilder;
+
+    public TransactionController(TransactionStatusCache statusCache, TransactionEventStream eventStream,
+                                 FmProperties fmProperties, ResponseBuilder responseBuilder) {
+        this.statusCache = statusCache;
+        this.eventStream = eventStream;
+        this.fmProperties = fmProperties;
+        this.responseBuilder = responseBuilder;
+    }
+
+    @GetMapping("/{transactionId}")
+    public ResponseEntity<?> getStatus(@PathVariable String transactionId,
+                                       @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                       HttpServletRequest request) {
+        return respond(() -> statusCache.getByTransactionId(transactionId), ifNoneMatch, request);
+    }
+
+    @GetMapping("/vendor/{vendorId}")
+    public ResponseEntity<?> getStatusByVendorId(@PathVariable String vendorId,
+                                                 @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                                 HttpServletRequest request) {
+        return respond(() -> statusCache.getByVendorId(vendorId), ifNoneMatch, request);
+    }
+
+    /**
+     * Server-Sent Events stream of status changes ("status" events, JSON data) for the caller's account.
+     * Reconnecting clients send Last-Event-ID to receive the events they missed, as long as those are
+     * still in the replay log.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                             HttpServletRequest request) {
+        String accountId = (String) request.getAttribute("auth.accountId");
+        Long resumeAfter = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                resumeAfter = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException ex) {
+                log.warn("Ignoring invalid Last-Event-ID: {}", lastEventId);
+            }
+        }
+
+        try {
+            return ResponseEntity.ok()
+                    .header("Cache-Control", "no-cache")
+                    .header("X-Accel-Buffering", "no")
+                    .body(eventStream.subscribe(accountId, resumeAfter));
+        } catch (IllegalStateException ex) {
+            log.warn("Rejected event stream for accountId={}: {}", accountId, ex.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+    }
+
+    @GetMapping(value = "/{transactionId}", params = "wait")
+    public DeferredResult<ResponseEntity<?>> longPoll(@PathVariable String transactionId,
+                                                      @RequestParam("wait") int waitSeconds,
+                                                      @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                                      HttpServletRequest request) {
+        return park(() -> statusCache.getByTransactionId(transactionId), waitSeconds, ifNoneMatch, request);
+    }
+
+    @GetMapping(value = "/vendor/{vendorId}", params = "wait")
+    public DeferredResult<ResponseEntity<?>> longPollByVendorId(@PathVariable String vendorId,
+                                                                @RequestParam("wait") int waitSeconds,
+                                                                @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                                                HttpServletRequest request) {
+        return park(() -> statusCache.getByVendorId(vendorId), waitSeconds, ifNoneMatch, request);
+    }
+
+    private ResponseEntity<?> respond(Supplier<Entry> lookup, String ifNoneMatch, HttpServletRequest request) {
+        try {
+            Entry entry = lookup.get();
+            return toResponse(entry, ifNoneMatch, request);
+        } catch (Exception ex) {
+            log.error("Error reading transaction status", ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(responseBuilder.serverError("Failed to read transaction status", ex.getMessage(), request));
+        }
+    }
+
+    private DeferredResult<ResponseEntity<?>> park(Supplier<Entry> lookup, int waitSeconds, String ifNoneMatch,
+                                                   HttpServletRequest request) {
+        long waitMs = TimeUnit.SECONDS.toMillis(Math.max(0, Math.min(waitSeconds, fmProperties.getStatusCache().getMaxWaitSeconds())));
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(waitMs + 1000);
+
+        Entry current;
+        try {
+            current = lookup.get();
+        } catch (Exception ex) {
+            log.error("Error reading transaction status", ex);
+            result.setResult(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(responseBuilder.serverError("Failed to read transaction status", ex.getMessage(), request)));
+            return result;
+        }
+
+        // Only park when the caller already has the current state
+        if (waitMs == 0 || !isVisible(current, request) || !current.getEtag().equals(ifNoneMatch)) {
+            result.setResult(toResponse(current, ifNoneMatch, request));
+            return result;
+        }
+
+        String transactionId = current.getTransactionId();
+        CompletableFuture<Entry> change = statusCache.awaitChange(transactionId, current.getEtag())
+                .orTimeout(waitMs, TimeUnit.MILLISECONDS);
+        change.whenCompleteAsync((updated, error) -> {
+            statusCache.cancel(transactionId, change);
+            // On timeout re-read through the cache, which picks up changes made on other nodes after the TTL
+            Entry latest = updated != null ? updated : statusCache.getByTransactionId(transactionId);
+            result.setResult(toResponse(latest, ifNoneMatch, request));
+        });
+        result.onCompletion(() -> statusCache.cancel(transactionId, change));
+        return result;
+    }
+
+    private ResponseEntity<?> toResponse(Entry entry, String ifNoneMatch, HttpServletRequest request) {
+        if (!isVisible(entry, request)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(responseBuilder.notFound("Transaction not found", request));
+        }
+        if (entry.getEtag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entry.getEtag()).build();
+        }
+
+        Map<String, Object> responseData = new HashMap<>();
+        responseData.put("transaction_id", entry.getTransactionId());
+        responseData.put("vendor_id", entry.getVendorId());
+        responseData.put("status", entry.getStatus());
+        responseData.put("redirect_url", entry.getRedirectUrl());
+        responseData.put("created_at", entry.getCreatedAt());
+        responseData.put("updated_at", entry.getUpdatedAt());
+
+        return ResponseEntity.ok()
+                .eTag(entry.getEtag())
+                .body(responseBuilder.success(responseData, "Transaction status", request));
+    }
+
+    private boolean isVisible(Entry entry, HttpServletRequest request) {
+        String accountId = (String) request.getAttribute("auth.accountId");
+        return entry.isFound() && accountId != null && accountId.equals(entry.getAccountId());
+    }
+}
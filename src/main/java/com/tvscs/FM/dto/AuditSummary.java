@@ -0,0 +1,28 @@
+package com.tvscs.FM.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * fm_audit row without the payload/response CLOBs, used by audit search.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditSummary {
+    private Long id;
+    private String transactionId;
+    private String vendorId;
+    private String customerIdHash;
+    private String endpoint;
+    private String httpMethod;
+    private Integer httpStatus;
+    private String accountId;
+    private String portfolio;
+    private Long requestDurationMs;
+    private Integer isError;
+    private OffsetDateTime createdAt;
+}
@@ -0,0 +1,27 @@
+package com.tvscs.FM.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * JSON body of /face-match for callers that already hold the image as base64.
+ */
+@Data
+@NoArgsConstructor
+public class FaceMatchJsonRequest {
+
+    @JsonProperty("customer_name")
+    private String customerName;
+
+    @JsonProperty("customer_identifier")
+    private String customerIdentifier;
+
+    @JsonProperty("redirect_url")
+    private boolean redirectUrl;
+
+    // Standard base64, optionally as a data:image/...;base64, URI
+    private String image;
+
+    private String filename;
+}
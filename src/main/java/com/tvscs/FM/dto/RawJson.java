@@ -0,0 +1,28 @@
+package com.tvscs.FM.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * A JSON document written into a response as-is, e.g. a provider body passed through in
+ * {@link ApiResponse#getData()} without being parsed and re-serialized.
+ */
+public final class RawJson {
+
+    private final String json;
+
+    public RawJson(String json) {
+        this.json = json;
+    }
+
+    @JsonValue
+    @JsonRawValue
+    public String getJson() {
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+}
@@ -0,0 +1,18 @@
+package com.tvscs.FM.exception;
+
+/**
+ * The client's request deadline passed before the named stage could start or finish.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private final String stage;
+
+    public DeadlineExceededException(String stage) {
+        super("Request deadline exceeded before " + stage);
+        this.stage = stage;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+}
@@ -1,23 +1,13 @@
 package com.tvscs.FM.exception;
 
-import lombok.Getter;
-import lombok.Setter;
-
-@Getter
-@Setter
-public class DigioApiException extends RuntimeException {
-
-    private int statusCode;
-    private String responseBody;
+public class DigioApiException extends ProviderApiException {
 
     public DigioApiException(String message) {
         super(message);
     }
 
     public DigioApiException(String message, int statusCode, String responseBody) {
-        super(message);
-        this.statusCode = statusCode;
-        this.responseBody = responseBody;
+        super(message, statusCode, responseBody);
     }
 
     public DigioApiException(String message, Throwable cause) {
@@ -0,0 +1,18 @@
+package com.tvscs.FM.exception;
+
+/**
+ * A request body grew past the size allowed for it while it was being read.
+ */
+public class PayloadTooLargeException extends RuntimeException {
+
+    private final long limitBytes;
+
+    public PayloadTooLargeException(long limitBytes) {
+        super("Request exceeds " + limitBytes + " bytes");
+        this.limitBytes = limitBytes;
+    }
+
+    public long getLimitBytes() {
+        return limitBytes;
+    }
+}
@@ -0,0 +1,56 @@
+package com.tvscs.FM.exception;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+/**
+ * Error from a face-match provider call. {@code statusCode} is the provider's HTTP status,
+ * or 0 when the call failed before a response (timeouts, connection errors).
+ * A status of 0 does not mean the provider never saw the request: only {@link #isConnectFailure()} does.
+ */
+@Getter
+@Setter
+public class ProviderApiException extends RuntimeException {
+
+    private int statusCode;
+    private String responseBody;
+
+    public ProviderApiException(String message) {
+        super(message);
+    }
+
+    public ProviderApiException(String message, int statusCode, String responseBody) {
+        super(message);
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+    }
+
+    public ProviderApiException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * True if the call failed while connecting, so the request body never left this service.
+     * A read timeout or a connection reset after sending is not a connect failure: the provider may
+     * have created the request.
+     */
+    public boolean isConnectFailure() {
+        for (Throwable cause = getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof UnknownHostException
+                    || cause instanceof NoRouteToHostException || cause instanceof SSLHandshakeException) {
+                return true;
+            }
+            if (cause instanceof SocketTimeoutException && cause.getMessage() != null
+                    && cause.getMessage().toLowerCase().contains("connect")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
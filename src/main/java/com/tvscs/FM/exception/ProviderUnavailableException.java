@@ -0,0 +1,12 @@
+package com.tvscs.FM.exception;
+
+/**
+ * No face-match provider could take the request: every circuit is open or every candidate failed.
+ */
+public class ProviderUnavailableException extends ProviderApiException {
+
+    public ProviderUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+        setStatusCode(503);
+    }
+}
@@ -0,0 +1,120 @@
+package com.tvscs.FM.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import com.tvscs.FM.utils.TokenBucketRateLimiter;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps how often any one log statement can fire. Each (logger, message format) pair gets a token bucket
+ * of {@code eventsPerSecond} with {@code burst} headroom; once it is empty only every
+ * {@code sampleRate}-th event gets through, so a storm of the same message stays visible without
+ * flooding the appender.
+ *
+ * Events more severe than {@code maxLevel} (WARN by default, so errors are never limited) and events
+ * their logger would not log anyway are left alone. Format strings are constants, so the per-event lookup allocates nothing;
+ * past {@code maxKeys} distinct statements new ones are no longer limited.
+ */
+public class LogRateLimitFilter extends TurboFilter {
+
+    private static final LongAdder SUPPRESSED = new LongAdder();
+    private static final LongAdder SAMPLED = new LongAdder();
+
+    private static final class Statement {
+        private final TokenBucketRateLimiter bucket;
+        private final AtomicLong overLimit = new AtomicLong();
+
+        private Statement(TokenBucketRateLimiter bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    private final Map<String, Map<String, Statement>> statements = new ConcurrentHashMap<>();
+    private final AtomicInteger statementCount = new AtomicInteger();
+
+    private double eventsPerSecond = 20;
+    private int burst = 100;
+    private int sampleRate = 100;
+    private Level maxLevel = Level.WARN;
+    private int maxKeys = 4096;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // Level checks (isDebugEnabled) pass no format; the logger's own level is compared without
+        // calling back into the turbo filter chain
+        if (format == null || level == null || !isStarted() || level.toInt() > maxLevel.toInt()
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        Statement statement = statement(logger.getName(), format);
+        if (statement == null || statement.bucket.tryAcquire()) {
+            return FilterReply.NEUTRAL;
+        }
+        if (statement.overLimit.incrementAndGet() % sampleRate == 0) {
+            SAMPLED.increment();
+            return FilterReply.NEUTRAL;
+        }
+        SUPPRESSED.increment();
+        return FilterReply.DENY;
+    }
+
+    private Statement statement(String loggerName, String format) {
+        Map<String, Statement> byFormat = statements.get(loggerName);
+        if (byFormat != null) {
+            Statement statement = byFormat.get(format);
+            if (statement != null) {
+                return statement;
+            }
+        }
+        if (statementCount.get() >= maxKeys) {
+            return null;
+        }
+        byFormat = statements.computeIfAbsent(loggerName, k -> new ConcurrentHashMap<>());
+        return byFormat.computeIfAbsent(format, k -> {
+            statementCount.incrementAndGet();
+            return new Statement(new TokenBucketRateLimiter(eventsPerSecond, burst));
+        });
+    }
+
+    /**
+     * Events dropped by the limit since startup.
+     */
+    public static long getSuppressed() {
+        return SUPPRESSED.sum();
+    }
+
+    /**
+     * Events over the limit let through as samples since startup.
+     */
+    public static long getSampled() {
+        return SAMPLED.sum();
+    }
+
+    public void setEventsPerSecond(double eventsPerSecond) {
+        this.eventsPerSecond = eventsPerSecond;
+    }
+
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    public void setMaxLevel(String maxLevel) {
+        this.maxLevel = Level.toLevel(maxLevel, Level.WARN);
+    }
+
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+}
@@ -0,0 +1,29 @@
+package com.tvscs.FM.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link AsyncAppender} that counts the events it throws away. With {@code neverBlock} a full queue
+ * drops events, and below the discarding threshold INFO and lower are discarded; neither is counted
+ * by logback itself.
+ */
+public class MeteredAsyncAppender extends AsyncAppender {
+
+    private final LongAdder discarded = new LongAdder();
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        int remaining = getRemainingCapacity();
+        if (remaining == 0 || (remaining < getDiscardingThreshold() && isDiscardable(event))) {
+            discarded.increment();
+        }
+        super.append(event);
+    }
+
+    public long getDiscarded() {
+        return discarded.sum();
+    }
+}
@@ -0,0 +1,100 @@
+package com.tvscs.FM.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the JDBC connections the current thread has checked out of the pool, so outbound HTTP calls
+ * can verify they are not made while one is held. With a small pool, a connection held across a
+ * provider call caps concurrent face-matches at the pool size.
+ *
+ * Fed by HikariMetricsTracker on checkout and return, which run on the borrowing thread. Outbound
+ * clients call {@link #checkOutbound} before sending. A violation is counted, flagged on the request's
+ * {@link RequestTiming} and logged; with {@code fm.connection-hold.fail-on-outbound-http} (set in tests)
+ * it throws instead.
+ */
+@Slf4j
+public final class ConnectionHoldTracker {
+
+    private static final int MAX_DEPTH = 8;
+
+    private static final class Held {
+        private final long[] since = new long[MAX_DEPTH];
+        private int count;
+    }
+
+    private static final ThreadLocal<Held> HELD = ThreadLocal.withInitial(Held::new);
+    private static final LongAdder VIOLATIONS = new LongAdder();
+    private static volatile boolean failOnOutboundHttp;
+
+    private ConnectionHoldTracker() {
+    }
+
+    public static void setFailOnOutboundHttp(boolean fail) {
+        failOnOutboundHttp = fail;
+    }
+
+    public static boolean isFailOnOutboundHttp() {
+        return failOnOutboundHttp;
+    }
+
+    static void acquired() {
+        Held held = HELD.get();
+        if (held.count < MAX_DEPTH) {
+            held.since[held.count] = System.nanoTime();
+        }
+        held.count++;
+    }
+
+    /**
+     * @return how long the most recently acquired connection was held, or -1 if unknown (returned on
+     *         another thread, or nested deeper than tracked)
+     */
+    static long released() {
+        Held held = HELD.get();
+        if (held.count == 0) {
+            return -1;
+        }
+        held.count--;
+        return held.count < MAX_DEPTH ? System.nanoTime() - held.since[held.count] : -1;
+    }
+
+    /**
+     * Connections currently checked out by this thread.
+     */
+    public static int heldConnections() {
+        return HELD.get().count;
+    }
+
+    /**
+     * Call before sending an HTTP request.
+     *
+     * @throws IllegalStateException if the thread holds a connection and failing is enabled
+     */
+    public static void checkOutbound(String target) {
+        Held held = HELD.get();
+        if (held.count == 0) {
+            return;
+        }
+        VIOLATIONS.increment();
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.markHeldAcrossHttp();
+        }
+        long heldMs = (System.nanoTime() - held.since[0]) / 1_000_000;
+        if (failOnOutboundHttp) {
+            throw new IllegalStateException("JDBC connection held across outbound HTTP call to " + target
+                    + " (held " + heldMs + "ms, " + held.count + " open)");
+        }
+        log.warn("[DB-HOLD] {} JDBC connection(s) held across outbound HTTP call to {} (held {}ms)",
+                held.count, target, heldMs);
+    }
+
+    /**
+     * Outbound HTTP calls made while holding a connection, since startup.
+     */
+    public static long getViolations() {
+        return VIOLATIONS.sum();
+    }
+}
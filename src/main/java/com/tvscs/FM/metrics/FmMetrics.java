@@ -0,0 +1,223 @@
+package com.tvscs.FM.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Application metrics, exposed in OpenMetrics text format by MetricsController.
+ *
+ * Everything recorded on the request path is pre-registered: one {@link LatencyHistogram} per
+ * {@link Stage}, and a request counter matrix indexed by endpoint pattern, status code and portfolio.
+ * Recording looks up array indexes and increments atomics, so no tag maps or meter ids are built per
+ * request. State owned by other components (queues, budgets, providers) is read at scrape time through
+ * registered {@link Collector}s.
+ */
+@Component
+public class FmMetrics {
+
+    public enum Stage {
+        AUTH_FILTER("auth_filter"),
+        JWT_VERIFY("jwt_verify"),
+        ACCOUNT_LOOKUP("account_lookup"),
+        IMAGE_ENCODE("image_encode"),
+        DIGIO_CALL("digio_round_trip"),
+        WEBHOOK_UPSERT("webhook_upsert"),
+        AUDIT_INSERT("audit_insert"),
+        DB_POOL_ACQUIRE("db_pool_acquire"),
+        DB_POOL_USAGE("db_pool_usage"),
+        AUDIT_CAPTURE("audit_capture");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * Writes metric families owned by another component when the endpoint is scraped.
+     */
+    @FunctionalInterface
+    public interface Collector {
+        void collect(OpenMetricsWriter writer);
+    }
+
+    static final int[] STATUSES = {200, 201, 202, 204, 400, 401, 403, 404, 409, 413, 415, 429, 500, 502, 503, 504};
+    static final int MAX_PORTFOLIOS = 32;
+    static final String OTHER = "other";
+    static final String NONE = "none";
+
+    // Log2 bucket bounds exposed to scrapers: 64us up to ~33s
+    private static final int MIN_BUCKET_EXPONENT = 6;
+    private static final int MAX_BUCKET_EXPONENT = 25;
+
+    private record Endpoints(Map<String, Integer> index, String[] names, AtomicLongArray counts) {
+    }
+
+    private final LatencyHistogram[] stages = new LatencyHistogram[Stage.values().length];
+    private final Map<String, Integer> portfolioIndex = new ConcurrentHashMap<>();
+    private final String[] portfolioNames = new String[MAX_PORTFOLIOS + 2];
+    private final AtomicInteger portfolioCount = new AtomicInteger(1);
+    private final List<Collector> collectors = new CopyOnWriteArrayList<>();
+    private volatile Endpoints endpoints = newEndpoints(List.of());
+
+    public FmMetrics() {
+        for (Stage stage : Stage.values()) {
+            stages[stage.ordinal()] = new LatencyHistogram();
+        }
+        portfolioNames[0] = NONE;
+        portfolioNames[MAX_PORTFOLIOS + 1] = OTHER;
+    }
+
+    /**
+     * Record a stage duration, also adding it to the calling request's {@link RequestTiming}.
+     */
+    public void record(Stage stage, long nanos) {
+        stages[stage.ordinal()].record(nanos);
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.add(stage, nanos);
+        }
+    }
+
+    public LatencyHistogram histogram(Stage stage) {
+        return stages[stage.ordinal()];
+    }
+
+    /**
+     * Count a finished request.
+     *
+     * @param endpoint handler pattern (or path for requests that never reached a handler)
+     */
+    public void recordRequest(String endpoint, int status, String portfolio) {
+        Endpoints current = endpoints;
+        Integer endpointIndex = endpoint != null ? current.index().get(endpoint) : null;
+        int e = endpointIndex != null ? endpointIndex : current.names().length - 1;
+        int cell = (e * (STATUSES.length + 1) + statusIndex(status)) * portfolioNames.length + portfolioIndex(portfolio);
+        current.counts().incrementAndGet(cell);
+    }
+
+    /**
+     * Pre-register the request counters for the application's handler patterns. Requests to anything
+     * else are counted under "other".
+     */
+    public void registerEndpoints(Collection<String> patterns) {
+        this.endpoints = newEndpoints(patterns);
+    }
+
+    public void register(Collector collector) {
+        collectors.add(collector);
+    }
+
+    public String scrape() {
+        OpenMetricsWriter writer = new OpenMetricsWriter();
+        writeStages(writer);
+        writeRequests(writer);
+        for (Collector collector : collectors) {
+            collector.collect(writer);
+        }
+        return writer.finish();
+    }
+
+    private void writeStages(OpenMetricsWriter writer) {
+        writer.family("fm_stage_latency_seconds", "histogram", "Latency of hot-path stages.");
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram histogram = stages[stage.ordinal()];
+            String label = stage.getLabel();
+            for (int exponent = MIN_BUCKET_EXPONENT; exponent <= MAX_BUCKET_EXPONENT; exponent++) {
+                long bound = 1L << exponent;
+                writer.sample("fm_stage_latency_seconds_bucket", histogram.countBelow(bound),
+                        "stage", label, "le", Double.toString(bound / 1e6));
+            }
+            long count = histogram.getCount();
+            writer.sample("fm_stage_latency_seconds_bucket", count, "stage", label, "le", "+Inf");
+            writer.sample("fm_stage_latency_seconds_count", count, "stage", label);
+            writer.sample("fm_stage_latency_seconds_sum", histogram.getSumMicros() / 1e6, "stage", label);
+        }
+    }
+
+    private void writeRequests(OpenMetricsWriter writer) {
+        writer.family("fm_http_requests", "counter", "Requests by endpoint, status and portfolio.");
+        Endpoints current = endpoints;
+        int statuses = STATUSES.length + 1;
+        int portfolios = portfolioNames.length;
+        for (int e = 0; e < current.names().length; e++) {
+            for (int s = 0; s < statuses; s++) {
+                for (int p = 0; p < portfolios; p++) {
+                    long value = current.counts().get((e * statuses + s) * portfolios + p);
+                    if (value > 0) {
+                        writer.sample("fm_http_requests_total", value, "endpoint", current.names()[e],
+                                "status", s < STATUSES.length ? Integer.toString(STATUSES[s]) : OTHER,
+                                "portfolio", portfolioNames[p]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int statusIndex(int status) {
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i] == status) {
+                return i;
+            }
+        }
+        return STATUSES.length;
+    }
+
+    /**
+     * Portfolios come from account tokens, so they are registered on first sight up to a cap; the
+     * lookup after that is a map read.
+     */
+    private int portfolioIndex(String portfolio) {
+        if (portfolio == null) {
+            return 0;
+        }
+        Integer index = portfolioIndex.get(portfolio);
+        if (index != null) {
+            return index;
+        }
+        synchronized (portfolioIndex) {
+            index = portfolioIndex.get(portfolio);
+            if (index == null) {
+                int next = portfolioCount.get();
+                if (next > MAX_PORTFOLIOS) {
+                    return MAX_PORTFOLIOS + 1;
+                }
+                portfolioNames[next] = portfolio;
+                portfolioIndex.put(portfolio, next);
+                portfolioCount.incrementAndGet();
+                index = next;
+            }
+            return index;
+        }
+    }
+
+    private Endpoints newEndpoints(Collection<String> patterns) {
+        Map<String, Integer> index = new HashMap<>();
+        String[] names = new String[patterns.size() + 1];
+        int i = 0;
+        for (String pattern : patterns) {
+            if (!index.containsKey(pattern)) {
+                index.put(pattern, i);
+                names[i++] = pattern;
+            }
+        }
+        String[] trimmed = new String[i + 1];
+        System.arraycopy(names, 0, trimmed, 0, i);
+        trimmed[i] = OTHER;
+        return new Endpoints(index, trimmed,
+                new AtomicLongArray(trimmed.length * (STATUSES.length + 1) * (MAX_PORTFOLIOS + 2)));
+    }
+}
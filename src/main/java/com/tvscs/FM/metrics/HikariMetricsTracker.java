@@ -0,0 +1,60 @@
+package com.tvscs.FM.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Feeds Hikari's connection wait and hold times into the {@link FmMetrics.Stage#DB_POOL_ACQUIRE} and
+ * {@link FmMetrics.Stage#DB_POOL_USAGE} histograms, and exposes the pool's own counters as gauges.
+ * Checkouts and returns are also reported to {@link ConnectionHoldTracker}, whose nanosecond hold time
+ * is used in place of Hikari's millisecond one when it is known.
+ */
+public class HikariMetricsTracker implements MetricsTrackerFactory {
+
+    private final FmMetrics fmMetrics;
+
+    public HikariMetricsTracker(FmMetrics fmMetrics) {
+        this.fmMetrics = fmMetrics;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        LongAdder timeouts = new LongAdder();
+        fmMetrics.register(writer -> {
+            writer.family("fm_db_pool_connections", "gauge", "Connections in the pool by state.");
+            writer.sample("fm_db_pool_connections", poolStats.getActiveConnections(), "pool", poolName, "state", "active");
+            writer.sample("fm_db_pool_connections", poolStats.getIdleConnections(), "pool", poolName, "state", "idle");
+            writer.sample("fm_db_pool_connections", poolStats.getTotalConnections(), "pool", poolName, "state", "total");
+            writer.family("fm_db_pool_pending_threads", "gauge", "Threads waiting for a connection.");
+            writer.sample("fm_db_pool_pending_threads", poolStats.getPendingThreads(), "pool", poolName);
+            writer.family("fm_db_pool_max_connections", "gauge", "Configured maximum pool size.");
+            writer.sample("fm_db_pool_max_connections", poolStats.getMaxConnections(), "pool", poolName);
+            writer.family("fm_db_pool_timeouts", "counter", "Connection requests that timed out.");
+            writer.sample("fm_db_pool_timeouts_total", timeouts.sum(), "pool", poolName);
+        });
+
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                ConnectionHoldTracker.acquired();
+                fmMetrics.record(FmMetrics.Stage.DB_POOL_ACQUIRE, elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                long heldNanos = ConnectionHoldTracker.released();
+                fmMetrics.record(FmMetrics.Stage.DB_POOL_USAGE,
+                        heldNanos >= 0 ? heldNanos : TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+}
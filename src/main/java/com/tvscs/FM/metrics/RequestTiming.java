@@ -0,0 +1,103 @@
+package com.tvscs.FM.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time spent in each {@link FmMetrics.Stage} by one request, reported to the client in a
+ * {@code Server-Timing} header and stored on its fm_audit row.
+ *
+ * Started by RequestMetricsFilter and bound to the request thread like RequestDeadline, so every
+ * {@link FmMetrics#record} call on that thread also lands here. Stages that run more than once (pool
+ * acquires, provider retries) accumulate. Work on other threads (the async audit insert, the outbox)
+ * is not attributed to the request.
+ */
+public final class RequestTiming {
+
+    public static final String ATTRIBUTE = "timing";
+    public static final String HEADER = "Server-Timing";
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+    private static final FmMetrics.Stage[] STAGES = FmMetrics.Stage.values();
+
+    private final long startNanos;
+    private final long[] stageNanos = new long[STAGES.length];
+    private boolean heldAcrossHttp;
+
+    public RequestTiming() {
+        this.startNanos = System.nanoTime();
+    }
+
+    public static void set(RequestTiming timing) {
+        CURRENT.set(timing);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return the current thread's timing, or null if it is not serving a request
+     */
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    public void add(FmMetrics.Stage stage, long nanos) {
+        stageNanos[stage.ordinal()] += nanos;
+    }
+
+    /**
+     * Set by {@link ConnectionHoldTracker} when an outbound call was made while holding a connection.
+     */
+    public void markHeldAcrossHttp() {
+        heldAcrossHttp = true;
+    }
+
+    public boolean isHeldAcrossHttp() {
+        return heldAcrossHttp;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * @return microseconds spent in the stage, or null if the request never entered it
+     */
+    public Long micros(FmMetrics.Stage stage) {
+        long nanos = stageNanos[stage.ordinal()];
+        return nanos > 0 ? TimeUnit.NANOSECONDS.toMicros(nanos) : null;
+    }
+
+    /**
+     * Header value listing the stages this request went through plus the total, in milliseconds.
+     */
+    public String toServerTiming() {
+        StringBuilder header = new StringBuilder(160);
+        for (FmMetrics.Stage stage : STAGES) {
+            long nanos = stageNanos[stage.ordinal()];
+            if (nanos > 0) {
+                appendMetric(header, stage.getLabel(), nanos);
+            }
+        }
+        appendMetric(header, "total", elapsedNanos());
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        // Three decimals (microsecond resolution) without going through String.format
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        long fraction = micros % 1000;
+        header.append(name).append(";dur=").append(micros / 1000).append('.');
+        if (fraction < 100) {
+            header.append('0');
+        }
+        if (fraction < 10) {
+            header.append('0');
+        }
+        header.append(fraction);
+    }
+}
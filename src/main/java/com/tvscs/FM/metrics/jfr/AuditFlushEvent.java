@@ -0,0 +1,27 @@
+package com.tvscs.FM.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A write of fm_audit rows to the database.
+ */
+@Name("com.tvscs.fm.AuditFlush")
+@Label("Audit Flush")
+@Category({"Face Match", "Audit"})
+@Description("fm_audit rows written by the audit interceptor")
+@StackTrace(false)
+public class AuditFlushEvent extends jdk.jfr.Event {
+
+    @Label("Batch Size")
+    public int batchSize;
+
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
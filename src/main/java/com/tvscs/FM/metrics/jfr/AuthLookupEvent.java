@@ -0,0 +1,29 @@
+package com.tvscs.FM.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Resolution of an API key to its account during authentication.
+ */
+@Name("com.tvscs.fm.AuthLookup")
+@Label("Auth Lookup")
+@Category({"Face Match", "Security"})
+@Description("API key to account lookup in ApiKeyAndJwtAuthenticationFilter")
+@StackTrace(false)
+public class AuthLookupEvent extends jdk.jfr.Event {
+
+    public static final String SOURCE_CACHE = "cache";
+    public static final String SOURCE_DB = "db";
+
+    @Label("Source")
+    @Description("Where the account came from: cache or db")
+    public String source;
+
+    @Label("Found")
+    @Description("An active account exists for the key")
+    public boolean found;
+}
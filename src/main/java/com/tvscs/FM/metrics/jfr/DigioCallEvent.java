@@ -0,0 +1,33 @@
+package com.tvscs.FM.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One outbound provider HTTP exchange, up to the response headers.
+ */
+@Name("com.tvscs.fm.DigioCall")
+@Label("Digio Call")
+@Category({"Face Match", "Provider"})
+@Description("An HTTP exchange with the face-match provider")
+@StackTrace(false)
+public class DigioCallEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes Out")
+    @DataAmount
+    public long bytesOut;
+
+    @Label("HTTP Status")
+    @Description("0 when no response was received")
+    public int status;
+}
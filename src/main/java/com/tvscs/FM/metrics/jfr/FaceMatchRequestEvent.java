@@ -0,0 +1,42 @@
+package com.tvscs.FM.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One /face-match submission, from parameter validation to the response entity.
+ */
+@Name("com.tvscs.fm.FaceMatchRequest")
+@Label("Face Match Request")
+@Category({"Face Match", "API"})
+@Description("A face-match submission handled by FaceMatchController")
+@StackTrace(false)
+public class FaceMatchRequestEvent extends jdk.jfr.Event {
+
+    @Label("Upload Source")
+    @Description("multipart, base64 or binary")
+    public String source;
+
+    @Label("Image Size")
+    @DataAmount
+    public long imageBytes;
+
+    @Label("Normalized")
+    public boolean normalized;
+
+    @Label("Async")
+    public boolean async;
+
+    @Label("Portfolio")
+    public String portfolio;
+
+    @Label("Provider")
+    public String provider;
+
+    @Label("HTTP Status")
+    public int status;
+}
@@ -0,0 +1,31 @@
+package com.tvscs.FM.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Application of a provider webhook to fm_transactions.
+ */
+@Name("com.tvscs.fm.WebhookApply")
+@Label("Webhook Apply")
+@Category({"Face Match", "Webhook"})
+@Description("A provider webhook upserted into fm_transactions")
+@StackTrace(false)
+public class WebhookApplyEvent extends jdk.jfr.Event {
+
+    @Label("Provider")
+    public String provider;
+
+    @Label("Vendor Id")
+    public String vendorId;
+
+    @Label("Status")
+    public String status;
+
+    @Label("Created")
+    @Description("The webhook created the transaction row instead of updating it")
+    public boolean created;
+}
@@ -49,4 +49,8 @@ public class Account {
 
     @Column(name = "transaction_id", length = 36, nullable = false, unique = true)
     private String transactionId;
+
+    // Where completed face-match status changes are POSTed; null disables callbacks for the account
+    @Column(name = "callback_url", length = 2000)
+    private String callbackUrl;
 }
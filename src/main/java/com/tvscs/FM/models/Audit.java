@@ -26,6 +26,9 @@ public class Audit {
     @Column(name = "vendor_id", length = 64)
     private String vendorId;
 
+    @Column(name = "customer_id_hash", length = 64)
+    private String customerIdHash;
+
     @Column(name = "endpoint", length = 4000, nullable = false)
     private String endpoint;
 
@@ -62,6 +65,35 @@ public class Audit {
     @Column(name = "portfolio", length = 100)
     private String portfolio;
 
+    // Per-stage time in microseconds from RequestTiming; null when the request skipped the stage
+    @Column(name = "auth_filter_us")
+    private Long authFilterUs;
+
+    @Column(name = "jwt_verify_us")
+    private Long jwtVerifyUs;
+
+    @Column(name = "account_lookup_us")
+    private Long accountLookupUs;
+
+    @Column(name = "image_encode_us")
+    private Long imageEncodeUs;
+
+    @Column(name = "digio_round_trip_us")
+    private Long digioRoundTripUs;
+
+    @Column(name = "webhook_upsert_us")
+    private Long webhookUpsertUs;
+
+    @Column(name = "db_pool_acquire_us")
+    private Long dbPoolAcquireUs;
+
+    @Column(name = "db_pool_usage_us")
+    private Long dbPoolUsageUs;
+
+    // 1 if an outbound HTTP call was made while the request held a JDBC connection
+    @Column(name = "db_held_across_http")
+    private Integer dbHeldAcrossHttp;
+
     @Column(name = "transaction_id", length = 36, nullable = false, unique = true)
     private String transactionId;
 
@@ -0,0 +1,55 @@
+package com.tvscs.FM.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Callback event that could not be delivered within fm.callbacks.max-attempts.
+ */
+@Entity
+@Table(name = "fm_callback_dead_letters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CallbackDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "delivery_id", nullable = false)
+    private Long deliveryId;
+
+    @Column(name = "account_id", length = 100, nullable = false)
+    private String accountId;
+
+    @Column(name = "callback_url", length = 2000, nullable = false)
+    private String callbackUrl;
+
+    @Column(name = "transaction_id", length = 36, nullable = false)
+    private String transactionId;
+
+    @Column(name = "event_payload", length = 4000, nullable = false)
+    private String eventPayload;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "last_error", length = 4000)
+    private String lastError;
+
+    @Column(name = "first_attempt_at")
+    private OffsetDateTime firstAttemptAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+}
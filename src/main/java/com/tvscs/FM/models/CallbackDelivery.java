@@ -0,0 +1,58 @@
+package com.tvscs.FM.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Status event waiting to be POSTed to an account's callback URL. The row is deleted once the
+ * destination accepts it, or moved to fm_callback_dead_letters after the last attempt.
+ */
+@Entity
+@Table(name = "fm_callback_deliveries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CallbackDelivery {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "account_id", length = 100, nullable = false)
+    private String accountId;
+
+    @Column(name = "callback_url", length = 2000, nullable = false)
+    private String callbackUrl;
+
+    @Column(name = "transaction_id", length = 36, nullable = false)
+    private String transactionId;
+
+    @Column(name = "event_payload", length = 4000, nullable = false)
+    private String eventPayload;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private OffsetDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 4000)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
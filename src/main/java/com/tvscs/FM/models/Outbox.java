@@ -0,0 +1,101 @@
+package com.tvscs.FM.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Pending Digio submission for an async face-match. The row is deleted once Digio accepts the request
+ * and the transaction is updated. The image is cleared as soon as the provider has answered, or when the
+ * entry gives up, so it only lives in the database while the provider call is still outstanding.
+ *
+ * The vendor_* columns hold the provider's answer until it has been applied to fm_transactions; a row
+ * that has them is only ever retried from the saved values, never sent to a provider again.
+ */
+@Entity
+@Table(name = "fm_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Outbox {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "transaction_id", length = 36, nullable = false, unique = true)
+    private String transactionId;
+
+    @Column(name = "customer_name", length = 200, nullable = false)
+    private String customerName;
+
+    @Column(name = "customer_identifier", length = 200, nullable = false)
+    private String customerIdentifier;
+
+    @Column(name = "portfolio", length = 100)
+    private String portfolio;
+
+    @Column(name = "image_base64", columnDefinition = "CLOB")
+    private String imageBase64;
+
+    @Column(name = "notify_customer", nullable = false)
+    private Integer notifyCustomer;
+
+    @Column(name = "want_redirect", nullable = false)
+    private Integer wantRedirect;
+
+    @Column(name = "status", length = 20, nullable = false)
+    private String status;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private OffsetDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 4000)
+    private String lastError;
+
+    @Column(name = "vendor_id", length = 64)
+    private String vendorId;
+
+    @Column(name = "provider", length = 30)
+    private String provider;
+
+    @Column(name = "vendor_status", length = 50)
+    private String vendorStatus;
+
+    @Column(name = "redirect_url", length = 2000)
+    private String redirectUrl;
+
+    @Column(name = "vendor_response", columnDefinition = "CLOB")
+    private String vendorResponse;
+
+    @Column(name = "call_duration_ms")
+    private Long callDurationMs;
+
+    /**
+     * Length of the image that was sent, for the dispatch audit; not persisted.
+     */
+    @Transient
+    private Integer imageLength;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
@@ -18,12 +18,20 @@ import java.time.OffsetDateTime;
 @Builder
 public class Transaction {
 
+    public static final String STATUS_PENDING = "pending";
+    public static final String STATUS_REQUESTED = "requested";
+    public static final String STATUS_DISPATCH_FAILED = "dispatch_failed";
+    // The provider call was sent but never answered; the provider may hold a request for it
+    public static final String STATUS_DISPATCH_UNKNOWN = "dispatch_unknown";
+    public static final String STATUS_EXPIRED = "expired";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id")
     private Long id;
 
-    @Column(name = "vendor_id", length = 64, nullable = false, unique = true)
+    // Null while an async request is still in the outbox
+    @Column(name = "vendor_id", length = 64, unique = true)
     private String vendorId;
 
     @Column(name = "status", length = 50)
@@ -38,6 +46,26 @@ public class Transaction {
     @Column(name = "transaction_id", length = 36, nullable = false, unique = true)
     private String transactionId;
 
+    @Column(name = "account_id", length = 100)
+    private String accountId;
+
+    @Column(name = "portfolio", length = 100)
+    private String portfolio;
+
+    @Column(name = "redirect_url", length = 2000)
+    private String redirectUrl;
+
+    // FaceMatchProvider that owns vendor_id; null on rows written before routing existed (Digio)
+    @Column(name = "provider", length = 30)
+    private String provider;
+
+    // Reconciler backoff, written only by TransactionReconciler over JDBC
+    @Column(name = "next_reconcile_at", insertable = false, updatable = false)
+    private OffsetDateTime nextReconcileAt;
+
+    @Column(name = "reconcile_attempts", insertable = false, updatable = false)
+    private Integer reconcileAttempts;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private OffsetDateTime createdAt;
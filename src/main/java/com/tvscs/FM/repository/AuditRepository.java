@@ -1,12 +1,60 @@
 package com.tvscs.FM.repository;
 
+import com.tvscs.FM.dto.AuditSummary;
 import com.tvscs.FM.models.Audit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AuditRepository extends JpaRepository<Audit, Long> {
     Optional<Audit> findByVendorId(String vendorId);
+    Optional<Audit> findFirstByVendorIdAndAccountIdIsNotNullOrderByIdAsc(String vendorId);
+
+    /**
+     * Keyset page of audit rows older than the cutoff, ordered by (created_at, id).
+     * Pass the last (createdAt, id) of the previous page to continue.
+     */
+    @Query("SELECT a FROM Audit a WHERE a.createdAt < :cutoff " +
+            "AND (a.createdAt > :afterCreatedAt OR (a.createdAt = :afterCreatedAt AND a.id > :afterId)) " +
+            "ORDER BY a.createdAt ASC, a.id ASC")
+    List<Audit> findArchiveBatch(@Param("cutoff") OffsetDateTime cutoff,
+                                 @Param("afterCreatedAt") OffsetDateTime afterCreatedAt,
+                                 @Param("afterId") Long afterId,
+                                 Pageable pageable);
+
+    String SUMMARY_SELECT = "SELECT new com.tvscs.FM.dto.AuditSummary(a.id, a.transactionId, a.vendorId, " +
+            "a.customerIdHash, a.endpoint, a.httpMethod, a.httpStatus, a.accountId, a.portfolio, " +
+            "a.requestDurationMs, a.isError, a.createdAt) FROM Audit a ";
+
+    String BEFORE_CURSOR = "AND (a.createdAt < :beforeCreatedAt OR (a.createdAt = :beforeCreatedAt AND a.id < :beforeId)) " +
+            "ORDER BY a.createdAt DESC, a.id DESC";
+
+    /**
+     * Newest-first keyset pages by correlation key. Each query is served by the matching
+     * (key, created_at, id) index; pass the last (createdAt, id) of the previous page to continue.
+     */
+    @Query(SUMMARY_SELECT + "WHERE a.customerIdHash = :key " + BEFORE_CURSOR)
+    List<AuditSummary> searchByCustomerIdHash(@Param("key") String customerIdHash,
+                                              @Param("beforeCreatedAt") OffsetDateTime beforeCreatedAt,
+                                              @Param("beforeId") Long beforeId,
+                                              Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE a.vendorId = :key " + BEFORE_CURSOR)
+    List<AuditSummary> searchByVendorId(@Param("key") String vendorId,
+                                        @Param("beforeCreatedAt") OffsetDateTime beforeCreatedAt,
+                                        @Param("beforeId") Long beforeId,
+                                        Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE a.accountId = :key " + BEFORE_CURSOR)
+    List<AuditSummary> searchByAccountId(@Param("key") String accountId,
+                                         @Param("beforeCreatedAt") OffsetDateTime beforeCreatedAt,
+                                         @Param("beforeId") Long beforeId,
+                                         Pageable pageable);
 }
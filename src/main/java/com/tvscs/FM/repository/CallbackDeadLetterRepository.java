@@ -0,0 +1,9 @@
+package com.tvscs.FM.repository;
+
+import com.tvscs.FM.models.CallbackDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CallbackDeadLetterRepository extends JpaRepository<CallbackDeadLetter, Long> {
+}
@@ -0,0 +1,30 @@
+package com.tvscs.FM.repository;
+
+import com.tvscs.FM.models.CallbackDelivery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface CallbackDeliveryRepository extends JpaRepository<CallbackDelivery, Long> {
+
+    @Query("SELECT d FROM CallbackDelivery d WHERE d.nextAttemptAt <= :now ORDER BY d.nextAttemptAt ASC, d.id ASC")
+    List<CallbackDelivery> findDue(@Param("now") OffsetDateTime now, Pageable pageable);
+
+    /**
+     * Claim a due row by pushing next_attempt_at out to the lease expiry, as for fm_outbox.
+     * Returns 0 if another dispatcher (or node) claimed it first.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CallbackDelivery d SET d.nextAttemptAt = :leaseUntil, d.attempts = d.attempts + 1 " +
+            "WHERE d.id = :id AND d.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("now") OffsetDateTime now, @Param("leaseUntil") OffsetDateTime leaseUntil);
+}
@@ -0,0 +1,42 @@
+package com.tvscs.FM.repository;
+
+import com.tvscs.FM.models.Outbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<Outbox, Long> {
+
+    @Query("SELECT o.id FROM Outbox o WHERE o.status = 'PENDING' AND o.nextAttemptAt <= :now ORDER BY o.nextAttemptAt ASC")
+    List<Long> findDueIds(@Param("now") OffsetDateTime now, Pageable pageable);
+
+    /**
+     * Claim a due row by pushing next_attempt_at out to the lease expiry.
+     * Returns 0 if another dispatcher (or node) claimed it first; an expired lease makes the row due again.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Outbox o SET o.nextAttemptAt = :leaseUntil, o.attempts = o.attempts + 1 " +
+            "WHERE o.id = :id AND o.status = 'PENDING' AND o.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("now") OffsetDateTime now, @Param("leaseUntil") OffsetDateTime leaseUntil);
+
+    /**
+     * Save the provider's answer and drop the image, in its own transaction, before anything else can fail.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Outbox o SET o.vendorId = :vendorId, o.provider = :provider, o.vendorStatus = :vendorStatus, " +
+            "o.redirectUrl = :redirectUrl, o.vendorResponse = :vendorResponse, o.callDurationMs = :durationMs, " +
+            "o.imageBase64 = NULL WHERE o.id = :id")
+    int recordResponse(@Param("id") Long id, @Param("vendorId") String vendorId, @Param("provider") String provider,
+                       @Param("vendorStatus") String vendorStatus, @Param("redirectUrl") String redirectUrl,
+                       @Param("vendorResponse") String vendorResponse, @Param("durationMs") Long durationMs);
+}
@@ -1,13 +1,33 @@
 package com.tvscs.FM.repository;
 
 import com.tvscs.FM.models.Transaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     Optional<Transaction> findByVendorId(String vendorId);
     boolean existsByVendorId(String vendorId);
+    Optional<Transaction> findByTransactionId(String transactionId);
+
+    /**
+     * Page of dispatched transactions still in an intermediate status, untouched since {@code staleBefore}
+     * and due for another lookup, least recently reconciled first. The reconciler pushes next_reconcile_at
+     * out for every row it looks at, so each page moves on to rows not yet seen.
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.vendorId IS NOT NULL AND t.status IN :statuses " +
+            "AND t.updatedAt < :staleBefore AND (t.nextReconcileAt IS NULL OR t.nextReconcileAt <= :now) " +
+            "ORDER BY t.nextReconcileAt ASC NULLS FIRST, t.id ASC")
+    List<Transaction> findStaleBatch(@Param("statuses") Collection<String> statuses,
+                                     @Param("staleBefore") OffsetDateTime staleBefore,
+                                     @Param("now") OffsetDateTime now,
+                                     Pageable pageable);
 }
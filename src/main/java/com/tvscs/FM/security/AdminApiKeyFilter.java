@@ -1,8 +1,8 @@
 package com.tvscs.FM.security;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tvscs.FM.models.Account;
 import com.tvscs.FM.repository.AccountRepository;
+import com.tvscs.FM.utils.JsonCodec;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,11 +17,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
 
 @Component
 @Slf4j
@@ -29,10 +25,11 @@ public class AdminApiKeyFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(AdminApiKeyFilter.class);
     private final AccountRepository accountRepository;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonCodec jsonCodec;
 
-    public AdminApiKeyFilter(AccountRepository accountRepository) {
+    public AdminApiKeyFilter(AccountRepository accountRepository, JsonCodec jsonCodec) {
         this.accountRepository = accountRepository;
+        this.jsonCodec = jsonCodec;
     }
 
     @Override
@@ -42,7 +39,8 @@ public class AdminApiKeyFilter extends OncePerRequestFilter {
         String path = request.getRequestURI();
         
         // Only apply this filter to admin endpoints
-        if (!path.startsWith("/api/v1/create-account") && !path.startsWith("/api/v1/update-account")) {
+        if (!path.startsWith("/api/v1/create-account") && !path.startsWith("/api/v1/update-account")
+                && !path.startsWith("/api/v1/admin/")) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -94,31 +92,11 @@ public class AdminApiKeyFilter extends OncePerRequestFilter {
     }
 
     private void sendUnauthorizedError(HttpServletResponse response, String path, String message) throws IOException {
-        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-        response.setContentType("application/json");
-
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        errorResponse.put("status", 401);
-        errorResponse.put("error", "Unauthorized");
-        errorResponse.put("message", message);
-        errorResponse.put("path", path);
-
-        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+        jsonCodec.writeError(response, HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized", message, path);
     }
 
     private void sendServiceUnavailableError(HttpServletResponse response, String path, String message) throws IOException {
-        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
-        response.setContentType("application/json");
-
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        errorResponse.put("status", 503);
-        errorResponse.put("error", "Service Unavailable");
-        errorResponse.put("message", message);
-        errorResponse.put("path", path);
-
-        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+        jsonCodec.writeError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Service Unavailable", message, path);
     }
 }
 
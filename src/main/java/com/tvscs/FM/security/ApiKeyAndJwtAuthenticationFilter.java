@@ -1,8 +1,11 @@
 package com.tvscs.FM.security;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvscs.FM.metrics.FmMetrics;
+import com.tvscs.FM.metrics.jfr.AuthLookupEvent;
 import com.tvscs.FM.repository.AccountRepository;
+import com.tvscs.FM.utils.JsonCodec;
 import com.tvscs.FM.utils.JwtTokenProvider;
+import com.tvscs.FM.utils.RequestDeadline;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
@@ -17,11 +20,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.regex.Pattern;
 
 @Component
@@ -30,14 +29,18 @@ public class ApiKeyAndJwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final AccountRepository accountRepository;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonCodec jsonCodec;
+    private final FmMetrics fmMetrics;
 
     // Pattern for validating API key format (16 alphanumeric characters)
     private static final Pattern API_KEY_PATTERN = Pattern.compile("^[A-Za-z0-9]{16}$");
 
-    public ApiKeyAndJwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, AccountRepository accountRepository) {
+    public ApiKeyAndJwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, AccountRepository accountRepository,
+                                            JsonCodec jsonCodec, FmMetrics fmMetrics) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.accountRepository = accountRepository;
+        this.jsonCodec = jsonCodec;
+        this.fmMetrics = fmMetrics;
     }
 
     @Override
@@ -46,12 +49,15 @@ public class ApiKeyAndJwtAuthenticationFilter extends OncePerRequestFilter {
         
         String path = request.getRequestURI();
         
-        // Only apply this filter to /face-match endpoint
-        if (!path.startsWith("/api/v1/face-match")) {
+        // Only apply this filter to /face-match and transaction status endpoints
+        if (!path.startsWith("/api/v1/face-match") && !path.startsWith("/api/v1/transactions")) {
             filterChain.doFilter(request, response);
             return;
         }
 
+        // Time spent downstream is subtracted so the histogram covers the filter's own work
+        long start = System.nanoTime();
+        long chainNanos = 0;
         try {
             // Extract and validate X-API-KEY header
             String apiKey = request.getHeader("X-API-KEY");
@@ -76,12 +82,15 @@ public class ApiKeyAndJwtAuthenticationFilter extends OncePerRequestFilter {
 
             // Validate JWT
             Claims claims;
+            long jwtStart = System.nanoTime();
             try {
                 claims = jwtTokenProvider.validateAndGetClaims(token);
             } catch (JwtException e) {
                 log.warn("Invalid JWT token: {}", e.getMessage());
                 sendUnauthorizedError(response, path, "Invalid or expired JWT token");
                 return;
+            } finally {
+                fmMetrics.record(FmMetrics.Stage.JWT_VERIFY, System.nanoTime() - jwtStart);
             }
 
             // Extract claims from JWT
@@ -96,7 +105,17 @@ public class ApiKeyAndJwtAuthenticationFilter extends OncePerRequestFilter {
             }
 
             // Verify that the account exists and is active in the database
+            AuthLookupEvent lookupEvent = new AuthLookupEvent();
+            lookupEvent.begin();
+            long lookupStart = System.nanoTime();
             var configField = accountRepository.findByApiKeyAndIsActive(apiKey, 1);
+            fmMetrics.record(FmMetrics.Stage.ACCOUNT_LOOKUP, System.nanoTime() - lookupStart);
+            lookupEvent.end();
+            if (lookupEvent.shouldCommit()) {
+                lookupEvent.source = AuthLookupEvent.SOURCE_DB;
+                lookupEvent.found = configField.isPresent();
+                lookupEvent.commit();
+            }
             if (configField.isEmpty()) {
                 log.warn("API key not found or not active: {}", apiKey);
                 sendUnauthorizedError(response, path, "API key not found or inactive");
@@ -121,7 +140,17 @@ public class ApiKeyAndJwtAuthenticationFilter extends OncePerRequestFilter {
 
             log.debug("JWT authentication successful for accountId: {}, portfolio: {}", accountId, portfolio);
 
-            filterChain.doFilter(request, response);
+            if (RequestDeadline.expired(RequestDeadline.STAGE_AUTH)) {
+                sendGatewayTimeoutError(response, path, "Request deadline exceeded during authentication");
+                return;
+            }
+
+            long chainStart = System.nanoTime();
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                chainNanos = System.nanoTime() - chainStart;
+            }
             
         } catch (DataAccessException dbException) {
             // Database is down or connection pool is exhausted
@@ -130,34 +159,20 @@ public class ApiKeyAndJwtAuthenticationFilter extends OncePerRequestFilter {
         } catch (Exception e) {
             log.error("Unexpected error in ApiKeyAndJwtAuthenticationFilter: {}", e.getMessage(), e);
             sendUnauthorizedError(response, request.getRequestURI(), "Authentication failed");
+        } finally {
+            fmMetrics.record(FmMetrics.Stage.AUTH_FILTER, System.nanoTime() - start - chainNanos);
         }
     }
 
     private void sendUnauthorizedError(HttpServletResponse response, String path, String message) throws IOException {
-        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-        response.setContentType("application/json");
-
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        errorResponse.put("status", 401);
-        errorResponse.put("error", "Unauthorized");
-        errorResponse.put("message", message);
-        errorResponse.put("path", path);
-
-        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+        jsonCodec.writeError(response, HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized", message, path);
     }
 
     private void sendServiceUnavailableError(HttpServletResponse response, String path, String message) throws IOException {
-        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
-        response.setContentType("application/json");
-
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        errorResponse.put("status", 503);
-        errorResponse.put("error", "Service Unavailable");
-        errorResponse.put("message", message);
-        errorResponse.put("path", path);
+        jsonCodec.writeError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Service Unavailable", message, path);
+    }
 
-        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+    private void sendGatewayTimeoutError(HttpServletResponse response, String path, String message) throws IOException {
+        jsonCodec.writeError(response, HttpServletResponse.SC_GATEWAY_TIMEOUT, "Gateway Timeout", message, path);
     }
 }
@@ -5,6 +5,7 @@ import com.tvscs.FM.repository.AccountRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.net.URI;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.regex.Pattern;
@@ -21,7 +22,7 @@ public class AccountService {
         this.accountRepository = accountRepository;
     }
 
-    public Account createAccount(String portfolio, String createdBy) {
+    public Account createAccount(String portfolio, String callbackUrl, String createdBy) {
         if (portfolio == null || portfolio.isEmpty()) {
             throw new IllegalArgumentException("Portfolio name is required");
         }
@@ -42,6 +43,9 @@ public class AccountService {
         account.setCreatedBy(createdBy);
         account.setIsActive(1);
         account.setTransactionId(transactionId);
+        if (callbackUrl != null && !callbackUrl.isBlank()) {
+            account.setCallbackUrl(validateCallbackUrl(callbackUrl.trim()));
+        }
 
         Account saved = accountRepository.save(account);
         log.info("Account created successfully: id={}, accountId={}, portfolio={}, apiKey={}", 
@@ -50,7 +54,8 @@ public class AccountService {
         return saved;
     }
 
-    public Account updateAccount(String accountId, Boolean rotateKey, String newApiKey, String portfolio, Integer isActive, String updatedBy) {
+    public Account updateAccount(String accountId, Boolean rotateKey, String newApiKey, String portfolio, Integer isActive,
+                                 String callbackUrl, String updatedBy) {
         Account account = accountRepository.findByAccountId(accountId)
                 .orElseThrow(() -> new IllegalArgumentException("Account not found with accountId: " + accountId));
 
@@ -84,6 +89,11 @@ public class AccountService {
             account.setIsActive(isActive);
         }
 
+        // An empty string removes the callback URL; null leaves it unchanged
+        if (callbackUrl != null) {
+            account.setCallbackUrl(callbackUrl.isBlank() ? null : validateCallbackUrl(callbackUrl.trim()));
+        }
+
         account.setUpdatedBy(updatedBy);
 
         Account updated = accountRepository.save(account);
@@ -116,6 +126,22 @@ public class AccountService {
         return accountId.toString();
     }
 
+    private String validateCallbackUrl(String callbackUrl) {
+        if (callbackUrl.length() > 2000) {
+            throw new IllegalArgumentException("Callback URL must be at most 2000 characters");
+        }
+        try {
+            URI uri = URI.create(callbackUrl);
+            if (!"https".equalsIgnoreCase(uri.getScheme()) && !"http".equalsIgnoreCase(uri.getScheme())
+                    || uri.getHost() == null) {
+                throw new IllegalArgumentException("Callback URL must be an absolute http(s) URL");
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Callback URL must be an absolute http(s) URL");
+        }
+        return callbackUrl;
+    }
+
     private boolean isValidApiKey(String apiKey) {
         return apiKey != null && apiKey.matches("^[A-Za-z0-9]{16}$");
     }
@@ -0,0 +1,185 @@
+package com.tvscs.FM.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.models.Audit;
+import com.tvscs.FM.repository.AuditRepository;
+import com.tvscs.FM.utils.AuditSegmentFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves fm_audit rows older than the hot retention window into compressed segment files
+ * (see {@link AuditSegmentFile}) and deletes them from Oracle once the segment is durable.
+ */
+@Service
+@Slf4j
+public class AuditArchiveService {
+
+    private static final DateTimeFormatter SEGMENT_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final OffsetDateTime KEYSET_START = OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final AuditRepository auditRepository;
+    private final FmProperties fmProperties;
+    private final ObjectMapper objectMapper;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public AuditArchiveService(AuditRepository auditRepository, FmProperties fmProperties, ObjectMapper objectMapper) {
+        this.auditRepository = auditRepository;
+        this.fmProperties = fmProperties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Scheduled(cron = "${fm.audit-archive.cron:0 30 2 * * *}")
+    public void scheduledArchive() {
+        if (!fmProperties.getAuditArchive().isEnabled()) {
+            return;
+        }
+        try {
+            archive();
+        } catch (Exception e) {
+            log.error("[ARCHIVE] Scheduled audit archive failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Archive everything older than the retention window.
+     *
+     * @return number of rows archived and deleted, or -1 if a run is already in progress
+     */
+    public long archive() throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("[ARCHIVE] Audit archive already running, skipping");
+            return -1;
+        }
+        try {
+            FmProperties.AuditArchive config = fmProperties.getAuditArchive();
+            OffsetDateTime cutoff = OffsetDateTime.now(ZoneOffset.UTC).minusDays(config.getRetentionDays());
+            Path directory = Paths.get(config.getDirectory());
+
+            OffsetDateTime afterCreatedAt = KEYSET_START;
+            long afterId = 0L;
+            long archived = 0;
+
+            AuditSegmentFile.Writer writer = null;
+            List<Long> segmentIds = new ArrayList<>();
+            try {
+                while (true) {
+                    List<Audit> batch = auditRepository.findArchiveBatch(cutoff, afterCreatedAt, afterId,
+                            PageRequest.of(0, config.getBatchSize()));
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+
+                    for (Audit audit : batch) {
+                        if (writer == null) {
+                            writer = new AuditSegmentFile.Writer(directory, segmentName(audit), objectMapper,
+                                    config.getBlockRows());
+                        }
+                        writer.append(toRow(audit), audit.getCreatedAt().toInstant().toEpochMilli(), audit.getAccountId());
+                        segmentIds.add(audit.getId());
+
+                        if (writer.getRows() >= config.getSegmentMaxRows()) {
+                            archived += commitSegment(writer, segmentIds, config.getBatchSize());
+                            writer.close();
+                            writer = null;
+                        }
+                    }
+
+                    Audit last = batch.get(batch.size() - 1);
+                    afterCreatedAt = last.getCreatedAt();
+                    afterId = last.getId();
+                }
+
+                if (writer != null) {
+                    archived += commitSegment(writer, segmentIds, config.getBatchSize());
+                }
+            } finally {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+
+            log.info("[ARCHIVE] Archived {} audit rows older than {}", archived, cutoff);
+            return archived;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Scan archived segments for rows created in [from, to), optionally for one account.
+     */
+    public List<Map<String, Object>> query(OffsetDateTime from, OffsetDateTime to, String accountId, int limit)
+            throws IOException {
+        return AuditSegmentFile.scan(Paths.get(fmProperties.getAuditArchive().getDirectory()), objectMapper,
+                from, to, accountId, limit);
+    }
+
+    private long commitSegment(AuditSegmentFile.Writer writer, List<Long> ids, int batchSize) throws IOException {
+        AuditSegmentFile.SegmentIndex index = writer.commit();
+
+        // Rows are only deleted once the segment and its index are on disk
+        for (int i = 0; i < ids.size(); i += batchSize) {
+            auditRepository.deleteAllByIdInBatch(ids.subList(i, Math.min(i + batchSize, ids.size())));
+        }
+        log.info("[ARCHIVE] Segment committed: rows={}, blocks={}", index.getRows(), index.getBlocks().size());
+
+        long count = ids.size();
+        ids.clear();
+        return count;
+    }
+
+    private String segmentName(Audit first) {
+        return "audit-" + first.getCreatedAt().atZoneSameInstant(ZoneOffset.UTC).format(SEGMENT_NAME_FORMAT)
+                + "-" + first.getId();
+    }
+
+    private Map<String, Object> toRow(Audit audit) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", audit.getId());
+        row.put("transaction_id", audit.getTransactionId());
+        row.put("vendor_id", audit.getVendorId());
+        row.put("customer_id_hash", audit.getCustomerIdHash());
+        row.put("endpoint", audit.getEndpoint());
+        row.put("http_method", audit.getHttpMethod());
+        row.put("http_status", audit.getHttpStatus());
+        row.put("account_id", audit.getAccountId());
+        row.put("portfolio", audit.getPortfolio());
+        row.put("client_ip", audit.getClientIp());
+        row.put("user_agent", audit.getUserAgent());
+        row.put("request_duration_ms", audit.getRequestDurationMs());
+        row.put("is_error", audit.getIsError());
+        row.put("auth_filter_us", audit.getAuthFilterUs());
+        row.put("jwt_verify_us", audit.getJwtVerifyUs());
+        row.put("account_lookup_us", audit.getAccountLookupUs());
+        row.put("image_encode_us", audit.getImageEncodeUs());
+        row.put("digio_round_trip_us", audit.getDigioRoundTripUs());
+        row.put("webhook_upsert_us", audit.getWebhookUpsertUs());
+        row.put("db_pool_acquire_us", audit.getDbPoolAcquireUs());
+        row.put("db_pool_usage_us", audit.getDbPoolUsageUs());
+        row.put("db_held_across_http", audit.getDbHeldAcrossHttp());
+        row.put("error_message", audit.getErrorMessage());
+        row.put("payload", audit.getPayload());
+        row.put("response", audit.getResponse());
+        row.put("created_at", audit.getCreatedAt().toString());
+        row.put("created_by", audit.getCreatedBy());
+        row.put("updated_at", audit.getUpdatedAt() != null ? audit.getUpdatedAt().toString() : null);
+        row.put("updated_by", audit.getUpdatedBy());
+        return row;
+    }
+}
@@ -0,0 +1,343 @@
+package com.tvscs.FM.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.utils.CorrelationKeys;
+import com.tvscs.FM.utils.KeysetCursor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams fm_audit rows for a time range as NDJSON or CSV.
+ *
+ * Rows are read in keyset pages on (created_at, id), each page with a bounded JDBC fetch size,
+ * and written straight to the output stream, so memory stays constant regardless of export size.
+ * Every row carries a resume_token; passing the last received token restarts the export after that row.
+ *
+ * Rows are written while their page's cursor is open, so a slow client keeps one pool connection busy for
+ * as long as it takes to receive a page. One call therefore stops after {@code fm.audit-export.max-rows}
+ * rows or {@code max-duration-ms}, at a page boundary, and the client continues from its last token.
+ * The last record of every response says whether the export reached the end of the range.
+ */
+@Service
+@Slf4j
+public class AuditExportService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final String[] COLUMNS = {
+            "id", "transaction_id", "vendor_id", "customer_id_hash", "endpoint", "http_method", "http_status",
+            "account_id", "portfolio", "client_ip", "user_agent", "request_duration_ms", "is_error",
+            "auth_filter_us", "jwt_verify_us", "account_lookup_us", "image_encode_us", "digio_round_trip_us",
+            "webhook_upsert_us", "db_pool_acquire_us", "db_pool_usage_us", "db_held_across_http",
+            "error_message", "payload", "response", "created_at", "created_by"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FmProperties fmProperties;
+    private final ObjectMapper objectMapper;
+
+    public AuditExportService(DataSource dataSource, FmProperties fmProperties, ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fmProperties.getAuditExport().getFetchSize());
+        this.fmProperties = fmProperties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Getter
+    @Builder
+    public static class Criteria {
+        private final OffsetDateTime from;
+        private final OffsetDateTime to;
+        private final String accountId;
+        private final String vendorId;
+        private final String customerIdentifier;
+        private final String endpoint;
+        private final Integer isError;
+        private final String resumeToken;
+    }
+
+    /**
+     * Validate criteria before any bytes are written, so errors can still be returned as a normal response.
+     *
+     * @throws IllegalArgumentException if the range, format or resume token is invalid
+     */
+    public void validate(Criteria criteria, String format) {
+        if (!FORMAT_NDJSON.equals(format) && !FORMAT_CSV.equals(format)) {
+            throw new IllegalArgumentException("format must be 'ndjson' or 'csv'");
+        }
+        if (!criteria.getFrom().isBefore(criteria.getTo())) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        KeysetCursor.decodeOr(criteria.getResumeToken(), null);
+    }
+
+    /**
+     * Writes the matching rows followed by one trailer record carrying {@code complete} and the
+     * {@code resume_token} to continue from. A response cut short by the per-request limits or by a
+     * database error ends with {@code complete: false}; a client that loses the connection gets no trailer.
+     *
+     * @return number of rows written
+     */
+    public long export(Criteria criteria, String format, OutputStream out) throws IOException {
+        RowSink sink = FORMAT_CSV.equals(format) ? new CsvSink(out) : new NdjsonSink(out);
+
+        // Position of the last row written; a resume token for it restarts the export right after it
+        KeysetCursor[] position = {KeysetCursor.decodeOr(criteria.getResumeToken(),
+                new KeysetCursor(criteria.getFrom(), 0L))};
+
+        FmProperties.AuditExport config = fmProperties.getAuditExport();
+        long deadline = System.currentTimeMillis() + config.getMaxDurationMs();
+        long[] total = {0};
+        boolean complete = false;
+
+        sink.begin();
+        try {
+            while (true) {
+                int pageSize = (int) Math.min(config.getPageSize(), config.getMaxRows() - total[0]);
+                List<Object> params = new ArrayList<>();
+                String sql = buildPageSql(criteria, position[0], pageSize, params);
+
+                long[] pageRows = {0};
+                jdbcTemplate.query(sql, rs -> {
+                    KeysetCursor row = new KeysetCursor(rs.getObject("created_at", OffsetDateTime.class),
+                            rs.getLong("id"));
+                    try {
+                        sink.row(rs, row.encode());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    position[0] = row;
+                    pageRows[0]++;
+                    total[0]++;
+                }, params.toArray());
+
+                sink.flush();
+
+                if (pageRows[0] < pageSize) {
+                    complete = true;
+                    break;
+                }
+                if (total[0] >= config.getMaxRows() || System.currentTimeMillis() >= deadline) {
+                    break;
+                }
+            }
+        } catch (UncheckedIOException e) {
+            // Client went away mid-export; it can resume from the last token it received
+            log.warn("[EXPORT] Audit export aborted after {} rows: {}", total[0], e.getCause().getMessage());
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            // Rows already sent are valid; tell the client where to pick up before failing the request
+            log.error("[EXPORT] Audit export failed after {} rows", total[0], e);
+            sink.trailer(false, total[0], position[0].encode());
+            sink.end();
+            throw e;
+        }
+        sink.trailer(complete, total[0], complete ? null : position[0].encode());
+        sink.end();
+
+        if (complete) {
+            log.info("[EXPORT] Audit export completed: format={}, rows={}", format, total[0]);
+        } else {
+            log.info("[EXPORT] Audit export stopped at the per-request limit: format={}, rows={}", format, total[0]);
+        }
+        return total[0];
+    }
+
+    private String buildPageSql(Criteria criteria, KeysetCursor cursor, int pageSize, List<Object> params) {
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(String.join(", ", COLUMNS))
+                .append(" FROM fm_audit WHERE created_at < ?")
+                .append(" AND (created_at > ? OR (created_at = ? AND id > ?))");
+        params.add(criteria.getTo());
+        params.add(cursor.createdAt());
+        params.add(cursor.createdAt());
+        params.add(cursor.id());
+
+        if (criteria.getAccountId() != null && !criteria.getAccountId().isBlank()) {
+            sql.append(" AND account_id = ?");
+            params.add(criteria.getAccountId().trim());
+        }
+        if (criteria.getVendorId() != null && !criteria.getVendorId().isBlank()) {
+            sql.append(" AND vendor_id = ?");
+            params.add(criteria.getVendorId().trim());
+        }
+        if (criteria.getCustomerIdentifier() != null && !criteria.getCustomerIdentifier().isBlank()) {
+            sql.append(" AND customer_id_hash = ?");
+            params.add(CorrelationKeys.hashCustomerIdentifier(criteria.getCustomerIdentifier()));
+        }
+        if (criteria.getEndpoint() != null && !criteria.getEndpoint().isBlank()) {
+            sql.append(" AND endpoint = ?");
+            params.add(criteria.getEndpoint().trim());
+        }
+        if (criteria.getIsError() != null) {
+            sql.append(" AND is_error = ?");
+            params.add(criteria.getIsError());
+        }
+
+        sql.append(" ORDER BY created_at ASC, id ASC FETCH FIRST ").append(pageSize).append(" ROWS ONLY");
+        return sql.toString();
+    }
+
+    private static Object readColumn(ResultSet rs, String column) throws SQLException {
+        return switch (column) {
+            case "created_at" -> rs.getObject(column, OffsetDateTime.class);
+            case "payload", "response" -> rs.getString(column);
+            default -> rs.getObject(column);
+        };
+    }
+
+    private interface RowSink {
+        void begin() throws IOException;
+
+        void row(ResultSet rs, String resumeToken) throws SQLException, IOException;
+
+        /**
+         * Final record: whether the range was exported to its end, and where to continue if not.
+         */
+        void trailer(boolean complete, long rows, String resumeToken) throws IOException;
+
+        void flush() throws IOException;
+
+        void end() throws IOException;
+    }
+
+    private class NdjsonSink implements RowSink {
+        private final JsonGenerator generator;
+
+        NdjsonSink(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public void row(ResultSet rs, String resumeToken) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (String column : COLUMNS) {
+                Object value = readColumn(rs, column);
+                if (value == null) {
+                    generator.writeNullField(column);
+                } else if (value instanceof Number number) {
+                    generator.writeNumberField(column, number.longValue());
+                } else {
+                    generator.writeStringField(column, value.toString());
+                }
+            }
+            generator.writeStringField("resume_token", resumeToken);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void trailer(boolean complete, long rows, String resumeToken) throws IOException {
+            generator.writeStartObject();
+            generator.writeBooleanField("complete", complete);
+            generator.writeNumberField("rows", rows);
+            if (resumeToken != null) {
+                generator.writeStringField("resume_token", resumeToken);
+            } else {
+                generator.writeNullField("resume_token");
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void end() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static class CsvSink implements RowSink {
+        private final Writer writer;
+
+        CsvSink(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        }
+
+        @Override
+        public void begin() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write(",resume_token\r\n");
+        }
+
+        @Override
+        public void row(ResultSet rs, String resumeToken) throws SQLException, IOException {
+            for (String column : COLUMNS) {
+                Object value = readColumn(rs, column);
+                if (value instanceof Number) {
+                    writer.write(value.toString());
+                } else {
+                    writeCell(value != null ? value.toString() : "");
+                }
+                writer.write(',');
+            }
+            writer.write(resumeToken);
+            writer.write("\r\n");
+        }
+
+        /**
+         * Trailer line; rows start with their numeric id, so a leading '#' cannot be mistaken for one.
+         */
+        @Override
+        public void trailer(boolean complete, long rows, String resumeToken) throws IOException {
+            writer.write("#complete=" + complete + ",rows=" + rows
+                    + ",resume_token=" + (resumeToken != null ? resumeToken : "") + "\r\n");
+        }
+
+        private void writeCell(String value) throws IOException {
+            // Spreadsheets run text cells starting with these as formulas (payloads and user agents are
+            // client-controlled), so such cells are prefixed with a quote to keep them text
+            if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+                value = "'" + value;
+            }
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void end() throws IOException {
+            writer.flush();
+        }
+    }
+}
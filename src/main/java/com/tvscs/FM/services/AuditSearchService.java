@@ -0,0 +1,70 @@
+package com.tvscs.FM.services;
+
+import com.tvscs.FM.dto.AuditSummary;
+import com.tvscs.FM.repository.AuditRepository;
+import com.tvscs.FM.utils.CorrelationKeys;
+import com.tvscs.FM.utils.KeysetCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Searches fm_audit by indexed correlation key (customer identifier hash, vendor id or account id)
+ * with newest-first keyset pagination.
+ */
+@Service
+@Slf4j
+public class AuditSearchService {
+
+    private final AuditRepository auditRepository;
+
+    public AuditSearchService(AuditRepository auditRepository) {
+        this.auditRepository = auditRepository;
+    }
+
+    /**
+     * Exactly one of customerIdentifier, vendorId or accountId must be given.
+     *
+     * @return Map with "items" and "nextCursor" (null on the last page)
+     * @throws IllegalArgumentException if the key or cursor is invalid
+     */
+    public Map<String, Object> search(String customerIdentifier, String vendorId, String accountId,
+                                      String cursor, int limit) {
+        int keys = (isBlank(customerIdentifier) ? 0 : 1) + (isBlank(vendorId) ? 0 : 1) + (isBlank(accountId) ? 0 : 1);
+        if (keys != 1) {
+            throw new IllegalArgumentException("Exactly one of customerIdentifier, vendorId or accountId is required");
+        }
+
+        KeysetCursor before = KeysetCursor.decodeOr(cursor, KeysetCursor.END);
+
+        PageRequest page = PageRequest.of(0, limit);
+        List<AuditSummary> items;
+        if (!isBlank(customerIdentifier)) {
+            items = auditRepository.searchByCustomerIdHash(
+                    CorrelationKeys.hashCustomerIdentifier(customerIdentifier), before.createdAt(), before.id(), page);
+        } else if (!isBlank(vendorId)) {
+            items = auditRepository.searchByVendorId(vendorId.trim(), before.createdAt(), before.id(), page);
+        } else {
+            items = auditRepository.searchByAccountId(accountId.trim(), before.createdAt(), before.id(), page);
+        }
+
+        String nextCursor = null;
+        if (items.size() == limit) {
+            AuditSummary last = items.get(items.size() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("items", items);
+        result.put("nextCursor", nextCursor);
+        return result;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
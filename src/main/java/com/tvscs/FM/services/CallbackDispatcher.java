@@ -0,0 +1,199 @@
+package com.tvscs.FM.services;
+
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.models.CallbackDeadLetter;
+import com.tvscs.FM.models.CallbackDelivery;
+import com.tvscs.FM.repository.CallbackDeadLetterRepository;
+import com.tvscs.FM.repository.CallbackDeliveryRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers fm_callback_deliveries to client callback URLs on a bounded worker pool.
+ *
+ * Due rows are grouped by destination and sent in batches of up to {@code fm.callbacks.batch-size}
+ * events per POST. Each destination has its own concurrency limit, so one slow client cannot take
+ * every worker. Rows are leased with the same conditional UPDATE as fm_outbox; failed batches back
+ * off exponentially and rows that run out of attempts move to fm_callback_dead_letters.
+ */
+@Service
+@Slf4j
+public class CallbackDispatcher {
+
+    private final CallbackDeliveryRepository deliveryRepository;
+    private final CallbackDeadLetterRepository deadLetterRepository;
+    private final CallbackSender callbackSender;
+    private final TransactionTemplate transactionTemplate;
+    private final FmProperties.Callbacks config;
+
+    private final ThreadPoolExecutor workers;
+    private final Semaphore slots;
+    private final Map<String, Semaphore> destinationSlots = new ConcurrentHashMap<>();
+    private final AtomicBoolean polling = new AtomicBoolean(false);
+
+    public CallbackDispatcher(CallbackDeliveryRepository deliveryRepository,
+                              CallbackDeadLetterRepository deadLetterRepository,
+                              CallbackSender callbackSender, TransactionTemplate transactionTemplate,
+                              FmProperties fmProperties) {
+        this.deliveryRepository = deliveryRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.callbackSender = callbackSender;
+        this.transactionTemplate = transactionTemplate;
+        this.config = fmProperties.getCallbacks();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(config.getWorkers(), config.getWorkers(), 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "callback-send-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.slots = new Semaphore(config.getWorkers());
+    }
+
+    @Scheduled(fixedDelayString = "${fm.callbacks.poll-interval-ms:1000}")
+    public void poll() {
+        if (!config.isEnabled() || !polling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            drain();
+        } catch (Exception e) {
+            log.error("[CALLBACK] Poll failed: {}", e.getMessage());
+        } finally {
+            polling.set(false);
+        }
+    }
+
+    /**
+     * Poll immediately instead of waiting for the next tick, e.g. right after an event was queued.
+     */
+    public void wakeUp() {
+        CompletableFuture.runAsync(this::poll);
+    }
+
+    private void drain() {
+        if (slots.availablePermits() == 0) {
+            return;
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        List<CallbackDelivery> due = deliveryRepository.findDue(now,
+                PageRequest.of(0, config.getBatchSize() * config.getWorkers()));
+
+        Map<String, List<CallbackDelivery>> byDestination = new LinkedHashMap<>();
+        for (CallbackDelivery delivery : due) {
+            byDestination.computeIfAbsent(delivery.getCallbackUrl(), k -> new ArrayList<>()).add(delivery);
+        }
+
+        OffsetDateTime leaseUntil = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(config.getLeaseMs()));
+        for (Map.Entry<String, List<CallbackDelivery>> destination : byDestination.entrySet()) {
+            Semaphore perDestination = destinationSlots.computeIfAbsent(destination.getKey(),
+                    k -> new Semaphore(config.getMaxConcurrencyPerDestination()));
+            List<CallbackDelivery> pending = destination.getValue();
+
+            for (int from = 0; from < pending.size(); from += config.getBatchSize()) {
+                if (!perDestination.tryAcquire()) {
+                    break;
+                }
+                if (!slots.tryAcquire()) {
+                    perDestination.release();
+                    return;
+                }
+
+                List<CallbackDelivery> batch = new ArrayList<>();
+                for (CallbackDelivery delivery : pending.subList(from, Math.min(from + config.getBatchSize(), pending.size()))) {
+                    if (deliveryRepository.claim(delivery.getId(), now, leaseUntil) == 1) {
+                        delivery.setAttempts(delivery.getAttempts() + 1);
+                        batch.add(delivery);
+                    }
+                }
+                if (batch.isEmpty()) {
+                    slots.release();
+                    perDestination.release();
+                    continue;
+                }
+
+                workers.execute(() -> {
+                    try {
+                        deliver(destination.getKey(), batch);
+                    } finally {
+                        slots.release();
+                        perDestination.release();
+                    }
+                });
+            }
+        }
+    }
+
+    private void deliver(String callbackUrl, List<CallbackDelivery> batch) {
+        long start = System.currentTimeMillis();
+        CallbackSender.Result result = callbackSender.send(callbackUrl,
+                batch.stream().map(CallbackDelivery::getEventPayload).toList());
+        long durationMs = System.currentTimeMillis() - start;
+
+        try {
+            if (result.delivered()) {
+                deliveryRepository.deleteAllByIdInBatch(batch.stream().map(CallbackDelivery::getId).toList());
+                log.info("[CALLBACK] Delivered {} events to {} (status={}, duration={}ms)",
+                        batch.size(), callbackUrl, result.httpStatus(), durationMs);
+                return;
+            }
+            transactionTemplate.executeWithoutResult(tx -> batch.forEach(delivery -> recordFailure(delivery, result)));
+            log.warn("[CALLBACK] Delivery of {} events to {} failed: {}", batch.size(), callbackUrl, result.error());
+        } catch (Exception e) {
+            // Leases expire, so the rows are retried even if this bookkeeping fails
+            log.error("[CALLBACK] Failed to record delivery outcome for {}: {}", callbackUrl, e.getMessage());
+        }
+    }
+
+    private void recordFailure(CallbackDelivery delivery, CallbackSender.Result result) {
+        if (delivery.getAttempts() >= config.getMaxAttempts()) {
+            deadLetterRepository.save(CallbackDeadLetter.builder()
+                    .deliveryId(delivery.getId())
+                    .accountId(delivery.getAccountId())
+                    .callbackUrl(delivery.getCallbackUrl())
+                    .transactionId(delivery.getTransactionId())
+                    .eventPayload(delivery.getEventPayload())
+                    .attempts(delivery.getAttempts())
+                    .lastError(result.error())
+                    .firstAttemptAt(delivery.getCreatedAt())
+                    .build());
+            deliveryRepository.deleteById(delivery.getId());
+            log.error("[CALLBACK] Dead-lettered delivery id={} for transactionId={} after {} attempts: {}",
+                    delivery.getId(), delivery.getTransactionId(), delivery.getAttempts(), result.error());
+            return;
+        }
+        delivery.setLastError(result.error());
+        delivery.setNextAttemptAt(OffsetDateTime.now().plusNanos(
+                TimeUnit.MILLISECONDS.toNanos(backoffMs(delivery.getAttempts()))));
+        deliveryRepository.save(delivery);
+    }
+
+    private long backoffMs(int attempts) {
+        long backoff = config.getInitialBackoffMs() << Math.min(Math.max(attempts - 1, 0), 20);
+        return Math.min(backoff, config.getMaxBackoffMs());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,69 @@
+package com.tvscs.FM.services;
+
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.metrics.ConnectionHoldTracker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * POSTs a batch of callback events to one destination.
+ *
+ * The body is {@code {"events":[...]}} with each event's stored JSON spliced in as-is. Uses its own
+ * RestTemplate with short connect/read timeouts so a slow client endpoint cannot tie up a worker.
+ */
+@Component
+@Slf4j
+public class CallbackSender {
+
+    public static final String BATCH_HEADER = "X-FM-Callback-Batch-Size";
+
+    public record Result(boolean delivered, int httpStatus, String error) {
+    }
+
+    private final RestTemplate restTemplate;
+
+    public CallbackSender(FmProperties fmProperties) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofMillis(fmProperties.getCallbacks().getConnectTimeoutMs()));
+        requestFactory.setReadTimeout(Duration.ofMillis(fmProperties.getCallbacks().getReadTimeoutMs()));
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    public Result send(String callbackUrl, List<String> eventPayloads) {
+        StringBuilder body = new StringBuilder(64 + eventPayloads.size() * 256).append("{\"events\":[");
+        for (int i = 0; i < eventPayloads.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append(eventPayloads.get(i));
+        }
+        body.append("]}");
+
+        ConnectionHoldTracker.checkOutbound(callbackUrl);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(BATCH_HEADER, Integer.toString(eventPayloads.size()));
+
+        try {
+            ResponseEntity<Void> response = restTemplate.postForEntity(callbackUrl,
+                    new HttpEntity<>(body.toString(), headers), Void.class);
+            return new Result(true, response.getStatusCode().value(), null);
+        } catch (RestClientResponseException ex) {
+            return new Result(false, ex.getStatusCode().value(), "HTTP " + ex.getStatusCode().value());
+        } catch (Exception ex) {
+            // Connect/read timeouts, refused connections, DNS failures
+            return new Result(false, 0, ex.getClass().getSimpleName() + ": " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.tvscs.FM.services;
+
+import com.tvscs.FM.models.Account;
+import com.tvscs.FM.models.CallbackDelivery;
+import com.tvscs.FM.models.Transaction;
+import com.tvscs.FM.repository.AccountRepository;
+import com.tvscs.FM.repository.CallbackDeliveryRepository;
+import com.tvscs.FM.utils.JsonCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Queues status changes for delivery to the originating account's callback URL.
+ * Only inserts a row; {@link CallbackDispatcher} does the HTTP work off the request thread.
+ */
+@Service
+@Slf4j
+public class CallbackService {
+
+    private final AccountRepository accountRepository;
+    private final CallbackDeliveryRepository deliveryRepository;
+    private final CallbackDispatcher callbackDispatcher;
+    private final JsonCodec jsonCodec;
+
+    public CallbackService(AccountRepository accountRepository, CallbackDeliveryRepository deliveryRepository,
+                           CallbackDispatcher callbackDispatcher, JsonCodec jsonCodec) {
+        this.accountRepository = accountRepository;
+        this.deliveryRepository = deliveryRepository;
+        this.callbackDispatcher = callbackDispatcher;
+        this.jsonCodec = jsonCodec;
+    }
+
+    /**
+     * Queue a status event for the transaction's account. Failures are logged and swallowed so a
+     * callback problem never fails webhook ingestion.
+     *
+     * @return the queued delivery, or empty if the account has no callback URL
+     */
+    public Optional<CallbackDelivery> enqueue(Transaction transaction) {
+        if (transaction.getAccountId() == null) {
+            return Optional.empty();
+        }
+        try {
+            Account account = accountRepository.findByAccountIdAndIsActive(transaction.getAccountId(), 1).orElse(null);
+            if (account == null || account.getCallbackUrl() == null) {
+                return Optional.empty();
+            }
+
+            CallbackDelivery delivery = deliveryRepository.save(CallbackDelivery.builder()
+                    .accountId(account.getAccountId())
+                    .callbackUrl(account.getCallbackUrl())
+                    .transactionId(transaction.getTransactionId())
+                    .eventPayload(toEvent(transaction))
+                    .attempts(0)
+                    .nextAttemptAt(OffsetDateTime.now())
+                    .build());
+            callbackDispatcher.wakeUp();
+            return Optional.of(delivery);
+        } catch (Exception e) {
+            log.error("[CALLBACK] Failed to queue callback for transactionId={}: {}",
+                    transaction.getTransactionId(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private String toEvent(Transaction transaction) throws Exception {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("event", "face_match.status_changed");
+        event.put("transaction_id", transaction.getTransactionId());
+        event.put("vendor_id", transaction.getVendorId());
+        event.put("status", transaction.getStatus());
+        event.put("vendor_reference_id", transaction.getVendorReferenceId());
+        event.put("vendor_transaction_id", transaction.getVendorTransactionId());
+        event.put("occurred_at", OffsetDateTime.now().toString());
+        return jsonCodec.writeString(event);
+    }
+}
@@ -1,9 +1,11 @@
 package com.tvscs.FM.services;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.tvscs.FM.config.DigioProperties;
 import com.tvscs.FM.exception.DigioApiException;
+import com.tvscs.FM.utils.JsonCodec;
+import com.tvscs.FM.utils.RequestDeadline;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
@@ -11,26 +13,33 @@ import org.springframework.util.ObjectUtils;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 @Slf4j
 public class DigioService {
 
+    static final Set<String> EXTRACTED_FIELDS =
+            Set.of("id", "status", "customer_identifier", "reference_id", "transaction_id");
+
     private final DigioProperties digioProperties;
     private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private final JsonCodec jsonCodec;
 
-    public DigioService(DigioProperties digioProperties, RestTemplate restTemplate, ObjectMapper objectMapper) {
+    public DigioService(DigioProperties digioProperties, RestTemplate restTemplate, JsonCodec jsonCodec) {
         this.digioProperties = digioProperties;
         this.restTemplate = restTemplate;
-        this.objectMapper = objectMapper;
+        this.jsonCodec = jsonCodec;
     }
 
     /**
-     * Result class containing both parsed Map and raw JSON string
+     * Result class containing the fields we use and the raw JSON string. {@code parsed} is not a full
+     * tree: it only holds {@link #EXTRACTED_FIELDS} and {@code access_token.id}; everything else
+     * stays in {@code rawJson}, which is what callers get back.
      */
     public static class DigioResponse {
         private final Map<String, Object> parsed;
@@ -77,17 +86,17 @@ public class DigioService {
         log.debug("Prepared Digio request payload for customer: {} with identifier: {}", customerName, customerIdentifier);
 
         // Prepare HTTP headers
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        String authHeader = "Basic " + digioProperties.getAuthToken().trim();
-        headers.set("Authorization", authHeader);
+        HttpHeaders headers = authHeaders();
+
+        // The client has given up already; do not start a KYC request nobody will see
+        RequestDeadline.check(RequestDeadline.STAGE_PROVIDER);
 
         try {
-            // Convert payload to JSON string
-            String requestBody = objectMapper.writeValueAsString(payload);
-            HttpEntity<String> entity = new HttpEntity<>(requestBody, headers);
+            // Encode payload straight to UTF-8; the base64 image makes it the largest body we send
+            byte[] requestBody = jsonCodec.writeBytes(payload);
+            HttpEntity<byte[]> entity = new HttpEntity<>(requestBody, headers);
 
-            log.info("Calling Digio API endpoint: {}", digioProperties.getEndpoint());
+            log.debug("Calling Digio API endpoint: {}", digioProperties.getEndpoint());
 
             // Send request to Digio API
             ResponseEntity<String> response = restTemplate.exchange(
@@ -99,8 +108,8 @@ public class DigioService {
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 String rawJsonResponse = response.getBody();
-                Map<String, Object> responseBody = objectMapper.readValue(rawJsonResponse, new TypeReference<Map<String, Object>>() {});
-                log.debug("Digio API call successful for customer: {} with response keys: {}", customerName, responseBody.keySet());
+                Map<String, Object> responseBody = extractFields(rawJsonResponse);
+                log.debug("Digio API call successful for customer: {} with id: {}", customerName, responseBody.get("id"));
                 return new DigioResponse(responseBody, rawJsonResponse);
             } else {
                 log.warn("Digio API returned non-2xx status code: {}", response.getStatusCode().value());
@@ -119,12 +128,103 @@ public class DigioService {
                     statusCode,
                     errorBody
             );
+        } catch (DigioApiException ex) {
+            throw ex;
         } catch (Exception ex) {
             log.error("Error while calling Digio API", ex);
             throw new DigioApiException("Error while calling Digio API", ex);
         }
     }
 
+    /**
+     * Fetch the current state of a KYC request, used when its webhook never arrived.
+     *
+     * @param vendorId Digio request id (fm_transactions.vendor_id)
+     */
+    public DigioResponse fetchStatus(String vendorId) {
+        if (ObjectUtils.isEmpty(vendorId)) {
+            throw new IllegalArgumentException("Vendor id is required");
+        }
+        String url = digioProperties.getStatusEndpoint().replace("{id}", vendorId);
+
+        try {
+            ResponseEntity<String> response = restTemplate.exchange(
+                    url,
+                    HttpMethod.POST,
+                    new HttpEntity<>("{}", authHeaders()),
+                    String.class
+            );
+            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                throw new DigioApiException(
+                        "Digio status call failed with status: " + response.getStatusCode().value(),
+                        response.getStatusCode().value(),
+                        response.getBody()
+                );
+            }
+            String rawJsonResponse = response.getBody();
+            return new DigioResponse(extractFields(rawJsonResponse), rawJsonResponse);
+        } catch (HttpStatusCodeException ex) {
+            throw new DigioApiException(
+                    "HTTP error when fetching Digio status: " + ex.getStatusText(),
+                    ex.getStatusCode().value(),
+                    ex.getResponseBodyAsString()
+            );
+        } catch (DigioApiException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new DigioApiException("Error while fetching Digio status", ex);
+        }
+    }
+
+    /**
+     * Pull the fields we need out of a Digio body with a streaming parser, skipping everything else
+     * without building a tree. The whole body is still tokenized, so malformed JSON is rejected.
+     */
+    Map<String, Object> extractFields(String rawJson) throws IOException {
+        Map<String, Object> fields = new HashMap<>();
+        try (JsonParser parser = jsonCodec.getFactory().createParser(rawJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Digio response is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_STRING && EXTRACTED_FIELDS.contains(name)) {
+                    fields.put(name, parser.getText());
+                } else if (value == JsonToken.START_OBJECT && "access_token".equals(name)) {
+                    fields.put(name, extractAccessToken(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (parser.nextToken() != null) {
+                throw new IOException("Unexpected content after Digio response");
+            }
+        }
+        return fields;
+    }
+
+    private static Map<String, Object> extractAccessToken(JsonParser parser) throws IOException {
+        Map<String, Object> accessToken = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            if (parser.nextToken() == JsonToken.VALUE_STRING && "id".equals(name)) {
+                accessToken.put(name, parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return accessToken;
+    }
+
+    private HttpHeaders authHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String authHeader = "Basic " + digioProperties.getAuthToken().trim();
+        headers.set("Authorization", authHeader);
+        return headers;
+    }
+
     public static String imageToBase64NoPrefix(byte[] bytes) {
         return Base64.getEncoder().encodeToString(bytes);
     }
@@ -0,0 +1,351 @@
+package com.tvscs.FM.services;
+
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.exception.ProviderApiException;
+import com.tvscs.FM.models.Audit;
+import com.tvscs.FM.models.Outbox;
+import com.tvscs.FM.models.Transaction;
+import com.tvscs.FM.repository.AuditRepository;
+import com.tvscs.FM.repository.OutboxRepository;
+import com.tvscs.FM.repository.TransactionRepository;
+import com.tvscs.FM.services.provider.FaceMatchProvider;
+import com.tvscs.FM.services.provider.ProviderResponse;
+import com.tvscs.FM.services.provider.ProviderRouter;
+import com.tvscs.FM.utils.CorrelationKeys;
+import com.tvscs.FM.utils.JsonCodec;
+import com.tvscs.FM.utils.TokenBucketRateLimiter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains fm_outbox into the face-match providers (via {@link ProviderRouter}) on a bounded worker pool.
+ *
+ * Rows are claimed with a conditional UPDATE that leases them for {@code fm.outbox.lease-ms}, so several
+ * nodes can poll the same table. Each worker waits on a shared token bucket before calling a provider,
+ * saves the provider's answer on the row and then applies it in one short DB transaction. No connection is
+ * held during the provider call. Once an answer is saved only the DB step is retried, so a failure after
+ * the provider has accepted a request never sends a second one for the same customer.
+ */
+@Service
+@Slf4j
+public class OutboxDispatcher {
+
+    private final OutboxRepository outboxRepository;
+    private final TransactionRepository transactionRepository;
+    private final AuditRepository auditRepository;
+    private final ProviderRouter providerRouter;
+    private final PortfolioScheduler portfolioScheduler;
+    private final FmProperties.Outbox config;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonCodec jsonCodec;
+    private final TransactionStatusCache statusCache;
+
+    private final ThreadPoolExecutor workers;
+    private final Semaphore slots;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final AtomicBoolean polling = new AtomicBoolean(false);
+
+    public OutboxDispatcher(OutboxRepository outboxRepository, TransactionRepository transactionRepository,
+                            AuditRepository auditRepository, ProviderRouter providerRouter,
+                            PortfolioScheduler portfolioScheduler, FmProperties fmProperties, TransactionTemplate transactionTemplate,
+                            JsonCodec jsonCodec, TransactionStatusCache statusCache) {
+        this.outboxRepository = outboxRepository;
+        this.transactionRepository = transactionRepository;
+        this.auditRepository = auditRepository;
+        this.providerRouter = providerRouter;
+        this.portfolioScheduler = portfolioScheduler;
+        this.config = fmProperties.getOutbox();
+        this.transactionTemplate = transactionTemplate;
+        this.jsonCodec = jsonCodec;
+        this.statusCache = statusCache;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(config.getWorkers(), config.getWorkers(), 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "outbox-dispatch-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.slots = new Semaphore(config.getWorkers());
+        this.rateLimiter = new TokenBucketRateLimiter(config.getMaxCallsPerSecond());
+    }
+
+    @Scheduled(fixedDelayString = "${fm.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        if (!config.isEnabled() || !polling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            drain();
+        } catch (Exception e) {
+            log.error("[OUTBOX] Poll failed: {}", e.getMessage());
+        } finally {
+            polling.set(false);
+        }
+    }
+
+    /**
+     * Poll immediately instead of waiting for the next tick, e.g. right after a request was queued.
+     */
+    public void wakeUp() {
+        CompletableFuture.runAsync(this::poll);
+    }
+
+    private void drain() {
+        while (slots.availablePermits() > 0) {
+            int free = slots.availablePermits();
+            OffsetDateTime now = OffsetDateTime.now();
+            List<Long> due = outboxRepository.findDueIds(now, PageRequest.of(0, free));
+            if (due.isEmpty()) {
+                return;
+            }
+
+            for (Long id : due) {
+                if (!slots.tryAcquire()) {
+                    return;
+                }
+                if (outboxRepository.claim(id, now, now.plusNanos(TimeUnit.MILLISECONDS.toNanos(config.getLeaseMs()))) == 1) {
+                    workers.execute(() -> {
+                        try {
+                            dispatch(id);
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                } else {
+                    slots.release();
+                }
+            }
+
+            if (due.size() < free) {
+                return;
+            }
+        }
+    }
+
+    void dispatch(Long id) {
+        Outbox entry = outboxRepository.findById(id).orElse(null);
+        if (entry == null) {
+            return;
+        }
+
+        if (entry.getVendorId() == null) {
+            try {
+                if (!callProvider(entry)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                // Shutting down; the lease expires and another poll picks the row up again
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Calling again is only safe if the provider cannot have acted on the request; after a
+                // read timeout it may have, so the row is parked instead of risking a second KYC request
+                handleFailure(entry, e, ProviderRouter.isRetryable(e));
+                return;
+            }
+        }
+
+        try {
+            Transaction dispatched = transactionTemplate.execute(tx -> apply(entry));
+            statusCache.update(dispatched);
+            log.info("[OUTBOX] Dispatched transactionId={}, vendorId={}, attempt={}, duration={}ms",
+                    entry.getTransactionId(), entry.getVendorId(), entry.getAttempts(), entry.getCallDurationMs());
+        } catch (Exception e) {
+            // The provider already holds a request for this transaction: only this DB step is retried
+            handleFailure(entry, e, !(e instanceof DataIntegrityViolationException));
+        }
+    }
+
+    /**
+     * Send the entry to a provider and save the answer on the outbox row straight away, so that a later
+     * failure can never lead to a second provider request for the same customer.
+     *
+     * @return false if the call was answered but the answer could not be used or saved
+     */
+    private boolean callProvider(Outbox entry) throws InterruptedException {
+        rateLimiter.acquire();
+
+        long start = System.currentTimeMillis();
+        ProviderResponse response = portfolioScheduler.execute(entry.getPortfolio(), () ->
+                providerRouter.createRequest(
+                        entry.getCustomerName(),
+                        entry.getCustomerIdentifier(),
+                        entry.getImageBase64(),
+                        null,
+                        entry.getNotifyCustomer() == 1
+                ));
+        long durationMs = System.currentTimeMillis() - start;
+
+        FaceMatchProvider provider = providerRouter.provider(response.getProvider());
+        String vendorId = response.getVendorId();
+        if (vendorId == null) {
+            // The provider may have created a request we cannot reference; do not send another one
+            handleFailure(entry, new ProviderApiException(provider.getName() + " response did not contain an id"),
+                    false);
+            return false;
+        }
+        String redirectUrl = entry.getWantRedirect() == 1 ? provider.buildRedirectUrl(response) : null;
+        String status = response.getStatus() != null ? response.getStatus() : Transaction.STATUS_REQUESTED;
+        String rawJson = response.getRawJson();
+        if (rawJson != null && rawJson.length() > 10000) {
+            rawJson = rawJson.substring(0, 10000) + "... [truncated]";
+        }
+
+        int base64Length = entry.getImageBase64().length();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                outboxRepository.recordResponse(entry.getId(), vendorId, provider.getName(), status, redirectUrl,
+                        rawJson, durationMs);
+                break;
+            } catch (Exception e) {
+                if (attempt >= config.getMaxAttempts()) {
+                    // The row still looks unsent, so once its lease runs out it will be sent again; the
+                    // vendor id logged here is the one to reconcile against
+                    log.error("[OUTBOX] Could not record provider answer for transactionId={}, vendorId={}, provider={}: {}",
+                            entry.getTransactionId(), vendorId, provider.getName(), e.getMessage());
+                    return false;
+                }
+                log.warn("[OUTBOX] Recording provider answer for transactionId={} failed, retrying: {}",
+                        entry.getTransactionId(), e.getMessage());
+                Thread.sleep(backoffMs(attempt));
+            }
+        }
+        entry.setVendorId(vendorId);
+        entry.setProvider(provider.getName());
+        entry.setVendorStatus(status);
+        entry.setRedirectUrl(redirectUrl);
+        entry.setVendorResponse(rawJson);
+        entry.setCallDurationMs(durationMs);
+        entry.setImageBase64(null);
+        entry.setImageLength(base64Length);
+        return true;
+    }
+
+    private Transaction apply(Outbox entry) {
+        Transaction transaction = transactionRepository.findByTransactionId(entry.getTransactionId())
+                .orElseThrow(() -> new IllegalStateException("Transaction missing for outbox entry " + entry.getId()));
+
+        // Audit the outbound call first: trg_fm_transactions_mandatory_audit requires an
+        // fm_audit row with this vendor id before the transaction can reference it
+        auditRepository.save(dispatchAudit(entry, transaction));
+
+        transaction.setVendorId(entry.getVendorId());
+        transaction.setProvider(entry.getProvider());
+        transaction.setStatus(entry.getVendorStatus());
+        transaction.setRedirectUrl(entry.getRedirectUrl());
+        transactionRepository.save(transaction);
+        outboxRepository.deleteById(entry.getId());
+        return transaction;
+    }
+
+    private void handleFailure(Outbox entry, Exception e, boolean retryable) {
+        boolean exhausted = entry.getAttempts() >= config.getMaxAttempts();
+        String error = e.getMessage() != null && e.getMessage().length() > 4000
+                ? e.getMessage().substring(0, 4000) : e.getMessage();
+
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                Outbox current = outboxRepository.findById(entry.getId()).orElse(null);
+                if (current == null) {
+                    return;
+                }
+                current.setLastError(error);
+                if (!retryable || exhausted) {
+                    // Keep the row (and any vendor id) for investigation, but not the customer's image
+                    current.setStatus(Outbox.STATUS_FAILED);
+                    current.setImageBase64(null);
+                    transactionRepository.findByTransactionId(entry.getTransactionId()).ifPresent(transaction -> {
+                        transaction.setStatus(ProviderRouter.isOutcomeUnknown(e)
+                                ? Transaction.STATUS_DISPATCH_UNKNOWN : Transaction.STATUS_DISPATCH_FAILED);
+                        transactionRepository.save(transaction);
+                        statusCache.update(transaction);
+                    });
+                } else {
+                    current.setNextAttemptAt(OffsetDateTime.now().plusNanos(
+                            TimeUnit.MILLISECONDS.toNanos(backoffMs(entry.getAttempts()))));
+                }
+                outboxRepository.save(current);
+            });
+        } catch (Exception saveError) {
+            log.error("[OUTBOX] Failed to record dispatch failure for transactionId={}: {}",
+                    entry.getTransactionId(), saveError.getMessage());
+        }
+
+        if (ProviderRouter.isOutcomeUnknown(e)) {
+            log.error("[OUTBOX] Provider outcome unknown for transactionId={}, not resending: {}",
+                    entry.getTransactionId(), error);
+        } else if (!retryable || exhausted) {
+            log.error("[OUTBOX] Giving up on transactionId={} after {} attempts: {}",
+                    entry.getTransactionId(), entry.getAttempts(), error);
+        } else {
+            log.warn("[OUTBOX] Dispatch attempt {} failed for transactionId={}, will retry: {}",
+                    entry.getAttempts(), entry.getTransactionId(), error);
+        }
+    }
+
+    private long backoffMs(int attempts) {
+        long backoff = config.getInitialBackoffMs() << Math.min(Math.max(attempts - 1, 0), 20);
+        return Math.min(backoff, config.getMaxBackoffMs());
+    }
+
+    private Audit dispatchAudit(Outbox entry, Transaction transaction) {
+        String payload;
+        try {
+            Map<String, Object> canonical = new HashMap<>();
+            canonical.put("transaction_id", entry.getTransactionId());
+            canonical.put("customer_name", entry.getCustomerName());
+            canonical.put("customer_identifier", entry.getCustomerIdentifier());
+            canonical.put("notify_customer", entry.getNotifyCustomer() == 1);
+            canonical.put("attempt", entry.getAttempts());
+            canonical.put("provider", entry.getProvider());
+            if (entry.getImageLength() != null) {
+                canonical.put("base64_length", entry.getImageLength());
+            }
+            payload = jsonCodec.writeString(canonical);
+        } catch (Exception e) {
+            payload = "{}";
+        }
+
+        String createdBy = transaction.getAccountId() != null ? transaction.getAccountId() : "outbox";
+        return Audit.builder()
+                .vendorId(entry.getVendorId())
+                .customerIdHash(CorrelationKeys.hashCustomerIdentifier(entry.getCustomerIdentifier()))
+                .endpoint(providerRouter.provider(entry.getProvider()).getEndpoint())
+                .httpMethod("POST")
+                .payload(payload)
+                .response(entry.getVendorResponse())
+                .httpStatus(200)
+                .accountId(transaction.getAccountId())
+                .portfolio(transaction.getPortfolio())
+                .requestDurationMs(entry.getCallDurationMs())
+                .isError(0)
+                .transactionId(UUID.randomUUID().toString().toLowerCase())
+                .createdBy(createdBy)
+                .updatedBy(createdBy)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,65 @@
+package com.tvscs.FM.services;
+
+import com.tvscs.FM.models.Outbox;
+import com.tvscs.FM.models.Transaction;
+import com.tvscs.FM.repository.OutboxRepository;
+import com.tvscs.FM.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ObjectUtils;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Accepts async face-match requests: one insert into fm_transactions (status "pending")
+ * and one into fm_outbox, committed together. {@link OutboxDispatcher} does the Digio call later.
+ */
+@Service
+@Slf4j
+public class OutboxService {
+
+    private final TransactionRepository transactionRepository;
+    private final OutboxRepository outboxRepository;
+
+    public OutboxService(TransactionRepository transactionRepository, OutboxRepository outboxRepository) {
+        this.transactionRepository = transactionRepository;
+        this.outboxRepository = outboxRepository;
+    }
+
+    @Transactional
+    public Transaction enqueue(String customerName, String customerIdentifier, String base64Image,
+                               boolean notifyCustomer, boolean wantRedirect, String accountId, String portfolio) {
+        if (ObjectUtils.isEmpty(customerName) || ObjectUtils.isEmpty(customerIdentifier) || ObjectUtils.isEmpty(base64Image)) {
+            throw new IllegalArgumentException("Customer name, customer identifier, and image are required");
+        }
+
+        String transactionId = UUID.randomUUID().toString().toLowerCase();
+
+        Transaction transaction = Transaction.builder()
+                .transactionId(transactionId)
+                .status(Transaction.STATUS_PENDING)
+                .accountId(accountId)
+                .portfolio(portfolio)
+                .build();
+        transactionRepository.save(transaction);
+
+        Outbox entry = Outbox.builder()
+                .transactionId(transactionId)
+                .customerName(customerName)
+                .customerIdentifier(customerIdentifier)
+                .portfolio(portfolio)
+                .imageBase64(base64Image)
+                .notifyCustomer(notifyCustomer ? 1 : 0)
+                .wantRedirect(wantRedirect ? 1 : 0)
+                .status(Outbox.STATUS_PENDING)
+                .attempts(0)
+                .nextAttemptAt(OffsetDateTime.now())
+                .build();
+        outboxRepository.save(entry);
+
+        log.debug("Queued async face-match: transactionId={}, accountId={}", transactionId, accountId);
+        return transaction;
+    }
+}
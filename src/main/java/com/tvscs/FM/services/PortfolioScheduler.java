@@ -0,0 +1,218 @@
+package com.tvscs.FM.services;
+
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.exception.DeadlineExceededException;
+import com.tvscs.FM.exception.ProviderUnavailableException;
+import com.tvscs.FM.utils.RequestDeadline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Shares face-match provider capacity between portfolios with weighted fair queueing.
+ *
+ * At most {@code fm.scheduler.slots} provider calls run at once. Callers beyond that queue per
+ * portfolio and are dispatched in order of their virtual finish time, where each call advances its
+ * portfolio's clock by {@code 1 / weight}. A portfolio submitting a bulk run therefore only gets its
+ * weighted share of slots while others are waiting, but can use every slot when nobody else is.
+ * Callers that wait longer than {@code fm.scheduler.max-wait-ms} get a {@link ProviderUnavailableException};
+ * the wait is also cut short by the request deadline.
+ */
+@Service
+@Slf4j
+public class PortfolioScheduler {
+
+    static final String DEFAULT_PORTFOLIO = "default";
+
+    private static final class Flow {
+        private final String portfolio;
+        private double lastFinish;
+        private int queued;
+        private long dispatched;
+        private long timedOut;
+        private double ewmaWaitMs;
+        private long maxWaitMs;
+
+        private Flow(String portfolio) {
+            this.portfolio = portfolio;
+        }
+    }
+
+    private static final class Ticket implements Comparable<Ticket> {
+        private final Flow flow;
+        private final double startTag;
+        private final double finishTag;
+        private final long sequence;
+        private final Condition ready;
+        private boolean granted;
+
+        private Ticket(Flow flow, double startTag, double finishTag, long sequence, Condition ready) {
+            this.flow = flow;
+            this.startTag = startTag;
+            this.finishTag = finishTag;
+            this.sequence = sequence;
+            this.ready = ready;
+        }
+
+        @Override
+        public int compareTo(Ticket other) {
+            int byFinish = Double.compare(finishTag, other.finishTag);
+            return byFinish != 0 ? byFinish : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final FmProperties.Scheduler config;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Ticket> queue = new PriorityQueue<>();
+    private final Map<String, Flow> flows = new TreeMap<>();
+    private double virtualTime;
+    private long sequence;
+    private int busy;
+
+    public PortfolioScheduler(FmProperties fmProperties) {
+        this.config = fmProperties.getScheduler();
+    }
+
+    /**
+     * Run a provider call in the portfolio's fair share of slots, waiting for a slot if necessary.
+     *
+     * @throws ProviderUnavailableException if no slot became free within the maximum wait
+     */
+    public <T> T execute(String portfolio, Supplier<T> call) {
+        if (!config.isEnabled()) {
+            return call.get();
+        }
+        acquire(portfolio != null ? portfolio : DEFAULT_PORTFOLIO);
+        try {
+            return call.get();
+        } finally {
+            release();
+        }
+    }
+
+    private void acquire(String portfolio) {
+        long enqueued = System.nanoTime();
+        lock.lock();
+        try {
+            Flow flow = flows.computeIfAbsent(portfolio, Flow::new);
+            double startTag = Math.max(virtualTime, flow.lastFinish);
+            double finishTag = startTag + 1.0 / weight(portfolio);
+            flow.lastFinish = finishTag;
+
+            if (queue.isEmpty() && busy < config.getSlots()) {
+                busy++;
+                virtualTime = startTag;
+                recordDispatch(flow, 0);
+                return;
+            }
+
+            Ticket ticket = new Ticket(flow, startTag, finishTag, sequence++, lock.newCondition());
+            queue.add(ticket);
+            flow.queued++;
+            long remaining = TimeUnit.MILLISECONDS.toNanos(RequestDeadline.remainingMs(config.getMaxWaitMs()));
+            while (!ticket.granted) {
+                if (remaining <= 0) {
+                    abandon(ticket);
+                    if (RequestDeadline.expired(RequestDeadline.STAGE_SCHEDULER)) {
+                        throw new DeadlineExceededException(RequestDeadline.STAGE_SCHEDULER);
+                    }
+                    log.warn("[SCHEDULER] Portfolio {} waited {}ms for a provider slot, giving up (queued={})",
+                            portfolio, config.getMaxWaitMs(), flow.queued);
+                    throw new ProviderUnavailableException("Timed out waiting for face-match capacity", null);
+                }
+                try {
+                    remaining = ticket.ready.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (ticket.granted) {
+                        release();
+                    } else {
+                        abandon(ticket);
+                    }
+                    throw new ProviderUnavailableException("Interrupted while waiting for face-match capacity", e);
+                }
+            }
+            recordDispatch(flow, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueued));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            Ticket next = queue.poll();
+            if (next == null) {
+                busy--;
+                return;
+            }
+            // The slot passes straight to the next ticket; busy stays the same
+            virtualTime = next.startTag;
+            next.flow.queued--;
+            next.granted = true;
+            next.ready.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void abandon(Ticket ticket) {
+        queue.remove(ticket);
+        Flow flow = ticket.flow;
+        flow.queued--;
+        flow.timedOut++;
+        // Give the unused share back if nothing was queued behind this ticket
+        if (flow.lastFinish == ticket.finishTag) {
+            flow.lastFinish = ticket.startTag;
+        }
+    }
+
+    private void recordDispatch(Flow flow, long waitMs) {
+        flow.dispatched++;
+        flow.ewmaWaitMs = flow.dispatched == 1 ? waitMs : 0.2 * waitMs + 0.8 * flow.ewmaWaitMs;
+        flow.maxWaitMs = Math.max(flow.maxWaitMs, waitMs);
+    }
+
+    private int weight(String portfolio) {
+        return config.getWeights().getOrDefault(portfolio, config.getDefaultWeight());
+    }
+
+    /**
+     * Slot usage plus queue depth, dispatch count, timeouts and wait time per portfolio.
+     */
+    public Map<String, Object> snapshot() {
+        lock.lock();
+        try {
+            List<Map<String, Object>> portfolios = new ArrayList<>();
+            for (Flow flow : flows.values()) {
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("portfolio", flow.portfolio);
+                stats.put("weight", weight(flow.portfolio));
+                stats.put("queued", flow.queued);
+                stats.put("dispatched", flow.dispatched);
+                stats.put("timedOut", flow.timedOut);
+                stats.put("waitMs", Math.round(flow.ewmaWaitMs * 10) / 10.0);
+                stats.put("maxWaitMs", flow.maxWaitMs);
+                portfolios.add(stats);
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("slots", config.getSlots());
+            result.put("busy", busy);
+            result.put("queued", queue.size());
+            result.put("portfolios", portfolios);
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.tvscs.FM.services;
+
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.models.Transaction;
+import com.tvscs.FM.services.provider.ProviderResponse;
+import com.tvscs.FM.services.provider.ProviderRouter;
+import com.tvscs.FM.utils.TokenBucketRateLimiter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provider status lookups for the reconciler: at most {@code fm.reconciler.max-concurrency} calls in
+ * flight and {@code fm.reconciler.max-calls-per-second} overall, so reconciliation never competes
+ * with live face-match traffic for the providers' rate limits.
+ */
+@Component
+@Slf4j
+public class ProviderStatusClient {
+
+    public record Outcome(String vendorId, ProviderResponse response, Exception error) {
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    private final ProviderRouter providerRouter;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final ExecutorService workers;
+
+    public ProviderStatusClient(ProviderRouter providerRouter, FmProperties fmProperties) {
+        this.providerRouter = providerRouter;
+        FmProperties.Reconciler config = fmProperties.getReconciler();
+        this.rateLimiter = new TokenBucketRateLimiter(config.getMaxCallsPerSecond());
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(config.getMaxConcurrency(), r -> {
+            Thread t = new Thread(r, "provider-status-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Look up every transaction with its own provider and wait for all of them.
+     * Failures are returned per vendor id, not thrown.
+     */
+    public Map<String, Outcome> fetchAll(List<Transaction> transactions) {
+        List<CompletableFuture<Outcome>> futures = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> fetch(transaction.getProvider(), transaction.getVendorId()), workers));
+        }
+
+        Map<String, Outcome> outcomes = new LinkedHashMap<>();
+        for (CompletableFuture<Outcome> future : futures) {
+            Outcome outcome = future.join();
+            outcomes.put(outcome.vendorId(), outcome);
+        }
+        return outcomes;
+    }
+
+    private Outcome fetch(String provider, String vendorId) {
+        try {
+            rateLimiter.acquire();
+            return new Outcome(vendorId, providerRouter.provider(provider).fetchStatus(vendorId), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Outcome(vendorId, null, e);
+        } catch (Exception e) {
+            log.debug("[RECONCILE] Status lookup failed for vendorId={}: {}", vendorId, e.getMessage());
+            return new Outcome(vendorId, null, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
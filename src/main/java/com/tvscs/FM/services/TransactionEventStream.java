@@ -0,0 +1,397 @@
+package com.tvscs.FM.services;
+
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.services.TransactionStatusCache.Entry;
+import com.tvscs.FM.utils.JsonCodec;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans transaction status changes out to Server-Sent Events subscribers, keyed by account.
+ *
+ * Connections are servlet-async, so an idle subscriber holds no thread. {@link #publish} only appends
+ * to a per-account replay log and offers the event to each subscriber's bounded buffer; a small shared
+ * sender pool drains buffers to the sockets. A subscriber whose buffer overflows is disconnected and
+ * resumes with Last-Event-ID from the replay log, so a slow consumer never delays the webhook.
+ *
+ * Socket writes block, so a client with a full TCP window would hold a sender thread. Each write is
+ * timestamped, and the heartbeat tick drops any subscriber stuck in one for longer than
+ * {@code send-timeout-ms}: it interrupts the sender and lends the pool an extra thread until that write
+ * returns, so stuck clients never take sender capacity away from healthy ones.
+ */
+@Service
+@Slf4j
+public class TransactionEventStream {
+
+    public static final String EVENT_NAME = "status";
+
+    private static final Object HEARTBEAT = new Object();
+
+    public record Event(long id, String data, long createdAtNanos) {
+    }
+
+    private static final class Subscriber {
+        private final String accountId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Object> buffer;
+        // Set while a sender is draining, or while the replay is being written on subscribe
+        private final AtomicBoolean draining = new AtomicBoolean(true);
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private volatile long lastSentId;
+        // Sender thread and start of the write in progress; sendStartedNanos is 0 when not writing
+        private volatile Thread sender;
+        private volatile long sendStartedNanos;
+        private final AtomicBoolean aborted = new AtomicBoolean(false);
+        private final AtomicBoolean abortFinished = new AtomicBoolean(false);
+
+        private Subscriber(String accountId, SseEmitter emitter, int bufferSize, long lastSentId) {
+            this.accountId = accountId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+            this.lastSentId = lastSentId;
+        }
+    }
+
+    private final FmProperties.StatusStream config;
+    private final JsonCodec jsonCodec;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, Deque<Event>> replayLog = new ConcurrentHashMap<>();
+    // Seeded from the clock so ids keep increasing across restarts and stale Last-Event-IDs stay comparable
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final AtomicLong slowConsumerDrops = new AtomicLong();
+    private final AtomicLong stuckSendDrops = new AtomicLong();
+    private final ThreadPoolExecutor senders;
+
+    public TransactionEventStream(FmProperties fmProperties, JsonCodec jsonCodec) {
+        this.config = fmProperties.getStatusStream();
+        this.jsonCodec = jsonCodec;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(config.getSenderThreads(), config.getSenderThreads(), 60,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "sse-send-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Open a stream for an account, first replaying logged events newer than {@code lastEventId}.
+     *
+     * @throws IllegalStateException if the account already has the maximum number of open streams
+     */
+    public SseEmitter subscribe(String accountId, Long lastEventId) {
+        SseEmitter emitter = newEmitter(config.getTimeoutMs());
+        long resumeAfter = lastEventId != null ? lastEventId : sequence.get();
+        Subscriber subscriber = new Subscriber(accountId, emitter, config.getBufferSize(), resumeAfter);
+
+        // Register before reading the log so nothing published in between is missed; the sender
+        // skips anything the replay already covered. The replay is buffered by the emitter until the
+        // response starts, so it never blocks here. Check and add under the map's per-key lock so
+        // concurrent subscribes cannot overshoot the cap.
+        boolean[] admitted = {false};
+        Set<Subscriber> accountSubscribers = subscribers.compute(accountId, (k, set) -> {
+            Set<Subscriber> current = set != null ? set : ConcurrentHashMap.newKeySet();
+            if (current.size() < config.getMaxSubscribersPerAccount()) {
+                current.add(subscriber);
+                admitted[0] = true;
+            }
+            return current.isEmpty() ? null : current;
+        });
+        if (!admitted[0]) {
+            throw new IllegalStateException("Too many open event streams for this account");
+        }
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        try {
+            if (lastEventId != null) {
+                for (Event event : replaySince(accountId, lastEventId)) {
+                    send(subscriber, event);
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            close(subscriber);
+            return emitter;
+        }
+        subscriber.draining.set(false);
+        schedule(subscriber);
+
+        log.debug("[SSE] Subscribed accountId={}, lastEventId={}, open={}", accountId, lastEventId,
+                accountSubscribers.size());
+        return emitter;
+    }
+
+    /**
+     * Log a status change and offer it to the account's subscribers. Never blocks on I/O.
+     */
+    public void publish(Entry entry) {
+        if (entry == null || !entry.isFound() || entry.getAccountId() == null) {
+            return;
+        }
+
+        Event event = new Event(sequence.incrementAndGet(), toJson(entry), System.nanoTime());
+        // compute() so the heartbeat cannot drop the deque between lookup and append
+        replayLog.compute(entry.getAccountId(), (k, history) -> {
+            Deque<Event> current = history != null ? history : new ArrayDeque<>();
+            synchronized (current) {
+                current.addLast(event);
+                while (current.size() > config.getReplaySize()) {
+                    current.removeFirst();
+                }
+            }
+            return current;
+        });
+
+        Set<Subscriber> accountSubscribers = subscribers.get(entry.getAccountId());
+        if (accountSubscribers != null) {
+            accountSubscribers.forEach(subscriber -> offer(subscriber, event));
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    public long getSlowConsumerDrops() {
+        return slowConsumerDrops.get();
+    }
+
+    public long getStuckSendDrops() {
+        return stuckSendDrops.get();
+    }
+
+    /**
+     * Heartbeat comments keep idle connections open through proxies and surface dead clients.
+     * The same tick closes subscribers stuck in a write, prunes expired replay entries and drops the
+     * replay logs of accounts that have none left.
+     */
+    @Scheduled(fixedDelayString = "${fm.status-stream.heartbeat-seconds:20}", timeUnit = TimeUnit.SECONDS)
+    public void heartbeat() {
+        long now = System.nanoTime();
+        long sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getSendTimeoutMs());
+        subscribers.values().forEach(set -> set.forEach(subscriber -> {
+            long started = subscriber.sendStartedNanos;
+            if (started != 0 && now - started > sendTimeoutNanos) {
+                abortStuckSend(subscriber);
+            } else {
+                offer(subscriber, HEARTBEAT);
+            }
+        }));
+
+        long cutoff = now - TimeUnit.SECONDS.toNanos(config.getReplayTtlSeconds());
+        for (String accountId : replayLog.keySet()) {
+            replayLog.computeIfPresent(accountId, (k, history) -> {
+                synchronized (history) {
+                    while (!history.isEmpty() && history.peekFirst().createdAtNanos() - cutoff < 0) {
+                        history.removeFirst();
+                    }
+                    return history.isEmpty() ? null : history;
+                }
+            });
+        }
+    }
+
+    int getReplayLogAccounts() {
+        return replayLog.size();
+    }
+
+    /**
+     * The emitter cannot be completed from here: completion waits for the write lock the stuck send
+     * holds. The sender completes it once the write returns.
+     */
+    private void abortStuckSend(Subscriber subscriber) {
+        if (!subscriber.aborted.compareAndSet(false, true)) {
+            return;
+        }
+        stuckSendDrops.incrementAndGet();
+        log.warn("[SSE] Dropping subscriber for accountId={}: write blocked for over {}ms",
+                subscriber.accountId, config.getSendTimeoutMs());
+        remove(subscriber);
+        subscriber.buffer.clear();
+        resizeSenders(1);
+        Thread thread = subscriber.sender;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        // The write may have returned just before the abort, after the sender last checked
+        if (!subscriber.draining.get()) {
+            finishAbort(subscriber);
+        }
+    }
+
+    private void finishAbort(Subscriber subscriber) {
+        if (!subscriber.abortFinished.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            subscriber.emitter.completeWithError(new IOException("Event stream write timed out"));
+        } catch (Exception e) {
+            log.debug("[SSE] Failed to complete emitter: {}", e.getMessage());
+        }
+        resizeSenders(-1);
+    }
+
+    private synchronized void resizeSenders(int delta) {
+        if (delta > 0) {
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+        } else {
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+        }
+    }
+
+    int getSenderThreads() {
+        return senders.getCorePoolSize();
+    }
+
+    private List<Event> replaySince(String accountId, long lastEventId) {
+        Deque<Event> history = replayLog.get(accountId);
+        List<Event> events = new ArrayList<>();
+        if (history == null) {
+            return events;
+        }
+        synchronized (history) {
+            for (Event event : history) {
+                if (event.id() > lastEventId) {
+                    events.add(event);
+                }
+            }
+        }
+        return events;
+    }
+
+    private void offer(Subscriber subscriber, Object item) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        if (!subscriber.buffer.offer(item)) {
+            slowConsumerDrops.incrementAndGet();
+            log.warn("[SSE] Dropping slow subscriber for accountId={}: buffer of {} events is full",
+                    subscriber.accountId, config.getBufferSize());
+            close(subscriber);
+            return;
+        }
+        schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.buffer.isEmpty() && subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        subscriber.sender = Thread.currentThread();
+        try {
+            Object item;
+            while (!subscriber.closed.get() && (item = subscriber.buffer.poll()) != null) {
+                subscriber.sendStartedNanos = System.nanoTime();
+                if (item == HEARTBEAT) {
+                    subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+                } else {
+                    send(subscriber, (Event) item);
+                }
+                subscriber.sendStartedNanos = 0;
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("[SSE] Send failed for accountId={}: {}", subscriber.accountId, e.getMessage());
+            close(subscriber);
+        } finally {
+            subscriber.sendStartedNanos = 0;
+            subscriber.sender = null;
+            // A stuck write aborted by the heartbeat leaves the interrupt flag set on this pool thread
+            Thread.interrupted();
+            subscriber.draining.set(false);
+        }
+        if (subscriber.aborted.get()) {
+            finishAbort(subscriber);
+            return;
+        }
+        // An offer may have raced with the end of the loop
+        schedule(subscriber);
+    }
+
+    private void send(Subscriber subscriber, Event event) throws IOException {
+        if (event.id() <= subscriber.lastSentId) {
+            return;
+        }
+        subscriber.emitter.send(SseEmitter.event()
+                .id(Long.toString(event.id()))
+                .name(EVENT_NAME)
+                .data(event.data(), MediaType.APPLICATION_JSON));
+        subscriber.lastSentId = event.id();
+    }
+
+    private void close(Subscriber subscriber) {
+        if (subscriber.closed.compareAndSet(false, true)) {
+            remove(subscriber);
+            subscriber.buffer.clear();
+            try {
+                subscriber.emitter.complete();
+            } catch (Exception e) {
+                log.debug("[SSE] Failed to complete emitter: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed.set(true);
+        subscribers.computeIfPresent(subscriber.accountId, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Overridden in tests to observe or stall writes.
+     */
+    SseEmitter newEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private String toJson(Entry entry) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("transaction_id", entry.getTransactionId());
+        data.put("vendor_id", entry.getVendorId());
+        data.put("status", entry.getStatus());
+        data.put("redirect_url", entry.getRedirectUrl());
+        data.put("updated_at", entry.getUpdatedAt() != null ? entry.getUpdatedAt().toString() : null);
+        try {
+            return jsonCodec.writeString(data);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to serialize status event", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(set -> set.forEach(this::close));
+        senders.shutdownNow();
+    }
+}
@@ -0,0 +1,251 @@
+package com.tvscs.FM.services;
+
+import com.tvscs.FM.config.DigioProperties;
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.models.Transaction;
+import com.tvscs.FM.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Catches up on webhooks that never arrived.
+ *
+ * Dispatched transactions still in an intermediate status and untouched for
+ * {@code fm.reconciler.stale-after-minutes} are read in pages, least recently reconciled first. Rows past
+ * the expiry window (digio.expire-days) are marked expired without a call; the rest are looked up with
+ * their own provider through {@link ProviderStatusClient}.
+ * Changes are written with one JDBC batch per page, guarded on the status that was read so a webhook
+ * landing in between wins, then pushed to the status cache and client callbacks like a webhook would.
+ * Rows that come back unchanged (or fail to look up) get next_reconcile_at pushed out with exponential
+ * backoff, which also moves the next page on to rows not seen yet. A run stops after one interval.
+ */
+@Service
+@Slf4j
+public class TransactionReconciler {
+
+    private static final String UPDATE_SQL =
+            "UPDATE fm_transactions SET status = ?, " +
+            "vendor_reference_id = COALESCE(?, vendor_reference_id), " +
+            "vendor_transaction_id = COALESCE(?, vendor_transaction_id), " +
+            "next_reconcile_at = NULL, reconcile_attempts = 0, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ? AND status = ?";
+
+    private static final String BACKOFF_SQL =
+            "UPDATE fm_transactions SET next_reconcile_at = ?, reconcile_attempts = reconcile_attempts + 1 " +
+            "WHERE id = ? AND status = ?";
+
+    private static final int[] UPDATE_TYPES = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BIGINT, Types.VARCHAR};
+    private static final int[] BACKOFF_TYPES = {Types.TIMESTAMP_WITH_TIMEZONE, Types.BIGINT, Types.VARCHAR};
+
+    public record Summary(int scanned, int updated, int expired, int lookupFailures) {
+    }
+
+    private record Change(Transaction transaction, String status, String vendorReferenceId,
+                          String vendorTransactionId) {
+    }
+
+    private final TransactionRepository transactionRepository;
+    private final ProviderStatusClient providerStatusClient;
+    private final DigioProperties digioProperties;
+    private final FmProperties.Reconciler config;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionStatusCache statusCache;
+    private final CallbackService callbackService;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public TransactionReconciler(TransactionRepository transactionRepository, ProviderStatusClient providerStatusClient,
+                                 DigioProperties digioProperties, FmProperties fmProperties, DataSource dataSource,
+                                 TransactionStatusCache statusCache, CallbackService callbackService) {
+        this.transactionRepository = transactionRepository;
+        this.providerStatusClient = providerStatusClient;
+        this.digioProperties = digioProperties;
+        this.config = fmProperties.getReconciler();
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.statusCache = statusCache;
+        this.callbackService = callbackService;
+    }
+
+    @Scheduled(fixedDelayString = "${fm.reconciler.interval-ms:300000}",
+            initialDelayString = "${fm.reconciler.interval-ms:300000}")
+    public void scheduledRun() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        try {
+            run();
+        } catch (Exception e) {
+            log.error("[RECONCILE] Run failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return summary of the run, or null if a run is already in progress on this node
+     */
+    public Summary run() {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            OffsetDateTime now = OffsetDateTime.now();
+            OffsetDateTime staleBefore = now.minusMinutes(config.getStaleAfterMinutes());
+            OffsetDateTime expiredBefore = now.minusDays(digioProperties.getExpireDays());
+
+            int scanned = 0;
+            int updated = 0;
+            int expired = 0;
+            int failures = 0;
+            long deadline = System.currentTimeMillis() + config.getIntervalMs();
+
+            for (int page = 0; page < config.getMaxBatchesPerRun() && System.currentTimeMillis() < deadline; page++) {
+                List<Transaction> batch = transactionRepository.findStaleBatch(config.getPendingStatuses(),
+                        staleBefore, now, PageRequest.of(0, config.getBatchSize()));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                scanned += batch.size();
+
+                List<Change> changes = new ArrayList<>();
+                List<Transaction> lookups = new ArrayList<>();
+                List<Transaction> unchanged = new ArrayList<>();
+                for (Transaction transaction : batch) {
+                    if (transaction.getCreatedAt() != null && transaction.getCreatedAt().isBefore(expiredBefore)) {
+                        changes.add(new Change(transaction, Transaction.STATUS_EXPIRED, null, null));
+                    } else {
+                        lookups.add(transaction);
+                    }
+                }
+
+                Map<String, ProviderStatusClient.Outcome> outcomes = providerStatusClient.fetchAll(lookups);
+                for (Transaction transaction : lookups) {
+                    ProviderStatusClient.Outcome outcome = outcomes.get(transaction.getVendorId());
+                    if (outcome == null || !outcome.isSuccess()) {
+                        failures++;
+                        unchanged.add(transaction);
+                        continue;
+                    }
+                    String newStatus = outcome.response().getStatus();
+                    if (newStatus != null && !newStatus.equals(transaction.getStatus())) {
+                        changes.add(new Change(transaction, newStatus,
+                                outcome.response().getVendorReferenceId(),
+                                outcome.response().getVendorTransactionId()));
+                    } else {
+                        unchanged.add(transaction);
+                    }
+                }
+                backOff(unchanged, now);
+
+                for (Change change : apply(changes)) {
+                    if (Transaction.STATUS_EXPIRED.equals(change.status())) {
+                        expired++;
+                    } else {
+                        updated++;
+                    }
+                }
+
+                if (batch.size() < config.getBatchSize()) {
+                    break;
+                }
+            }
+
+            Summary summary = new Summary(scanned, updated, expired, failures);
+            log.info("[RECONCILE] Run complete: scanned={}, updated={}, expired={}, lookupFailures={}",
+                    summary.scanned(), summary.updated(), summary.expired(), summary.lookupFailures());
+            return summary;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Write all changes of a page in one JDBC batch and publish the ones that took effect.
+     */
+    private List<Change> apply(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return changes;
+        }
+        List<Object[]> args = new ArrayList<>(changes.size());
+        for (Change change : changes) {
+            args.add(new Object[]{change.status(), change.vendorReferenceId(), change.vendorTransactionId(),
+                    change.transaction().getId(), change.transaction().getStatus()});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, args, UPDATE_TYPES);
+
+        // Drivers may report SUCCESS_NO_INFO (-2) instead of a row count; those rows are re-read, and
+        // only count as applied if they now hold the status that was written
+        List<Long> unknown = new ArrayList<>();
+        for (int i = 0; i < changes.size(); i++) {
+            if (counts[i] == Statement.SUCCESS_NO_INFO) {
+                unknown.add(changes.get(i).transaction().getId());
+            }
+        }
+        Map<Long, String> current = currentStatuses(unknown);
+
+        List<Change> applied = new ArrayList<>();
+        for (int i = 0; i < changes.size(); i++) {
+            Change change = changes.get(i);
+            boolean took = counts[i] > 0
+                    || (counts[i] == Statement.SUCCESS_NO_INFO
+                    && change.status().equals(current.get(change.transaction().getId())));
+            if (!took) {
+                continue;
+            }
+            Transaction transaction = change.transaction();
+            transaction.setStatus(change.status());
+            if (change.vendorReferenceId() != null) {
+                transaction.setVendorReferenceId(change.vendorReferenceId());
+            }
+            if (change.vendorTransactionId() != null) {
+                transaction.setVendorTransactionId(change.vendorTransactionId());
+            }
+            statusCache.update(transaction);
+            callbackService.enqueue(transaction);
+            applied.add(change);
+        }
+        return applied;
+    }
+
+    private Map<Long, String> currentStatuses(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, String> statuses = new HashMap<>();
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.query("SELECT id, status FROM fm_transactions WHERE id IN (" + placeholders + ")",
+                rs -> {
+                    statuses.put(rs.getLong(1), rs.getString(2));
+                }, ids.toArray());
+        return statuses;
+    }
+
+    /**
+     * Push the next lookup of rows that came back unchanged out by stale-after-minutes, doubled per
+     * previous lookup and capped at {@code fm.reconciler.max-backoff-minutes}.
+     */
+    private void backOff(List<Transaction> transactions, OffsetDateTime now) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            int attempts = transaction.getReconcileAttempts() != null ? transaction.getReconcileAttempts() : 0;
+            long minutes = Math.min((long) config.getStaleAfterMinutes() << Math.min(attempts, 20),
+                    config.getMaxBackoffMinutes());
+            args.add(new Object[]{now.plusMinutes(minutes), transaction.getId(), transaction.getStatus()});
+        }
+        jdbcTemplate.batchUpdate(BACKOFF_SQL, args, BACKOFF_TYPES);
+    }
+}
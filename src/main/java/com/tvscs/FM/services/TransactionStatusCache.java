@@ -0,0 +1,183 @@
+package com.tvscs.FM.services;
+
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.models.Transaction;
+import com.tvscs.FM.repository.TransactionRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compact in-memory view of fm_transactions status, serving the status endpoints.
+ *
+ * The webhook and outbox paths push changes with {@link #update(Transaction)}, which also wakes
+ * long-poll waiters and publishes the change to {@link TransactionEventStream}. Entries are re-read from the database at most once per TTL, which bounds poll
+ * load per transaction and picks up changes applied on other nodes. Unknown ids are cached too,
+ * so polling for a missing id does not hit the database on every request.
+ */
+@Service
+@Slf4j
+public class TransactionStatusCache {
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final String transactionId;
+        private final String vendorId;
+        private final String accountId;
+        private final String status;
+        private final String redirectUrl;
+        private final OffsetDateTime createdAt;
+        private final OffsetDateTime updatedAt;
+        private final String etag;
+        private final long loadedAtNanos;
+
+        public boolean isFound() {
+            return transactionId != null;
+        }
+    }
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionEventStream eventStream;
+    private final FmProperties.StatusCache config;
+
+    private final Map<String, Entry> byTransactionId = new ConcurrentHashMap<>();
+    private final Map<String, Entry> byVendorId = new ConcurrentHashMap<>();
+    private final Map<String, List<CompletableFuture<Entry>>> waiters = new ConcurrentHashMap<>();
+
+    public TransactionStatusCache(TransactionRepository transactionRepository, TransactionEventStream eventStream,
+                                  FmProperties fmProperties) {
+        this.transactionRepository = transactionRepository;
+        this.eventStream = eventStream;
+        this.config = fmProperties.getStatusCache();
+    }
+
+    public Entry getByTransactionId(String transactionId) {
+        Entry cached = byTransactionId.get(transactionId);
+        if (cached != null && !isExpired(cached)) {
+            return cached;
+        }
+        Optional<Transaction> loaded = transactionRepository.findByTransactionId(transactionId);
+        if (loaded.isPresent()) {
+            return put(loaded.get(), false);
+        }
+        return cacheMissing(byTransactionId, transactionId);
+    }
+
+    public Entry getByVendorId(String vendorId) {
+        Entry cached = byVendorId.get(vendorId);
+        if (cached != null && !isExpired(cached)) {
+            return cached;
+        }
+        Optional<Transaction> loaded = transactionRepository.findByVendorId(vendorId);
+        if (loaded.isPresent()) {
+            return put(loaded.get(), false);
+        }
+        return cacheMissing(byVendorId, vendorId);
+    }
+
+    /**
+     * Record the current state of a transaction and complete any long-poll waiters if it changed.
+     */
+    public Entry update(Transaction transaction) {
+        return put(transaction, true);
+    }
+
+    /**
+     * @param changed true when the caller wrote the transaction; false for reloads, which only publish
+     *                to stream subscribers if the state differs from the cached one
+     */
+    private Entry put(Transaction transaction, boolean changed) {
+        Entry entry = new Entry(
+                transaction.getTransactionId(),
+                transaction.getVendorId(),
+                transaction.getAccountId(),
+                transaction.getStatus(),
+                transaction.getRedirectUrl(),
+                transaction.getCreatedAt(),
+                transaction.getUpdatedAt(),
+                etagOf(transaction),
+                System.nanoTime());
+
+        Entry previous = null;
+        if (byTransactionId.size() < config.getMaxEntries() || byTransactionId.containsKey(entry.getTransactionId())) {
+            previous = byTransactionId.put(entry.getTransactionId(), entry);
+            if (entry.getVendorId() != null) {
+                byVendorId.put(entry.getVendorId(), entry);
+            }
+        }
+
+        if (previous == null ? changed : !previous.getEtag().equals(entry.getEtag())) {
+            eventStream.publish(entry);
+        }
+        if (previous == null || !previous.getEtag().equals(entry.getEtag())) {
+            List<CompletableFuture<Entry>> parked = waiters.remove(entry.getTransactionId());
+            if (parked != null) {
+                parked.forEach(f -> f.complete(entry));
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Future that completes with the next entry whose ETag differs from {@code knownEtag}.
+     * Callers must {@link #cancel} it when they stop waiting.
+     */
+    public CompletableFuture<Entry> awaitChange(String transactionId, String knownEtag) {
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        waiters.computeIfAbsent(transactionId, k -> new CopyOnWriteArrayList<>()).add(future);
+
+        // An update may have landed between the caller's read and the registration above
+        Entry current = byTransactionId.get(transactionId);
+        if (current != null && !current.getEtag().equals(knownEtag)) {
+            future.complete(current);
+        }
+        return future;
+    }
+
+    public void cancel(String transactionId, CompletableFuture<Entry> future) {
+        waiters.computeIfPresent(transactionId, (k, list) -> {
+            list.remove(future);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${fm.status-cache.ttl-seconds:30}", timeUnit = TimeUnit.SECONDS)
+    public void evictExpired() {
+        byTransactionId.values().removeIf(this::isExpired);
+        byVendorId.values().removeIf(this::isExpired);
+    }
+
+    private Entry cacheMissing(Map<String, Entry> index, String key) {
+        Entry missing = new Entry(null, null, null, null, null, null, null, "\"missing\"", System.nanoTime());
+        if (index.size() < config.getMaxEntries()) {
+            index.put(key, missing);
+        }
+        return missing;
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.nanoTime() - entry.getLoadedAtNanos() > TimeUnit.SECONDS.toNanos(config.getTtlSeconds());
+    }
+
+    /**
+     * Content-derived so every node produces the same ETag for the same state. updated_at is left out
+     * because the DB trigger rewrites it, which would change the ETag on every reload.
+     */
+    private static String etagOf(Transaction transaction) {
+        int hash = Objects.hash(transaction.getStatus(), transaction.getVendorId(), transaction.getRedirectUrl());
+        return "\"" + transaction.getTransactionId() + "-" + Integer.toHexString(hash) + "\"";
+    }
+}
@@ -0,0 +1,13 @@
+package com.tvscs.FM.services.image;
+
+/**
+ * What the validation pass learned about an uploaded image, without decoding its pixels.
+ *
+ * @param format     detected format ("jpeg", "png", ...), from magic bytes rather than the declared content type
+ * @param width      width in pixels, from the image header
+ * @param height     height in pixels, from the image header
+ * @param sizeBytes  size of the upload
+ * @param sha256     hex SHA-256 of the upload, for correlating duplicates without keeping the image
+ */
+public record ImageMetadata(String format, int width, int height, long sizeBytes, String sha256) {
+}
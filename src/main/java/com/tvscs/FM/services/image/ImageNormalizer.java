@@ -0,0 +1,286 @@
+package com.tvscs.FM.services.image;
+
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.utils.RequestDeadline;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shrinks uploads to what face comparison needs before they are base64-encoded for the provider.
+ *
+ * Images whose longer edge exceeds {@code fm.image.normalize.max-edge} are decoded with source
+ * subsampling (so a 12 MP selfie is never fully decoded), turned upright according to the JPEG's EXIF
+ * Orientation tag (ImageIO ignores it and the re-encoded JPEG carries no metadata), scaled to fit, and
+ * re-encoded as JPEG at {@code jpeg-quality}. The work runs on a small bounded pool; when the pool is saturated, the stage
+ * times out or the result is not smaller, the original bytes are sent instead, so normalisation can
+ * only save bytes, never fail a request.
+ */
+@Service
+@Slf4j
+public class ImageNormalizer {
+
+    /**
+     * @param bytes    bytes to send to the provider
+     * @param applied  whether {@code bytes} is a re-encoded image rather than the upload
+     */
+    public record Result(byte[] bytes, boolean applied, int width, int height, long originalBytes, long elapsedMs) {
+    }
+
+    private final FmProperties.Image.Normalize config;
+    private final ThreadPoolExecutor workers;
+
+    private final LongAdder normalized = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    public ImageNormalizer(FmProperties fmProperties) {
+        this.config = fmProperties.getImage().getNormalize();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(config.getWorkers(), config.getWorkers(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()), r -> {
+                    Thread t = new Thread(r, "image-normalize-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    public Result normalize(byte[] original, ImageMetadata metadata) {
+        long start = System.nanoTime();
+        Result passThrough = new Result(original, false, metadata.width(), metadata.height(), original.length, 0);
+        if (!config.isEnabled() || Math.max(metadata.width(), metadata.height()) <= config.getMaxEdge()) {
+            return record(passThrough);
+        }
+
+        Future<Result> future;
+        try {
+            future = workers.submit(() -> resize(original, metadata, start));
+        } catch (RejectedExecutionException e) {
+            log.debug("Image normalizer saturated, sending original {} bytes", original.length);
+            return record(passThrough);
+        }
+
+        try {
+            Result result = future.get(RequestDeadline.remainingMs(config.getTimeoutMs()), TimeUnit.MILLISECONDS);
+            return record(result.bytes().length < original.length ? result : passThrough);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Image normalization timed out after {}ms, sending original", config.getTimeoutMs());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("Image normalization failed, sending original: {}", e.getCause().getMessage());
+        }
+        return record(passThrough);
+    }
+
+    private Result resize(byte[] original, ImageMetadata metadata, long start) throws IOException {
+        int orientation = "jpeg".equals(metadata.format()) ? exifOrientation(original) : 1;
+        // Orientations 5-8 swap the axes: the stored image is the upright one turned on its side
+        boolean swapped = orientation >= 5;
+        int uprightWidth = swapped ? metadata.height() : metadata.width();
+        int uprightHeight = swapped ? metadata.width() : metadata.height();
+
+        int longEdge = Math.max(metadata.width(), metadata.height());
+        double scale = (double) config.getMaxEdge() / longEdge;
+        int targetWidth = Math.max(1, (int) Math.round(uprightWidth * scale));
+        int targetHeight = Math.max(1, (int) Math.round(uprightHeight * scale));
+
+        // Decode at no more than twice the target size, then scale the rest with interpolation
+        int subsampling = Math.max(1, longEdge / (config.getMaxEdge() * 2));
+        BufferedImage decoded = decode(original, metadata.format(), subsampling);
+        int decodedWidth = swapped ? decoded.getHeight() : decoded.getWidth();
+        int decodedHeight = swapped ? decoded.getWidth() : decoded.getHeight();
+        AffineTransform transform = AffineTransform.getScaleInstance(
+                (double) targetWidth / decodedWidth, (double) targetHeight / decodedHeight);
+        transform.concatenate(uprightTransform(orientation, decoded.getWidth(), decoded.getHeight()));
+
+        BufferedImage scaled = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG has no alpha; flatten transparent PNGs onto white
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, targetWidth, targetHeight);
+            graphics.drawImage(decoded, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        byte[] encoded = encodeJpeg(scaled, config.getJpegQuality());
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new Result(encoded, true, targetWidth, targetHeight, original.length, elapsedMs);
+    }
+
+    /**
+     * Maps stored pixel coordinates to upright ones for an EXIF orientation (1-8).
+     */
+    static AffineTransform uprightTransform(int orientation, int width, int height) {
+        return switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, width, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, width, height);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, height);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, height, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, height, width);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, width);
+            default -> new AffineTransform();
+        };
+    }
+
+    /**
+     * Reads the Orientation tag (0x0112) from IFD0 of a JPEG's EXIF segment.
+     *
+     * @return 1-8, or 1 when there is no EXIF data or it cannot be parsed
+     */
+    static int exifOrientation(byte[] jpeg) {
+        int pos = 2;
+        while (pos + 4 <= jpeg.length && (jpeg[pos] & 0xFF) == 0xFF) {
+            int marker = jpeg[pos + 1] & 0xFF;
+            if (marker == 0xDA || marker == 0xD9) {
+                // Start of scan: no metadata segments follow
+                return 1;
+            }
+            int length = ((jpeg[pos + 2] & 0xFF) << 8) | (jpeg[pos + 3] & 0xFF);
+            int segment = pos + 4;
+            if (marker == 0xE1 && length >= 16 && segment + length - 2 <= jpeg.length
+                    && jpeg[segment] == 'E' && jpeg[segment + 1] == 'x' && jpeg[segment + 2] == 'i'
+                    && jpeg[segment + 3] == 'f' && jpeg[segment + 4] == 0 && jpeg[segment + 5] == 0) {
+                return tiffOrientation(jpeg, segment + 6, segment + length - 2);
+            }
+            pos = segment + length - 2;
+        }
+        return 1;
+    }
+
+    private static int tiffOrientation(byte[] data, int tiff, int end) {
+        boolean littleEndian = data[tiff] == 'I' && data[tiff + 1] == 'I';
+        if (!littleEndian && !(data[tiff] == 'M' && data[tiff + 1] == 'M')) {
+            return 1;
+        }
+        long ifd = tiff + readInt(data, tiff + 4, littleEndian);
+        if (ifd < tiff || ifd + 2 > end) {
+            return 1;
+        }
+        int entries = readShort(data, (int) ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                return 1;
+            }
+            if (readShort(data, entry, littleEndian) == 0x0112) {
+                int value = readShort(data, entry + 8, littleEndian);
+                return value >= 1 && value <= 8 ? value : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int readShort(byte[] data, int offset, boolean littleEndian) {
+        int a = data[offset] & 0xFF;
+        int b = data[offset + 1] & 0xFF;
+        return littleEndian ? (b << 8) | a : (a << 8) | b;
+    }
+
+    private static long readInt(byte[] data, int offset, boolean littleEndian) {
+        long high = readShort(data, offset + (littleEndian ? 2 : 0), littleEndian);
+        long low = readShort(data, offset + (littleEndian ? 0 : 2), littleEndian);
+        return (high << 16) | low;
+    }
+
+    private static BufferedImage decode(byte[] bytes, String format, int subsampling) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName(format);
+        if (!readers.hasNext()) {
+            throw new IOException("No reader for " + format);
+        }
+        ImageReader reader = readers.next();
+        try (ImageInputStream input = new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes))) {
+            reader.setInput(input, true, true);
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private Result record(Result result) {
+        (result.applied() ? normalized : skipped).increment();
+        bytesIn.add(result.originalBytes());
+        bytesOut.add(result.bytes().length);
+        if (result.applied()) {
+            log.debug("Normalized image {} -> {} bytes ({}x{}) in {}ms", result.originalBytes(),
+                    result.bytes().length, result.width(), result.height(), result.elapsedMs());
+        }
+        return result;
+    }
+
+    public long getNormalizedCount() {
+        return normalized.sum();
+    }
+
+    public long getSkippedCount() {
+        return skipped.sum();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,246 @@
+package com.tvscs.FM.services.image;
+
+import com.tvscs.FM.config.FmProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Iterator;
+
+/**
+ * Rejects bad uploads before they cost a provider round trip.
+ *
+ * The upload is read once, hashing it with SHA-256 as it is copied into memory. The format comes from
+ * its magic bytes, truncation is caught from the missing end marker, and dimensions come from the
+ * ImageIO reader's header parse; pixels are never decoded.
+ */
+@Service
+@Slf4j
+public class ImageValidator {
+
+    public record ValidatedImage(byte[] bytes, ImageMetadata metadata) {
+    }
+
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] JPEG_EOI = {(byte) 0xFF, (byte) 0xD9};
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] PNG_IEND = {'I', 'E', 'N', 'D', (byte) 0xAE, 0x42, 0x60, (byte) 0x82};
+    private static final byte[] GIF_MAGIC = {'G', 'I', 'F', '8'};
+    private static final byte[] BMP_MAGIC = {'B', 'M'};
+    private static final byte[] RIFF_MAGIC = {'R', 'I', 'F', 'F'};
+    private static final byte[] WEBP_MAGIC = {'W', 'E', 'B', 'P'};
+    private static final byte[] FTYP_MAGIC = {'f', 't', 'y', 'p'};
+
+    private final FmProperties.Image config;
+
+    public ImageValidator(FmProperties fmProperties) {
+        this.config = fmProperties.getImage();
+    }
+
+    /**
+     * Read and validate an uploaded image.
+     *
+     * @throws IllegalArgumentException if the image is empty, truncated, of a disallowed format or out of bounds
+     */
+    public ValidatedImage read(MultipartFile image) throws IOException {
+        return read(image.getInputStream(), image.getSize(), Long.MAX_VALUE);
+    }
+
+    /**
+     * Read and validate a raw image body of at most {@code fm.image.max-bytes}.
+     *
+     * @param declared Content-Length if known, otherwise -1
+     * @throws IllegalArgumentException if the body is too large or the image fails validation
+     */
+    public ValidatedImage read(InputStream body, long declared) throws IOException {
+        return read(body, declared, config.getMaxBytes().toBytes());
+    }
+
+    private ValidatedImage read(InputStream body, long declared, long maxBytes) throws IOException {
+        if (declared > maxBytes) {
+            throw new IllegalArgumentException("Image exceeds " + maxBytes + " bytes");
+        }
+        MessageDigest digest = sha256();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(declared > 0 ? (int) declared : 8192);
+        try (InputStream in = new DigestInputStream(body, digest)) {
+            byte[] chunk = new byte[8192];
+            long total = 0;
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new IllegalArgumentException("Image exceeds " + maxBytes + " bytes");
+                }
+                buffer.write(chunk, 0, read);
+            }
+        }
+        byte[] bytes = buffer.toByteArray();
+        return new ValidatedImage(bytes, inspect(bytes, HexFormat.of().formatHex(digest.digest())));
+    }
+
+    /**
+     * Decode and validate a base64 image (standard alphabet, no data URI prefix; see {@link #stripDataUri}).
+     * The caller keeps the string it passed in, so a valid image can be sent on without re-encoding.
+     *
+     * @throws IllegalArgumentException if the string is not valid base64 or the image fails validation
+     */
+    public ValidatedImage decodeBase64(String base64) {
+        if (base64 == null || base64.isEmpty()) {
+            throw new IllegalArgumentException("Image is required");
+        }
+        // Checked on the encoded length so an oversized image is never decoded
+        long maxBytes = config.getMaxBytes().toBytes();
+        if ((long) base64.length() / 4 * 3 > maxBytes) {
+            throw new IllegalArgumentException("Image exceeds " + maxBytes + " bytes");
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(base64);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Image is not valid base64: " + e.getMessage());
+        }
+        return new ValidatedImage(bytes, inspect(bytes));
+    }
+
+    /**
+     * Drop a {@code data:image/...;base64,} prefix, as produced by browsers and some SDKs.
+     */
+    public static String stripDataUri(String base64) {
+        if (base64 != null && base64.startsWith("data:")) {
+            int comma = base64.indexOf(',');
+            if (comma < 0 || !base64.substring(0, comma).endsWith(";base64")) {
+                throw new IllegalArgumentException("Image data URI must be base64-encoded");
+            }
+            return base64.substring(comma + 1);
+        }
+        return base64;
+    }
+
+    /**
+     * Validate an image already in memory.
+     */
+    public ImageMetadata inspect(byte[] bytes) {
+        return inspect(bytes, HexFormat.of().formatHex(sha256().digest(bytes)));
+    }
+
+    private ImageMetadata inspect(byte[] bytes, String sha256) {
+        if (bytes.length == 0) {
+            throw new IllegalArgumentException("Image file is empty");
+        }
+        String format = sniffFormat(bytes);
+        if (format == null) {
+            throw new IllegalArgumentException("Image format not recognised");
+        }
+        if (!config.getAllowedFormats().contains(format)) {
+            throw new IllegalArgumentException("Image format " + format + " is not supported; use "
+                    + String.join(" or ", config.getAllowedFormats()));
+        }
+        if (isTruncated(format, bytes)) {
+            throw new IllegalArgumentException("Image file is truncated");
+        }
+
+        int[] dimensions = readDimensions(format, bytes);
+        int width = dimensions[0];
+        int height = dimensions[1];
+        if (width < config.getMinEdge() || height < config.getMinEdge()) {
+            throw new IllegalArgumentException("Image is too small: " + width + "x" + height
+                    + ", minimum edge is " + config.getMinEdge() + "px");
+        }
+        if (width > config.getMaxEdge() || height > config.getMaxEdge()
+                || (long) width * height > config.getMaxPixels()) {
+            throw new IllegalArgumentException("Image is too large: " + width + "x" + height);
+        }
+
+        log.debug("Validated {} image {}x{}, {} bytes", format, width, height, bytes.length);
+        return new ImageMetadata(format, width, height, bytes.length, sha256);
+    }
+
+    static String sniffFormat(byte[] bytes) {
+        if (startsWith(bytes, 0, JPEG_MAGIC)) {
+            return "jpeg";
+        }
+        if (startsWith(bytes, 0, PNG_MAGIC)) {
+            return "png";
+        }
+        if (startsWith(bytes, 0, GIF_MAGIC)) {
+            return "gif";
+        }
+        if (startsWith(bytes, 0, RIFF_MAGIC) && startsWith(bytes, 8, WEBP_MAGIC)) {
+            return "webp";
+        }
+        if (startsWith(bytes, 4, FTYP_MAGIC)) {
+            return "heif";
+        }
+        if (startsWith(bytes, 0, BMP_MAGIC)) {
+            return "bmp";
+        }
+        return null;
+    }
+
+    private static boolean isTruncated(String format, byte[] bytes) {
+        return switch (format) {
+            // Some encoders pad after the end marker; only look at the tail
+            case "jpeg" -> indexOf(bytes, JPEG_EOI, Math.max(0, bytes.length - 64)) < 0;
+            case "png" -> !startsWith(bytes, bytes.length - PNG_IEND.length, PNG_IEND);
+            default -> false;
+        };
+    }
+
+    private static int[] readDimensions(String format, byte[] bytes) {
+        Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName(format);
+        if (!readers.hasNext()) {
+            throw new IllegalArgumentException("Image format " + format + " cannot be read");
+        }
+        ImageReader reader = readers.next();
+        try (ImageInputStream input = new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes))) {
+            reader.setInput(input, true, true);
+            return new int[]{reader.getWidth(0), reader.getHeight(0)};
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Image header is corrupt: " + e.getMessage());
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, byte[] prefix) {
+        if (offset < 0 || bytes.length < offset + prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] needle, int from) {
+        for (int i = from; i <= bytes.length - needle.length; i++) {
+            if (startsWith(bytes, i, needle)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
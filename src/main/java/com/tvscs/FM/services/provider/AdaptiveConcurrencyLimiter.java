@@ -0,0 +1,208 @@
+package com.tvscs.FM.services.provider;
+
+import com.tvscs.FM.config.FmProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Latency-driven AIMD limit on concurrent calls to one provider.
+ *
+ * The limiter tracks the lowest round-trip time seen in the current window as the no-load baseline.
+ * A successful call within {@code latency-tolerance} times that baseline, made while the limit was
+ * actually in use, raises the limit by one; a slower call or a failure multiplies it by
+ * {@code backoff-ratio}. The baseline is re-measured every {@code rtt-window} samples so the limiter
+ * follows a provider whose normal latency shifts.
+ *
+ * Callers over the limit wait up to {@code max-queue-wait-ms} for a slot and are rejected after that,
+ * or straight away when {@code max-queued} callers are already waiting.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final FmProperties.Providers.Limiter config;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long minRttNanos = Long.MAX_VALUE;
+    private long windowMinRttNanos = Long.MAX_VALUE;
+    private int windowSamples;
+    private volatile double ewmaQueueWaitMs;
+
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder acquired = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(FmProperties.Providers.Limiter config) {
+        this.config = config;
+        this.limit = config.getInitialLimit();
+    }
+
+    /**
+     * Wait for a slot.
+     *
+     * @return true if the caller holds a slot and must report the outcome, false if it was rejected
+     */
+    public boolean acquire() throws InterruptedException {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                acquired.increment();
+                recordQueueWait(0);
+                return true;
+            }
+            if (queued >= config.getMaxQueued()) {
+                rejections.increment();
+                return false;
+            }
+            queued++;
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(config.getMaxQueueWaitMs());
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        rejections.increment();
+                        recordQueueWait(System.nanoTime() - start);
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+            } finally {
+                queued--;
+            }
+            inFlight++;
+            acquired.increment();
+            recordQueueWait(System.nanoTime() - start);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release a slot after a successful call and adjust the limit from its round-trip time.
+     */
+    public void onSuccess(long rttNanos) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= (int) limit / 2;
+            release();
+            sampleRtt(rttNanos);
+            if (rttNanos <= minRttNanos * config.getLatencyTolerance()) {
+                if (saturated) {
+                    setLimit(limit + 1);
+                }
+            } else {
+                setLimit(limit * config.getBackoffRatio());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release a slot after a timeout, throttling or server error; treated as congestion.
+     */
+    public void onDropped() {
+        lock.lock();
+        try {
+            release();
+            setLimit(limit * config.getBackoffRatio());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release a slot without adjusting the limit, e.g. when the call failed on bad input.
+     */
+    public void onIgnore() {
+        lock.lock();
+        try {
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMinRttMs() {
+        lock.lock();
+        try {
+            return minRttNanos == Long.MAX_VALUE ? -1 : TimeUnit.NANOSECONDS.toMillis(minRttNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getQueueWaitMs() {
+        return ewmaQueueWaitMs;
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    public long getAcquired() {
+        return acquired.sum();
+    }
+
+    private void release() {
+        inFlight--;
+        released.signalAll();
+    }
+
+    private void sampleRtt(long rttNanos) {
+        windowMinRttNanos = Math.min(windowMinRttNanos, rttNanos);
+        if (++windowSamples >= config.getRttWindow() || minRttNanos == Long.MAX_VALUE) {
+            minRttNanos = windowMinRttNanos;
+            windowMinRttNanos = Long.MAX_VALUE;
+            windowSamples = 0;
+        } else {
+            minRttNanos = Math.min(minRttNanos, rttNanos);
+        }
+    }
+
+    private void setLimit(double newLimit) {
+        double previous = limit;
+        limit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), newLimit));
+        if (limit > previous) {
+            released.signalAll();
+        }
+    }
+
+    private void recordQueueWait(long waitNanos) {
+        double waitMs = waitNanos / 1_000_000.0;
+        ewmaQueueWaitMs = 0.2 * waitMs + 0.8 * ewmaQueueWaitMs;
+    }
+}
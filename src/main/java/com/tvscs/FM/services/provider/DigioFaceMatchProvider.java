@@ -0,0 +1,156 @@
+package com.tvscs.FM.services.provider;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.tvscs.FM.config.DigioProperties;
+import com.tvscs.FM.services.DigioService;
+import com.tvscs.FM.services.DigioService.DigioResponse;
+import com.tvscs.FM.utils.DigioUrlBuilder;
+import com.tvscs.FM.utils.JsonCodec;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+
+@Component
+public class DigioFaceMatchProvider implements FaceMatchProvider {
+
+    public static final String NAME = "digio";
+
+    private record KycRequest(String id, String status, String referenceId, String transactionId) {
+    }
+
+    private final DigioService digioService;
+    private final DigioUrlBuilder digioUrlBuilder;
+    private final DigioProperties digioProperties;
+    private final JsonCodec jsonCodec;
+
+    public DigioFaceMatchProvider(DigioService digioService, DigioUrlBuilder digioUrlBuilder,
+                                  DigioProperties digioProperties, JsonCodec jsonCodec) {
+        this.digioService = digioService;
+        this.digioUrlBuilder = digioUrlBuilder;
+        this.digioProperties = digioProperties;
+        this.jsonCodec = jsonCodec;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getEndpoint() {
+        return digioProperties.getEndpoint();
+    }
+
+    @Override
+    public ProviderResponse createRequest(String customerName, String customerIdentifier, String base64Image,
+                                          Integer overrideExpireDays, boolean notifyCustomer) {
+        return toResponse(digioService.createRequest(customerName, customerIdentifier, base64Image,
+                overrideExpireDays, notifyCustomer));
+    }
+
+    @Override
+    public ProviderResponse fetchStatus(String vendorId) {
+        return toResponse(digioService.fetchStatus(vendorId));
+    }
+
+    @Override
+    public String buildRedirectUrl(ProviderResponse response) {
+        return digioUrlBuilder.build(response.getParsed(), digioProperties.getCallbackUrl());
+    }
+
+    /**
+     * Digio posts {"id", "event", "payload": {"kyc_request": {...}, "kyc_action": {...}}}. The body is
+     * read with a streaming parser: only the fields below are materialised, and everything else,
+     * including the kyc_action section, is skipped token by token.
+     */
+    @Override
+    public WebhookEvent parseWebhook(byte[] body) {
+        String eventId = null;
+        String eventType = null;
+        KycRequest kycRequest = null;
+        try (JsonParser parser = jsonCodec.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Webhook body is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_OBJECT && "payload".equals(name)) {
+                    kycRequest = readPayload(parser);
+                } else if (value == JsonToken.VALUE_STRING && "id".equals(name)) {
+                    eventId = parser.getText();
+                } else if (value == JsonToken.VALUE_STRING && "event".equals(name)) {
+                    eventType = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed webhook body: " + e.getMessage());
+        }
+
+        if (kycRequest == null || kycRequest.id() == null) {
+            return null;
+        }
+        return new WebhookEvent(NAME,
+                stringOrNull(eventId),
+                stringOrNull(eventType),
+                stringOrNull(kycRequest.id()),
+                stringOrNull(kycRequest.status()),
+                stringOrNull(kycRequest.referenceId()),
+                stringOrNull(kycRequest.transactionId()));
+    }
+
+    private static KycRequest readPayload(JsonParser parser) throws IOException {
+        KycRequest kycRequest = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            if (parser.nextToken() == JsonToken.START_OBJECT && "kyc_request".equals(name)) {
+                kycRequest = readKycRequest(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return kycRequest;
+    }
+
+    private static KycRequest readKycRequest(JsonParser parser) throws IOException {
+        String id = null;
+        String status = null;
+        String referenceId = null;
+        String transactionId = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (name) {
+                case "id" -> id = parser.getText();
+                case "status" -> status = parser.getText();
+                case "reference_id" -> referenceId = parser.getText();
+                case "transaction_id" -> transactionId = parser.getText();
+                default -> {
+                }
+            }
+        }
+        return new KycRequest(id, status, referenceId, transactionId);
+    }
+
+    private ProviderResponse toResponse(DigioResponse response) {
+        Map<String, Object> parsed = response.getParsed();
+        return new ProviderResponse(NAME,
+                stringOrNull(parsed.get("id")),
+                stringOrNull(parsed.get("status")),
+                stringOrNull(parsed.get("reference_id")),
+                stringOrNull(parsed.get("transaction_id")),
+                parsed,
+                response.getRawJson());
+    }
+
+    private static String stringOrNull(Object value) {
+        return value instanceof String s && !s.isEmpty() ? s : null;
+    }
+}
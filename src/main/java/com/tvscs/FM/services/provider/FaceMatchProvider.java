@@ -0,0 +1,42 @@
+package com.tvscs.FM.services.provider;
+
+/**
+ * A face-match vendor. Implementations are Spring beans picked up by {@link ProviderRouter};
+ * {@link #getName()} is what fm_transactions.provider and /api/v1/webhook/{provider} refer to.
+ */
+public interface FaceMatchProvider {
+
+    String getName();
+
+    /**
+     * Outbound endpoint recorded on audit rows for calls to this provider.
+     */
+    String getEndpoint();
+
+    /**
+     * Submit a face-match request.
+     *
+     * @throws IllegalArgumentException if the request is invalid
+     * @throws com.tvscs.FM.exception.ProviderApiException if the provider call fails
+     */
+    ProviderResponse createRequest(String customerName, String customerIdentifier, String base64Image,
+                                   Integer overrideExpireDays, boolean notifyCustomer);
+
+    /**
+     * Current state of a request created earlier, for reconciliation.
+     */
+    ProviderResponse fetchStatus(String vendorId);
+
+    /**
+     * URL the customer is sent to in redirect mode.
+     */
+    String buildRedirectUrl(ProviderResponse response);
+
+    /**
+     * Extract the status change from a raw webhook body, reading only the fields the event needs.
+     *
+     * @return the event, or null if the body carries no request id
+     * @throws IllegalArgumentException if the body is not valid JSON of the expected shape
+     */
+    WebhookEvent parseWebhook(byte[] body);
+}
@@ -0,0 +1,141 @@
+package com.tvscs.FM.services.provider;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.tvscs.FM.exception.ProviderApiException;
+import com.tvscs.FM.utils.JsonCodec;
+import org.springframework.util.ObjectUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process provider with configurable latency and failure rate, for tests and load benchmarks.
+ * Registered as a bean only when {@code fm.providers.fake.enabled=true}; give it a weight under
+ * {@code fm.providers.weights.fake} to route traffic to it.
+ */
+public class FakeFaceMatchProvider implements FaceMatchProvider {
+
+    public static final String NAME = "fake";
+
+    private record Webhook(String id, String status,
+                           @JsonProperty("reference_id") String referenceId,
+                           @JsonProperty("transaction_id") String transactionId) {
+    }
+
+    private final String name;
+    private final ObjectReader webhookReader;
+    private volatile long latencyMs;
+    private volatile double failureRate;
+    private final Map<String, String> statuses = new ConcurrentHashMap<>();
+
+    public FakeFaceMatchProvider(String name, long latencyMs, double failureRate, JsonCodec jsonCodec) {
+        this.name = name;
+        this.webhookReader = jsonCodec.readerFor(Webhook.class);
+        this.latencyMs = latencyMs;
+        this.failureRate = failureRate;
+    }
+
+    public void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * Set the status later returned by {@link #fetchStatus}, as if the customer completed the flow.
+     */
+    public void setStatus(String vendorId, String status) {
+        statuses.put(vendorId, status);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getEndpoint() {
+        return "fake://" + name;
+    }
+
+    @Override
+    public ProviderResponse createRequest(String customerName, String customerIdentifier, String base64Image,
+                                          Integer overrideExpireDays, boolean notifyCustomer) {
+        if (ObjectUtils.isEmpty(customerName) || ObjectUtils.isEmpty(customerIdentifier) || ObjectUtils.isEmpty(base64Image)) {
+            throw new IllegalArgumentException("Customer name, customer identifier, and image are required");
+        }
+        simulateCall();
+
+        String vendorId = "FAKE" + UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
+        statuses.put(vendorId, "requested");
+        Map<String, Object> parsed = new HashMap<>();
+        parsed.put("id", vendorId);
+        parsed.put("status", "requested");
+        parsed.put("customer_identifier", customerIdentifier);
+        parsed.put("customer_name", customerName);
+        return new ProviderResponse(name, vendorId, "requested", null, null, parsed,
+                "{\"id\":\"" + vendorId + "\",\"status\":\"requested\"}");
+    }
+
+    @Override
+    public ProviderResponse fetchStatus(String vendorId) {
+        simulateCall();
+        String status = statuses.get(vendorId);
+        if (status == null) {
+            throw new ProviderApiException("Unknown request " + vendorId, 404, null);
+        }
+        Map<String, Object> parsed = new HashMap<>();
+        parsed.put("id", vendorId);
+        parsed.put("status", status);
+        return new ProviderResponse(name, vendorId, status, null, null, parsed,
+                "{\"id\":\"" + vendorId + "\",\"status\":\"" + status + "\"}");
+    }
+
+    @Override
+    public String buildRedirectUrl(ProviderResponse response) {
+        return "https://fake-provider.invalid/" + name + "/" + response.getVendorId();
+    }
+
+    /**
+     * Accepts {"id": "...", "status": "...", "reference_id": "...", "transaction_id": "..."}.
+     */
+    @Override
+    public WebhookEvent parseWebhook(byte[] body) {
+        Webhook webhook;
+        try {
+            webhook = webhookReader.readValue(body);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed webhook body: " + e.getMessage());
+        }
+        if (webhook == null || webhook.id() == null) {
+            return null;
+        }
+        if (webhook.status() != null) {
+            statuses.put(webhook.id(), webhook.status());
+        }
+        return new WebhookEvent(name, null, "status_changed", webhook.id(), webhook.status(),
+                webhook.referenceId(), webhook.transactionId());
+    }
+
+    private void simulateCall() {
+        if (latencyMs > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProviderApiException("Interrupted", e);
+            }
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new ProviderApiException("Simulated provider failure", 503, null);
+        }
+    }
+}
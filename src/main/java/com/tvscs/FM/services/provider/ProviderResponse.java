@@ -0,0 +1,23 @@
+package com.tvscs.FM.services.provider;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Provider-neutral view of a create or status response. {@code rawJson} is the provider's own body,
+ * which is what the face-match endpoint returns to callers; {@code parsed} may hold only the fields
+ * needed for routing and redirects.
+ */
+@Getter
+@AllArgsConstructor
+public class ProviderResponse {
+    private final String provider;
+    private final String vendorId;
+    private final String status;
+    private final String vendorReferenceId;
+    private final String vendorTransactionId;
+    private final Map<String, Object> parsed;
+    private final String rawJson;
+}
@@ -0,0 +1,315 @@
+package com.tvscs.FM.services.provider;
+
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.exception.DeadlineExceededException;
+import com.tvscs.FM.exception.ProviderApiException;
+import com.tvscs.FM.exception.ProviderUnavailableException;
+import com.tvscs.FM.utils.RequestDeadline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chooses a {@link FaceMatchProvider} per request and fails over between them.
+ *
+ * Each provider keeps an EWMA of call latency and error rate. A request goes to a provider picked at
+ * random in proportion to {@code weight / latency * (1 - errorRate)}, so configured weights set the
+ * traffic split and a provider that slows down or starts failing sheds load on its own. A circuit
+ * breaker per provider opens after {@code failure-threshold} consecutive failures (or a sustained error
+ * rate), skips the provider for {@code open-ms}, then lets a single trial call through.
+ *
+ * Only failures where the provider provably did not act on the request fail over to the next provider:
+ * connect failures, 429 and 503. Anything else may have created a KYC request already, so sending it
+ * again elsewhere would duplicate it. Read timeouts and other server errors are returned as-is but
+ * count against the provider; client errors are returned as-is and do not count.
+ *
+ * Concurrent calls per provider are capped by an {@link AdaptiveConcurrencyLimiter}; a request that
+ * cannot get a slot in time moves on to the next provider, as if the call had been throttled.
+ *
+ * A request whose deadline has passed is not sent or failed over, and a call cut short by the deadline
+ * does not count against the provider.
+ */
+@Service
+@Slf4j
+public class ProviderRouter {
+
+    public enum CircuitState { CLOSED, OPEN, HALF_OPEN }
+
+    private final class Health {
+        private final FaceMatchProvider provider;
+        private volatile double ewmaLatencyMs = -1;
+        private volatile double ewmaErrorRate;
+        private volatile CircuitState state = CircuitState.CLOSED;
+        private volatile long openedAtNanos;
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicBoolean trialInFlight = new AtomicBoolean(false);
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final AdaptiveConcurrencyLimiter limiter;
+
+        private Health(FaceMatchProvider provider) {
+            this.provider = provider;
+            this.limiter = new AdaptiveConcurrencyLimiter(config.getLimiter());
+        }
+
+        private int weight() {
+            return config.getWeights().getOrDefault(provider.getName(), 0);
+        }
+
+        private synchronized boolean tryAcquire() {
+            if (state == CircuitState.CLOSED) {
+                return true;
+            }
+            if (state == CircuitState.OPEN && openIntervalElapsed(this)) {
+                state = CircuitState.HALF_OPEN;
+            }
+            return state == CircuitState.HALF_OPEN && trialInFlight.compareAndSet(false, true);
+        }
+
+        private synchronized void onSuccess(long latencyMs) {
+            record(latencyMs, 0.0);
+            consecutiveFailures.set(0);
+            if (state != CircuitState.CLOSED) {
+                log.info("[ROUTER] Circuit closed for provider={}", provider.getName());
+            }
+            state = CircuitState.CLOSED;
+            trialInFlight.set(false);
+        }
+
+        private synchronized void onFailure(long latencyMs) {
+            record(latencyMs, 1.0);
+            failures.increment();
+            int consecutive = consecutiveFailures.incrementAndGet();
+            boolean errorRateTripped = calls.sum() >= config.getMinCalls()
+                    && ewmaErrorRate >= config.getErrorRateThreshold();
+            if (state == CircuitState.HALF_OPEN
+                    || (state == CircuitState.CLOSED && (consecutive >= config.getFailureThreshold() || errorRateTripped))) {
+                state = CircuitState.OPEN;
+                openedAtNanos = System.nanoTime();
+                log.warn("[ROUTER] Circuit opened for provider={} (consecutiveFailures={}, errorRate={})",
+                        provider.getName(), consecutive, String.format("%.2f", ewmaErrorRate));
+            }
+            trialInFlight.set(false);
+        }
+
+        /**
+         * A call that ended in a client error says nothing about provider health; just release the trial slot.
+         */
+        private void onNeutral() {
+            trialInFlight.set(false);
+        }
+
+        private void record(long latencyMs, double error) {
+            calls.increment();
+            double alpha = config.getEwmaAlpha();
+            ewmaLatencyMs = ewmaLatencyMs < 0 ? latencyMs : alpha * latencyMs + (1 - alpha) * ewmaLatencyMs;
+            ewmaErrorRate = alpha * error + (1 - alpha) * ewmaErrorRate;
+        }
+
+        private double score() {
+            double latency = ewmaLatencyMs < 0 ? config.getInitialLatencyMs() : Math.max(1.0, ewmaLatencyMs);
+            // Keep a floor so a recovering provider still gets some traffic to prove itself
+            return weight() / latency * Math.max(0.05, 1.0 - ewmaErrorRate);
+        }
+    }
+
+    private final FmProperties.Providers config;
+    private final Map<String, Health> providers = new LinkedHashMap<>();
+
+    public ProviderRouter(List<FaceMatchProvider> providerBeans, FmProperties fmProperties) {
+        this.config = fmProperties.getProviders();
+        for (FaceMatchProvider provider : providerBeans) {
+            providers.put(provider.getName(), new Health(provider));
+        }
+        log.info("[ROUTER] Providers: {}, weights: {}", providers.keySet(), config.getWeights());
+    }
+
+    /**
+     * Provider by name; a null name means the default provider (rows written before routing existed).
+     *
+     * @throws IllegalArgumentException if no such provider is registered
+     */
+    public FaceMatchProvider provider(String name) {
+        Health health = providers.get(name != null ? name : config.getDefaultProvider());
+        if (health == null) {
+            throw new IllegalArgumentException("Unknown face-match provider: " + name);
+        }
+        return health.provider;
+    }
+
+    /**
+     * Create a face-match request on the best available provider, failing over on retryable errors.
+     *
+     * @throws ProviderUnavailableException if no provider could take the request
+     */
+    public ProviderResponse createRequest(String customerName, String customerIdentifier, String base64Image,
+                                          Integer overrideExpireDays, boolean notifyCustomer) {
+        Set<String> tried = new HashSet<>();
+        Exception lastError = null;
+
+        while (true) {
+            RequestDeadline.check(RequestDeadline.STAGE_PROVIDER);
+            Health health = select(tried);
+            if (health == null) {
+                throw new ProviderUnavailableException(lastError != null
+                        ? "All face-match providers failed: " + lastError.getMessage()
+                        : "No face-match provider available", lastError);
+            }
+            tried.add(health.provider.getName());
+
+            if (!acquireSlot(health)) {
+                health.onNeutral();
+                lastError = new ProviderUnavailableException("Provider " + health.provider.getName()
+                        + " is at its concurrency limit", null);
+                log.warn("[ROUTER] Provider {} at concurrency limit {}, trying next",
+                        health.provider.getName(), health.limiter.getLimit());
+                continue;
+            }
+
+            long start = System.nanoTime();
+            try {
+                ProviderResponse response = health.provider.createRequest(customerName, customerIdentifier,
+                        base64Image, overrideExpireDays, notifyCustomer);
+                long elapsed = System.nanoTime() - start;
+                releaseSlot(health, () -> health.limiter.onSuccess(elapsed));
+                health.onSuccess(TimeUnit.NANOSECONDS.toMillis(elapsed));
+                return response;
+            } catch (RuntimeException e) {
+                if (!isRetryable(e)) {
+                    // A read cut short by the caller's deadline says nothing about the provider
+                    if (isProviderFault(e) && !RequestDeadline.expired(RequestDeadline.STAGE_PROVIDER)) {
+                        releaseSlot(health, health.limiter::onDropped);
+                        health.onFailure(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    } else {
+                        releaseSlot(health, health.limiter::onIgnore);
+                        health.onNeutral();
+                    }
+                    throw e;
+                }
+                if (RequestDeadline.expired(RequestDeadline.STAGE_PROVIDER)) {
+                    releaseSlot(health, health.limiter::onIgnore);
+                    health.onNeutral();
+                    throw new DeadlineExceededException(RequestDeadline.STAGE_PROVIDER);
+                }
+                releaseSlot(health, health.limiter::onDropped);
+                health.onFailure(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                lastError = e;
+                log.warn("[ROUTER] Provider {} failed, trying next: {}", health.provider.getName(), e.getMessage());
+            }
+        }
+    }
+
+    private boolean acquireSlot(Health health) {
+        if (!config.getLimiter().isEnabled()) {
+            return true;
+        }
+        try {
+            return health.limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProviderUnavailableException("Interrupted while waiting for a provider slot", e);
+        }
+    }
+
+    private void releaseSlot(Health health, Runnable outcome) {
+        if (config.getLimiter().isEnabled()) {
+            outcome.run();
+        }
+    }
+
+    /**
+     * Safe to send again, here or to another provider: the request never reached the provider
+     * (connect failure), or the provider refused it without acting on it (429, 503).
+     */
+    public static boolean isRetryable(Exception e) {
+        if (e instanceof ProviderApiException providerError) {
+            int status = providerError.getStatusCode();
+            return status == 429 || status == 503 || (status == 0 && providerError.isConnectFailure());
+        }
+        return false;
+    }
+
+    /**
+     * The request may or may not have been created: it was sent but no answer came back (read timeout,
+     * connection reset). Sending it again could create a second KYC request for the customer; the
+     * provider's webhook, if any, is what settles it.
+     */
+    public static boolean isOutcomeUnknown(Exception e) {
+        return e instanceof ProviderApiException providerError
+                && !(e instanceof ProviderUnavailableException)
+                && providerError.getStatusCode() == 0 && !providerError.isConnectFailure();
+    }
+
+    private static boolean isProviderFault(Exception e) {
+        return isOutcomeUnknown(e)
+                || (e instanceof ProviderApiException providerError && providerError.getStatusCode() >= 500);
+    }
+
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Health health : providers.values()) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("provider", health.provider.getName());
+            stats.put("weight", health.weight());
+            stats.put("circuit", health.state.name());
+            stats.put("ewmaLatencyMs", health.ewmaLatencyMs < 0 ? null : Math.round(health.ewmaLatencyMs));
+            stats.put("ewmaErrorRate", Math.round(health.ewmaErrorRate * 1000) / 1000.0);
+            stats.put("calls", health.calls.sum());
+            stats.put("failures", health.failures.sum());
+            stats.put("concurrencyLimit", health.limiter.getLimit());
+            stats.put("inFlight", health.limiter.getInFlight());
+            stats.put("queued", health.limiter.getQueued());
+            stats.put("queueWaitMs", Math.round(health.limiter.getQueueWaitMs() * 10) / 10.0);
+            stats.put("minRttMs", health.limiter.getMinRttMs());
+            stats.put("limiterRejections", health.limiter.getRejections());
+            result.add(stats);
+        }
+        return result;
+    }
+
+    private Health select(Set<String> excluded) {
+        List<Health> candidates = new ArrayList<>();
+        double total = 0;
+        for (Health health : providers.values()) {
+            boolean available = health.state != CircuitState.OPEN || openIntervalElapsed(health);
+            if (available && health.weight() > 0 && !excluded.contains(health.provider.getName())) {
+                candidates.add(health);
+                total += health.score();
+            }
+        }
+
+        while (!candidates.isEmpty()) {
+            double pick = ThreadLocalRandom.current().nextDouble() * total;
+            Health chosen = candidates.get(candidates.size() - 1);
+            for (Health health : candidates) {
+                pick -= health.score();
+                if (pick <= 0) {
+                    chosen = health;
+                    break;
+                }
+            }
+            if (chosen.tryAcquire()) {
+                return chosen;
+            }
+            // Half-open trial already taken by another request
+            candidates.remove(chosen);
+            total -= chosen.score();
+        }
+        return null;
+    }
+
+    private boolean openIntervalElapsed(Health health) {
+        return System.nanoTime() - health.openedAtNanos >= TimeUnit.MILLISECONDS.toNanos(config.getOpenMs());
+    }
+}
@@ -0,0 +1,16 @@
+package com.tvscs.FM.services.provider;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class WebhookEvent {
+    private final String provider;
+    private final String eventId;
+    private final String eventType;
+    private final String vendorId;
+    private final String status;
+    private final String vendorReferenceId;
+    private final String vendorTransactionId;
+}
@@ -0,0 +1,182 @@
+package com.tvscs.FM.utils;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded admission gate with priority ordering and CoDel-style shedding.
+ *
+ * Up to {@code maxConcurrent} callers are admitted at once; the rest wait in priority order (FIFO
+ * within a priority). Waiting is bounded by the queue's state rather than a fixed timeout: while the
+ * queue drains regularly, a caller may wait up to {@code intervalNanos}, but once the queue has not
+ * been empty for a whole interval (a standing queue, i.e. sustained overload) callers below the top
+ * priority only wait {@code targetNanos}. Work that would finish after the client gave up is shed
+ * early instead, and the highest priority keeps flowing.
+ */
+public class AdmissionQueue {
+
+    public enum Priority { HIGH, NORMAL, LOW }
+
+    private static final class Waiter implements Comparable<Waiter> {
+        private final Priority priority;
+        private final long sequence;
+        private final Condition admitted;
+        private boolean granted;
+
+        private Waiter(Priority priority, long sequence, Condition admitted) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.admitted = admitted;
+        }
+
+        @Override
+        public int compareTo(Waiter other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long targetNanos;
+    private final long intervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>();
+    private int active;
+    private long sequence;
+    private long lastEmptyNanos = System.nanoTime();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private volatile long lastSojournNanos;
+
+    public AdmissionQueue(int maxConcurrent, int maxQueued, long targetMs, long intervalMs) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMs);
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+    }
+
+    /**
+     * Wait for admission.
+     *
+     * @return true if admitted, in which case {@link #release()} must be called; false if shed
+     */
+    public boolean admit(Priority priority) throws InterruptedException {
+        long arrival = System.nanoTime();
+        lock.lock();
+        try {
+            if (waiters.isEmpty() && active < maxConcurrent) {
+                active++;
+                lastEmptyNanos = arrival;
+                admitted.increment();
+                lastSojournNanos = 0;
+                return true;
+            }
+            if (waiters.size() >= maxQueued) {
+                shed.increment();
+                return false;
+            }
+
+            if (waiters.isEmpty()) {
+                lastEmptyNanos = arrival;
+            }
+            Waiter waiter = new Waiter(priority, sequence++, lock.newCondition());
+            waiters.add(waiter);
+            long deadline = arrival + maxWait(priority, arrival);
+            while (!waiter.granted) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    waiters.remove(waiter);
+                    markIfEmpty();
+                    shed.increment();
+                    return false;
+                }
+                try {
+                    waiter.admitted.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    if (waiter.granted) {
+                        release();
+                    } else {
+                        waiters.remove(waiter);
+                        markIfEmpty();
+                    }
+                    throw e;
+                }
+            }
+            admitted.increment();
+            lastSojournNanos = System.nanoTime() - arrival;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hand the slot to the next waiter in priority order, or free it.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            Waiter next = waiters.poll();
+            if (next == null) {
+                active--;
+                return;
+            }
+            markIfEmpty();
+            next.granted = true;
+            next.admitted.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A standing queue (not empty for a whole interval) means overload; only the top priority keeps
+     * the long wait then.
+     */
+    private long maxWait(Priority priority, long now) {
+        boolean standing = now - lastEmptyNanos > intervalNanos;
+        return standing && priority != Priority.HIGH ? targetNanos : intervalNanos;
+    }
+
+    private void markIfEmpty() {
+        if (waiters.isEmpty()) {
+            lastEmptyNanos = System.nanoTime();
+        }
+    }
+
+    public int getActive() {
+        lock.lock();
+        try {
+            return active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getShed() {
+        return shed.sum();
+    }
+
+    public long getLastSojournMs() {
+        return TimeUnit.NANOSECONDS.toMillis(lastSojournNanos);
+    }
+}
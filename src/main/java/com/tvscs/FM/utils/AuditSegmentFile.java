@@ -0,0 +1,248 @@
+package com.tvscs.FM.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold-tier segment format for archived fm_audit rows.
+ *
+ * A segment is a pair of files:
+ * - {@code <name>.ndjson.gz}: independent gzip members, each holding one block of NDJSON rows
+ * - {@code <name>.idx.json}: created_at range, account ids and byte offsets per segment and per block
+ *
+ * The index is written last, so a segment without an index is an incomplete write and is ignored.
+ * Readers check the index first and only inflate blocks that can match the query.
+ */
+public final class AuditSegmentFile {
+
+    public static final String DATA_SUFFIX = ".ndjson.gz";
+    public static final String INDEX_SUFFIX = ".idx.json";
+
+    private AuditSegmentFile() {
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class SegmentIndex {
+        private int version = 1;
+        private long rows;
+        private long minCreatedAt = Long.MAX_VALUE;
+        private long maxCreatedAt = Long.MIN_VALUE;
+        private Set<String> accountIds = new LinkedHashSet<>();
+        private List<BlockIndex> blocks = new ArrayList<>();
+
+        boolean overlaps(long fromMillis, long toMillis, String accountId) {
+            return rows > 0 && minCreatedAt < toMillis && maxCreatedAt >= fromMillis
+                    && (accountId == null || accountIds.contains(accountId));
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class BlockIndex {
+        private long offset;
+        private int length;
+        private int rows;
+        private long minCreatedAt = Long.MAX_VALUE;
+        private long maxCreatedAt = Long.MIN_VALUE;
+        private Set<String> accountIds = new LinkedHashSet<>();
+
+        boolean overlaps(long fromMillis, long toMillis, String accountId) {
+            return minCreatedAt < toMillis && maxCreatedAt >= fromMillis
+                    && (accountId == null || accountIds.contains(accountId));
+        }
+    }
+
+    /**
+     * Appends rows to a new segment. Only one block is buffered in memory at a time.
+     * Nothing is visible to readers until {@link #commit()} succeeds.
+     */
+    public static class Writer implements Closeable {
+
+        private final ObjectMapper objectMapper;
+        private final int blockRows;
+        private final Path dataFile;
+        private final Path indexFile;
+        private final Path tmpDataFile;
+        private final OutputStream out;
+        private final SegmentIndex index = new SegmentIndex();
+
+        private final ByteArrayOutputStream blockBytes = new ByteArrayOutputStream(64 * 1024);
+        private GZIPOutputStream blockStream;
+        private BlockIndex block;
+        private long position;
+        private boolean committed;
+
+        public Writer(Path directory, String name, ObjectMapper objectMapper, int blockRows) throws IOException {
+            Files.createDirectories(directory);
+            this.objectMapper = objectMapper;
+            this.blockRows = blockRows;
+            this.dataFile = directory.resolve(name + DATA_SUFFIX);
+            this.indexFile = directory.resolve(name + INDEX_SUFFIX);
+            this.tmpDataFile = directory.resolve(name + DATA_SUFFIX + ".tmp");
+            this.out = Files.newOutputStream(tmpDataFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+
+        public void append(Map<String, Object> row, long createdAtMillis, String accountId) throws IOException {
+            if (block == null) {
+                block = new BlockIndex();
+                block.setOffset(position);
+                blockBytes.reset();
+                blockStream = new GZIPOutputStream(blockBytes, 8192);
+            }
+            blockStream.write(objectMapper.writeValueAsBytes(row));
+            blockStream.write('\n');
+
+            block.setRows(block.getRows() + 1);
+            block.setMinCreatedAt(Math.min(block.getMinCreatedAt(), createdAtMillis));
+            block.setMaxCreatedAt(Math.max(block.getMaxCreatedAt(), createdAtMillis));
+            if (accountId != null) {
+                block.getAccountIds().add(accountId);
+            }
+
+            if (block.getRows() >= blockRows) {
+                flushBlock();
+            }
+        }
+
+        public long getRows() {
+            return index.getRows() + (block != null ? block.getRows() : 0);
+        }
+
+        private void flushBlock() throws IOException {
+            if (block == null) {
+                return;
+            }
+            blockStream.finish();
+            blockBytes.writeTo(out);
+            block.setLength(blockBytes.size());
+            position += blockBytes.size();
+
+            index.setRows(index.getRows() + block.getRows());
+            index.setMinCreatedAt(Math.min(index.getMinCreatedAt(), block.getMinCreatedAt()));
+            index.setMaxCreatedAt(Math.max(index.getMaxCreatedAt(), block.getMaxCreatedAt()));
+            index.getAccountIds().addAll(block.getAccountIds());
+            index.getBlocks().add(block);
+            block = null;
+        }
+
+        /**
+         * Flush the last block, fsync the data file, then publish it together with its index.
+         */
+        public SegmentIndex commit() throws IOException {
+            flushBlock();
+            out.close();
+            try (FileChannel channel = FileChannel.open(tmpDataFile, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(tmpDataFile, dataFile, StandardCopyOption.ATOMIC_MOVE);
+
+            Path tmpIndexFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            Files.write(tmpIndexFile, objectMapper.writeValueAsBytes(index));
+            Files.move(tmpIndexFile, indexFile, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            return index;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(tmpDataFile);
+            }
+        }
+    }
+
+    /**
+     * Scan committed segments in {@code directory} for rows with created_at in [from, to)
+     * and, if given, the matching account id. Stops after {@code limit} rows.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Map<String, Object>> scan(Path directory, ObjectMapper objectMapper,
+                                                 OffsetDateTime from, OffsetDateTime to,
+                                                 String accountId, int limit) throws IOException {
+        List<Map<String, Object>> result = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return result;
+        }
+
+        long fromMillis = from.toInstant().toEpochMilli();
+        long toMillis = to.toInstant().toEpochMilli();
+
+        List<Path> indexFiles;
+        try (Stream<Path> files = Files.list(directory)) {
+            indexFiles = files.filter(p -> p.getFileName().toString().endsWith(INDEX_SUFFIX)).sorted().toList();
+        }
+
+        for (Path indexFile : indexFiles) {
+            SegmentIndex index = objectMapper.readValue(indexFile.toFile(), SegmentIndex.class);
+            if (!index.overlaps(fromMillis, toMillis, accountId)) {
+                continue;
+            }
+
+            String name = indexFile.getFileName().toString();
+            Path dataFile = indexFile.resolveSibling(name.substring(0, name.length() - INDEX_SUFFIX.length()) + DATA_SUFFIX);
+
+            try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+                for (BlockIndex block : index.getBlocks()) {
+                    if (!block.overlaps(fromMillis, toMillis, accountId)) {
+                        continue;
+                    }
+
+                    ByteBuffer compressed = ByteBuffer.allocate(block.getLength());
+                    while (compressed.hasRemaining()) {
+                        if (channel.read(compressed, block.getOffset() + compressed.position()) < 0) {
+                            throw new IOException("Truncated audit segment " + dataFile);
+                        }
+                    }
+
+                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                            new GZIPInputStream(new ByteArrayInputStream(compressed.array())), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            Map<String, Object> row = objectMapper.readValue(line, Map.class);
+                            long createdAt = OffsetDateTime.parse((String) row.get("created_at")).toInstant().toEpochMilli();
+                            if (createdAt < fromMillis || createdAt >= toMillis) {
+                                continue;
+                            }
+                            if (accountId != null && !accountId.equals(row.get("account_id"))) {
+                                continue;
+                            }
+                            result.add(row);
+                            if (result.size() >= limit) {
+                                return result;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,29 @@
+package com.tvscs.FM.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Derives the indexed correlation keys stored on fm_audit rows.
+ * Customer identifiers are stored as a SHA-256 hex digest so they can be searched without keeping the raw value.
+ */
+public final class CorrelationKeys {
+
+    private CorrelationKeys() {
+    }
+
+    public static String hashCustomerIdentifier(String customerIdentifier) {
+        if (customerIdentifier == null || customerIdentifier.isBlank()) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(customerIdentifier.trim().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.tvscs.FM.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The application's JSON codec: one configured {@link ObjectMapper} with readers and writers built once,
+ * so call sites do not create mappers or resolve serializers per call.
+ *
+ * API responses are not written here; Spring MVC's own message converter streams those to the socket.
+ */
+@Component
+public class JsonCodec {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper mapper;
+    private final ObjectWriter mapWriter;
+
+    public JsonCodec(ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.mapWriter = mapper.writerFor(MAP_TYPE);
+    }
+
+    /**
+     * The mapper behind the application's ObjectMapper bean. Unknown properties are ignored, as every
+     * body we read comes from a provider or client that may add fields; targets are left open so
+     * writing into a servlet or file stream does not close it.
+     */
+    public static ObjectMapper newObjectMapper() {
+        return JsonMapper.builder()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .build();
+    }
+
+    /**
+     * For streaming parsers that only pick a few fields out of a body.
+     */
+    public JsonFactory getFactory() {
+        return mapper.getFactory();
+    }
+
+    /**
+     * A reader bound to one type on the shared mapper, for callers that keep it for repeated reads.
+     */
+    public ObjectReader readerFor(Class<?> type) {
+        return mapper.readerFor(type);
+    }
+
+    /**
+     * Audit payloads, status events and other documents kept as text.
+     */
+    public String writeString(Map<String, ?> document) throws JsonProcessingException {
+        return mapWriter.writeValueAsString(document);
+    }
+
+    /**
+     * Outbound request bodies, encoded straight to UTF-8 without an intermediate String.
+     */
+    public byte[] writeBytes(Map<String, ?> document) throws JsonProcessingException {
+        return mapWriter.writeValueAsBytes(document);
+    }
+
+    public void write(OutputStream out, Map<String, ?> document) throws IOException {
+        mapWriter.writeValue(out, document);
+    }
+
+    /**
+     * The error body written by the servlet filters: timestamp, status, error, message and path.
+     */
+    public void writeError(HttpServletResponse response, int status, String error, String message, String path)
+            throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        errorResponse.put("status", status);
+        errorResponse.put("error", error);
+        errorResponse.put("message", message);
+        errorResponse.put("path", path);
+
+        write(response.getOutputStream(), errorResponse);
+    }
+}
@@ -0,0 +1,51 @@
+package com.tvscs.FM.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque (created_at, id) position used for keyset pagination over fm_audit.
+ * Encoded as URL-safe base64 so it can be passed back as a query parameter.
+ */
+public record KeysetCursor(OffsetDateTime createdAt, long id) {
+
+    /**
+     * Position after every row, where a newest-first scan starts.
+     */
+    public static final KeysetCursor END = new KeysetCursor(
+            OffsetDateTime.of(9999, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC), Long.MAX_VALUE);
+
+    public String encode() {
+        String raw = createdAt.toString() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new KeysetCursor(OffsetDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // Also covers malformed base64 and ids, so callers always see the same message
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * The decoded token, or {@code start} if no token was given.
+     *
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static KeysetCursor decodeOr(String token, KeysetCursor start) {
+        return token == null || token.isBlank() ? start : decode(token.trim());
+    }
+}
@@ -0,0 +1,61 @@
+package com.tvscs.FM.utils;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Global budget of bytes that in-flight requests may hold on the heap.
+ *
+ * Reservations are counted in KiB on a fair semaphore, so a large upload waiting for room is not
+ * overtaken indefinitely by smaller ones.
+ */
+public class MemoryBudget {
+
+    private static final int UNIT = 1024;
+
+    private final long totalBytes;
+    private final Semaphore permits;
+    private final LongAdder rejections = new LongAdder();
+
+    public MemoryBudget(long totalBytes) {
+        this.totalBytes = totalBytes;
+        this.permits = new Semaphore(toUnits(totalBytes), true);
+    }
+
+    /**
+     * Reserve {@code bytes}, waiting up to {@code maxWaitMs} for other requests to release theirs.
+     *
+     * @return the number of bytes reserved, to pass to {@link #release(long)}; 0 if the reservation failed
+     */
+    public long reserve(long bytes, long maxWaitMs) throws InterruptedException {
+        int units = Math.min(toUnits(bytes), toUnits(totalBytes));
+        if (!permits.tryAcquire(units, maxWaitMs, TimeUnit.MILLISECONDS)) {
+            rejections.increment();
+            return 0;
+        }
+        return (long) units * UNIT;
+    }
+
+    public void release(long reservedBytes) {
+        if (reservedBytes > 0) {
+            permits.release(toUnits(reservedBytes));
+        }
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getAvailableBytes() {
+        return (long) permits.availablePermits() * UNIT;
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    private static int toUnits(long bytes) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, (bytes + UNIT - 1) / UNIT));
+    }
+}
@@ -1,23 +1,30 @@
 package com.tvscs.FM.utils;
 
-import org.springframework.web.multipart.MultipartFile;
+import com.tvscs.FM.services.image.ImageMetadata;
+import com.tvscs.FM.services.image.ImageNormalizer;
 
 import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Utility to create a canonical JSON representation of multipart form data,
- * suitable for logging/audit purposes. Stores base64_length instead of full base64 to avoid huge CLOBs.
+ * Utility to create a canonical JSON representation of face-match request data,
+ * suitable for logging/audit purposes. Stores the image's SHA-256 and header metadata instead of its
+ * content to avoid huge CLOBs.
  */
 public class MultipartCanonicalizer {
 
     /**
-     * Build a canonical JSON structure from face-match multipart request parameters.
+     * Build a canonical JSON structure from face-match request parameters, for any /face-match variant.
      * 
      * @param customerName      Customer name from request
      * @param customerIdentifier Customer identifier from request
      * @param redirectFlag      "true" or "false" string indicating redirect_url preference
-     * @param image             MultipartFile containing the image
+     * @param source            How the image arrived: multipart, base64 or binary
+     * @param filename          Original filename, if the caller sent one
+     * @param contentType       Declared content type, if any
+     * @param size              Size of the image as received, in bytes
+     * @param metadata          Format, dimensions and fingerprint from image validation
+     * @param normalized        Bytes actually sent to the provider, after optional downscaling
      * @param base64NoPrefix    Base64-encoded image string (without prefix)
      * @return Map representing the canonical structure
      */
@@ -25,7 +32,12 @@ public class MultipartCanonicalizer {
             String customerName,
             String customerIdentifier,
             String redirectFlag,
-            MultipartFile image,
+            String source,
+            String filename,
+            String contentType,
+            long size,
+            ImageMetadata metadata,
+            ImageNormalizer.Result normalized,
             String base64NoPrefix
     ) {
         Map<String, Object> canonical = new HashMap<>();
@@ -38,20 +50,26 @@ public class MultipartCanonicalizer {
 
         // Build image metadata without storing the full base64
         Map<String, Object> imageInfo = new HashMap<>();
-        if (image != null) {
-            imageInfo.put("filename", image.getOriginalFilename());
-            imageInfo.put("contentType", image.getContentType());
-            try {
-                imageInfo.put("size", image.getSize());
-            } catch (Exception e) {
-                imageInfo.put("size", 0);
-            }
-            imageInfo.put("base64_length", base64NoPrefix != null ? base64NoPrefix.length() : 0);
-            
-            // Optional: store first 200 chars of base64 for debugging
-            if (base64NoPrefix != null && base64NoPrefix.length() > 0) {
-                int prefixLen = Math.min(200, base64NoPrefix.length());
-                imageInfo.put("base64_prefix", base64NoPrefix.substring(0, prefixLen));
+        imageInfo.put("source", source);
+        imageInfo.put("filename", filename);
+        imageInfo.put("contentType", contentType);
+        imageInfo.put("size", size);
+        imageInfo.put("base64_length", base64NoPrefix != null ? base64NoPrefix.length() : 0);
+
+        // Fingerprint identifies the exact upload (e.g. resubmissions) without keeping any of it
+        if (metadata != null) {
+            imageInfo.put("sha256", metadata.sha256());
+            imageInfo.put("format", metadata.format());
+            imageInfo.put("width", metadata.width());
+            imageInfo.put("height", metadata.height());
+        }
+        if (normalized != null) {
+            imageInfo.put("outbound_bytes", normalized.bytes().length);
+            imageInfo.put("normalized", normalized.applied());
+            if (normalized.applied()) {
+                imageInfo.put("normalized_width", normalized.width());
+                imageInfo.put("normalized_height", normalized.height());
+                imageInfo.put("normalize_ms", normalized.elapsedMs());
             }
         }
         canonical.put("image", imageInfo);
@@ -0,0 +1,105 @@
+package com.tvscs.FM.utils;
+
+import com.tvscs.FM.exception.DeadlineExceededException;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Point in time after which the client is no longer waiting for the current request.
+ *
+ * Set per request thread by DeadlineFilter and read by each stage that can wait or block (admission,
+ * authentication, provider scheduling, the provider HTTP call) so they can stop early and size their
+ * timeouts to the time left. Threads without a deadline (scheduled jobs, the outbox) are unaffected.
+ */
+public final class RequestDeadline {
+
+    public static final String STAGE_ADMISSION = "admission";
+    public static final String STAGE_AUTH = "auth";
+    public static final String STAGE_SCHEDULER = "scheduler";
+    public static final String STAGE_PROVIDER = "provider";
+    public static final String STAGE_RESPONSE = "response";
+
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+    private static final Map<String, LongAdder> EXCEEDED = new ConcurrentHashMap<>();
+
+    private final long timeoutMs;
+    private final long deadlineNanos;
+
+    public RequestDeadline(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public long remainingMs() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    public static void set(RequestDeadline deadline) {
+        CURRENT.set(deadline);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return the current thread's deadline, or null if it has none
+     */
+    public static RequestDeadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Time left on the current thread's deadline, capped at {@code limitMs}; {@code limitMs} if there is none.
+     */
+    public static long remainingMs(long limitMs) {
+        RequestDeadline deadline = CURRENT.get();
+        return deadline == null ? limitMs : Math.min(limitMs, deadline.remainingMs());
+    }
+
+    /**
+     * Whether the current thread's deadline has passed; if so, count it against {@code stage}.
+     */
+    public static boolean expired(String stage) {
+        RequestDeadline deadline = CURRENT.get();
+        if (deadline == null || !deadline.isExpired()) {
+            return false;
+        }
+        recordExceeded(stage);
+        return true;
+    }
+
+    /**
+     * @throws DeadlineExceededException if the current thread's deadline has passed
+     */
+    public static void check(String stage) {
+        if (expired(stage)) {
+            throw new DeadlineExceededException(stage);
+        }
+    }
+
+    public static void recordExceeded(String stage) {
+        EXCEEDED.computeIfAbsent(stage, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Deadline-exceeded count per stage since startup.
+     */
+    public static Map<String, Long> exceededCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        EXCEEDED.forEach((stage, count) -> counts.put(stage, count.sum()));
+        return counts;
+    }
+}
@@ -30,6 +30,16 @@ public class ResponseBuilder {
                 .build();
     }
 
+    public <T> ApiResponse<T> accepted(T data, String message, HttpServletRequest request) {
+        return ApiResponse.<T>builder()
+                .StatusCode(202)
+                .TimeStamp(OffsetDateTime.now())
+                .path(request.getRequestURI())
+                .message(message)
+                .Data(data)
+                .build();
+    }
+
     public <T> ApiResponse<T> error(Integer statusCode, String message, String errorDetail, HttpServletRequest request) {
         return ApiResponse.<T>builder()
                 .StatusCode(statusCode)
@@ -0,0 +1,63 @@
+package com.tvscs.FM.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimal token bucket. Tokens refill continuously at {@code permitsPerSecond} up to a burst of one
+ * second's worth, or {@code burst} when given.
+ */
+public class TokenBucketRateLimiter {
+
+    private final double permitsPerNano;
+    private final double maxPermits;
+    private double storedPermits;
+    private long lastRefillNanos;
+
+    public TokenBucketRateLimiter(double permitsPerSecond) {
+        this(permitsPerSecond, permitsPerSecond);
+    }
+
+    public TokenBucketRateLimiter(double permitsPerSecond, double burst) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.maxPermits = Math.max(1.0, burst);
+        this.storedPermits = maxPermits;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Block until a permit is available.
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            refill();
+            storedPermits -= 1.0;
+            // A negative balance reserves a future permit; sleep until it has been earned
+            waitNanos = storedPermits >= 0 ? 0 : (long) (-storedPermits / permitsPerNano);
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Take a permit if one is available, without waiting.
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (storedPermits < 1.0) {
+            return false;
+        }
+        storedPermits -= 1.0;
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        storedPermits = Math.min(maxPermits, storedPermits + (now - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,133 @@
+-- ============================================================================
+-- FM DATABASE MIGRATION - October 2026 changes
+-- ============================================================================
+-- Execute in SQL Developer or SQL*Plus
+-- ============================================================================
+
+-- 1. Keyset index for audit archive / export: (created_at, id)
+CREATE INDEX ix_fm_audit_created_at_id ON fm_audit (created_at, id);
+
+-- 2. Correlation keys on fm_audit
+ALTER TABLE fm_audit ADD (customer_id_hash VARCHAR2(64));
+
+-- /face-match audit rows now carry the Digio vendor id, which is written before the webhook
+-- creates the fm_transactions row, so the (NOVALIDATE) foreign key can no longer hold.
+ALTER TABLE fm_audit DROP CONSTRAINT fk_fm_audit_vendor_id;
+
+-- Keyset search indexes (key, created_at, id) replace the single-column ones
+DROP INDEX ix_fm_audit_vendor_id;
+DROP INDEX ix_fm_audit_account_id;
+CREATE INDEX ix_fm_audit_customer_id_hash ON fm_audit (customer_id_hash, created_at, id);
+CREATE INDEX ix_fm_audit_vendor_id ON fm_audit (vendor_id, created_at, id);
+CREATE INDEX ix_fm_audit_account_id ON fm_audit (account_id, created_at, id);
+
+-- 3. Async face-match: pending fm_transactions rows have no vendor id until dispatched
+ALTER TABLE fm_transactions MODIFY (vendor_id NULL);
+ALTER TABLE fm_transactions ADD (
+  account_id      VARCHAR2(100),
+  portfolio       VARCHAR2(100),
+  redirect_url    VARCHAR2(2000)
+);
+CREATE INDEX ix_fm_transactions_account_id ON fm_transactions (account_id);
+
+-- 4. Outbox of Digio submissions waiting to be dispatched
+CREATE TABLE fm_outbox (
+  id                  NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+  transaction_id      VARCHAR2(36)      NOT NULL UNIQUE,
+  customer_name       VARCHAR2(200)     NOT NULL,
+  customer_identifier VARCHAR2(200)     NOT NULL,
+  image_base64        CLOB              NOT NULL,
+  notify_customer     NUMBER(1)         NOT NULL,
+  want_redirect       NUMBER(1)         NOT NULL,
+  status              VARCHAR2(20)      NOT NULL,
+  attempts            NUMBER            DEFAULT 0 NOT NULL,
+  next_attempt_at     TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+  last_error          VARCHAR2(4000),
+  created_at          TIMESTAMP(6) WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL,
+  updated_at          TIMESTAMP(6) WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL,
+  CONSTRAINT ck_fm_outbox_status CHECK (status IN ('PENDING', 'FAILED'))
+);
+
+CREATE INDEX ix_fm_outbox_due ON fm_outbox (status, next_attempt_at);
+
+-- 5. Client callbacks: per-account callback URL, delivery queue and dead letters
+ALTER TABLE fm_accounts ADD (callback_url VARCHAR2(2000));
+
+CREATE TABLE fm_callback_deliveries (
+  id                  NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+  account_id          VARCHAR2(100)     NOT NULL,
+  callback_url        VARCHAR2(2000)    NOT NULL,
+  transaction_id      VARCHAR2(36)      NOT NULL,
+  event_payload       VARCHAR2(4000)    NOT NULL,
+  attempts            NUMBER            DEFAULT 0 NOT NULL,
+  next_attempt_at     TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+  last_error          VARCHAR2(4000),
+  created_at          TIMESTAMP(6) WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL,
+  updated_at          TIMESTAMP(6) WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL
+);
+
+CREATE INDEX ix_fm_callback_deliveries_due ON fm_callback_deliveries (next_attempt_at, id);
+
+CREATE TABLE fm_callback_dead_letters (
+  id                  NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+  delivery_id         NUMBER            NOT NULL,
+  account_id          VARCHAR2(100)     NOT NULL,
+  callback_url        VARCHAR2(2000)    NOT NULL,
+  transaction_id      VARCHAR2(36)      NOT NULL,
+  event_payload       VARCHAR2(4000)    NOT NULL,
+  attempts            NUMBER            NOT NULL,
+  last_error          VARCHAR2(4000),
+  first_attempt_at    TIMESTAMP(6) WITH TIME ZONE,
+  created_at          TIMESTAMP(6) WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL
+);
+
+CREATE INDEX ix_fm_callback_dead_letters_account ON fm_callback_dead_letters (account_id, created_at);
+
+-- 6. Reconciler scan of stale intermediate transactions
+CREATE INDEX ix_fm_transactions_status_updated ON fm_transactions (status, updated_at, id);
+
+-- 7. Provider routing: which face-match provider owns vendor_id (NULL = digio)
+ALTER TABLE fm_transactions ADD (provider VARCHAR2(30));
+
+-- 8. Portfolio scheduling: async requests keep the submitting portfolio for fair dispatch
+ALTER TABLE fm_outbox ADD (portfolio VARCHAR2(100));
+
+-- 9. Per-stage request timing on fm_audit (microseconds, NULL when the request skipped the stage)
+ALTER TABLE fm_audit ADD (
+  auth_filter_us      NUMBER,
+  jwt_verify_us       NUMBER,
+  account_lookup_us   NUMBER,
+  image_encode_us     NUMBER,
+  digio_round_trip_us NUMBER,
+  webhook_upsert_us   NUMBER,
+  db_pool_acquire_us  NUMBER
+);
+
+-- 10. Connection hold per request: total checkout time and whether a connection was held across an
+--     outbound HTTP call
+ALTER TABLE fm_audit ADD (
+  db_pool_usage_us    NUMBER,
+  db_held_across_http NUMBER(1),
+  CONSTRAINT ck_fm_audit_db_held_http CHECK (db_held_across_http IN (0,1))
+);
+
+-- 11. Outbox keeps the provider's answer so a failed DB step is retried without calling the provider
+--     again; the image is cleared once the provider has answered or the entry gives up
+ALTER TABLE fm_outbox MODIFY (image_base64 NULL);
+ALTER TABLE fm_outbox ADD (
+  vendor_id           VARCHAR2(64),
+  provider            VARCHAR2(30),
+  vendor_status       VARCHAR2(50),
+  redirect_url        VARCHAR2(2000),
+  vendor_response     CLOB,
+  call_duration_ms    NUMBER
+);
+UPDATE fm_outbox SET image_base64 = NULL WHERE status = 'FAILED';
+COMMIT;
+
+-- 12. Reconciler backoff: rows that keep coming back unchanged are looked up less and less often
+ALTER TABLE fm_transactions ADD (
+  next_reconcile_at   TIMESTAMP(6) WITH TIME ZONE,
+  reconcile_attempts  NUMBER DEFAULT 0 NOT NULL
+);
+CREATE INDEX ix_fm_transactions_reconcile ON fm_transactions (status, next_reconcile_at, id);
@@ -12,6 +12,7 @@ CREATE TABLE fm_accounts (
   updated_by         VARCHAR2(100),
   is_active          NUMBER(1)         DEFAULT 1 NOT NULL,
   transaction_id     VARCHAR2(36)      NOT NULL UNIQUE,
+  callback_url       VARCHAR2(2000),
   CONSTRAINT ck_fm_accounts_api_key CHECK (REGEXP_LIKE(api_key, '^[A-Za-z0-9]{16}$')),
   CONSTRAINT ck_fm_accounts_account_id CHECK (REGEXP_LIKE(account_id, '^[A-Za-z0-9]{9}$')),
   CONSTRAINT ck_fm_accounts_is_active CHECK (is_active IN (0,1)),
@@ -27,18 +28,92 @@ CREATE INDEX ix_fm_accounts_is_active  ON fm_accounts (is_active);
 -- ==============================
 CREATE TABLE fm_transactions (
   id                      NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
-  vendor_id               VARCHAR2(64)      NOT NULL UNIQUE,
+  vendor_id               VARCHAR2(64)      UNIQUE,
   status                  VARCHAR2(50),
   vendor_reference_id     VARCHAR2(64),
   vendor_transaction_id   VARCHAR2(64),
   transaction_id          VARCHAR2(36)      NOT NULL UNIQUE,
+  account_id              VARCHAR2(100),
+  portfolio               VARCHAR2(100),
+  redirect_url            VARCHAR2(2000),
+  provider                VARCHAR2(30),
+  next_reconcile_at       TIMESTAMP(6) WITH TIME ZONE,
+  reconcile_attempts      NUMBER            DEFAULT 0 NOT NULL,
   created_at              TIMESTAMP(6) WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL,
   updated_at              TIMESTAMP(6) WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL
 );
 
 CREATE INDEX ix_fm_transactions_vendor_id ON fm_transactions (vendor_id);
 CREATE INDEX ix_fm_transactions_created_at ON fm_transactions (created_at);
+CREATE INDEX ix_fm_transactions_status_updated ON fm_transactions (status, updated_at, id);
+CREATE INDEX ix_fm_transactions_reconcile ON fm_transactions (status, next_reconcile_at, id);
 CREATE INDEX ix_fm_transactions_status ON fm_transactions (status);
+CREATE INDEX ix_fm_transactions_account_id ON fm_transactions (account_id);
+
+-- ==============================
+-- Table: FM_OUTBOX (async face-match submissions awaiting dispatch to Digio)
+-- ==============================
+CREATE TABLE fm_outbox (
+  id                  NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+  transaction_id      VARCHAR2(36)      NOT NULL UNIQUE,
+  customer_name       VARCHAR2(200)     NOT NULL,
+  customer_identifier VARCHAR2(200)     NOT NULL,
+  portfolio           VARCHAR2(100),
+  image_base64        CLOB,
+  notify_customer     NUMBER(1)         NOT NULL,
+  want_redirect       NUMBER(1)         NOT NULL,
+  status              VARCHAR2(20)      NOT NULL,
+  attempts            NUMBER            DEFAULT 0 NOT NULL,
+  next_attempt_at     TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+  last_error          VARCHAR2(4000),
+  vendor_id           VARCHAR2(64),
+  provider            VARCHAR2(30),
+  vendor_status       VARCHAR2(50),
+  redirect_url        VARCHAR2(2000),
+  vendor_response     CLOB,
+  call_duration_ms    NUMBER,
+  created_at          TIMESTAMP(6) WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL,
+  updated_at          TIMESTAMP(6) WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL,
+  CONSTRAINT ck_fm_outbox_status CHECK (status IN ('PENDING', 'FAILED'))
+);
+
+CREATE INDEX ix_fm_outbox_due ON fm_outbox (status, next_attempt_at);
+
+-- ==============================
+-- Table: FM_CALLBACK_DELIVERIES (status events queued for client callback URLs)
+-- ==============================
+CREATE TABLE fm_callback_deliveries (
+  id                  NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+  account_id          VARCHAR2(100)     NOT NULL,
+  callback_url        VARCHAR2(2000)    NOT NULL,
+  transaction_id      VARCHAR2(36)      NOT NULL,
+  event_payload       VARCHAR2(4000)    NOT NULL,
+  attempts            NUMBER            DEFAULT 0 NOT NULL,
+  next_attempt_at     TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+  last_error          VARCHAR2(4000),
+  created_at          TIMESTAMP(6) WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL,
+  updated_at          TIMESTAMP(6) WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL
+);
+
+CREATE INDEX ix_fm_callback_deliveries_due ON fm_callback_deliveries (next_attempt_at, id);
+
+-- ==============================
+-- Table: FM_CALLBACK_DEAD_LETTERS (callback events that ran out of attempts)
+-- ==============================
+CREATE TABLE fm_callback_dead_letters (
+  id                  NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+  delivery_id         NUMBER            NOT NULL,
+  account_id          VARCHAR2(100)     NOT NULL,
+  callback_url        VARCHAR2(2000)    NOT NULL,
+  transaction_id      VARCHAR2(36)      NOT NULL,
+  event_payload       VARCHAR2(4000)    NOT NULL,
+  attempts            NUMBER            NOT NULL,
+  last_error          VARCHAR2(4000),
+  first_attempt_at    TIMESTAMP(6) WITH TIME ZONE,
+  created_at          TIMESTAMP(6) WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL
+);
+
+CREATE INDEX ix_fm_callback_dead_letters_account ON fm_callback_dead_letters (account_id, created_at);
 
 -- ==============================
 -- Table: FM_AUDIT
@@ -46,6 +121,7 @@ CREATE INDEX ix_fm_transactions_status ON fm_transactions (status);
 CREATE TABLE fm_audit (
   id                 NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
   vendor_id          VARCHAR2(64),
+  customer_id_hash   VARCHAR2(64),
   endpoint           VARCHAR2(4000)    NOT NULL,
   payload            CLOB              NOT NULL,
   response           CLOB,
@@ -55,6 +131,15 @@ CREATE TABLE fm_audit (
   user_agent         VARCHAR2(500),
   request_duration_ms NUMBER,
   is_error           NUMBER(1),
+  auth_filter_us     NUMBER,
+  jwt_verify_us      NUMBER,
+  account_lookup_us  NUMBER,
+  image_encode_us    NUMBER,
+  digio_round_trip_us NUMBER,
+  webhook_upsert_us  NUMBER,
+  db_pool_acquire_us NUMBER,
+  db_pool_usage_us   NUMBER,
+  db_held_across_http NUMBER(1),
   error_message      VARCHAR2(4000),
   account_id         VARCHAR2(100),
   portfolio          VARCHAR2(100),
@@ -63,20 +148,18 @@ CREATE TABLE fm_audit (
   created_by         VARCHAR2(100),
   updated_at         TIMESTAMP(6) WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL,
   updated_by         VARCHAR2(100),
-  CONSTRAINT ck_fm_audit_is_error CHECK (is_error IN (0,1))
+  CONSTRAINT ck_fm_audit_is_error CHECK (is_error IN (0,1)),
+  CONSTRAINT ck_fm_audit_db_held_http CHECK (db_held_across_http IN (0,1))
 );
 
-CREATE INDEX ix_fm_audit_vendor_id ON fm_audit (vendor_id);
+CREATE INDEX ix_fm_audit_vendor_id ON fm_audit (vendor_id, created_at, id);
+CREATE INDEX ix_fm_audit_customer_id_hash ON fm_audit (customer_id_hash, created_at, id);
 CREATE INDEX ix_fm_audit_created_at ON fm_audit (created_at);
-CREATE INDEX ix_fm_audit_account_id ON fm_audit (account_id);
+CREATE INDEX ix_fm_audit_created_at_id ON fm_audit (created_at, id);
+CREATE INDEX ix_fm_audit_account_id ON fm_audit (account_id, created_at, id);
 CREATE INDEX ix_fm_audit_endpoint ON fm_audit (endpoint);
 CREATE INDEX ix_fm_audit_http_status ON fm_audit (http_status);
 CREATE INDEX ix_fm_audit_is_error ON fm_audit (is_error);
 
--- Foreign Key: FM_AUDIT.VENDOR_ID -> FM_TRANSACTIONS.VENDOR_ID
--- (nullable, enforced only for non-null values via trigger)
-ALTER TABLE fm_audit
-  ADD CONSTRAINT fk_fm_audit_vendor_id
-  FOREIGN KEY (vendor_id)
-  REFERENCES fm_transactions (vendor_id)
-  ENABLE NOVALIDATE;
+-- FM_AUDIT.VENDOR_ID is a correlation key, not a foreign key: /face-match audit rows
+-- carry the Digio id before the webhook creates the FM_TRANSACTIONS row.
@@ -40,6 +40,24 @@ BEGIN
 END;
 /
 
+-- Auto-update trigger for fm_outbox.updated_at
+CREATE OR REPLACE TRIGGER trg_fm_outbox_updated_at
+BEFORE UPDATE ON fm_outbox
+FOR EACH ROW
+BEGIN
+  :NEW.updated_at := SYSTIMESTAMP;
+END;
+/
+
+-- Auto-update trigger for fm_callback_deliveries.updated_at
+CREATE OR REPLACE TRIGGER trg_fm_callback_deliveries_updated_at
+BEFORE UPDATE ON fm_callback_deliveries
+FOR EACH ROW
+BEGIN
+  :NEW.updated_at := SYSTIMESTAMP;
+END;
+/
+
 -- Trigger to enforce "no lonely transactions" - at least one audit log must exist
 -- before a transaction can be created/updated with a VENDOR_ID
 CREATE OR REPLACE TRIGGER trg_fm_transactions_mandatory_audit
@@ -3,7 +3,8 @@ package com.tvscs.FM;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {"fm.outbox.enabled=false", "fm.callbacks.enabled=false", "fm.reconciler.enabled=false",
+		"fm.connection-hold.fail-on-outbound-http=true"})
 class FaceMatchApplicationTests {
 
 	@Test
@@ -0,0 +1,179 @@
+package com.tvscs.FM.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvscs.FM.utils.AdmissionQueue.Priority;
+import com.tvscs.FM.utils.JsonCodec;
+import com.tvscs.FM.utils.RequestDeadline;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Priority ordering, shedding and the deadline check in {@link AdmissionControlFilter}.
+ */
+class AdmissionControlFilterTest {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final List<String> ran = new CopyOnWriteArrayList<>();
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	private static AdmissionControlFilter filter(int maxConcurrent, int maxQueued) {
+		FmProperties fmProperties = new FmProperties();
+		fmProperties.getAdmission().setMaxConcurrent(maxConcurrent);
+		fmProperties.getAdmission().setMaxQueued(maxQueued);
+		fmProperties.getAdmission().setIntervalMs(2000);
+		fmProperties.getAdmission().setRetryAfterSeconds(3);
+		return new AdmissionControlFilter(fmProperties, new JsonCodec(new ObjectMapper()), 200);
+	}
+
+	private static MockHttpServletRequest request(String path) {
+		return new MockHttpServletRequest("POST", path);
+	}
+
+	/** Runs a request through the filter on another thread; the chain records the path and waits on {@code gate}. */
+	private Future<MockHttpServletResponse> submit(AdmissionControlFilter filter, String path, CountDownLatch gate,
+												   long deadlineMs) {
+		return executor.submit(() -> {
+			if (deadlineMs > 0) {
+				RequestDeadline.set(new RequestDeadline(deadlineMs));
+			}
+			try {
+				MockHttpServletResponse response = new MockHttpServletResponse();
+				FilterChain chain = (req, res) -> {
+					ran.add(path);
+					try {
+						gate.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				};
+				filter.doFilter(request(path), response, chain);
+				return response;
+			} finally {
+				RequestDeadline.clear();
+			}
+		});
+	}
+
+	private static void awaitQueued(AdmissionControlFilter filter, int expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (filter.getQueue().getQueued() != expected) {
+			assertTrue(System.nanoTime() < deadline, "expected " + expected + " queued requests");
+			Thread.sleep(5);
+		}
+	}
+
+	@Test
+	void classifiesPathsByPriority() {
+		AdmissionControlFilter filter = filter(1, 1);
+
+		assertEquals(Priority.HIGH, filter.priority("/api/v1/webhook"));
+		assertEquals(Priority.HIGH, filter.priority("/api/v1/webhook/digio"));
+		assertEquals(Priority.HIGH, filter.priority("/api/v1/generate-token"));
+		assertEquals(Priority.LOW, filter.priority("/api/v1/face-match"));
+		assertEquals(Priority.NORMAL, filter.priority("/api/v1/face-match-status"));
+		assertEquals(Priority.NORMAL, filter.priority("/api/v1/transactions/tx-1"));
+	}
+
+	@Test
+	void admitsWebhooksAheadOfQueuedSubmissions() throws Exception {
+		AdmissionControlFilter filter = filter(1, 10);
+		CountDownLatch holding = new CountDownLatch(1);
+		CountDownLatch open = new CountDownLatch(0);
+		Future<MockHttpServletResponse> holder = submit(filter, "/api/v1/transactions/tx-1", holding, 0);
+		while (ran.isEmpty()) {
+			Thread.sleep(5);
+		}
+		Future<MockHttpServletResponse> submission = submit(filter, "/api/v1/face-match", open, 0);
+		awaitQueued(filter, 1);
+		Future<MockHttpServletResponse> webhook = submit(filter, "/api/v1/webhook", open, 0);
+		awaitQueued(filter, 2);
+
+		holding.countDown();
+
+		assertEquals(200, holder.get(5, TimeUnit.SECONDS).getStatus());
+		assertEquals(200, webhook.get(5, TimeUnit.SECONDS).getStatus());
+		assertEquals(200, submission.get(5, TimeUnit.SECONDS).getStatus());
+		assertEquals(List.of("/api/v1/transactions/tx-1", "/api/v1/webhook", "/api/v1/face-match"), ran);
+	}
+
+	@Test
+	void shedsWith503AndRetryAfterWhenQueueIsFull() throws Exception {
+		AdmissionControlFilter filter = filter(1, 1);
+		CountDownLatch holding = new CountDownLatch(1);
+		Future<MockHttpServletResponse> holder = submit(filter, "/api/v1/transactions/tx-1", holding, 0);
+		while (ran.isEmpty()) {
+			Thread.sleep(5);
+		}
+		Future<MockHttpServletResponse> queued = submit(filter, "/api/v1/transactions/tx-2", holding, 0);
+		awaitQueued(filter, 1);
+
+		MockHttpServletResponse shed = new MockHttpServletResponse();
+		filter.doFilter(request("/api/v1/face-match"), shed, (req, res) -> ran.add("shed request ran"));
+
+		assertEquals(503, shed.getStatus());
+		assertEquals("3", shed.getHeader("Retry-After"));
+		assertTrue(shed.getContentAsString().contains("overloaded"));
+		assertEquals(1, filter.getQueue().getShed());
+		holding.countDown();
+		assertEquals(200, holder.get(5, TimeUnit.SECONDS).getStatus());
+		assertEquals(200, queued.get(5, TimeUnit.SECONDS).getStatus());
+		assertEquals(List.of("/api/v1/transactions/tx-1", "/api/v1/transactions/tx-2"), ran);
+	}
+
+	@Test
+	void answers504WhenDeadlinePassedWhileQueued() throws Exception {
+		AdmissionControlFilter filter = filter(1, 10);
+		CountDownLatch holding = new CountDownLatch(1);
+		Future<MockHttpServletResponse> holder = submit(filter, "/api/v1/transactions/tx-1", holding, 0);
+		while (ran.isEmpty()) {
+			Thread.sleep(5);
+		}
+		Future<MockHttpServletResponse> late = submit(filter, "/api/v1/transactions/tx-2", new CountDownLatch(0), 50);
+		awaitQueued(filter, 1);
+		Thread.sleep(100);
+
+		holding.countDown();
+
+		MockHttpServletResponse response = late.get(5, TimeUnit.SECONDS);
+		assertEquals(504, response.getStatus());
+		assertEquals(200, holder.get(5, TimeUnit.SECONDS).getStatus());
+		assertEquals(List.of("/api/v1/transactions/tx-1"), ran);
+		assertEquals(0, filter.getQueue().getActive());
+	}
+
+	@Test
+	void leavesNonApiPathsAlone() throws Exception {
+		AdmissionControlFilter filter = filter(1, 1);
+		CountDownLatch holding = new CountDownLatch(1);
+		Future<MockHttpServletResponse> holder = submit(filter, "/api/v1/transactions/tx-1", holding, 0);
+		while (ran.isEmpty()) {
+			Thread.sleep(5);
+		}
+
+		MockHttpServletResponse health = new MockHttpServletResponse();
+		filter.doFilter(request("/actuator/health"), health, (req, res) -> ran.add("health"));
+
+		assertEquals(200, health.getStatus());
+		assertTrue(ran.contains("health"));
+		holding.countDown();
+		holder.get(5, TimeUnit.SECONDS);
+	}
+}
@@ -0,0 +1,110 @@
+package com.tvscs.FM.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvscs.FM.exception.GlobalExceptionHandler;
+import com.tvscs.FM.exception.PayloadTooLargeException;
+import com.tvscs.FM.utils.JsonCodec;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Size limits and budget release in {@link UploadBudgetFilter}, including bodies sent without a Content-Length.
+ */
+class UploadBudgetFilterTest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private UploadBudgetFilter filter(long maxJsonBytes) {
+		FmProperties properties = new FmProperties();
+		properties.getUploadBudget().setMaxBytes(DataSize.ofMegabytes(64));
+		properties.getUploadBudget().setMaxJsonRequestSize(DataSize.ofBytes(maxJsonBytes));
+		return new UploadBudgetFilter(properties, new JsonCodec(MAPPER));
+	}
+
+	/** A JSON /face-match request whose body arrives chunked, i.e. without a Content-Length. */
+	private static MockHttpServletRequest chunkedJson(String body) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/face-match") {
+			@Override
+			public long getContentLengthLong() {
+				return -1;
+			}
+
+			@Override
+			public int getContentLength() {
+				return -1;
+			}
+		};
+		request.setContentType("application/json");
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		return request;
+	}
+
+	private static String jsonOfSize(int bytes) {
+		String prefix = "{\"image\":\"";
+		return prefix + "A".repeat(bytes - prefix.length() - 2) + "\"}";
+	}
+
+	@Test
+	void rejectsDeclaredLengthOverLimitBeforeReading() throws Exception {
+		UploadBudgetFilter filter = filter(1024);
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/face-match");
+		request.setContentType("application/json");
+		request.setContent(jsonOfSize(2048).getBytes(StandardCharsets.UTF_8));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FilterChain chain = (req, res) -> {
+			throw new AssertionError("body must not be read");
+		};
+
+		filter.doFilter(request, response, chain);
+
+		assertEquals(413, response.getStatus());
+	}
+
+	@Test
+	void cutsOffChunkedBodyOnceItPassesTheLimit() throws Exception {
+		UploadBudgetFilter filter = filter(1024);
+		long available = filter.getBudget().getAvailableBytes();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FilterChain chain = (req, res) -> MAPPER.readValue(req.getInputStream(), Map.class);
+
+		filter.doFilter(chunkedJson(jsonOfSize(4096)), response, chain);
+
+		assertEquals(413, response.getStatus());
+		assertTrue(response.getContentAsString().contains("1024"));
+		assertEquals(available, filter.getBudget().getAvailableBytes());
+	}
+
+	@Test
+	void passesChunkedBodyWithinTheLimit() throws Exception {
+		UploadBudgetFilter filter = filter(1024);
+		long available = filter.getBudget().getAvailableBytes();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		Map<?, ?>[] parsed = new Map<?, ?>[1];
+		FilterChain chain = (req, res) -> {
+			parsed[0] = MAPPER.readValue(req.getReader(), Map.class);
+			assertTrue(filter.getBudget().getAvailableBytes() < available);
+		};
+
+		filter.doFilter(chunkedJson(jsonOfSize(1024)), response, chain);
+
+		assertEquals(200, response.getStatus());
+		assertEquals(1024 - 12, ((String) parsed[0].get("image")).length());
+		assertEquals(available, filter.getBudget().getAvailableBytes());
+	}
+
+	@Test
+	void controllersAnswerOversizedBodiesWith413() {
+		var response = new GlobalExceptionHandler().handlePayloadTooLargeException(new PayloadTooLargeException(1024));
+
+		assertEquals(413, response.getStatusCode().value());
+	}
+}
@@ -0,0 +1,124 @@
+package com.tvscs.FM.controllers;
+
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.dto.ApiResponse;
+import com.tvscs.FM.models.Transaction;
+import com.tvscs.FM.repository.TransactionRepository;
+import com.tvscs.FM.services.TransactionEventStream;
+import com.tvscs.FM.services.TransactionStatusCache;
+import com.tvscs.FM.utils.ResponseBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Conditional reads and long polling in {@link TransactionController}, over a real {@link TransactionStatusCache}.
+ */
+class TransactionControllerTest {
+
+	private TransactionRepository transactionRepository;
+	private TransactionStatusCache statusCache;
+	private TransactionController controller;
+	private MockHttpServletRequest request;
+
+	@BeforeEach
+	void setUp() {
+		transactionRepository = mock(TransactionRepository.class);
+		FmProperties fmProperties = new FmProperties();
+		statusCache = new TransactionStatusCache(transactionRepository, mock(TransactionEventStream.class), fmProperties);
+		controller = new TransactionController(statusCache, mock(TransactionEventStream.class), fmProperties,
+				new ResponseBuilder());
+		request = new MockHttpServletRequest("GET", "/api/v1/transactions/tx-1");
+		request.setAttribute("auth.accountId", "acc-1");
+		when(transactionRepository.findByTransactionId("tx-1")).thenReturn(Optional.of(transaction("requested")));
+	}
+
+	private static Transaction transaction(String status) {
+		return Transaction.builder()
+				.transactionId("tx-1")
+				.vendorId("KID_1")
+				.accountId("acc-1")
+				.status(status)
+				.build();
+	}
+
+	private static ResponseEntity<?> await(DeferredResult<ResponseEntity<?>> result, long timeoutMs)
+			throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+		while (!result.hasResult()) {
+			assertTrue(System.nanoTime() < deadline, "long poll did not complete");
+			Thread.sleep(10);
+		}
+		return (ResponseEntity<?>) result.getResult();
+	}
+
+	@Test
+	void answersNotModifiedForCurrentEtag() {
+		ResponseEntity<?> first = controller.getStatus("tx-1", null, request);
+		String etag = first.getHeaders().getETag();
+
+		ResponseEntity<?> second = controller.getStatus("tx-1", etag, request);
+
+		assertEquals(200, first.getStatusCode().value());
+		assertEquals(304, second.getStatusCode().value());
+		assertEquals(etag, second.getHeaders().getETag());
+	}
+
+	@Test
+	void hidesOtherAccountsAndMissingIds() {
+		when(transactionRepository.findByTransactionId("tx-missing")).thenReturn(Optional.empty());
+		MockHttpServletRequest otherAccount = new MockHttpServletRequest();
+		otherAccount.setAttribute("auth.accountId", "acc-2");
+
+		assertEquals(404, controller.getStatus("tx-1", null, otherAccount).getStatusCode().value());
+		assertEquals(404, controller.getStatus("tx-missing", null, request).getStatusCode().value());
+	}
+
+	@Test
+	void longPollCompletesWhenStatusChanges() throws InterruptedException {
+		String etag = controller.getStatus("tx-1", null, request).getHeaders().getETag();
+		DeferredResult<ResponseEntity<?>> result = controller.longPoll("tx-1", 30, etag, request);
+		assertFalse(result.hasResult());
+
+		statusCache.update(transaction("approved"));
+
+		ResponseEntity<?> response = await(result, 5000);
+		assertEquals(200, response.getStatusCode().value());
+		Map<?, ?> data = (Map<?, ?>) ((ApiResponse<?>) response.getBody()).getData();
+		assertEquals("approved", data.get("status"));
+		assertNotEquals(etag, response.getHeaders().getETag());
+	}
+
+	@Test
+	void longPollTimesOutWithNotModified() throws InterruptedException {
+		String etag = controller.getStatus("tx-1", null, request).getHeaders().getETag();
+		long start = System.nanoTime();
+
+		DeferredResult<ResponseEntity<?>> result = controller.longPoll("tx-1", 1, etag, request);
+		ResponseEntity<?> response = await(result, 5000);
+
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(900));
+		assertEquals(304, response.getStatusCode().value());
+	}
+
+	@Test
+	void longPollAnswersAtOnceWhenCallerIsBehind() {
+		DeferredResult<ResponseEntity<?>> result = controller.longPoll("tx-1", 30, "\"stale\"", request);
+
+		assertTrue(result.hasResult());
+		assertEquals(200, ((ResponseEntity<?>) result.getResult()).getStatusCode().value());
+	}
+}
@@ -0,0 +1,71 @@
+package com.tvscs.FM.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogRateLimitFilterTest {
+
+	private LoggerContext context;
+	private LogRateLimitFilter filter;
+	private Logger logger;
+
+	@BeforeEach
+	void setUp() {
+		context = new LoggerContext();
+		logger = context.getLogger("com.tvscs.FM.test");
+		logger.setLevel(Level.DEBUG);
+
+		filter = new LogRateLimitFilter();
+		filter.setContext(context);
+		filter.setEventsPerSecond(0.001);
+		filter.setBurst(5);
+		filter.setSampleRate(10);
+		filter.start();
+	}
+
+	private int passed(Level level, String format, int events) {
+		int passed = 0;
+		for (int i = 0; i < events; i++) {
+			if (filter.decide(null, logger, level, format, null, null) == FilterReply.NEUTRAL) {
+				passed++;
+			}
+		}
+		return passed;
+	}
+
+	@Test
+	void repeatedStatementIsCutToBurstThenSampled() {
+		long suppressedBefore = LogRateLimitFilter.getSuppressed();
+
+		// 5 from the burst, then 1 in 10 of the remaining 100
+		assertEquals(15, passed(Level.INFO, "Webhook for {}", 105));
+		assertEquals(90, LogRateLimitFilter.getSuppressed() - suppressedBefore);
+	}
+
+	@Test
+	void eachStatementHasItsOwnBudget() {
+		passed(Level.INFO, "first {}", 50);
+
+		assertEquals(5, passed(Level.INFO, "second {}", 5));
+	}
+
+	@Test
+	void errorsAndDisabledLevelsAreNotLimited() {
+		assertEquals(50, passed(Level.ERROR, "failed {}", 50));
+		// TRACE is below the logger's level; the level check, not the limiter, rejects it
+		assertEquals(50, passed(Level.TRACE, "trace {}", 50));
+	}
+
+	@Test
+	void levelChecksWithoutFormatPass() {
+		passed(Level.INFO, null, 200);
+
+		assertEquals(5, passed(Level.INFO, "after {}", 5));
+	}
+}
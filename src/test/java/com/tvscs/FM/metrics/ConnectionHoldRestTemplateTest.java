@@ -0,0 +1,97 @@
+package com.tvscs.FM.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import com.tvscs.FM.config.DigioProperties;
+import com.tvscs.FM.config.RestTemplateConfig;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The whole chain behind {@code fm.connection-hold.fail-on-outbound-http}: a Hikari pool reporting to
+ * {@link HikariMetricsTracker}, and the provider RestTemplate calling a local stub.
+ */
+class ConnectionHoldRestTemplateTest {
+
+	private boolean failBefore;
+	private HttpServer providerStub;
+	private HikariDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate transactionTemplate;
+	private RestTemplate restTemplate;
+	private String statusUrl;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		failBefore = ConnectionHoldTracker.isFailOnOutboundHttp();
+		ConnectionHoldTracker.setFailOnOutboundHttp(true);
+
+		providerStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		providerStub.createContext("/status", exchange -> {
+			byte[] body = "{\"status\":\"approved\"}".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		providerStub.start();
+		statusUrl = "http://127.0.0.1:" + providerStub.getAddress().getPort() + "/status";
+
+		FmMetrics fmMetrics = new FmMetrics();
+		HikariConfig config = new HikariConfig();
+		config.setJdbcUrl("jdbc:h2:mem:connection-hold;DB_CLOSE_DELAY=-1");
+		config.setMaximumPoolSize(2);
+		config.setMetricsTrackerFactory(new HikariMetricsTracker(fmMetrics));
+		dataSource = new HikariDataSource(config);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		restTemplate = new RestTemplateConfig().restTemplate(new DigioProperties(), fmMetrics);
+	}
+
+	@AfterEach
+	void tearDown() {
+		ConnectionHoldTracker.setFailOnOutboundHttp(failBefore);
+		providerStub.stop(0);
+		dataSource.close();
+	}
+
+	@Test
+	void providerCallInsideATransactionFails() {
+		long before = ConnectionHoldTracker.getViolations();
+
+		IllegalStateException error = assertThrows(IllegalStateException.class, () ->
+				transactionTemplate.execute(tx -> {
+					jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+					return restTemplate.getForObject(statusUrl, String.class);
+				}));
+
+		assertTrue(error.getMessage().contains("127.0.0.1"), error.getMessage());
+		assertEquals(before + 1, ConnectionHoldTracker.getViolations());
+		assertEquals(0, ConnectionHoldTracker.heldConnections(), "rolled-back transaction returned its connection");
+	}
+
+	@Test
+	void providerCallAfterTheTransactionPasses() {
+		Integer one = transactionTemplate.execute(tx -> jdbcTemplate.queryForObject("SELECT 1", Integer.class));
+
+		String body = restTemplate.getForObject(statusUrl, String.class);
+
+		assertEquals(1, one);
+		assertEquals("{\"status\":\"approved\"}", body);
+		assertEquals(0, ConnectionHoldTracker.heldConnections());
+	}
+}
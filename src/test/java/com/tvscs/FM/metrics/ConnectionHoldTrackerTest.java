@@ -0,0 +1,72 @@
+package com.tvscs.FM.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionHoldTrackerTest {
+
+	private boolean failBefore;
+
+	@BeforeEach
+	void remember() {
+		failBefore = ConnectionHoldTracker.isFailOnOutboundHttp();
+	}
+
+	@AfterEach
+	void restore() {
+		while (ConnectionHoldTracker.heldConnections() > 0) {
+			ConnectionHoldTracker.released();
+		}
+		ConnectionHoldTracker.setFailOnOutboundHttp(failBefore);
+		RequestTiming.clear();
+	}
+
+	@Test
+	void outboundCallWithoutAHeldConnectionPasses() {
+		ConnectionHoldTracker.setFailOnOutboundHttp(true);
+		ConnectionHoldTracker.acquired();
+		assertTrue(ConnectionHoldTracker.released() >= 0);
+
+		assertDoesNotThrow(() -> ConnectionHoldTracker.checkOutbound("api.digio.in"));
+	}
+
+	@Test
+	void outboundCallWhileHoldingAConnectionFailsWhenEnabled() {
+		ConnectionHoldTracker.setFailOnOutboundHttp(true);
+		long before = ConnectionHoldTracker.getViolations();
+		ConnectionHoldTracker.acquired();
+
+		assertThrows(IllegalStateException.class, () -> ConnectionHoldTracker.checkOutbound("api.digio.in"));
+		assertEquals(before + 1, ConnectionHoldTracker.getViolations());
+	}
+
+	@Test
+	void outboundCallWhileHoldingAConnectionIsFlaggedOnTheRequest() {
+		ConnectionHoldTracker.setFailOnOutboundHttp(false);
+		RequestTiming timing = new RequestTiming();
+		RequestTiming.set(timing);
+		ConnectionHoldTracker.acquired();
+		ConnectionHoldTracker.acquired();
+
+		ConnectionHoldTracker.checkOutbound("api.digio.in");
+
+		assertTrue(timing.isHeldAcrossHttp());
+		assertEquals(2, ConnectionHoldTracker.heldConnections());
+		ConnectionHoldTracker.released();
+		ConnectionHoldTracker.released();
+		assertEquals(0, ConnectionHoldTracker.heldConnections());
+		assertEquals(-1, ConnectionHoldTracker.released());
+	}
+
+	@Test
+	void freshRequestIsNotFlagged() {
+		assertFalse(new RequestTiming().isHeldAcrossHttp());
+	}
+}
@@ -0,0 +1,72 @@
+package com.tvscs.FM.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FmMetricsTest {
+
+	@Test
+	void scrapeExposesStageHistogramsAsCumulativeBuckets() {
+		FmMetrics metrics = new FmMetrics();
+		metrics.record(FmMetrics.Stage.JWT_VERIFY, TimeUnit.MICROSECONDS.toNanos(100));
+		metrics.record(FmMetrics.Stage.JWT_VERIFY, TimeUnit.MILLISECONDS.toNanos(3));
+
+		String text = metrics.scrape();
+
+		assertTrue(text.contains("# TYPE fm_stage_latency_seconds histogram\n"));
+		assertTrue(text.contains("fm_stage_latency_seconds_bucket{stage=\"jwt_verify\",le=\"6.4E-5\"} 0\n"));
+		assertTrue(text.contains("fm_stage_latency_seconds_bucket{stage=\"jwt_verify\",le=\"1.28E-4\"} 1\n"));
+		assertTrue(text.contains("fm_stage_latency_seconds_bucket{stage=\"jwt_verify\",le=\"+Inf\"} 2\n"));
+		assertTrue(text.contains("fm_stage_latency_seconds_count{stage=\"jwt_verify\"} 2\n"));
+		assertTrue(text.contains("fm_stage_latency_seconds_sum{stage=\"jwt_verify\"} 0.0031\n"));
+		assertTrue(text.endsWith("# EOF\n"));
+	}
+
+	@Test
+	void requestsAreCountedByPatternStatusAndPortfolio() {
+		FmMetrics metrics = new FmMetrics();
+		metrics.registerEndpoints(List.of("/api/v1/face-match", "/api/v1/transactions/{transactionId}"));
+
+		metrics.recordRequest("/api/v1/face-match", 200, "retail");
+		metrics.recordRequest("/api/v1/face-match", 200, "retail");
+		metrics.recordRequest("/api/v1/transactions/{transactionId}", 404, null);
+		metrics.recordRequest("/unknown/path", 418, "retail");
+
+		String text = metrics.scrape();
+
+		assertTrue(text.contains("fm_http_requests_total{endpoint=\"/api/v1/face-match\",status=\"200\",portfolio=\"retail\"} 2\n"));
+		assertTrue(text.contains("fm_http_requests_total{endpoint=\"/api/v1/transactions/{transactionId}\",status=\"404\",portfolio=\"none\"} 1\n"));
+		assertTrue(text.contains("fm_http_requests_total{endpoint=\"other\",status=\"other\",portfolio=\"retail\"} 1\n"));
+	}
+
+	@Test
+	void portfoliosBeyondTheCapShareOneSeries() {
+		FmMetrics metrics = new FmMetrics();
+		metrics.registerEndpoints(List.of("/api/v1/face-match"));
+
+		for (int i = 0; i < FmMetrics.MAX_PORTFOLIOS + 5; i++) {
+			metrics.recordRequest("/api/v1/face-match", 200, "portfolio-" + i);
+		}
+
+		String text = metrics.scrape();
+		assertTrue(text.contains("portfolio=\"portfolio-" + (FmMetrics.MAX_PORTFOLIOS - 1) + "\"} 1\n"));
+		assertTrue(text.contains("portfolio=\"other\"} 5\n"));
+	}
+
+	@Test
+	void collectorsAreWrittenAfterBuiltInFamilies() {
+		FmMetrics metrics = new FmMetrics();
+		metrics.register(writer -> {
+			writer.family("fm_test_gauge", "gauge", "Test gauge.");
+			writer.sample("fm_test_gauge", 7, "pool", "a\"b");
+		});
+
+		String text = metrics.scrape();
+		assertTrue(text.contains("fm_test_gauge{pool=\"a\\\"b\"} 7\n"));
+		assertTrue(text.indexOf("fm_test_gauge") > text.indexOf("fm_http_requests"));
+	}
+}
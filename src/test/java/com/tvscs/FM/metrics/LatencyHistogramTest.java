@@ -0,0 +1,63 @@
+package com.tvscs.FM.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+	@Test
+	void bucketBoundsCoverEveryValueWithinOneEighth() {
+		for (long micros = 0; micros < 1_000_000; micros += 7) {
+			int index = LatencyHistogram.index(micros);
+			long upper = LatencyHistogram.upperBound(index);
+			assertTrue(upper >= micros, "upper bound below value " + micros);
+			assertTrue(upper - micros <= Math.max(1, micros / 8), "bucket too wide at " + micros);
+			if (index > 0) {
+				assertTrue(LatencyHistogram.upperBound(index - 1) < micros, "value in wrong bucket " + micros);
+			}
+		}
+	}
+
+	@Test
+	void countBelowIsExactAtPowersOfTwo() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long micros = 1; micros <= 5000; micros++) {
+			histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+		}
+
+		assertEquals(5000, histogram.getCount());
+		assertEquals(63, histogram.countBelow(64));
+		assertEquals(1023, histogram.countBelow(1024));
+		assertEquals(5000, histogram.countBelow(1 << 13));
+		assertEquals(5000L * 5001 / 2, histogram.getSumMicros());
+		assertEquals(5000, histogram.getMaxMicros());
+	}
+
+	@Test
+	void percentilesStayWithinBucketError() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long micros = 1; micros <= 10_000; micros++) {
+			histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+		}
+
+		long p50 = histogram.percentileMicros(50);
+		long p99 = histogram.percentileMicros(99);
+		assertTrue(p50 >= 5000 && p50 <= 5000 * 9 / 8, "p50=" + p50);
+		assertTrue(p99 >= 9900 && p99 <= 10_000, "p99=" + p99);
+		assertEquals(10_000, histogram.percentileMicros(100));
+	}
+
+	@Test
+	void clampsHugeAndNegativeValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5);
+		histogram.record(Long.MAX_VALUE);
+
+		assertEquals(2, histogram.getCount());
+		assertEquals(1, histogram.countBelow(1));
+	}
+}
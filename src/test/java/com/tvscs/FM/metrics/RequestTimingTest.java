@@ -0,0 +1,56 @@
+package com.tvscs.FM.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestTimingTest {
+
+	@AfterEach
+	void clear() {
+		RequestTiming.clear();
+	}
+
+	@Test
+	void recordedStagesAccumulateOnTheBoundRequest() {
+		FmMetrics metrics = new FmMetrics();
+		RequestTiming timing = new RequestTiming();
+		RequestTiming.set(timing);
+
+		metrics.record(FmMetrics.Stage.DB_POOL_ACQUIRE, TimeUnit.MICROSECONDS.toNanos(40));
+		metrics.record(FmMetrics.Stage.DB_POOL_ACQUIRE, TimeUnit.MICROSECONDS.toNanos(60));
+		metrics.record(FmMetrics.Stage.JWT_VERIFY, TimeUnit.MICROSECONDS.toNanos(250));
+
+		assertEquals(100L, timing.micros(FmMetrics.Stage.DB_POOL_ACQUIRE));
+		assertEquals(250L, timing.micros(FmMetrics.Stage.JWT_VERIFY));
+		assertNull(timing.micros(FmMetrics.Stage.DIGIO_CALL));
+		assertEquals(2, metrics.histogram(FmMetrics.Stage.DB_POOL_ACQUIRE).getCount());
+	}
+
+	@Test
+	void recordingWithoutABoundRequestOnlyFeedsTheHistogram() {
+		FmMetrics metrics = new FmMetrics();
+		RequestTiming timing = new RequestTiming();
+
+		metrics.record(FmMetrics.Stage.AUDIT_INSERT, TimeUnit.MILLISECONDS.toNanos(2));
+
+		assertNull(timing.micros(FmMetrics.Stage.AUDIT_INSERT));
+		assertEquals(1, metrics.histogram(FmMetrics.Stage.AUDIT_INSERT).getCount());
+	}
+
+	@Test
+	void serverTimingListsVisitedStagesInMillisecondsThenTotal() {
+		RequestTiming timing = new RequestTiming();
+		timing.add(FmMetrics.Stage.AUTH_FILTER, TimeUnit.MICROSECONDS.toNanos(1_234));
+		timing.add(FmMetrics.Stage.DIGIO_CALL, TimeUnit.MICROSECONDS.toNanos(310_005));
+
+		String header = timing.toServerTiming();
+
+		assertTrue(header.startsWith("auth_filter;dur=1.234, digio_round_trip;dur=310.005, total;dur="), header);
+	}
+}
@@ -0,0 +1,87 @@
+package com.tvscs.FM.metrics.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Records the application events with the bundled face-match.jfc profile.
+ */
+class FlightRecorderEventsTest {
+
+	@Test
+	void eventsAreSkippedWhenNotRecording() {
+		DigioCallEvent event = new DigioCallEvent();
+		event.begin();
+		event.end();
+
+		assertFalse(event.shouldCommit());
+	}
+
+	@Test
+	void bundledProfileRecordsApplicationEvents(@TempDir Path dir) throws Exception {
+		Configuration configuration;
+		try (Reader reader = new InputStreamReader(
+				getClass().getResourceAsStream("/jfr/face-match.jfc"), StandardCharsets.UTF_8)) {
+			configuration = Configuration.create(reader);
+		}
+		assertEquals("Face Match", configuration.getLabel());
+
+		Path file = dir.resolve("test.jfr");
+		try (Recording recording = new Recording(configuration)) {
+			recording.start();
+
+			DigioCallEvent call = new DigioCallEvent();
+			call.begin();
+			call.end();
+			assertTrue(call.shouldCommit());
+			call.method = "POST";
+			call.path = "/client/kyc/v2/request/with_template";
+			call.bytesOut = 4096;
+			call.status = 200;
+			call.commit();
+
+			WebhookApplyEvent apply = new WebhookApplyEvent();
+			apply.provider = "digio";
+			apply.vendorId = "KID123";
+			apply.status = "approved";
+			apply.created = true;
+			apply.commit();
+
+			FaceMatchRequestEvent request = new FaceMatchRequestEvent();
+			request.source = "multipart";
+			request.status = 200;
+			request.commit();
+
+			recording.stop();
+			recording.dump(file);
+		}
+
+		Map<String, RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+				.filter(e -> e.getEventType().getName().startsWith("com.tvscs.fm."))
+				.collect(Collectors.toMap(e -> e.getEventType().getName(), Function.identity()));
+
+		assertEquals(List.of("com.tvscs.fm.DigioCall", "com.tvscs.fm.FaceMatchRequest", "com.tvscs.fm.WebhookApply"),
+				events.keySet().stream().sorted().toList());
+		assertEquals(4096, events.get("com.tvscs.fm.DigioCall").getLong("bytesOut"));
+		assertEquals(200, events.get("com.tvscs.fm.DigioCall").getInt("status"));
+		assertTrue(events.get("com.tvscs.fm.WebhookApply").getBoolean("created"));
+		assertEquals("multipart", events.get("com.tvscs.fm.FaceMatchRequest").getString("source"));
+	}
+}
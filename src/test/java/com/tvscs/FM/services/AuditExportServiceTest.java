@@ -0,0 +1,239 @@
+package com.tvscs.FM.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.utils.KeysetCursor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link AuditExportService} against fm_audit in H2: keyset paging, resume tokens, the per-request
+ * caps, the trailer record and CSV escaping.
+ */
+class AuditExportServiceTest {
+
+	private static final OffsetDateTime FROM = OffsetDateTime.of(2026, 10, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+	private static final OffsetDateTime TO = FROM.plusDays(1);
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private DriverManagerDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+	private FmProperties fmProperties;
+
+	@BeforeEach
+	void setUp() {
+		dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:audit_export;MODE=Oracle;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE fm_audit (id BIGINT PRIMARY KEY, transaction_id VARCHAR(64), "
+				+ "vendor_id VARCHAR(64), customer_id_hash VARCHAR(64), endpoint VARCHAR(255), "
+				+ "http_method VARCHAR(10), http_status INT, account_id VARCHAR(64), portfolio VARCHAR(64), "
+				+ "client_ip VARCHAR(64), user_agent VARCHAR(512), request_duration_ms BIGINT, is_error INT, "
+				+ "auth_filter_us BIGINT, jwt_verify_us BIGINT, account_lookup_us BIGINT, image_encode_us BIGINT, "
+				+ "digio_round_trip_us BIGINT, webhook_upsert_us BIGINT, db_pool_acquire_us BIGINT, "
+				+ "db_pool_usage_us BIGINT, db_held_across_http INT, error_message VARCHAR(1000), "
+				+ "payload CLOB, response CLOB, created_at TIMESTAMP WITH TIME ZONE, created_by VARCHAR(64))");
+
+		fmProperties = new FmProperties();
+		fmProperties.getAuditExport().setPageSize(3);
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.execute("DROP ALL OBJECTS");
+	}
+
+	private void insert(long id, OffsetDateTime createdAt, String accountId, String errorMessage) {
+		jdbcTemplate.update("INSERT INTO fm_audit (id, endpoint, http_status, account_id, is_error, error_message, "
+						+ "created_at) VALUES (?, '/api/v1/face-match', 200, ?, ?, ?, ?)",
+				id, accountId, errorMessage != null ? 1 : 0, errorMessage, createdAt);
+	}
+
+	/** Rows 1..8; 2/3 and 5/6 share a timestamp, so paging has to break ties on id. */
+	private void insertRange() {
+		insert(4, FROM.plusMinutes(1), "acc-1", null);
+		insert(3, FROM.plusMinutes(2), "acc-1", null);
+		insert(2, FROM.plusMinutes(2), "acc-2", null);
+		insert(1, FROM.plusMinutes(3), "acc-1", null);
+		insert(6, FROM.plusMinutes(4), "acc-1", null);
+		insert(5, FROM.plusMinutes(4), "acc-1", null);
+		insert(7, FROM.plusMinutes(5), "acc-1", null);
+		insert(8, FROM.plusMinutes(6), "acc-2", null);
+		insert(9, TO, "acc-1", null);
+	}
+
+	private AuditExportService.Criteria.CriteriaBuilder range() {
+		return AuditExportService.Criteria.builder().from(FROM).to(TO);
+	}
+
+	private List<JsonNode> exportNdjson(AuditExportService service, AuditExportService.Criteria criteria)
+			throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		service.export(criteria, AuditExportService.FORMAT_NDJSON, out);
+		return readLines(out);
+	}
+
+	private List<JsonNode> readLines(ByteArrayOutputStream out) throws IOException {
+		List<JsonNode> lines = new ArrayList<>();
+		for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+			if (!line.isEmpty()) {
+				lines.add(objectMapper.readTree(line));
+			}
+		}
+		return lines;
+	}
+
+	private static List<Long> ids(List<JsonNode> lines) {
+		return lines.stream().filter(line -> line.has("id")).map(line -> line.get("id").asLong()).toList();
+	}
+
+	@Test
+	void pagesThroughRangeInCreatedAtIdOrder() throws IOException {
+		insertRange();
+		AuditExportService service = new AuditExportService(dataSource, fmProperties, objectMapper);
+
+		List<JsonNode> lines = exportNdjson(service, range().build());
+
+		assertEquals(List.of(4L, 2L, 3L, 1L, 5L, 6L, 7L, 8L), ids(lines));
+		JsonNode trailer = lines.get(lines.size() - 1);
+		assertTrue(trailer.get("complete").asBoolean());
+		assertEquals(8, trailer.get("rows").asLong());
+		assertTrue(trailer.get("resume_token").isNull());
+	}
+
+	@Test
+	void appliesFilters() throws IOException {
+		insertRange();
+		AuditExportService service = new AuditExportService(dataSource, fmProperties, objectMapper);
+
+		List<JsonNode> lines = exportNdjson(service, range().accountId("acc-2").build());
+
+		assertEquals(List.of(2L, 8L), ids(lines));
+	}
+
+	@Test
+	void rowCapEndsWithIncompleteTrailerAndResumes() throws IOException {
+		insertRange();
+		fmProperties.getAuditExport().setMaxRows(5);
+		AuditExportService service = new AuditExportService(dataSource, fmProperties, objectMapper);
+
+		List<JsonNode> first = exportNdjson(service, range().build());
+		JsonNode firstTrailer = first.get(first.size() - 1);
+		assertEquals(List.of(4L, 2L, 3L, 1L, 5L), ids(first));
+		assertFalse(firstTrailer.get("complete").asBoolean());
+		assertEquals(first.get(4).get("resume_token").asText(), firstTrailer.get("resume_token").asText());
+
+		List<JsonNode> second = exportNdjson(service,
+				range().resumeToken(firstTrailer.get("resume_token").asText()).build());
+		assertEquals(List.of(6L, 7L, 8L), ids(second));
+		assertTrue(second.get(second.size() - 1).get("complete").asBoolean());
+	}
+
+	@Test
+	void resumeTokenRoundTripsRowPosition() throws IOException {
+		insertRange();
+		AuditExportService service = new AuditExportService(dataSource, fmProperties, objectMapper);
+
+		List<JsonNode> lines = exportNdjson(service, range().build());
+		KeysetCursor cursor = KeysetCursor.decode(lines.get(2).get("resume_token").asText());
+
+		assertEquals(3L, cursor.id());
+		assertTrue(FROM.plusMinutes(2).isEqual(cursor.createdAt()));
+		assertEquals(List.of(1L, 5L, 6L, 7L, 8L),
+				ids(exportNdjson(service, range().resumeToken(cursor.encode()).build())));
+		assertThrows(IllegalArgumentException.class, () -> service.validate(
+				range().resumeToken("not-a-cursor").build(), AuditExportService.FORMAT_NDJSON));
+	}
+
+	@Test
+	void durationCapStopsAtPageBoundary() throws IOException {
+		insertRange();
+		fmProperties.getAuditExport().setMaxDurationMs(1);
+		DelegatingDataSource slow = new DelegatingDataSource(dataSource) {
+			@Override
+			public Connection getConnection() throws SQLException {
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return super.getConnection();
+			}
+		};
+		AuditExportService service = new AuditExportService(slow, fmProperties, objectMapper);
+
+		List<JsonNode> lines = exportNdjson(service, range().build());
+
+		assertEquals(List.of(4L, 2L, 3L), ids(lines));
+		assertFalse(lines.get(lines.size() - 1).get("complete").asBoolean());
+	}
+
+	@Test
+	void databaseErrorMidExportEndsWithIncompleteTrailer() throws IOException {
+		insertRange();
+		AtomicInteger connections = new AtomicInteger();
+		DelegatingDataSource failing = new DelegatingDataSource(dataSource) {
+			@Override
+			public Connection getConnection() throws SQLException {
+				if (connections.incrementAndGet() > 1) {
+					throw new SQLException("connection refused");
+				}
+				return super.getConnection();
+			}
+		};
+		AuditExportService service = new AuditExportService(failing, fmProperties, objectMapper);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		assertThrows(DataAccessException.class,
+				() -> service.export(range().build(), AuditExportService.FORMAT_NDJSON, out));
+
+		List<JsonNode> lines = readLines(out);
+		JsonNode trailer = lines.get(lines.size() - 1);
+		assertEquals(List.of(4L, 2L, 3L), ids(lines));
+		assertFalse(trailer.get("complete").asBoolean());
+		assertEquals(lines.get(2).get("resume_token").asText(), trailer.get("resume_token").asText());
+	}
+
+	@Test
+	void csvEscapesAndNeutralisesFormulaCells() throws IOException {
+		insert(1, FROM.plusMinutes(1), "acc-1", "=HYPERLINK(\"http://x\",\"y\")");
+		insert(2, FROM.plusMinutes(2), "@SUM(A1)", "line one\nline, two");
+		insert(3, FROM.plusMinutes(3), "-2+3", null);
+		AuditExportService service = new AuditExportService(dataSource, fmProperties, objectMapper);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		long rows = service.export(range().build(), AuditExportService.FORMAT_CSV, out);
+
+		String csv = out.toString(StandardCharsets.UTF_8);
+		assertEquals(3, rows);
+		assertTrue(csv.startsWith("id,transaction_id,"));
+		assertTrue(csv.contains(",\"'=HYPERLINK(\"\"http://x\"\",\"\"y\"\")\","));
+		assertTrue(csv.contains(",'@SUM(A1),"));
+		assertTrue(csv.contains(",\"line one\nline, two\","));
+		assertTrue(csv.contains(",'-2+3,"));
+		assertTrue(csv.contains(",200,"));
+		assertTrue(csv.endsWith("#complete=true,rows=3,resume_token=\r\n"));
+	}
+}
@@ -0,0 +1,110 @@
+package com.tvscs.FM.services;
+
+import com.tvscs.FM.dto.AuditSummary;
+import com.tvscs.FM.repository.AuditRepository;
+import com.tvscs.FM.utils.CorrelationKeys;
+import com.tvscs.FM.utils.KeysetCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Key validation and newest-first keyset paging in {@link AuditSearchService}.
+ */
+class AuditSearchServiceTest {
+
+	private static final OffsetDateTime BASE = OffsetDateTime.of(2026, 10, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+	private AuditRepository auditRepository;
+	private AuditSearchService service;
+	private final List<AuditSummary> rows = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		auditRepository = mock(AuditRepository.class);
+		service = new AuditSearchService(auditRepository);
+
+		// Seven rows for acc-1, two pairs sharing a timestamp
+		long[] minutes = {1, 2, 2, 3, 4, 4, 5};
+		for (int i = 0; i < minutes.length; i++) {
+			rows.add(summary(i + 1L, BASE.plusMinutes(minutes[i])));
+		}
+		// Same query semantics as AuditRepository.BEFORE_CURSOR
+		when(auditRepository.searchByAccountId(eq("acc-1"), any(), anyLong(), any())).thenAnswer(invocation -> {
+			OffsetDateTime beforeCreatedAt = invocation.getArgument(1);
+			long beforeId = invocation.getArgument(2);
+			PageRequest page = invocation.getArgument(3);
+			return rows.stream()
+					.filter(row -> row.getCreatedAt().isBefore(beforeCreatedAt)
+							|| (row.getCreatedAt().isEqual(beforeCreatedAt) && row.getId() < beforeId))
+					.sorted(Comparator.comparing(AuditSummary::getCreatedAt).thenComparing(AuditSummary::getId).reversed())
+					.limit(page.getPageSize())
+					.toList();
+		});
+	}
+
+	private static AuditSummary summary(long id, OffsetDateTime createdAt) {
+		return new AuditSummary(id, "tx-" + id, "KID_" + id, null, "/api/v1/face-match", "POST", 200, "acc-1",
+				null, 10L, 0, createdAt);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Long> ids(Map<String, Object> page) {
+		return ((List<AuditSummary>) page.get("items")).stream().map(AuditSummary::getId).toList();
+	}
+
+	@Test
+	void pagesNewestFirstUntilTheLastPage() {
+		Map<String, Object> first = service.search(null, null, "acc-1", null, 3);
+		Map<String, Object> second = service.search(null, null, "acc-1", (String) first.get("nextCursor"), 3);
+		Map<String, Object> third = service.search(null, null, "acc-1", (String) second.get("nextCursor"), 3);
+
+		assertEquals(List.of(7L, 6L, 5L), ids(first));
+		assertEquals(List.of(4L, 3L, 2L), ids(second));
+		assertEquals(List.of(1L), ids(third));
+		assertNull(third.get("nextCursor"));
+		assertEquals(new KeysetCursor(BASE.plusMinutes(2), 2L), KeysetCursor.decode((String) second.get("nextCursor")));
+	}
+
+	@Test
+	void firstPageStartsAfterEveryRow() {
+		service.search(null, null, " acc-1 ", "", 3);
+
+		verify(auditRepository).searchByAccountId("acc-1", KeysetCursor.END.createdAt(), KeysetCursor.END.id(),
+				PageRequest.of(0, 3));
+	}
+
+	@Test
+	void searchesCustomerByHashOnly() {
+		service.search("9999999999", null, null, null, 10);
+
+		verify(auditRepository).searchByCustomerIdHash(eq(CorrelationKeys.hashCustomerIdentifier("9999999999")),
+				any(), anyLong(), any());
+	}
+
+	@Test
+	void requiresExactlyOneKeyAndAValidCursor() {
+		assertThrows(IllegalArgumentException.class, () -> service.search(null, null, null, null, 10));
+		assertThrows(IllegalArgumentException.class, () -> service.search("9999999999", "KID_1", null, null, 10));
+		assertThrows(IllegalArgumentException.class, () -> service.search(null, null, "acc-1", "garbage", 10));
+		verifyNoInteractions(auditRepository);
+	}
+}
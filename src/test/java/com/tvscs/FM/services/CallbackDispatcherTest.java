@@ -0,0 +1,264 @@
+package com.tvscs.FM.services;
+
+import com.sun.net.httpserver.HttpServer;
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.models.CallbackDeadLetter;
+import com.tvscs.FM.models.CallbackDelivery;
+import com.tvscs.FM.repository.CallbackDeadLetterRepository;
+import com.tvscs.FM.repository.CallbackDeliveryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs {@link CallbackDispatcher} against a local callback endpoint, with fm_callback_deliveries and
+ * fm_callback_dead_letters in H2 behind the repository methods the dispatcher uses.
+ */
+class CallbackDispatcherTest {
+
+	private HttpServer callbackStub;
+	private String baseUrl;
+	/** Batch sizes received, per path. */
+	private final Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+	private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+	private final Map<String, AtomicInteger> maxInFlight = new ConcurrentHashMap<>();
+
+	private JdbcTemplate jdbcTemplate;
+	private FmProperties fmProperties;
+	private CallbackDeliveryRepository deliveryRepository;
+	private CallbackDeadLetterRepository deadLetterRepository;
+	private CallbackDispatcher dispatcher;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		callbackStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		callbackStub.setExecutor(Executors.newFixedThreadPool(8));
+		callbackStub.createContext("/", exchange -> {
+			String path = exchange.getRequestURI().getPath();
+			AtomicInteger current = inFlight.computeIfAbsent(path, k -> new AtomicInteger());
+			maxInFlight.computeIfAbsent(path, k -> new AtomicInteger()).accumulateAndGet(current.incrementAndGet(), Math::max);
+			try {
+				String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+				int events = Integer.parseInt(exchange.getRequestHeaders().getFirst(CallbackSender.BATCH_HEADER));
+				assertEquals(events, body.split("\"transaction_id\"", -1).length - 1);
+				received.computeIfAbsent(path, k -> new CopyOnWriteArrayList<>()).add(events);
+				if (path.startsWith("/slow")) {
+					Thread.sleep(200);
+				}
+				exchange.sendResponseHeaders(path.startsWith("/fail") ? 500 : 204, -1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				current.decrementAndGet();
+				exchange.close();
+			}
+		});
+		callbackStub.start();
+		baseUrl = "http://127.0.0.1:" + callbackStub.getAddress().getPort();
+
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:callbacks;MODE=Oracle;DB_CLOSE_DELAY=-1");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE fm_callback_deliveries (id BIGINT PRIMARY KEY, account_id VARCHAR(100), "
+				+ "callback_url VARCHAR(2000), transaction_id VARCHAR(36), event_payload VARCHAR(4000), "
+				+ "attempts INT NOT NULL, next_attempt_at TIMESTAMP WITH TIME ZONE, last_error VARCHAR(4000), "
+				+ "created_at TIMESTAMP WITH TIME ZONE)");
+		jdbcTemplate.execute("CREATE TABLE fm_callback_dead_letters (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+				+ "delivery_id BIGINT, account_id VARCHAR(100), callback_url VARCHAR(2000), transaction_id VARCHAR(36), "
+				+ "event_payload VARCHAR(4000), attempts INT, last_error VARCHAR(4000), "
+				+ "first_attempt_at TIMESTAMP WITH TIME ZONE)");
+		deliveryRepository = mock(CallbackDeliveryRepository.class);
+		deadLetterRepository = mock(CallbackDeadLetterRepository.class);
+		backRepositoriesWithH2();
+
+		fmProperties = new FmProperties();
+		fmProperties.getCallbacks().setWorkers(4);
+		fmProperties.getCallbacks().setInitialBackoffMs(1000);
+	}
+
+	private void backRepositoriesWithH2() {
+		when(deliveryRepository.findDue(any(), any())).thenAnswer(invocation -> {
+			Pageable page = invocation.getArgument(1);
+			return jdbcTemplate.query("SELECT * FROM fm_callback_deliveries WHERE next_attempt_at <= ? "
+							+ "ORDER BY next_attempt_at, id FETCH FIRST " + page.getPageSize() + " ROWS ONLY",
+					(rs, i) -> CallbackDelivery.builder()
+							.id(rs.getLong("id"))
+							.accountId(rs.getString("account_id"))
+							.callbackUrl(rs.getString("callback_url"))
+							.transactionId(rs.getString("transaction_id"))
+							.eventPayload(rs.getString("event_payload"))
+							.attempts(rs.getInt("attempts"))
+							.nextAttemptAt(rs.getObject("next_attempt_at", OffsetDateTime.class))
+							.createdAt(rs.getObject("created_at", OffsetDateTime.class))
+							.build(),
+					(OffsetDateTime) invocation.getArgument(0));
+		});
+		when(deliveryRepository.claim(anyLong(), any(), any())).thenAnswer(invocation -> jdbcTemplate.update(
+				"UPDATE fm_callback_deliveries SET next_attempt_at = ?, attempts = attempts + 1 "
+						+ "WHERE id = ? AND next_attempt_at <= ?",
+				invocation.getArgument(2), invocation.getArgument(0), invocation.getArgument(1)));
+		when(deliveryRepository.save(any())).thenAnswer(invocation -> {
+			CallbackDelivery delivery = invocation.getArgument(0);
+			jdbcTemplate.update("UPDATE fm_callback_deliveries SET attempts = ?, next_attempt_at = ?, last_error = ? "
+					+ "WHERE id = ?", delivery.getAttempts(), delivery.getNextAttemptAt(), delivery.getLastError(),
+					delivery.getId());
+			return delivery;
+		});
+		doAnswer(invocation -> {
+			List<Long> ids = invocation.getArgument(0);
+			ids.forEach(id -> jdbcTemplate.update("DELETE FROM fm_callback_deliveries WHERE id = ?", id));
+			return null;
+		}).when(deliveryRepository).deleteAllByIdInBatch(anyList());
+		doAnswer(invocation -> jdbcTemplate.update("DELETE FROM fm_callback_deliveries WHERE id = ?",
+				(Long) invocation.getArgument(0))).when(deliveryRepository).deleteById(anyLong());
+		when(deadLetterRepository.save(any())).thenAnswer(invocation -> {
+			CallbackDeadLetter deadLetter = invocation.getArgument(0);
+			jdbcTemplate.update("INSERT INTO fm_callback_dead_letters (delivery_id, account_id, callback_url, "
+							+ "transaction_id, event_payload, attempts, last_error, first_attempt_at) "
+							+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+					deadLetter.getDeliveryId(), deadLetter.getAccountId(), deadLetter.getCallbackUrl(),
+					deadLetter.getTransactionId(), deadLetter.getEventPayload(), deadLetter.getAttempts(),
+					deadLetter.getLastError(), deadLetter.getFirstAttemptAt());
+			return deadLetter;
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (dispatcher != null) {
+			dispatcher.shutdown();
+		}
+		callbackStub.stop(0);
+		jdbcTemplate.execute("DROP TABLE fm_callback_deliveries");
+		jdbcTemplate.execute("DROP TABLE fm_callback_dead_letters");
+	}
+
+	private CallbackDispatcher dispatcher() {
+		dispatcher = new CallbackDispatcher(deliveryRepository, deadLetterRepository, new CallbackSender(fmProperties),
+				new TransactionTemplate(mock(PlatformTransactionManager.class)), fmProperties);
+		return dispatcher;
+	}
+
+	private void queue(long id, String path, int attempts) {
+		OffsetDateTime due = OffsetDateTime.now().minusSeconds(10);
+		jdbcTemplate.update("INSERT INTO fm_callback_deliveries (id, account_id, callback_url, transaction_id, "
+						+ "event_payload, attempts, next_attempt_at, created_at) VALUES (?, 'acc-1', ?, ?, ?, ?, ?, ?)",
+				id, baseUrl + path, "tx-" + id, "{\"transaction_id\":\"tx-" + id + "\"}", attempts, due.plusNanos(id),
+				due);
+	}
+
+	private int pending() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fm_callback_deliveries", Integer.class);
+	}
+
+	private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, message);
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	void groupsDueRowsByDestinationInBatches() throws Exception {
+		fmProperties.getCallbacks().setBatchSize(3);
+		for (long id = 1; id <= 5; id++) {
+			queue(id, "/a", 0);
+		}
+		queue(6, "/b", 0);
+		queue(7, "/b", 0);
+
+		dispatcher().poll();
+		await(() -> pending() == 0, "every row is delivered and deleted");
+
+		assertEquals(List.of(2, 3), received.get("/a").stream().sorted().toList());
+		assertEquals(List.of(2), received.get("/b"));
+	}
+
+	@Test
+	void limitsConcurrentBatchesPerDestination() throws Exception {
+		fmProperties.getCallbacks().setBatchSize(1);
+		fmProperties.getCallbacks().setMaxConcurrencyPerDestination(1);
+		for (long id = 1; id <= 3; id++) {
+			queue(id, "/slow", 0);
+		}
+		queue(4, "/fast", 0);
+		CallbackDispatcher callbacks = dispatcher();
+
+		callbacks.poll();
+		await(() -> received.containsKey("/fast"), "other destinations are not held up by the slow one");
+		assertEquals(2, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM fm_callback_deliveries WHERE attempts = 0", Integer.class));
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (pending() > 0 && System.nanoTime() < deadline) {
+			callbacks.poll();
+			Thread.sleep(20);
+		}
+
+		assertEquals(0, pending());
+		assertEquals(3, received.get("/slow").size());
+		assertEquals(1, maxInFlight.get("/slow").get());
+	}
+
+	@Test
+	void backsOffExponentiallyAndDeadLettersTheLastAttempt() throws Exception {
+		fmProperties.getCallbacks().setMaxAttempts(3);
+		queue(1, "/fail", 0);
+		queue(2, "/fail", 1);
+		queue(3, "/fail", 2);
+		OffsetDateTime before = OffsetDateTime.now();
+
+		dispatcher().poll();
+		await(() -> pending() == 2 && jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM fm_callback_deliveries WHERE last_error IS NOT NULL", Integer.class) == 2,
+				"failed batch is recorded");
+
+		assertBackedOff(1, before, Duration.ofSeconds(1), 1);
+		assertBackedOff(2, before, Duration.ofSeconds(2), 2);
+		Map<String, Object> deadLetter = jdbcTemplate.queryForMap("SELECT * FROM fm_callback_dead_letters");
+		assertEquals(3L, ((Number) deadLetter.get("DELIVERY_ID")).longValue());
+		assertEquals(3, ((Number) deadLetter.get("ATTEMPTS")).intValue());
+		assertEquals("HTTP 500", deadLetter.get("LAST_ERROR"));
+		assertEquals("{\"transaction_id\":\"tx-3\"}", deadLetter.get("EVENT_PAYLOAD"));
+	}
+
+	private void assertBackedOff(long id, OffsetDateTime before, Duration backoff, int attempts) {
+		Map<String, Object> row = jdbcTemplate.queryForMap(
+				"SELECT attempts, next_attempt_at, last_error FROM fm_callback_deliveries WHERE id = ?", id);
+		OffsetDateTime next = jdbcTemplate.queryForObject(
+				"SELECT next_attempt_at FROM fm_callback_deliveries WHERE id = ?", OffsetDateTime.class, id);
+		assertEquals(attempts, ((Number) row.get("ATTEMPTS")).intValue());
+		assertEquals("HTTP 500", row.get("LAST_ERROR"));
+		assertTrue(!next.isBefore(before.plus(backoff)) && next.isBefore(before.plus(backoff).plusSeconds(1)),
+				"row " + id + " retries after " + backoff + ", got " + next);
+	}
+}
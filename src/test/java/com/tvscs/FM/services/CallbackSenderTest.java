@@ -0,0 +1,92 @@
+package com.tvscs.FM.services;
+
+import com.sun.net.httpserver.HttpServer;
+import com.tvscs.FM.config.FmProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link CallbackSender} against a local stand-in receiver.
+ */
+class CallbackSenderTest {
+
+	private HttpServer receiver;
+	private final List<String> bodies = new CopyOnWriteArrayList<>();
+	private final List<String> batchSizes = new CopyOnWriteArrayList<>();
+	private final AtomicInteger responseStatus = new AtomicInteger(200);
+	private final AtomicInteger delayMs = new AtomicInteger(0);
+
+	private CallbackSender sender;
+
+	@BeforeEach
+	void startReceiver() throws IOException {
+		receiver = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		receiver.createContext("/callbacks", exchange -> {
+			bodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+			batchSizes.add(exchange.getRequestHeaders().getFirst(CallbackSender.BATCH_HEADER));
+			try {
+				Thread.sleep(delayMs.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.sendResponseHeaders(responseStatus.get(), -1);
+			exchange.close();
+		});
+		receiver.start();
+
+		FmProperties properties = new FmProperties();
+		properties.getCallbacks().setReadTimeoutMs(500);
+		sender = new CallbackSender(properties);
+	}
+
+	@AfterEach
+	void stopReceiver() {
+		receiver.stop(0);
+	}
+
+	private String url() {
+		return "http://127.0.0.1:" + receiver.getAddress().getPort() + "/callbacks";
+	}
+
+	@Test
+	void deliversBatchAsSingleJsonPost() {
+		CallbackSender.Result result = sender.send(url(), List.of("{\"status\":\"approved\"}", "{\"status\":\"rejected\"}"));
+
+		assertTrue(result.delivered());
+		assertEquals(200, result.httpStatus());
+		assertEquals(List.of("{\"events\":[{\"status\":\"approved\"},{\"status\":\"rejected\"}]}"), bodies);
+		assertEquals(List.of("2"), batchSizes);
+	}
+
+	@Test
+	void reportsServerErrorAsFailure() {
+		responseStatus.set(503);
+
+		CallbackSender.Result result = sender.send(url(), List.of("{}"));
+
+		assertFalse(result.delivered());
+		assertEquals(503, result.httpStatus());
+	}
+
+	@Test
+	void reportsReadTimeoutAsFailure() {
+		delayMs.set(1500);
+
+		CallbackSender.Result result = sender.send(url(), List.of("{}"));
+
+		assertFalse(result.delivered());
+		assertEquals(0, result.httpStatus());
+	}
+}
@@ -0,0 +1,102 @@
+package com.tvscs.FM.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.tvscs.FM.config.DeadlineAwareRequestFactory;
+import com.tvscs.FM.config.DigioProperties;
+import com.tvscs.FM.exception.DeadlineExceededException;
+import com.tvscs.FM.exception.DigioApiException;
+import com.tvscs.FM.utils.JsonCodec;
+import com.tvscs.FM.utils.RequestDeadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Request deadlines applied to {@link DigioService} calls against a slow local Digio stub.
+ */
+class DigioServiceDeadlineTest {
+
+	private HttpServer digioStub;
+	private final AtomicInteger calls = new AtomicInteger();
+	private DigioService digioService;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		digioStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		digioStub.setExecutor(Executors.newFixedThreadPool(2));
+		digioStub.createContext("/client/kyc/v2/request/with_template", exchange -> {
+			calls.incrementAndGet();
+			try {
+				Thread.sleep(1000);
+				byte[] body = "{\"id\":\"KID1\",\"status\":\"requested\"}".getBytes(StandardCharsets.UTF_8);
+				exchange.sendResponseHeaders(200, body.length);
+				exchange.getResponseBody().write(body);
+			} catch (InterruptedException | IOException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				exchange.close();
+			}
+		});
+		digioStub.start();
+
+		DigioProperties digioProperties = new DigioProperties();
+		digioProperties.setAuthToken("test-token");
+		digioProperties.setEndpoint("http://127.0.0.1:" + digioStub.getAddress().getPort()
+				+ "/client/kyc/v2/request/with_template");
+		RestTemplate restTemplate = new RestTemplate(new DeadlineAwareRequestFactory(5000, 30000));
+		digioService = new DigioService(digioProperties, restTemplate, new JsonCodec(new ObjectMapper()));
+	}
+
+	@AfterEach
+	void tearDown() {
+		RequestDeadline.clear();
+		digioStub.stop(0);
+	}
+
+	@Test
+	void readTimeoutShrinksToRemainingDeadline() {
+		RequestDeadline.set(new RequestDeadline(200));
+
+		long start = System.nanoTime();
+		assertThrows(DigioApiException.class,
+				() -> digioService.createRequest("Jane Doe", "jane@example.com", "aGVsbG8=", null, false));
+
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(elapsedMs < 900, "call should stop at the deadline, took " + elapsedMs + "ms");
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void expiredDeadlineSkipsTheCall() throws InterruptedException {
+		RequestDeadline.set(new RequestDeadline(1));
+		Thread.sleep(5);
+		long before = RequestDeadline.exceededCounts().getOrDefault(RequestDeadline.STAGE_PROVIDER, 0L);
+
+		assertThrows(DeadlineExceededException.class,
+				() -> digioService.createRequest("Jane Doe", "jane@example.com", "aGVsbG8=", null, false));
+
+		assertEquals(0, calls.get());
+		assertEquals(before + 1, RequestDeadline.exceededCounts().get(RequestDeadline.STAGE_PROVIDER));
+	}
+
+	@Test
+	void withoutDeadlineUsesConfiguredTimeouts() {
+		DigioService.DigioResponse response = digioService.createRequest("Jane Doe", "jane@example.com",
+				"aGVsbG8=", null, false);
+
+		assertEquals("KID1", response.getParsed().get("id"));
+	}
+}
@@ -0,0 +1,70 @@
+package com.tvscs.FM.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvscs.FM.config.DigioProperties;
+import com.tvscs.FM.dto.ApiResponse;
+import com.tvscs.FM.dto.RawJson;
+import com.tvscs.FM.utils.JsonCodec;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Streaming field extraction from Digio bodies and raw pass-through into the response envelope.
+ */
+class DigioServiceResponseTest {
+
+	private static final String DIGIO_BODY = "{\"id\":\"KID1\",\"created_at\":\"2026-10-19 10:00:00\","
+			+ "\"status\":\"requested\",\"customer_identifier\":\"jane@example.com\","
+			+ "\"actions\":[{\"id\":\"ACT1\",\"type\":\"image\",\"details\":{\"status\":\"pending\"}}],"
+			+ "\"expire_in_days\":10,\"reminder_registered\":false,"
+			+ "\"access_token\":{\"created_at\":\"2026-10-19 10:00:00\",\"id\":\"GWT1\",\"entity_id\":\"KID1\"},"
+			+ "\"transaction_id\":\"TXN1\",\"reference_id\":\"\"}";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final DigioService digioService = new DigioService(new DigioProperties(), new RestTemplate(), new JsonCodec(objectMapper));
+
+	@Test
+	void extractsOnlyTheFieldsWeUse() throws IOException {
+		Map<String, Object> fields = digioService.extractFields(DIGIO_BODY);
+
+		assertEquals("KID1", fields.get("id"));
+		assertEquals("requested", fields.get("status"));
+		assertEquals("jane@example.com", fields.get("customer_identifier"));
+		assertEquals("TXN1", fields.get("transaction_id"));
+		assertEquals("", fields.get("reference_id"));
+		assertEquals(Map.of("id", "GWT1"), fields.get("access_token"));
+		assertFalse(fields.containsKey("actions"));
+		assertFalse(fields.containsKey("expire_in_days"));
+	}
+
+	@Test
+	void rejectsMalformedBodies() {
+		assertThrows(IOException.class, () -> digioService.extractFields("[\"KID1\"]"));
+		assertThrows(IOException.class, () -> digioService.extractFields("{\"id\":\"KID1\",\"actions\":[}"));
+		assertThrows(IOException.class, () -> digioService.extractFields("{\"id\":\"KID1\"} trailing"));
+	}
+
+	@Test
+	void rawBodyIsSplicedIntoEnvelopeUnchanged() throws Exception {
+		ApiResponse<RawJson> envelope = ApiResponse.<RawJson>builder()
+				.StatusCode(200)
+				.message("Face match request created successfully")
+				.Data(new RawJson(DIGIO_BODY))
+				.build();
+
+		// Responses are written by Spring MVC's Jackson 3 mapper
+		String json = JsonMapper.builder().build().writeValueAsString(envelope);
+
+		assertTrue(json.contains("\"Data\":" + DIGIO_BODY));
+		assertEquals(objectMapper.readTree(DIGIO_BODY), objectMapper.readTree(json).get("Data"));
+	}
+}
@@ -0,0 +1,169 @@
+package com.tvscs.FM.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.exception.ProviderApiException;
+import com.tvscs.FM.models.Outbox;
+import com.tvscs.FM.models.Transaction;
+import com.tvscs.FM.repository.AuditRepository;
+import com.tvscs.FM.repository.OutboxRepository;
+import com.tvscs.FM.repository.TransactionRepository;
+import com.tvscs.FM.services.provider.FaceMatchProvider;
+import com.tvscs.FM.services.provider.ProviderResponse;
+import com.tvscs.FM.services.provider.ProviderRouter;
+import com.tvscs.FM.utils.JsonCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxDispatcherTest {
+
+	private OutboxRepository outboxRepository;
+	private TransactionRepository transactionRepository;
+	private ProviderRouter providerRouter;
+	private OutboxDispatcher dispatcher;
+	private Outbox entry;
+
+	@BeforeEach
+	void setUp() {
+		outboxRepository = mock(OutboxRepository.class);
+		transactionRepository = mock(TransactionRepository.class);
+		providerRouter = mock(ProviderRouter.class);
+		FaceMatchProvider digio = mock(FaceMatchProvider.class);
+		when(digio.getName()).thenReturn("digio");
+		when(digio.getEndpoint()).thenReturn("/client/kyc/v2/request/with_template");
+		when(providerRouter.provider(any())).thenReturn(digio);
+
+		entry = Outbox.builder()
+				.id(7L)
+				.transactionId("tx-1")
+				.customerName("Test Customer")
+				.customerIdentifier("9999999999")
+				.imageBase64("aW1hZ2U=")
+				.notifyCustomer(0)
+				.wantRedirect(0)
+				.status(Outbox.STATUS_PENDING)
+				.attempts(1)
+				.nextAttemptAt(OffsetDateTime.now())
+				.build();
+		when(outboxRepository.findById(7L)).thenReturn(Optional.of(entry));
+		when(outboxRepository.recordResponse(eq(7L), any(), any(), any(), any(), any(), any())).thenReturn(1);
+
+		FmProperties fmProperties = new FmProperties();
+		fmProperties.getOutbox().setMaxAttempts(3);
+		dispatcher = new OutboxDispatcher(outboxRepository, transactionRepository, mock(AuditRepository.class),
+				providerRouter, new PortfolioScheduler(fmProperties), fmProperties,
+				new TransactionTemplate(mock(PlatformTransactionManager.class)),
+				new JsonCodec(new ObjectMapper()), mock(TransactionStatusCache.class));
+	}
+
+	@AfterEach
+	void tearDown() {
+		dispatcher.shutdown();
+	}
+
+	@Test
+	void failedDbStepIsRetriedWithoutCallingTheProviderAgain() {
+		when(providerRouter.createRequest(anyString(), anyString(), anyString(), any(), anyBoolean()))
+				.thenReturn(new ProviderResponse("digio", "KID_1", "requested", null, null, Map.of(), "{\"id\":\"KID_1\"}"));
+		Transaction transaction = Transaction.builder().transactionId("tx-1").status(Transaction.STATUS_PENDING).build();
+		when(transactionRepository.findByTransactionId("tx-1"))
+				.thenThrow(new DataAccessResourceFailureException("pool exhausted"))
+				.thenReturn(Optional.of(transaction));
+
+		dispatcher.dispatch(7L);
+
+		verify(outboxRepository).recordResponse(eq(7L), eq("KID_1"), eq("digio"), eq("requested"), any(), any(), anyLong());
+		assertEquals("KID_1", entry.getVendorId());
+		assertNull(entry.getImageBase64());
+		assertEquals(Outbox.STATUS_PENDING, entry.getStatus());
+		verify(outboxRepository, never()).deleteById(7L);
+
+		entry.setAttempts(2);
+		dispatcher.dispatch(7L);
+
+		verify(providerRouter, times(1)).createRequest(anyString(), anyString(), any(), any(), anyBoolean());
+		assertEquals("KID_1", transaction.getVendorId());
+		assertEquals("digio", transaction.getProvider());
+		verify(outboxRepository).deleteById(7L);
+	}
+
+	@Test
+	void answerWithoutAnIdGivesUpInsteadOfSendingAgain() {
+		when(providerRouter.createRequest(anyString(), anyString(), anyString(), any(), anyBoolean()))
+				.thenReturn(new ProviderResponse("digio", null, null, null, null, Map.of(), "{}"));
+		when(transactionRepository.findByTransactionId("tx-1")).thenReturn(Optional.empty());
+
+		dispatcher.dispatch(7L);
+
+		assertEquals(Outbox.STATUS_FAILED, entry.getStatus());
+		assertNull(entry.getImageBase64());
+		verify(outboxRepository, never()).recordResponse(any(), any(), any(), any(), any(), any(), any());
+	}
+
+	@Test
+	void rejectedRequestDropsTheImageAndMarksTheTransaction() {
+		when(providerRouter.createRequest(anyString(), anyString(), anyString(), any(), anyBoolean()))
+				.thenThrow(new ProviderApiException("bad request", 400, "{}"));
+		Transaction transaction = Transaction.builder().transactionId("tx-1").status(Transaction.STATUS_PENDING).build();
+		when(transactionRepository.findByTransactionId("tx-1")).thenReturn(Optional.of(transaction));
+
+		dispatcher.dispatch(7L);
+
+		assertEquals(Outbox.STATUS_FAILED, entry.getStatus());
+		assertEquals("bad request", entry.getLastError());
+		assertNull(entry.getImageBase64());
+		assertEquals(Transaction.STATUS_DISPATCH_FAILED, transaction.getStatus());
+	}
+
+	@Test
+	void readTimeoutIsNotResentAndMarkedUnknown() {
+		when(providerRouter.createRequest(anyString(), anyString(), anyString(), any(), anyBoolean()))
+				.thenThrow(new ProviderApiException("Error while calling Digio API",
+						new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out"))));
+		Transaction transaction = Transaction.builder().transactionId("tx-1").status(Transaction.STATUS_PENDING).build();
+		when(transactionRepository.findByTransactionId("tx-1")).thenReturn(Optional.of(transaction));
+
+		dispatcher.dispatch(7L);
+
+		assertEquals(Outbox.STATUS_FAILED, entry.getStatus());
+		assertNull(entry.getImageBase64());
+		assertEquals(Transaction.STATUS_DISPATCH_UNKNOWN, transaction.getStatus());
+	}
+
+	@Test
+	void connectFailureIsRetried() {
+		when(providerRouter.createRequest(anyString(), anyString(), anyString(), any(), anyBoolean()))
+				.thenThrow(new ProviderApiException("Error while calling Digio API",
+						new ResourceAccessException("I/O error", new ConnectException("Connection refused"))));
+
+		dispatcher.dispatch(7L);
+
+		assertEquals(Outbox.STATUS_PENDING, entry.getStatus());
+		assertEquals("aW1hZ2U=", entry.getImageBase64());
+		verify(transactionRepository, never()).save(any());
+	}
+}
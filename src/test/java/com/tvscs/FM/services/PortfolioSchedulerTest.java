@@ -0,0 +1,136 @@
+package com.tvscs.FM.services;
+
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.exception.ProviderUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Weighted fair dispatch across portfolios in {@link PortfolioScheduler}.
+ */
+class PortfolioSchedulerTest {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private FmProperties fmProperties;
+
+	@BeforeEach
+	void setUp() {
+		fmProperties = new FmProperties();
+		fmProperties.getScheduler().setSlots(1);
+		fmProperties.getScheduler().setMaxWaitMs(5000);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	private static int queued(PortfolioScheduler scheduler) {
+		return (Integer) scheduler.snapshot().get("queued");
+	}
+
+	private static void awaitQueued(PortfolioScheduler scheduler, int expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+		while (queued(scheduler) < expected && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertEquals(expected, queued(scheduler));
+	}
+
+	/**
+	 * A bulk backlog from one portfolio does not hold back a later request from another.
+	 */
+	@Test
+	void interleavesPortfoliosInsteadOfServingBacklogFirst() throws Exception {
+		PortfolioScheduler scheduler = new PortfolioScheduler(fmProperties);
+		List<String> order = new CopyOnWriteArrayList<>();
+		CountDownLatch blocker = new CountDownLatch(1);
+
+		Future<?> first = executor.submit(() -> scheduler.execute("BULK", () -> await(blocker)));
+		Thread.sleep(50);
+		List<Future<?>> calls = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			calls.add(executor.submit(() -> scheduler.execute("BULK", () -> order.add("BULK"))));
+			awaitQueued(scheduler, i + 1);
+		}
+		calls.add(executor.submit(() -> scheduler.execute("RETAIL", () -> order.add("RETAIL"))));
+		awaitQueued(scheduler, 5);
+
+		blocker.countDown();
+		first.get(2, TimeUnit.SECONDS);
+		for (Future<?> call : calls) {
+			call.get(2, TimeUnit.SECONDS);
+		}
+
+		assertTrue(order.indexOf("RETAIL") <= 1, "RETAIL should not wait behind the BULK backlog: " + order);
+	}
+
+	@Test
+	void dispatchesInProportionToWeights() throws Exception {
+		fmProperties.getScheduler().setWeights(Map.of("HEAVY", 3, "LIGHT", 1));
+		PortfolioScheduler scheduler = new PortfolioScheduler(fmProperties);
+		List<String> order = new CopyOnWriteArrayList<>();
+		CountDownLatch blocker = new CountDownLatch(1);
+
+		Future<?> first = executor.submit(() -> scheduler.execute("OTHER", () -> await(blocker)));
+		Thread.sleep(50);
+		List<Future<?>> calls = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			String portfolio = i % 2 == 0 ? "HEAVY" : "LIGHT";
+			calls.add(executor.submit(() -> scheduler.execute(portfolio, () -> order.add(portfolio))));
+			awaitQueued(scheduler, i + 1);
+		}
+
+		blocker.countDown();
+		first.get(2, TimeUnit.SECONDS);
+		for (Future<?> call : calls) {
+			call.get(2, TimeUnit.SECONDS);
+		}
+
+		long heavyInFirstFour = order.subList(0, 4).stream().filter("HEAVY"::equals).count();
+		assertEquals(3, heavyInFirstFour, "HEAVY should get three of every four slots: " + order);
+	}
+
+	@Test
+	void timesOutWhenNoSlotFrees() throws Exception {
+		fmProperties.getScheduler().setMaxWaitMs(50);
+		PortfolioScheduler scheduler = new PortfolioScheduler(fmProperties);
+		CountDownLatch blocker = new CountDownLatch(1);
+		Future<?> first = executor.submit(() -> scheduler.execute("BULK", () -> await(blocker)));
+		Thread.sleep(50);
+
+		assertThrows(ProviderUnavailableException.class, () -> scheduler.execute("RETAIL", () -> "never"));
+
+		blocker.countDown();
+		first.get(2, TimeUnit.SECONDS);
+		@SuppressWarnings("unchecked")
+		List<Map<String, Object>> portfolios = (List<Map<String, Object>>) scheduler.snapshot().get("portfolios");
+		Map<String, Object> retail = portfolios.stream().filter(p -> "RETAIL".equals(p.get("portfolio"))).findFirst().orElseThrow();
+		assertEquals(1L, retail.get("timedOut"));
+		assertEquals(0, scheduler.snapshot().get("busy"));
+	}
+
+	private static Boolean await(CountDownLatch latch) {
+		try {
+			return latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
@@ -0,0 +1,228 @@
+package com.tvscs.FM.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.services.TransactionStatusCache.Entry;
+import com.tvscs.FM.utils.JsonCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionEventStreamTest {
+
+	private static final Pattern EVENT_ID = Pattern.compile("id:(\\d+)");
+
+	/**
+	 * Records the ids of the status events written to it; can be made to block inside a write.
+	 */
+	static class RecordingEmitter extends SseEmitter {
+		final List<Long> ids = new CopyOnWriteArrayList<>();
+		final CountDownLatch writing = new CountDownLatch(1);
+		volatile CountDownLatch release;
+		volatile boolean ignoreInterrupts;
+
+		RecordingEmitter(long timeoutMs) {
+			super(timeoutMs);
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			writing.countDown();
+			CountDownLatch gate = release;
+			if (gate != null) {
+				block(gate);
+			}
+			StringBuilder text = new StringBuilder();
+			builder.build().forEach(part -> text.append(part.getData()));
+			Matcher matcher = EVENT_ID.matcher(text);
+			if (matcher.find()) {
+				ids.add(Long.parseLong(matcher.group(1)));
+			}
+		}
+
+		private void block(CountDownLatch gate) throws InterruptedIOException {
+			while (true) {
+				try {
+					gate.await();
+					return;
+				} catch (InterruptedException e) {
+					if (!ignoreInterrupts) {
+						throw new InterruptedIOException("write interrupted");
+					}
+				}
+			}
+		}
+	}
+
+	private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+	private TransactionEventStream stream;
+
+	@AfterEach
+	void tearDown() {
+		emitters.forEach(emitter -> {
+			if (emitter.release != null) {
+				emitter.release.countDown();
+			}
+		});
+		if (stream != null) {
+			stream.shutdown();
+		}
+	}
+
+	private TransactionEventStream stream(FmProperties.StatusStream config) {
+		FmProperties properties = new FmProperties();
+		properties.setStatusStream(config);
+		stream = new TransactionEventStream(properties, new JsonCodec(new ObjectMapper())) {
+			@Override
+			SseEmitter newEmitter(long timeoutMs) {
+				RecordingEmitter emitter = new RecordingEmitter(timeoutMs);
+				emitters.add(emitter);
+				return emitter;
+			}
+		};
+		return stream;
+	}
+
+	private static Entry entry(String accountId, String transactionId, String status) {
+		return new Entry(transactionId, "KID_" + transactionId, accountId, status, null, null, null,
+				"\"" + transactionId + "-" + status + "\"", System.nanoTime());
+	}
+
+	private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, message);
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	void replaysEventsAfterLastEventId() throws Exception {
+		TransactionEventStream events = stream(new FmProperties.StatusStream());
+		events.subscribe("acct-1", null);
+		RecordingEmitter live = emitters.get(0);
+		events.publish(entry("acct-1", "tx-1", "requested"));
+		events.publish(entry("acct-1", "tx-1", "approval_pending"));
+		events.publish(entry("acct-1", "tx-1", "approved"));
+		events.publish(entry("acct-2", "tx-2", "approved"));
+		await(() -> live.ids.size() == 3, "live subscriber receives its account's events");
+
+		events.subscribe("acct-1", live.ids.get(0));
+		RecordingEmitter resumed = emitters.get(1);
+
+		assertEquals(live.ids.subList(1, 3), resumed.ids);
+	}
+
+	@Test
+	void dropsSubscriberWhoseBufferOverflows() throws Exception {
+		FmProperties.StatusStream config = new FmProperties.StatusStream();
+		config.setBufferSize(2);
+		config.setSenderThreads(1);
+		TransactionEventStream events = stream(config);
+		events.subscribe("acct-1", null);
+		RecordingEmitter slow = emitters.get(0);
+		slow.release = new CountDownLatch(1);
+
+		events.publish(entry("acct-1", "tx-1", "requested"));
+		assertTrue(slow.writing.await(5, TimeUnit.SECONDS));
+		events.publish(entry("acct-1", "tx-1", "approval_pending"));
+		events.publish(entry("acct-1", "tx-1", "approved"));
+		assertEquals(1, events.getSubscriberCount());
+
+		events.publish(entry("acct-1", "tx-1", "rejected"));
+
+		assertEquals(1, events.getSlowConsumerDrops());
+		assertEquals(0, events.getSubscriberCount());
+	}
+
+	@Test
+	void capsSubscribersPerAccountUnderConcurrentSubscribes() throws Exception {
+		FmProperties.StatusStream config = new FmProperties.StatusStream();
+		config.setMaxSubscribersPerAccount(2);
+		TransactionEventStream events = stream(config);
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> attempts = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			attempts.add(pool.submit(() -> {
+				start.await();
+				try {
+					events.subscribe("acct-1", null);
+					return true;
+				} catch (IllegalStateException e) {
+					return false;
+				}
+			}));
+		}
+		start.countDown();
+		int admitted = 0;
+		for (Future<Boolean> attempt : attempts) {
+			admitted += attempt.get(5, TimeUnit.SECONDS) ? 1 : 0;
+		}
+		pool.shutdown();
+
+		assertEquals(2, admitted);
+		assertEquals(2, events.getSubscriberCount());
+		assertThrows(IllegalStateException.class, () -> events.subscribe("acct-1", null));
+		events.subscribe("acct-2", null);
+	}
+
+	@Test
+	void stuckWriteDoesNotStarveOtherSubscribers() throws Exception {
+		FmProperties.StatusStream config = new FmProperties.StatusStream();
+		config.setSenderThreads(1);
+		config.setSendTimeoutMs(50);
+		TransactionEventStream events = stream(config);
+		events.subscribe("acct-stuck", null);
+		RecordingEmitter stuck = emitters.get(0);
+		stuck.release = new CountDownLatch(1);
+		stuck.ignoreInterrupts = true;
+		events.subscribe("acct-ok", null);
+		RecordingEmitter healthy = emitters.get(1);
+
+		events.publish(entry("acct-stuck", "tx-1", "requested"));
+		assertTrue(stuck.writing.await(5, TimeUnit.SECONDS));
+		Thread.sleep(100);
+		events.heartbeat();
+
+		assertEquals(1, events.getStuckSendDrops());
+		assertEquals(1, events.getSubscriberCount());
+		events.publish(entry("acct-ok", "tx-2", "approved"));
+		await(() -> healthy.ids.size() == 1, "healthy subscriber is served while the stuck write is pending");
+
+		stuck.release.countDown();
+		await(() -> events.getSenderThreads() == 1, "the extra sender is returned once the write completes");
+	}
+
+	@Test
+	void dropsEmptyReplayLogs() throws Exception {
+		FmProperties.StatusStream config = new FmProperties.StatusStream();
+		config.setReplayTtlSeconds(1);
+		TransactionEventStream events = stream(config);
+		events.publish(entry("acct-1", "tx-1", "approved"));
+		assertEquals(1, events.getReplayLogAccounts());
+
+		Thread.sleep(1100);
+		events.heartbeat();
+
+		assertEquals(0, events.getReplayLogAccounts());
+	}
+}
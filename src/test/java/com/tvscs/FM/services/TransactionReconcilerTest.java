@@ -0,0 +1,225 @@
+package com.tvscs.FM.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.tvscs.FM.config.DigioProperties;
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.models.Transaction;
+import com.tvscs.FM.repository.TransactionRepository;
+import com.tvscs.FM.services.provider.DigioFaceMatchProvider;
+import com.tvscs.FM.services.provider.ProviderRouter;
+import com.tvscs.FM.utils.DigioUrlBuilder;
+import com.tvscs.FM.utils.JsonCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs {@link TransactionReconciler} end to end against a local Digio stub, with fm_transactions in H2.
+ */
+class TransactionReconcilerTest {
+
+	private static final Map<String, String> DIGIO_STATUSES = Map.of(
+			"KID_APPROVED", "approved",
+			"KID_UNCHANGED", "requested");
+
+	private HttpServer digioStub;
+	private final List<String> lookedUp = new CopyOnWriteArrayList<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	private JdbcTemplate jdbcTemplate;
+	private DriverManagerDataSource dataSource;
+	private TransactionRepository transactionRepository;
+	private CallbackService callbackService;
+	private ProviderStatusClient providerStatusClient;
+	private TransactionReconciler reconciler;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		digioStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		digioStub.setExecutor(Executors.newFixedThreadPool(8));
+		digioStub.createContext("/client/kyc/v2/", exchange -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				String id = exchange.getRequestURI().getPath().split("/")[4];
+				lookedUp.add(id);
+				Thread.sleep(50);
+				String status = DIGIO_STATUSES.get(id);
+				if (status == null) {
+					exchange.sendResponseHeaders(404, -1);
+					return;
+				}
+				byte[] body = ("{\"id\":\"" + id + "\",\"status\":\"" + status
+						+ "\",\"reference_id\":\"REF-" + id + "\"}").getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().set("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, body.length);
+				exchange.getResponseBody().write(body);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				inFlight.decrementAndGet();
+				exchange.close();
+			}
+		});
+		digioStub.start();
+
+		DigioProperties digioProperties = new DigioProperties();
+		digioProperties.setAuthToken("test-token");
+		digioProperties.setStatusEndpoint("http://127.0.0.1:" + digioStub.getAddress().getPort()
+				+ "/client/kyc/v2/{id}/response");
+
+		FmProperties fmProperties = new FmProperties();
+		fmProperties.getReconciler().setMaxConcurrency(2);
+		fmProperties.getReconciler().setMaxCallsPerSecond(100);
+
+		dataSource = new DriverManagerDataSource("jdbc:h2:mem:reconciler;MODE=Oracle;DB_CLOSE_DELAY=-1");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE fm_transactions (id BIGINT PRIMARY KEY, vendor_id VARCHAR(64), "
+				+ "status VARCHAR(50), vendor_reference_id VARCHAR(64), vendor_transaction_id VARCHAR(64), "
+				+ "next_reconcile_at TIMESTAMP WITH TIME ZONE, reconcile_attempts INT DEFAULT 0 NOT NULL, "
+				+ "updated_at TIMESTAMP WITH TIME ZONE)");
+
+		transactionRepository = mock(TransactionRepository.class);
+		callbackService = mock(CallbackService.class);
+		JsonCodec jsonCodec = new JsonCodec(new ObjectMapper());
+		DigioService digioService = new DigioService(digioProperties, new RestTemplate(), jsonCodec);
+		DigioFaceMatchProvider digio = new DigioFaceMatchProvider(digioService, new DigioUrlBuilder(digioProperties),
+				digioProperties, jsonCodec);
+		providerStatusClient = new ProviderStatusClient(new ProviderRouter(List.of(digio), fmProperties), fmProperties);
+		reconciler = new TransactionReconciler(transactionRepository, providerStatusClient, digioProperties,
+				fmProperties, dataSource, mock(TransactionStatusCache.class), callbackService);
+	}
+
+	@AfterEach
+	void tearDown() {
+		digioStub.stop(0);
+		providerStatusClient.shutdown();
+		jdbcTemplate.execute("DROP TABLE fm_transactions");
+	}
+
+	@Test
+	void appliesDigioStatusesAndExpiresOldTransactions() {
+		List<Transaction> stale = new ArrayList<>();
+		stale.add(transaction(1L, "KID_APPROVED", OffsetDateTime.now().minusDays(2)));
+		stale.add(transaction(2L, "KID_UNCHANGED", OffsetDateTime.now().minusDays(2)));
+		stale.add(transaction(3L, "KID_EXPIRED", OffsetDateTime.now().minusDays(120)));
+		stale.add(transaction(4L, "KID_MISSING", OffsetDateTime.now().minusDays(2)));
+		for (int i = 0; i < 6; i++) {
+			stale.add(transaction(10L + i, "KID_UNCHANGED_" + i, OffsetDateTime.now().minusDays(1)));
+		}
+		when(transactionRepository.findStaleBatch(any(), any(), any(), any())).thenReturn(stale);
+
+		TransactionReconciler.Summary summary = reconciler.run();
+
+		assertEquals(10, summary.scanned());
+		assertEquals(1, summary.updated());
+		assertEquals(1, summary.expired());
+		// KID_MISSING and the six ids the stub does not know
+		assertEquals(7, summary.lookupFailures());
+
+		assertEquals("approved", statusOf(1L));
+		assertEquals("REF-KID_APPROVED", jdbcTemplate.queryForObject(
+				"SELECT vendor_reference_id FROM fm_transactions WHERE id = 1", String.class));
+		assertEquals("requested", statusOf(2L));
+		assertEquals("expired", statusOf(3L));
+		assertEquals("requested", statusOf(4L));
+
+		assertFalse(lookedUp.contains("KID_EXPIRED"), "expired rows must not be looked up");
+		assertTrue(maxInFlight.get() <= 2, "at most 2 concurrent Digio calls, saw " + maxInFlight.get());
+		verify(callbackService, times(2)).enqueue(any());
+	}
+
+	@Test
+	void keepsStatusWrittenByWebhookDuringTheRun() {
+		Transaction transaction = transaction(1L, "KID_APPROVED", OffsetDateTime.now().minusDays(2));
+		when(transactionRepository.findStaleBatch(any(), any(), any(), any())).thenReturn(List.of(transaction));
+		// A webhook lands after the row was read
+		jdbcTemplate.update("UPDATE fm_transactions SET status = 'rejected' WHERE id = 1");
+
+		TransactionReconciler.Summary summary = reconciler.run();
+
+		assertEquals(0, summary.updated());
+		assertEquals("rejected", statusOf(1L));
+	}
+
+	@Test
+	void backsOffRowsThatComeBackUnchanged() {
+		Transaction unchanged = transaction(1L, "KID_UNCHANGED", OffsetDateTime.now().minusDays(2));
+		Transaction missing = transaction(2L, "KID_MISSING", OffsetDateTime.now().minusDays(2));
+		unchanged.setReconcileAttempts(3);
+		when(transactionRepository.findStaleBatch(any(), any(), any(), any())).thenReturn(List.of(unchanged, missing));
+		OffsetDateTime before = OffsetDateTime.now();
+
+		reconciler.run();
+
+		// 30 minutes doubled per earlier lookup: 4h after three, 30m for a first failure
+		assertBackedOff(1L, before.plusMinutes(240), 1);
+		assertBackedOff(2L, before.plusMinutes(30), 1);
+		verify(callbackService, times(0)).enqueue(any());
+	}
+
+	@Test
+	void appliedChangeClearsTheBackoff() {
+		Transaction transaction = transaction(1L, "KID_APPROVED", OffsetDateTime.now().minusDays(2));
+		jdbcTemplate.update("UPDATE fm_transactions SET reconcile_attempts = 4, "
+				+ "next_reconcile_at = CURRENT_TIMESTAMP WHERE id = 1");
+		when(transactionRepository.findStaleBatch(any(), any(), any(), any())).thenReturn(List.of(transaction));
+
+		reconciler.run();
+
+		assertEquals("approved", statusOf(1L));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT reconcile_attempts FROM fm_transactions WHERE id = 1",
+				Integer.class));
+		assertNull(jdbcTemplate.queryForObject("SELECT next_reconcile_at FROM fm_transactions WHERE id = 1",
+				OffsetDateTime.class));
+	}
+
+	private void assertBackedOff(Long id, OffsetDateTime expected, int attempts) {
+		OffsetDateTime next = jdbcTemplate.queryForObject(
+				"SELECT next_reconcile_at FROM fm_transactions WHERE id = ?", OffsetDateTime.class, id);
+		assertTrue(!next.isBefore(expected) && next.isBefore(expected.plusMinutes(1)),
+				"next lookup of " + id + " at " + next + ", expected about " + expected);
+		assertEquals(attempts, jdbcTemplate.queryForObject(
+				"SELECT reconcile_attempts FROM fm_transactions WHERE id = ?", Integer.class, id));
+	}
+
+	private Transaction transaction(Long id, String vendorId, OffsetDateTime createdAt) {
+		jdbcTemplate.update("INSERT INTO fm_transactions (id, vendor_id, status) VALUES (?, ?, 'requested')", id, vendorId);
+		return Transaction.builder()
+				.id(id)
+				.vendorId(vendorId)
+				.status("requested")
+				.transactionId("tx-" + id)
+				.createdAt(createdAt)
+				.build();
+	}
+
+	private String statusOf(Long id) {
+		return jdbcTemplate.queryForObject("SELECT status FROM fm_transactions WHERE id = ?", String.class, id);
+	}
+}
@@ -0,0 +1,131 @@
+package com.tvscs.FM.services;
+
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.models.Transaction;
+import com.tvscs.FM.repository.TransactionRepository;
+import com.tvscs.FM.services.TransactionStatusCache.Entry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Caching, ETags and change notification in {@link TransactionStatusCache}.
+ */
+class TransactionStatusCacheTest {
+
+	private TransactionRepository transactionRepository;
+	private TransactionEventStream eventStream;
+	private FmProperties fmProperties;
+	private TransactionStatusCache cache;
+
+	@BeforeEach
+	void setUp() {
+		transactionRepository = mock(TransactionRepository.class);
+		eventStream = mock(TransactionEventStream.class);
+		fmProperties = new FmProperties();
+		cache = new TransactionStatusCache(transactionRepository, eventStream, fmProperties);
+	}
+
+	static Transaction transaction(String status) {
+		return Transaction.builder()
+				.transactionId("tx-1")
+				.vendorId("KID_1")
+				.accountId("acc-1")
+				.status(status)
+				.build();
+	}
+
+	@Test
+	void servesRepeatedReadsFromCache() {
+		when(transactionRepository.findByTransactionId("tx-1")).thenReturn(Optional.of(transaction("requested")));
+
+		Entry first = cache.getByTransactionId("tx-1");
+		Entry second = cache.getByTransactionId("tx-1");
+		Entry byVendor = cache.getByVendorId("KID_1");
+
+		assertSame(first, second);
+		assertSame(first, byVendor);
+		assertEquals("requested", first.getStatus());
+		verify(transactionRepository, times(1)).findByTransactionId("tx-1");
+		verify(transactionRepository, never()).findByVendorId(any());
+		verify(eventStream, never()).publish(any());
+	}
+
+	@Test
+	void cachesMissingIds() {
+		when(transactionRepository.findByTransactionId("tx-missing")).thenReturn(Optional.empty());
+
+		Entry first = cache.getByTransactionId("tx-missing");
+		Entry second = cache.getByTransactionId("tx-missing");
+
+		assertFalse(first.isFound());
+		assertSame(first, second);
+		verify(transactionRepository, times(1)).findByTransactionId("tx-missing");
+	}
+
+	@Test
+	void reloadsAfterTtl() throws InterruptedException {
+		fmProperties.getStatusCache().setTtlSeconds(1);
+		when(transactionRepository.findByTransactionId("tx-1"))
+				.thenReturn(Optional.of(transaction("requested")))
+				.thenReturn(Optional.of(transaction("approved")));
+
+		Entry first = cache.getByTransactionId("tx-1");
+		Thread.sleep(1100);
+		Entry reloaded = cache.getByTransactionId("tx-1");
+
+		assertEquals("approved", reloaded.getStatus());
+		assertNotEquals(first.getEtag(), reloaded.getEtag());
+		verify(transactionRepository, times(2)).findByTransactionId("tx-1");
+		// A change seen on reload (e.g. written by another node) is still streamed
+		verify(eventStream).publish(reloaded);
+	}
+
+	@Test
+	void etagDependsOnStateOnly() {
+		Entry requested = cache.update(transaction("requested"));
+		Transaction touched = transaction("requested");
+		touched.setUpdatedAt(OffsetDateTime.now());
+
+		assertEquals(requested.getEtag(), cache.update(touched).getEtag());
+		assertNotEquals(requested.getEtag(), cache.update(transaction("approved")).getEtag());
+	}
+
+	@Test
+	void updateCompletesWaitersOnlyOnChange() {
+		Entry current = cache.update(transaction("requested"));
+		CompletableFuture<Entry> change = cache.awaitChange("tx-1", current.getEtag());
+
+		cache.update(transaction("requested"));
+		assertFalse(change.isDone());
+
+		Entry approved = cache.update(transaction("approved"));
+		assertTrue(change.isDone());
+		assertSame(approved, change.getNow(null));
+	}
+
+	@Test
+	void awaitCompletesAtOnceWhenCallerIsAlreadyBehind() throws Exception {
+		cache.update(transaction("approved"));
+
+		CompletableFuture<Entry> change = cache.awaitChange("tx-1", "\"stale\"");
+
+		assertEquals("approved", change.get(1, TimeUnit.SECONDS).getStatus());
+	}
+}
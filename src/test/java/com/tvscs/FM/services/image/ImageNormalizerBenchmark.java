@@ -0,0 +1,68 @@
+package com.tvscs.FM.services.image;
+
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.services.DigioService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound size and latency with and without {@link ImageNormalizer}, over synthetic phone-sized selfies.
+ *
+ * Not part of the unit test run; start it with
+ * {@code mvn test -Dtest=ImageNormalizerBenchmark -Dsurefire.failIfNoSpecifiedTests=false}
+ * or run {@link #main} from the IDE. Upload time is estimated at {@code -Dbench.uplinkMbps} (default 20).
+ */
+public class ImageNormalizerBenchmark {
+
+	private static final int[][] SIZES = {{2304, 1728}, {3264, 2448}, {4000, 3000}};
+	private static final int ITERATIONS = 5;
+
+	@org.junit.jupiter.api.Test
+	void run() throws Exception {
+		main(new String[0]);
+	}
+
+	public static void main(String[] args) throws Exception {
+		double uplinkMbps = Double.parseDouble(System.getProperty("bench.uplinkMbps", "20"));
+		FmProperties properties = new FmProperties();
+		properties.getImage().getNormalize().setEnabled(true);
+		ImageValidator validator = new ImageValidator(properties);
+		ImageNormalizer normalizer = new ImageNormalizer(properties);
+
+		System.out.printf("%-11s %10s %10s %10s %10s %12s %12s%n", "image", "raw KB", "b64 KB",
+				"norm KB", "norm b64", "normalize ms", "total ms");
+		try {
+			for (int[] size : SIZES) {
+				byte[] photo = ImageNormalizerTest.samplePhoto(size[0], size[1], size[0]);
+				ImageMetadata metadata = validator.inspect(photo);
+
+				long bestNanos = Long.MAX_VALUE;
+				ImageNormalizer.Result result = null;
+				for (int i = 0; i < ITERATIONS; i++) {
+					long start = System.nanoTime();
+					result = normalizer.normalize(photo, metadata);
+					bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+				}
+
+				int rawBase64 = DigioService.imageToBase64NoPrefix(photo).length();
+				int normBase64 = DigioService.imageToBase64NoPrefix(result.bytes()).length();
+				long normalizeMs = TimeUnit.NANOSECONDS.toMillis(bestNanos);
+				long uploadBefore = uploadMs(rawBase64, uplinkMbps);
+				long uploadAfter = uploadMs(normBase64, uplinkMbps);
+
+				System.out.printf("%-11s %10d %10d %10d %10d %12d %5d -> %4d%n",
+						size[0] + "x" + size[1], photo.length / 1024, rawBase64 / 1024,
+						result.bytes().length / 1024, normBase64 / 1024, normalizeMs,
+						uploadBefore, normalizeMs + uploadAfter);
+			}
+		} finally {
+			normalizer.shutdown();
+		}
+		System.out.printf("total ms = estimated upload of the base64 payload at %.0f Mbit/s (+ normalize time after)%n",
+				uplinkMbps);
+	}
+
+	private static long uploadMs(int bytes, double uplinkMbps) {
+		return Math.round(bytes * 8 / (uplinkMbps * 1000));
+	}
+}
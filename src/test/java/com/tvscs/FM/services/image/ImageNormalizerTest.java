@@ -0,0 +1,146 @@
+package com.tvscs.FM.services.image;
+
+import com.tvscs.FM.config.FmProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Downscaling and pass-through decisions in {@link ImageNormalizer}.
+ */
+class ImageNormalizerTest {
+
+	private ImageNormalizer normalizer;
+
+	@AfterEach
+	void tearDown() {
+		if (normalizer != null) {
+			normalizer.shutdown();
+		}
+	}
+
+	/**
+	 * Photo-like content: smooth gradients plus sensor-style noise, so JPEG sizes are realistic.
+	 */
+	static byte[] samplePhoto(int width, int height, long seed) throws IOException {
+		Random random = new Random(seed);
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int noise = random.nextInt(24) - 12;
+				int r = clamp(x * 255 / width + noise);
+				int g = clamp(y * 255 / height + noise);
+				int b = clamp((x + y) * 127 / (width + height) + 64 + noise);
+				image.setRGB(x, y, (r << 16) | (g << 8) | b);
+			}
+		}
+		return ImageNormalizer.encodeJpeg(image, 0.92f);
+	}
+
+	/**
+	 * Inserts a big-endian EXIF APP1 segment carrying only the Orientation tag, as phone cameras write
+	 * for a sensor-orientation JPEG.
+	 */
+	static byte[] withOrientation(byte[] jpeg, int orientation) {
+		byte[] app1 = {
+				(byte) 0xFF, (byte) 0xE1, 0, 34,
+				'E', 'x', 'i', 'f', 0, 0,
+				'M', 'M', 0, 0x2A, 0, 0, 0, 8,
+				0, 1,
+				0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+				0, 0, 0, 0};
+		byte[] result = new byte[jpeg.length + app1.length];
+		System.arraycopy(jpeg, 0, result, 0, 2);
+		System.arraycopy(app1, 0, result, 2, app1.length);
+		System.arraycopy(jpeg, 2, result, 2 + app1.length, jpeg.length - 2);
+		return result;
+	}
+
+	private static int clamp(int value) {
+		return Math.max(0, Math.min(255, value));
+	}
+
+	private ImageNormalizer normalizer(boolean enabled, int maxEdge) {
+		FmProperties properties = new FmProperties();
+		properties.getImage().getNormalize().setEnabled(enabled);
+		properties.getImage().getNormalize().setMaxEdge(maxEdge);
+		normalizer = new ImageNormalizer(properties);
+		return normalizer;
+	}
+
+	@Test
+	void downscalesLargeImagesToMaxEdge() throws Exception {
+		byte[] photo = samplePhoto(2400, 1800, 1);
+		ImageMetadata metadata = new ImageValidator(new FmProperties()).inspect(photo);
+
+		ImageNormalizer.Result result = normalizer(true, 800).normalize(photo, metadata);
+
+		assertTrue(result.applied());
+		assertEquals(800, result.width());
+		assertEquals(600, result.height());
+		assertTrue(result.bytes().length < photo.length);
+		BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(result.bytes()));
+		assertEquals(800, decoded.getWidth());
+		assertEquals(600, decoded.getHeight());
+		assertEquals(1, normalizer.getNormalizedCount());
+		assertEquals(result.bytes().length, normalizer.getBytesOut());
+	}
+
+	@Test
+	void passesSmallImagesThrough() throws Exception {
+		byte[] photo = samplePhoto(640, 480, 2);
+		ImageMetadata metadata = new ImageValidator(new FmProperties()).inspect(photo);
+
+		ImageNormalizer.Result result = normalizer(true, 800).normalize(photo, metadata);
+
+		assertFalse(result.applied());
+		assertSame(photo, result.bytes());
+	}
+
+	@Test
+	void passesThroughWhenDisabled() throws Exception {
+		byte[] photo = samplePhoto(2400, 1800, 3);
+		ImageMetadata metadata = new ImageValidator(new FmProperties()).inspect(photo);
+
+		ImageNormalizer.Result result = normalizer(false, 800).normalize(photo, metadata);
+
+		assertFalse(result.applied());
+		assertSame(photo, result.bytes());
+		assertEquals(1, normalizer.getSkippedCount());
+	}
+
+	@Test
+	void rotatesImagesTaggedWithExifOrientation() throws Exception {
+		// Stored landscape with red rising left to right; orientation 6 means turn 90 degrees clockwise
+		byte[] photo = withOrientation(samplePhoto(2400, 1800, 4), 6);
+		assertEquals(6, ImageNormalizer.exifOrientation(photo));
+		ImageMetadata metadata = new ImageValidator(new FmProperties()).inspect(photo);
+
+		ImageNormalizer.Result result = normalizer(true, 800).normalize(photo, metadata);
+
+		assertTrue(result.applied());
+		assertEquals(600, result.width());
+		assertEquals(800, result.height());
+		BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(result.bytes()));
+		assertEquals(600, decoded.getWidth());
+		assertEquals(800, decoded.getHeight());
+		int redTop = (decoded.getRGB(300, 20) >> 16) & 0xFF;
+		int redBottom = (decoded.getRGB(300, 780) >> 16) & 0xFF;
+		assertTrue(redBottom - redTop > 150, "red should now rise top to bottom: " + redTop + " -> " + redBottom);
+	}
+
+	@Test
+	void readsNoOrientationFromPlainJpeg() throws Exception {
+		assertEquals(1, ImageNormalizer.exifOrientation(samplePhoto(64, 48, 5)));
+	}
+}
@@ -0,0 +1,120 @@
+package com.tvscs.FM.services.image;
+
+import com.tvscs.FM.config.FmProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Format sniffing, truncation and dimension checks in {@link ImageValidator}.
+ */
+class ImageValidatorTest {
+
+	private final ImageValidator validator = new ImageValidator(new FmProperties());
+
+	static byte[] encode(String format, int width, int height) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, format, out);
+		return out.toByteArray();
+	}
+
+	@Test
+	void readsJpegHeaderAndFingerprint() throws Exception {
+		byte[] jpeg = encode("jpg", 640, 480);
+
+		ImageValidator.ValidatedImage validated = validator.read(
+				new MockMultipartFile("image", "selfie.jpg", "image/jpeg", jpeg));
+
+		assertArrayEquals(jpeg, validated.bytes());
+		ImageMetadata metadata = validated.metadata();
+		assertEquals("jpeg", metadata.format());
+		assertEquals(640, metadata.width());
+		assertEquals(480, metadata.height());
+		assertEquals(jpeg.length, metadata.sizeBytes());
+		assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(jpeg)), metadata.sha256());
+	}
+
+	@Test
+	void detectsFormatFromContentNotDeclaredType() throws Exception {
+		byte[] png = encode("png", 200, 300);
+
+		ImageMetadata metadata = validator.read(new MockMultipartFile("image", "selfie.jpg", "image/jpeg", png)).metadata();
+
+		assertEquals("png", metadata.format());
+		assertEquals(200, metadata.width());
+		assertEquals(300, metadata.height());
+	}
+
+	@Test
+	void rejectsTruncatedImages() throws Exception {
+		byte[] jpeg = encode("jpg", 640, 480);
+		byte[] png = encode("png", 640, 480);
+
+		assertThrows(IllegalArgumentException.class, () -> validator.inspect(Arrays.copyOf(jpeg, jpeg.length / 2)));
+		assertThrows(IllegalArgumentException.class, () -> validator.inspect(Arrays.copyOf(png, png.length - 4)));
+	}
+
+	@Test
+	void rejectsUnsupportedAndUnknownFormats() throws Exception {
+		IllegalArgumentException gif = assertThrows(IllegalArgumentException.class,
+				() -> validator.inspect(encode("gif", 100, 100)));
+		assertTrue(gif.getMessage().contains("gif"));
+
+		assertThrows(IllegalArgumentException.class, () -> validator.inspect("not an image".getBytes()));
+		assertThrows(IllegalArgumentException.class, () -> validator.inspect(new byte[0]));
+	}
+
+	@Test
+	void enforcesDimensionLimits() throws Exception {
+		FmProperties properties = new FmProperties();
+		properties.getImage().setMaxEdge(1000);
+		ImageValidator strict = new ImageValidator(properties);
+
+		assertThrows(IllegalArgumentException.class, () -> strict.inspect(encode("png", 32, 32)));
+		assertThrows(IllegalArgumentException.class, () -> strict.inspect(encode("png", 1200, 100)));
+	}
+
+	@Test
+	void decodesBase64AndDataUris() throws Exception {
+		byte[] jpeg = encode("jpg", 640, 480);
+		String base64 = Base64.getEncoder().encodeToString(jpeg);
+
+		assertEquals(base64, ImageValidator.stripDataUri("data:image/jpeg;base64," + base64));
+		ImageValidator.ValidatedImage validated = validator.decodeBase64(base64);
+
+		assertArrayEquals(jpeg, validated.bytes());
+		assertEquals("jpeg", validated.metadata().format());
+		assertThrows(IllegalArgumentException.class, () -> validator.decodeBase64("not*base64"));
+		assertThrows(IllegalArgumentException.class, () -> ImageValidator.stripDataUri("data:image/jpeg," + base64));
+	}
+
+	@Test
+	void rejectsOversizedBodiesWithoutReadingThemWhole() throws Exception {
+		FmProperties properties = new FmProperties();
+		properties.getImage().setMaxBytes(DataSize.ofKilobytes(1));
+		ImageValidator strict = new ImageValidator(properties);
+		byte[] photo = ImageNormalizerTest.samplePhoto(320, 240, 1);
+		assertTrue(photo.length > 1024);
+
+		assertThrows(IllegalArgumentException.class, () -> strict.read(new ByteArrayInputStream(photo), -1));
+		assertThrows(IllegalArgumentException.class,
+				() -> strict.decodeBase64(Base64.getEncoder().encodeToString(photo)));
+		assertEquals(photo.length, validator.read(new ByteArrayInputStream(photo), photo.length).metadata().sizeBytes());
+	}
+}
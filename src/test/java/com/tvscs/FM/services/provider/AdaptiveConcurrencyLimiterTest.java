@@ -0,0 +1,182 @@
+package com.tvscs.FM.services.provider;
+
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.exception.ProviderUnavailableException;
+import com.tvscs.FM.utils.JsonCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Limit adjustment and queueing in {@link AdaptiveConcurrencyLimiter}, and its effect on routing
+ * when a provider slows down.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+	private FmProperties.Providers.Limiter config;
+
+	@BeforeEach
+	void setUp() {
+		config = new FmProperties.Providers.Limiter();
+		config.setInitialLimit(4);
+		config.setMinLimit(1);
+		config.setMaxLimit(50);
+		config.setMaxQueueWaitMs(50);
+		config.setMaxQueued(10);
+	}
+
+	private static long ms(long millis) {
+		return TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+	@Test
+	void growsWhileLatencyStaysNearBaseline() throws InterruptedException {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config);
+
+		for (int round = 0; round < 10; round++) {
+			int slots = limiter.getLimit();
+			for (int i = 0; i < slots; i++) {
+				assertTrue(limiter.acquire());
+			}
+			for (int i = 0; i < slots; i++) {
+				limiter.onSuccess(ms(20));
+			}
+		}
+
+		assertTrue(limiter.getLimit() > 4, "limit should grow, was " + limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	void shrinksWhenLatencyRises() throws InterruptedException {
+		config.setInitialLimit(20);
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config);
+		assertTrue(limiter.acquire());
+		limiter.onSuccess(ms(20));
+
+		for (int i = 0; i < 10; i++) {
+			assertTrue(limiter.acquire());
+			limiter.onSuccess(ms(200));
+		}
+
+		assertTrue(limiter.getLimit() < 10, "limit should shrink, was " + limiter.getLimit());
+	}
+
+	@Test
+	void shrinksOnDropsButNotBelowMinimum() throws InterruptedException {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config);
+
+		for (int i = 0; i < 50; i++) {
+			assertTrue(limiter.acquire());
+			limiter.onDropped();
+		}
+
+		assertEquals(1, limiter.getLimit());
+	}
+
+	@Test
+	void rejectsAfterMaxQueueWait() throws InterruptedException {
+		config.setInitialLimit(1);
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config);
+		assertTrue(limiter.acquire());
+
+		long start = System.nanoTime();
+		assertFalse(limiter.acquire());
+
+		assertTrue(System.nanoTime() - start >= ms(45));
+		assertEquals(1, limiter.getRejections());
+		assertTrue(limiter.getQueueWaitMs() > 0);
+	}
+
+	@Test
+	void queuedCallerGetsReleasedSlot() throws Exception {
+		config.setInitialLimit(1);
+		config.setMaxQueueWaitMs(2000);
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config);
+		assertTrue(limiter.acquire());
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Boolean> waiter = executor.submit(limiter::acquire);
+			while (limiter.getQueued() == 0) {
+				Thread.sleep(1);
+			}
+			limiter.onIgnore();
+
+			assertTrue(waiter.get(1, TimeUnit.SECONDS));
+			assertEquals(1, limiter.getInFlight());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Concurrent load against a fake provider whose latency is raised half way: the limit grows while
+	 * the provider is fast, falls back once it slows down, and overflow is rejected instead of queueing.
+	 */
+	@Test
+	void followsInjectedLatencyUnderLoad() throws Exception {
+		FmProperties fmProperties = new FmProperties();
+		fmProperties.getProviders().setDefaultProvider("stub");
+		fmProperties.getProviders().setWeights(new HashMap<>(Map.of("stub", 100)));
+		fmProperties.getProviders().setFailureThreshold(10000);
+		fmProperties.getProviders().setMinCalls(10000);
+		fmProperties.getProviders().setLimiter(config);
+		config.setInitialLimit(2);
+		config.setMaxQueueWaitMs(20);
+		config.setMaxQueued(100);
+
+		FakeFaceMatchProvider stub = new FakeFaceMatchProvider("stub", 5, 0.0,
+				new JsonCodec(JsonCodec.newObjectMapper()));
+		ProviderRouter router = new ProviderRouter(List.of(stub), fmProperties);
+
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		try {
+			runLoad(router, executor, 400);
+			int fastLimit = (Integer) router.snapshot().get(0).get("concurrencyLimit");
+			assertTrue(fastLimit > 2, "limit should grow while fast, was " + fastLimit);
+
+			stub.setLatencyMs(60);
+			int rejected = runLoad(router, executor, 200);
+			int slowLimit = (Integer) router.snapshot().get(0).get("concurrencyLimit");
+			assertTrue(slowLimit < fastLimit, "limit should fall from " + fastLimit + ", was " + slowLimit);
+			assertTrue(rejected > 0);
+			assertTrue((Long) router.snapshot().get(0).get("limiterRejections") >= rejected);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static int runLoad(ProviderRouter router, ExecutorService executor, int requests) throws Exception {
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (int i = 0; i < requests; i++) {
+			results.add(executor.submit(() -> {
+				try {
+					router.createRequest("Jane Doe", "jane@example.com", "aGVsbG8=", null, false);
+					return true;
+				} catch (ProviderUnavailableException e) {
+					return false;
+				}
+			}));
+		}
+		int rejected = 0;
+		for (Future<Boolean> result : results) {
+			if (!result.get(30, TimeUnit.SECONDS)) {
+				rejected++;
+			}
+		}
+		return rejected;
+	}
+}
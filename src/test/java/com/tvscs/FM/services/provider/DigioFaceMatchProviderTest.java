@@ -0,0 +1,61 @@
+package com.tvscs.FM.services.provider;
+
+import com.tvscs.FM.utils.JsonCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Webhook parsing in {@link DigioFaceMatchProvider} against recorded-shape Digio webhook bodies.
+ */
+class DigioFaceMatchProviderTest {
+
+	private final DigioFaceMatchProvider provider = new DigioFaceMatchProvider(null, null, null,
+			new JsonCodec(JsonCodec.newObjectMapper()));
+
+	static byte[] sample(String name) throws IOException {
+		try (InputStream in = DigioFaceMatchProviderTest.class.getResourceAsStream("/webhooks/" + name)) {
+			return in.readAllBytes();
+		}
+	}
+
+	@Test
+	void readsKycRequestFieldsAndSkipsTheRest() throws IOException {
+		WebhookEvent event = provider.parseWebhook(sample("digio-kyc-approved.json"));
+
+		assertEquals("digio", event.getProvider());
+		assertEquals("WHK2610191014ABCDEF", event.getEventId());
+		assertEquals("KYC_REQUEST_APPROVED", event.getEventType());
+		assertEquals("KID2610191011DEF5ZQ9V7MYRZJ3", event.getVendorId());
+		assertEquals("approved", event.getStatus());
+		assertEquals("CRN2026101900042", event.getVendorReferenceId());
+		assertEquals("TXN-7f2c1a9e-5b7d-4f0e-9d3c-2a1e8b6f4c10", event.getVendorTransactionId());
+	}
+
+	@Test
+	void treatsEmptyStringsAsMissing() throws IOException {
+		WebhookEvent event = provider.parseWebhook(sample("digio-kyc-requested.json"));
+
+		assertEquals("requested", event.getStatus());
+		assertNull(event.getVendorReferenceId());
+	}
+
+	@Test
+	void returnsNullWithoutKycRequestId() {
+		assertNull(provider.parseWebhook("{\"id\":\"WHK1\",\"event\":\"PING\"}".getBytes(StandardCharsets.UTF_8)));
+		assertNull(provider.parseWebhook("{\"payload\":{\"kyc_request\":{\"status\":\"approved\"}}}"
+				.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	void rejectsMalformedBodies() {
+		assertThrows(IllegalArgumentException.class,
+				() -> provider.parseWebhook("{\"payload\":".getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,179 @@
+package com.tvscs.FM.services.provider;
+
+import com.tvscs.FM.config.FmProperties;
+import com.tvscs.FM.exception.DigioApiException;
+import com.tvscs.FM.exception.ProviderApiException;
+import com.tvscs.FM.exception.ProviderUnavailableException;
+import com.tvscs.FM.utils.JsonCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Routing, failover and circuit breaking in {@link ProviderRouter}, using in-process fake providers.
+ */
+class ProviderRouterTest {
+
+	private FmProperties fmProperties;
+	private FakeFaceMatchProvider primary;
+	private FakeFaceMatchProvider secondary;
+
+	@BeforeEach
+	void setUp() {
+		fmProperties = new FmProperties();
+		fmProperties.getProviders().setDefaultProvider("primary");
+		fmProperties.getProviders().setFailureThreshold(3);
+		fmProperties.getProviders().setOpenMs(60000);
+		JsonCodec jsonCodec = new JsonCodec(JsonCodec.newObjectMapper());
+		primary = new FakeFaceMatchProvider("primary", 0, 0.0, jsonCodec);
+		secondary = new FakeFaceMatchProvider("secondary", 0, 0.0, jsonCodec);
+	}
+
+	private ProviderRouter router(int primaryWeight, int secondaryWeight) {
+		Map<String, Integer> weights = new HashMap<>();
+		weights.put("primary", primaryWeight);
+		weights.put("secondary", secondaryWeight);
+		fmProperties.getProviders().setWeights(weights);
+		return new ProviderRouter(List.of(primary, secondary), fmProperties);
+	}
+
+	private ProviderResponse create(ProviderRouter router) {
+		return router.createRequest("Jane Doe", "jane@example.com", "aGVsbG8=", null, false);
+	}
+
+	@Test
+	void routesOnlyToProvidersWithWeight() {
+		ProviderRouter router = router(100, 0);
+
+		for (int i = 0; i < 20; i++) {
+			assertEquals("primary", create(router).getProvider());
+		}
+	}
+
+	@Test
+	void failsOverOnRetryableError() {
+		ProviderRouter router = router(100, 1);
+		primary.setFailureRate(1.0);
+
+		for (int i = 0; i < 10; i++) {
+			assertEquals("secondary", create(router).getProvider());
+		}
+	}
+
+	@Test
+	void opensCircuitAfterConsecutiveFailures() {
+		ProviderRouter router = router(100, 1);
+		primary.setFailureRate(1.0);
+		for (int i = 0; i < 10; i++) {
+			create(router);
+		}
+
+		Map<String, Object> primaryStats = router.snapshot().get(0);
+		assertEquals("OPEN", primaryStats.get("circuit"));
+		// Calls stop once the circuit is open, so failures stay at the threshold
+		assertEquals(3L, primaryStats.get("failures"));
+	}
+
+	@Test
+	void clientErrorsAreNotRetriedOrCounted() {
+		ProviderRouter router = router(100, 0);
+
+		assertThrows(IllegalArgumentException.class,
+				() -> router.createRequest("", "jane@example.com", "aGVsbG8=", null, false));
+		assertEquals(0L, router.snapshot().get(0).get("failures"));
+	}
+
+	@Test
+	void throwsWhenEveryProviderFails() {
+		ProviderRouter router = router(100, 100);
+		primary.setFailureRate(1.0);
+		secondary.setFailureRate(1.0);
+
+		assertThrows(ProviderUnavailableException.class, () -> create(router));
+	}
+
+	@Test
+	void nullProviderNameMeansDefault() {
+		ProviderRouter router = router(100, 100);
+
+		assertEquals("primary", router.provider(null).getName());
+		assertThrows(IllegalArgumentException.class, () -> router.provider("unknown"));
+	}
+
+	private static ProviderApiException ioFailure(IOException cause) {
+		return new DigioApiException("Error while calling Digio API", new ResourceAccessException("I/O error", cause));
+	}
+
+	/** A provider that always fails with {@code error}; never picked second against a weight of 1. */
+	private ProviderRouter routerWithFailingPrimary(RuntimeException error) {
+		FaceMatchProvider failing = mock(FaceMatchProvider.class);
+		when(failing.getName()).thenReturn("primary");
+		when(failing.createRequest(anyString(), anyString(), anyString(), any(), anyBoolean())).thenThrow(error);
+		Map<String, Integer> weights = new HashMap<>();
+		weights.put("primary", 1_000_000);
+		weights.put("secondary", 1);
+		fmProperties.getProviders().setWeights(weights);
+		return new ProviderRouter(List.of(failing, secondary), fmProperties);
+	}
+
+	@Test
+	void failsOverWhenTheRequestNeverReachedTheProvider() {
+		ProviderRouter router = routerWithFailingPrimary(ioFailure(new ConnectException("Connection refused")));
+
+		assertEquals("secondary", create(router).getProvider());
+	}
+
+	@Test
+	void readTimeoutIsNotFailedOverButCounted() {
+		ProviderApiException timeout = ioFailure(new SocketTimeoutException("Read timed out"));
+		ProviderRouter router = routerWithFailingPrimary(timeout);
+
+		assertSame(timeout, assertThrows(ProviderApiException.class, () -> create(router)));
+		assertEquals(1L, router.snapshot().get(0).get("failures"));
+		assertEquals(0L, router.snapshot().get(1).get("calls"));
+	}
+
+	@Test
+	void serverErrorOtherThan503IsNotFailedOver() {
+		ProviderRouter router = routerWithFailingPrimary(new ProviderApiException("boom", 500, "{}"));
+
+		assertThrows(ProviderApiException.class, () -> create(router));
+		assertEquals(1L, router.snapshot().get(0).get("failures"));
+		assertEquals(0L, router.snapshot().get(1).get("calls"));
+	}
+
+	@Test
+	void classifiesFailuresByWhetherTheProviderCouldHaveActed() {
+		assertTrue(ProviderRouter.isRetryable(ioFailure(new ConnectException("Connection refused"))));
+		assertTrue(ProviderRouter.isRetryable(ioFailure(new SocketTimeoutException("Connect timed out"))));
+		assertTrue(ProviderRouter.isRetryable(new ProviderApiException("throttled", 429, null)));
+		assertTrue(ProviderRouter.isRetryable(new ProviderApiException("unavailable", 503, null)));
+		assertTrue(ProviderRouter.isRetryable(new ProviderUnavailableException("all failed", null)));
+
+		ProviderApiException readTimeout = ioFailure(new SocketTimeoutException("Read timed out"));
+		assertFalse(ProviderRouter.isRetryable(readTimeout));
+		assertTrue(ProviderRouter.isOutcomeUnknown(readTimeout));
+		assertFalse(ProviderRouter.isRetryable(new ProviderApiException("boom", 500, null)));
+		assertFalse(ProviderRouter.isRetryable(new ProviderApiException("bad request", 400, null)));
+		assertFalse(ProviderRouter.isRetryable(new IllegalStateException("unexpected")));
+		assertFalse(ProviderRouter.isOutcomeUnknown(ioFailure(new ConnectException("Connection refused"))));
+	}
+}
@@ -0,0 +1,74 @@
+package com.tvscs.FM.services.provider;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tvscs.FM.utils.JsonCodec;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * Time and allocation per webhook: binding the whole body to a Map (the previous controller path)
+ * versus {@link DigioFaceMatchProvider#parseWebhook}, over the recorded-shape samples in
+ * src/test/resources/webhooks.
+ *
+ * Not part of the unit test run; start it with
+ * {@code mvn test -Dtest=WebhookParsingBenchmark -Dsurefire.failIfNoSpecifiedTests=false}
+ * or run {@link #main} from the IDE.
+ */
+public class WebhookParsingBenchmark {
+
+	private static final String[] SAMPLES = {"digio-kyc-requested.json", "digio-kyc-approved.json"};
+	private static final int WARMUP = 20_000;
+	private static final int ITERATIONS = 50_000;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final DigioFaceMatchProvider PROVIDER = new DigioFaceMatchProvider(null, null, null,
+			new JsonCodec(JsonCodec.newObjectMapper()));
+
+	private interface Parser {
+		Object parse(byte[] body) throws Exception;
+	}
+
+	@org.junit.jupiter.api.Test
+	void run() throws Exception {
+		main(new String[0]);
+	}
+
+	public static void main(String[] args) throws Exception {
+		System.out.printf("%-26s %8s %-6s %10s %12s%n", "sample", "bytes", "mode", "us/op", "alloc B/op");
+		for (String sample : SAMPLES) {
+			byte[] body = DigioFaceMatchProviderTest.sample(sample);
+			measure(sample, body, "map", WebhookParsingBenchmark::parseAsMap);
+			measure(sample, body, "stream", PROVIDER::parseWebhook);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object parseAsMap(byte[] body) throws Exception {
+		Map<String, Object> payload = MAPPER.readValue(body, new TypeReference<Map<String, Object>>() {});
+		Map<String, Object> inner = (Map<String, Object>) payload.get("payload");
+		Map<String, Object> kycRequest = (Map<String, Object>) inner.get("kyc_request");
+		return kycRequest.get("id");
+	}
+
+	private static void measure(String sample, byte[] body, String mode, Parser parser) throws Exception {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Object sink = null;
+		for (int i = 0; i < WARMUP; i++) {
+			sink = parser.parse(body);
+		}
+		long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			sink = parser.parse(body);
+		}
+		long elapsed = System.nanoTime() - start;
+		long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+		if (sink == null) {
+			throw new IllegalStateException("Sample did not parse: " + sample);
+		}
+		System.out.printf("%-26s %8d %-6s %10.2f %12d%n", sample, body.length, mode,
+				elapsed / 1000.0 / ITERATIONS, allocated / ITERATIONS);
+	}
+}
@@ -0,0 +1,128 @@
+package com.tvscs.FM.utils;
+
+import com.tvscs.FM.utils.AdmissionQueue.Priority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Priority ordering and queue-time shedding in {@link AdmissionQueue}.
+ */
+class AdmissionQueueTest {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	private static void awaitQueued(AdmissionQueue queue, int expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+		while (queue.getQueued() < expected && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertEquals(expected, queue.getQueued());
+	}
+
+	@Test
+	void admitsUpToLimitWithoutWaiting() throws InterruptedException {
+		AdmissionQueue queue = new AdmissionQueue(2, 10, 10, 100);
+
+		assertTrue(queue.admit(Priority.LOW));
+		assertTrue(queue.admit(Priority.LOW));
+		assertEquals(2, queue.getActive());
+
+		queue.release();
+		queue.release();
+		assertEquals(0, queue.getActive());
+	}
+
+	@Test
+	void releasedSlotGoesToHighestPriorityFirst() throws Exception {
+		AdmissionQueue queue = new AdmissionQueue(1, 10, 2000, 5000);
+		assertTrue(queue.admit(Priority.NORMAL));
+
+		List<Priority> order = new CopyOnWriteArrayList<>();
+		Future<?> low = executor.submit(() -> admitAndRecord(queue, Priority.LOW, order));
+		awaitQueued(queue, 1);
+		Future<?> normal = executor.submit(() -> admitAndRecord(queue, Priority.NORMAL, order));
+		awaitQueued(queue, 2);
+		Future<?> high = executor.submit(() -> admitAndRecord(queue, Priority.HIGH, order));
+		awaitQueued(queue, 3);
+
+		queue.release();
+		low.get(2, TimeUnit.SECONDS);
+		normal.get(2, TimeUnit.SECONDS);
+		high.get(2, TimeUnit.SECONDS);
+
+		assertEquals(List.of(Priority.HIGH, Priority.NORMAL, Priority.LOW), order);
+		assertEquals(0, queue.getActive());
+	}
+
+	private static Void admitAndRecord(AdmissionQueue queue, Priority priority, List<Priority> order) throws Exception {
+		assertTrue(queue.admit(priority));
+		order.add(priority);
+		queue.release();
+		return null;
+	}
+
+	@Test
+	void shedsAfterIntervalWhenQueueIsNotStanding() throws InterruptedException {
+		AdmissionQueue queue = new AdmissionQueue(1, 10, 10, 100);
+		assertTrue(queue.admit(Priority.NORMAL));
+
+		long start = System.nanoTime();
+		assertFalse(queue.admit(Priority.NORMAL));
+
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(95));
+		assertEquals(1, queue.getShed());
+		assertEquals(0, queue.getQueued());
+	}
+
+	@Test
+	void shedsAtTargetUnderStandingQueue() throws Exception {
+		AdmissionQueue queue = new AdmissionQueue(1, 10, 10, 200);
+		assertTrue(queue.admit(Priority.NORMAL));
+
+		// Two overlapping waiters keep the queue non-empty for longer than the interval
+		Future<Boolean> first = executor.submit(() -> queue.admit(Priority.HIGH));
+		awaitQueued(queue, 1);
+		Thread.sleep(120);
+		Future<Boolean> second = executor.submit(() -> queue.admit(Priority.HIGH));
+		awaitQueued(queue, 2);
+		Thread.sleep(120);
+
+		long start = System.nanoTime();
+		assertFalse(queue.admit(Priority.LOW));
+		long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(waitedMs < 60, "should be shed at target under a standing queue, waited " + waitedMs + "ms");
+
+		queue.release();
+		assertFalse(first.get(2, TimeUnit.SECONDS));
+		assertTrue(second.get(2, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void shedsImmediatelyWhenQueueIsFull() throws Exception {
+		AdmissionQueue queue = new AdmissionQueue(1, 1, 1000, 1000);
+		assertTrue(queue.admit(Priority.NORMAL));
+		Future<Boolean> waiting = executor.submit(() -> queue.admit(Priority.NORMAL));
+		awaitQueued(queue, 1);
+
+		assertFalse(queue.admit(Priority.HIGH));
+
+		queue.release();
+		assertTrue(waiting.get(2, TimeUnit.SECONDS));
+	}
+}
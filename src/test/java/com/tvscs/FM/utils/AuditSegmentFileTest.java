@@ -0,0 +1,142 @@
+package com.tvscs.FM.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trip from {@link AuditSegmentFile.Writer} through the segment index to {@link AuditSegmentFile#scan}.
+ */
+class AuditSegmentFileTest {
+
+	private static final OffsetDateTime START = OffsetDateTime.of(2026, 10, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@TempDir
+	Path directory;
+
+	/** Rows 0..9 one minute apart; even rows belong to acc-even, odd rows to acc-odd, blocks of 3. */
+	private AuditSegmentFile.SegmentIndex writeSegment(String name) throws IOException {
+		try (AuditSegmentFile.Writer writer = new AuditSegmentFile.Writer(directory, name, objectMapper, 3)) {
+			for (int i = 0; i < 10; i++) {
+				OffsetDateTime createdAt = START.plusMinutes(i);
+				String accountId = i % 2 == 0 ? "acc-even" : "acc-odd";
+				Map<String, Object> row = new LinkedHashMap<>();
+				row.put("id", i);
+				row.put("account_id", accountId);
+				row.put("created_at", createdAt.toString());
+				writer.append(row, createdAt.toInstant().toEpochMilli(), accountId);
+			}
+			assertEquals(10, writer.getRows());
+			return writer.commit();
+		}
+	}
+
+	private static List<Integer> ids(List<Map<String, Object>> rows) {
+		return rows.stream().map(row -> ((Number) row.get("id")).intValue()).toList();
+	}
+
+	@Test
+	void writtenRowsReadBackInOrder() throws IOException {
+		writeSegment("seg-1");
+
+		List<Map<String, Object>> rows = AuditSegmentFile.scan(directory, objectMapper,
+				START, START.plusHours(1), null, 100);
+
+		assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), ids(rows));
+		assertEquals("acc-odd", rows.get(1).get("account_id"));
+	}
+
+	@Test
+	void indexDescribesEveryBlock() throws IOException {
+		AuditSegmentFile.SegmentIndex index = writeSegment("seg-1");
+
+		assertEquals(10, index.getRows());
+		assertEquals(START.toInstant().toEpochMilli(), index.getMinCreatedAt());
+		assertEquals(START.plusMinutes(9).toInstant().toEpochMilli(), index.getMaxCreatedAt());
+		assertEquals(Set.of("acc-even", "acc-odd"), index.getAccountIds());
+		assertEquals(List.of(3, 3, 3, 1), index.getBlocks().stream().map(AuditSegmentFile.BlockIndex::getRows).toList());
+		long offset = 0;
+		for (AuditSegmentFile.BlockIndex block : index.getBlocks()) {
+			assertEquals(offset, block.getOffset());
+			offset += block.getLength();
+		}
+		assertEquals(offset, Files.size(directory.resolve("seg-1" + AuditSegmentFile.DATA_SUFFIX)));
+
+		AuditSegmentFile.SegmentIndex stored = objectMapper.readValue(
+				directory.resolve("seg-1" + AuditSegmentFile.INDEX_SUFFIX).toFile(), AuditSegmentFile.SegmentIndex.class);
+		assertEquals(index, stored);
+	}
+
+	@Test
+	void filtersByTimeRangeAndAccount() throws IOException {
+		writeSegment("seg-1");
+
+		assertEquals(List.of(2, 3, 4), ids(AuditSegmentFile.scan(directory, objectMapper,
+				START.plusMinutes(2), START.plusMinutes(5), null, 100)));
+		assertEquals(List.of(1, 3, 5, 7, 9), ids(AuditSegmentFile.scan(directory, objectMapper,
+				START, START.plusHours(1), "acc-odd", 100)));
+		assertEquals(List.of(4, 6), ids(AuditSegmentFile.scan(directory, objectMapper,
+				START.plusMinutes(3), START.plusMinutes(7), "acc-even", 100)));
+		assertEquals(List.of(0, 1), ids(AuditSegmentFile.scan(directory, objectMapper,
+				START, START.plusHours(1), null, 2)));
+		assertTrue(AuditSegmentFile.scan(directory, objectMapper,
+				START.plusHours(1), START.plusHours(2), null, 100).isEmpty());
+		assertTrue(AuditSegmentFile.scan(directory, objectMapper,
+				START, START.plusHours(1), "acc-other", 100).isEmpty());
+	}
+
+	@Test
+	void skipsBlocksTheIndexRulesOut() throws IOException {
+		AuditSegmentFile.SegmentIndex index = writeSegment("seg-1");
+		// Corrupt the first block; a scan that the index keeps away from it must not notice
+		AuditSegmentFile.BlockIndex first = index.getBlocks().get(0);
+		try (FileChannel channel = FileChannel.open(directory.resolve("seg-1" + AuditSegmentFile.DATA_SUFFIX),
+				StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[first.getLength()]), first.getOffset());
+		}
+
+		assertEquals(List.of(6, 7, 8, 9), ids(AuditSegmentFile.scan(directory, objectMapper,
+				START.plusMinutes(6), START.plusHours(1), null, 100)));
+	}
+
+	@Test
+	void readsAcrossSegmentsAndIgnoresUncommittedOnes() throws IOException {
+		writeSegment("seg-1");
+		try (AuditSegmentFile.Writer writer = new AuditSegmentFile.Writer(directory, "seg-2", objectMapper, 3)) {
+			Map<String, Object> row = Map.of("id", 100, "account_id", "acc-even", "created_at", START.toString());
+			writer.append(row, START.toInstant().toEpochMilli(), "acc-even");
+		}
+		assertFalse(Files.exists(directory.resolve("seg-2" + AuditSegmentFile.DATA_SUFFIX + ".tmp")));
+
+		try (AuditSegmentFile.Writer writer = new AuditSegmentFile.Writer(directory, "seg-3", objectMapper, 3)) {
+			OffsetDateTime createdAt = START.plusMinutes(30);
+			writer.append(Map.of("id", 200, "account_id", "acc-odd", "created_at", createdAt.toString()),
+					createdAt.toInstant().toEpochMilli(), "acc-odd");
+			writer.commit();
+		}
+
+		assertEquals(List.of(1, 3, 5, 7, 9, 200), ids(AuditSegmentFile.scan(directory, objectMapper,
+				START, START.plusHours(1), "acc-odd", 100)));
+		assertEquals(List.of(0, 2, 4, 6, 8), ids(AuditSegmentFile.scan(directory, objectMapper,
+				START, START.plusHours(1), "acc-even", 100)));
+	}
+}
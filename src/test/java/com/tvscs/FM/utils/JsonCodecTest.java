@@ -0,0 +1,45 @@
+package com.tvscs.FM.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Shared writers in {@link JsonCodec}.
+ */
+class JsonCodecTest {
+
+	private final JsonCodec codec = new JsonCodec(JsonCodec.newObjectMapper());
+
+	@Test
+	void writesFilterErrorBodyToTheResponseStream() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		codec.writeError(response, 503, "Service Unavailable", "Server busy, retry later", "/api/v1/face-match");
+
+		assertEquals(503, response.getStatus());
+		assertEquals("application/json", response.getContentType());
+		JsonNode body = new ObjectMapper().readTree(response.getContentAsByteArray());
+		assertEquals(503, body.get("status").asInt());
+		assertEquals("Service Unavailable", body.get("error").asText());
+		assertEquals("Server busy, retry later", body.get("message").asText());
+		assertEquals("/api/v1/face-match", body.get("path").asText());
+	}
+
+	@Test
+	void bytesAndStringEncodingsAgree() throws Exception {
+		Map<String, Object> document = new LinkedHashMap<>();
+		document.put("customer_name", "Zoë Ångström");
+		document.put("front_part", "aGVsbG8=");
+
+		assertArrayEquals(codec.writeString(document).getBytes(StandardCharsets.UTF_8), codec.writeBytes(document));
+	}
+}
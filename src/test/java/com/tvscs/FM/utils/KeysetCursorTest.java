@@ -0,0 +1,54 @@
+package com.tvscs.FM.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Encoding and decoding of {@link KeysetCursor} tokens.
+ */
+class KeysetCursorTest {
+
+	private static String token(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void roundTripsPositionWithOffsetAndNanos() {
+		KeysetCursor cursor = new KeysetCursor(
+				OffsetDateTime.of(2026, 10, 19, 9, 30, 15, 123456789, ZoneOffset.ofHoursMinutes(5, 30)), 42L);
+
+		String token = cursor.encode();
+
+		assertEquals(cursor, KeysetCursor.decode(token));
+		assertFalse(token.contains("=") || token.contains("+") || token.contains("/"), "token is URL-safe: " + token);
+	}
+
+	@Test
+	void rejectsMalformedTokensWithOneMessage() {
+		for (String bad : new String[]{"not base64!", token("no-separator"), token("yesterday|1"),
+				token("2026-10-19T00:00Z|abc")}) {
+			IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+					() -> KeysetCursor.decode(bad), bad);
+			assertEquals("Invalid cursor", error.getMessage());
+		}
+	}
+
+	@Test
+	void blankTokenMeansStart() {
+		KeysetCursor start = new KeysetCursor(OffsetDateTime.of(2026, 10, 1, 0, 0, 0, 0, ZoneOffset.UTC), 0L);
+		KeysetCursor cursor = new KeysetCursor(start.createdAt().plusHours(1), 7L);
+
+		assertSame(start, KeysetCursor.decodeOr(null, start));
+		assertSame(start, KeysetCursor.decodeOr("  ", start));
+		assertEquals(cursor, KeysetCursor.decodeOr(" " + cursor.encode() + " ", start));
+	}
+}
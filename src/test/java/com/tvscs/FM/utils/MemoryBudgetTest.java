@@ -0,0 +1,62 @@
+package com.tvscs.FM.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reservation, release and waiting in {@link MemoryBudget}.
+ */
+class MemoryBudgetTest {
+
+	private static final long MB = 1024 * 1024;
+
+	@Test
+	void reservesUntilBudgetIsSpent() throws InterruptedException {
+		MemoryBudget budget = new MemoryBudget(10 * MB);
+
+		long first = budget.reserve(6 * MB, 0);
+		long second = budget.reserve(6 * MB, 10);
+
+		assertEquals(6 * MB, first);
+		assertEquals(0, second);
+		assertEquals(1, budget.getRejections());
+		assertEquals(4 * MB, budget.getAvailableBytes());
+
+		budget.release(first);
+		assertEquals(10 * MB, budget.getAvailableBytes());
+	}
+
+	@Test
+	void waitingReservationProceedsOnRelease() throws Exception {
+		MemoryBudget budget = new MemoryBudget(10 * MB);
+		long held = budget.reserve(8 * MB, 0);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Long> waiting = executor.submit(() -> budget.reserve(5 * MB, 2000));
+			Thread.sleep(50);
+			budget.release(held);
+
+			assertEquals(5 * MB, waiting.get(1, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void oversizedReservationIsCappedAtTotal() throws InterruptedException {
+		MemoryBudget budget = new MemoryBudget(10 * MB);
+
+		long reserved = budget.reserve(50 * MB, 0);
+
+		assertEquals(10 * MB, reserved);
+		budget.release(reserved);
+		assertEquals(10 * MB, budget.getAvailableBytes());
+	}
+}